@@ -0,0 +1,267 @@
+package lu.hrs.mirth.migration;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONPathQuery;
+import org.json.XML;
+
+/**
+ * Measures the analysis hot paths of {@link MirthMigrator} against a synthetic configuration (see {@link SyntheticMirthExport}).<br/>
+ * <br/>
+ * Usage (the Mirth Migrator classes, Rhino, slf4j and commons-io have to be on the class path):
+ *
+ * <pre>
+ * java lu.hrs.mirth.migration.MirthMigratorBenchmark [--channels=200] [--connectors=4] [--scriptLines=60] [--codeTemplates=100]
+ *      [--functions=3] [--calls=4] [--seed=42] [--warmup=5] [--iterations=20] [--filter=&lt;part of benchmark name&gt;]
+ * </pre>
+ *
+ * Each benchmark is executed for a number of warm-up iterations followed by the measured iterations. The mean, median, 90th percentile and
+ * maximum duration of the measured iterations are reported.
+ */
+public class MirthMigratorBenchmark {
+
+	/** The analysis methods are private and are thus accessed via reflection */
+	private final static String[] benchmarkedMethods = { "prepareForFunctionParsing", "buildUpCodeTemplateRelationships",
+			"buildUpTemplateToTemplateRelationships", "getCodeTemplateDescription", "createReturnValue" };
+
+	private final MirthMigrator client;
+	private final HashMap<String, Method> methods = new HashMap<String, Method>();
+	private final SyntheticMirthExport export;
+	/** The channels as separate configurations */
+	private final ArrayList<String> channels = new ArrayList<String>();
+	/** The attributes of the code templates as queried for metadata generation */
+	private final ArrayList<JSONArray> codeTemplates = new ArrayList<JSONArray>();
+
+	public MirthMigratorBenchmark(SyntheticMirthExport export) throws Exception {
+		this.export = export;
+
+		// a client that is never connected - the analysis works on the provided configuration
+		Constructor<MirthMigrator> constructor = MirthMigrator.class.getDeclaredConstructor(String.class, String.class, String.class, int.class,
+				String.class, String.class, String.class);
+		constructor.setAccessible(true);
+		this.client = constructor.newInstance("benchmark", "benchmark", "localhost", 8443, "admin", "admin", "synthetic system");
+
+		for (Method method : MirthMigrator.class.getDeclaredMethods()) {
+			if (Arrays.asList(benchmarkedMethods).contains(method.getName())) {
+				method.setAccessible(true);
+				methods.put(method.getName(), method);
+			}
+		}
+
+		// split the configuration into single components
+		for (XmlNode channel : XmlNode.parse(export.getChannels()).getChildren()) {
+			channels.add(channel.toString());
+		}
+		JSONObject list = XML.toJSONObject(export.getCodeTemplates()).getJSONObject("list");
+		JSONArray codeTemplateList = (list.get("codeTemplate") instanceof JSONArray) ? list.getJSONArray("codeTemplate")
+				: new JSONArray().put(list.get("codeTemplate"));
+		Field codeTemplateQuery = MirthMigrator.class.getDeclaredField("codeTemplateQuery");
+		codeTemplateQuery.setAccessible(true);
+		for (Object codeTemplate : codeTemplateList) {
+			codeTemplates.add(((JSONPathQuery) codeTemplateQuery.get(null)).queryFrom(codeTemplate));
+		}
+	}
+
+	/**
+	 * Assembles all benchmarks. Every benchmark returns a value that depends on the work done to prevent the JIT from eliminating it.
+	 *
+	 * @return The benchmarks by name
+	 */
+	private LinkedHashMap<String, Benchmark> createBenchmarks() {
+		LinkedHashMap<String, Benchmark> benchmarks = new LinkedHashMap<String, Benchmark>();
+		MirthVersion sourceVersion = new MirthVersion(SyntheticMirthExport.getMirthVersion());
+		MirthVersion targetVersion = new MirthVersion("4.5.2");
+
+		benchmarks.put("XML.toJSONObject(channels)", () -> XML.toJSONObject(export.getChannels()).length());
+		benchmarks.put("XML.toJSONObject(codeTemplates)", () -> XML.toJSONObject(export.getCodeTemplates()).length());
+		benchmarks.put("prepareForFunctionParsing(channel)", () -> {
+			int length = 0;
+			for (String channel : channels) {
+				length += ((String) invoke("prepareForFunctionParsing", channel)).length();
+			}
+			return length;
+		});
+		benchmarks.put("buildUpCodeTemplateRelationships", () -> {
+			// the method fills caches that are usually prepared by getChannelInfo()
+			setField("channelFunctionReferences", new HashMap<String, ArrayList<String>>());
+			setField("channelReferencesToFunction", new HashMap<String, Object>());
+			setField("channelInternalFunctionsByChannelId", new HashMap<String, ArrayList<String>>());
+			invoke("buildUpCodeTemplateRelationships", export.getChannels());
+			return ((Map<?, ?>) getField("channelReferencesToFunction")).size();
+		});
+		benchmarks.put("buildUpTemplateToTemplateRelationships", () -> {
+			invoke("buildUpTemplateToTemplateRelationships", export.getCodeTemplates());
+			return ((Map<?, ?>) getField("functionUsesFunctions")).size();
+		});
+		benchmarks.put("convert(channel)", () -> {
+			int length = 0;
+			for (String channel : channels) {
+				length += MirthMigrator.convert(channel, sourceVersion, targetVersion).length();
+			}
+			return length;
+		});
+		benchmarks.put("getCodeTemplateDescription", () -> {
+			int count = 0;
+			int function = 0;
+			for (JSONArray codeTemplate : codeTemplates) {
+				for (int index = 0; index < export.getFunctionNames().size() / Math.max(1, codeTemplates.size()); index++) {
+					Object description = invoke("getCodeTemplateDescription", codeTemplate, export.getFunctionNames().get(function++) + "()");
+					count += (description != null) ? 1 : 0;
+				}
+			}
+			return count;
+		});
+		benchmarks.put("createReturnValue(codeTemplates)", () -> {
+			JSONObject payload = XML.toJSONObject(export.getCodeTemplates());
+			return String.valueOf(invoke("createReturnValue", 200, payload)).length();
+		});
+
+		return benchmarks;
+	}
+
+	/**
+	 * Runs all benchmarks whose name contains the filter and prints the results
+	 *
+	 * @param filter
+	 *            Only benchmarks containing this text are executed (null for all)
+	 * @param warmup
+	 *            The number of warm-up iterations
+	 * @param iterations
+	 *            The number of measured iterations
+	 * @throws Exception
+	 */
+	public void run(String filter, int warmup, int iterations) throws Exception {
+		System.out.println("Configuration: " + export.describe());
+		System.out.println(String.format("Size: channels %,d chars, code templates %,d chars", export.getChannels().length(),
+				export.getCodeTemplates().length()));
+		System.out.println(String.format("%-42s %10s %10s %10s %10s", "Benchmark", "mean [ms]", "p50 [ms]", "p90 [ms]", "max [ms]"));
+
+		long blackhole = 0;
+		for (Map.Entry<String, Benchmark> benchmark : createBenchmarks().entrySet()) {
+			if ((filter != null) && !benchmark.getKey().contains(filter)) {
+				continue;
+			}
+
+			for (int iteration = 0; iteration < warmup; iteration++) {
+				blackhole += benchmark.getValue().execute();
+			}
+
+			long[] durations = new long[iterations];
+			for (int iteration = 0; iteration < iterations; iteration++) {
+				long start = System.nanoTime();
+				blackhole += benchmark.getValue().execute();
+				durations[iteration] = System.nanoTime() - start;
+			}
+			Arrays.sort(durations);
+
+			long total = 0;
+			for (long duration : durations) {
+				total += duration;
+			}
+			System.out.println(String.format("%-42s %10.3f %10.3f %10.3f %10.3f", benchmark.getKey(), total / (iterations * 1e6),
+					percentile(durations, 50) / 1e6, percentile(durations, 90) / 1e6, durations[iterations - 1] / 1e6));
+		}
+
+		// assures that the results are actually used
+		if (blackhole == 42) {
+			System.out.println();
+		}
+	}
+
+	/**
+	 * Determines a percentile of sorted values (nearest rank)
+	 *
+	 * @param sortedValues
+	 *            The values in ascending order
+	 * @param percentile
+	 *            The percentile (0 - 100)
+	 * @return The value at the percentile
+	 */
+	static long percentile(long[] sortedValues, double percentile) {
+		if (sortedValues.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(percentile / 100.0 * sortedValues.length);
+		return sortedValues[Math.min(sortedValues.length, Math.max(1, rank)) - 1];
+	}
+
+	private Object invoke(String methodName, Object... parameters) throws Exception {
+		try {
+			return methods.get(methodName).invoke(client, parameters);
+		} catch (InvocationTargetException e) {
+			throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+		}
+	}
+
+	private void setField(String fieldName, Object value) throws Exception {
+		Field field = MirthMigrator.class.getDeclaredField(fieldName);
+		field.setAccessible(true);
+		field.set(client, value);
+	}
+
+	private Object getField(String fieldName) throws Exception {
+		Field field = MirthMigrator.class.getDeclaredField(fieldName);
+		field.setAccessible(true);
+		return field.get(client);
+	}
+
+	/**
+	 * Extracts the value of a command line option
+	 *
+	 * @param arguments
+	 *            The command line arguments
+	 * @param name
+	 *            The option name
+	 * @param defaultValue
+	 *            The value that is used if the option is not set
+	 * @return The option value
+	 */
+	static String getOption(String[] arguments, String name, String defaultValue) {
+		for (String argument : arguments) {
+			if (argument.startsWith("--" + name + "=")) {
+				return argument.substring(name.length() + 3);
+			}
+		}
+		return defaultValue;
+	}
+
+	static int getOption(String[] arguments, String name, int defaultValue) {
+		return Integer.parseInt(getOption(arguments, name, String.valueOf(defaultValue)));
+	}
+
+	/**
+	 * Creates the synthetic configuration from the command line options
+	 *
+	 * @param arguments
+	 *            The command line arguments
+	 * @return The synthetic configuration
+	 */
+	static SyntheticMirthExport createExport(String[] arguments) {
+		return new SyntheticMirthExport(getOption(arguments, "seed", 42), getOption(arguments, "channels", 200),
+				getOption(arguments, "connectors", 4), getOption(arguments, "scriptLines", 60), getOption(arguments, "codeTemplates", 100),
+				getOption(arguments, "functions", 3), getOption(arguments, "calls", 4));
+	}
+
+	public static void main(String[] arguments) throws Exception {
+		MirthMigratorBenchmark benchmark = new MirthMigratorBenchmark(createExport(arguments));
+		benchmark.run(getOption(arguments, "filter", null), getOption(arguments, "warmup", 5), getOption(arguments, "iterations", 20));
+	}
+
+	/**
+	 * A single benchmark
+	 */
+	@FunctionalInterface
+	private interface Benchmark {
+		long execute() throws Exception;
+	}
+}
@@ -0,0 +1,277 @@
+package lu.hrs.mirth.migration;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.NativeObject;
+
+/**
+ * Drives concurrent end-to-end load against {@link MirthMigrator} by running it against two {@link MockMirthServer} instances (source and
+ * target) that serve the same synthetic configuration.<br/>
+ * <br/>
+ * Usage (the Mirth Migrator classes, Rhino, slf4j and commons-io have to be on the class path):
+ *
+ * <pre>
+ * java lu.hrs.mirth.migration.MirthMigratorLoadDriver [--threads=8] [--duration=30] [--scenarios=getMetaData,getConflicts,compareComponent,migrateComponents]
+ *      [--refresh=false] [--minLatency=0] [--maxLatency=5] [--errorRate=0] [--sessionLifetime=0] [--serverThreads=16]
+ *      [--channels=200] [--connectors=4] [--scriptLines=60] [--codeTemplates=100] [--functions=3] [--calls=4] [--seed=42]
+ * </pre>
+ *
+ * As Mirth Migrator reads its configuration from <b>./web/MirthMigrator/config/MirthMigration.conf</b>, the driver has to be started from an
+ * empty working directory. It creates a configuration with the systems <b>Mock Source</b> and <b>Mock Target</b> that point to the mock servers.
+ * <br/>
+ * <br/>
+ * Every worker thread repeatedly picks one of the scenarios at random until the duration (in seconds) has elapsed. For every scenario, the
+ * throughput, the number of failed calls (status code other than 200 or exception) and the median, 90th, 99th percentile and maximum latency are
+ * reported.
+ */
+public class MirthMigratorLoadDriver {
+
+	private final static String SOURCE_SYSTEM = "Mock Source";
+	private final static String TARGET_SYSTEM = "Mock Target";
+	private final static String USERNAME = "admin";
+	private final static String PASSWORD = "admin";
+	private final static String configurationFileLocation = "./web/MirthMigrator/config/MirthMigration.conf";
+
+	private final SyntheticMirthExport export;
+	private final boolean refresh;
+	/** The latencies of every scenario in nanoseconds */
+	private final LinkedHashMap<String, ConcurrentLinkedQueue<Long>> latencies = new LinkedHashMap<String, ConcurrentLinkedQueue<Long>>();
+	/** The number of failed calls of every scenario */
+	private final LinkedHashMap<String, AtomicLong> failures = new LinkedHashMap<String, AtomicLong>();
+
+	public MirthMigratorLoadDriver(SyntheticMirthExport export, List<String> scenarios, boolean refresh) {
+		this.export = export;
+		this.refresh = refresh;
+		for (String scenario : scenarios) {
+			latencies.put(scenario, new ConcurrentLinkedQueue<Long>());
+			failures.put(scenario, new AtomicLong());
+		}
+	}
+
+	/**
+	 * Executes a single call of a scenario
+	 *
+	 * @param scenario
+	 *            The name of the scenario
+	 * @param source
+	 *            The client of the source system
+	 * @return The result of the call
+	 * @throws Exception
+	 */
+	private NativeObject execute(String scenario, MirthMigrator source) throws Exception {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		switch (scenario) {
+		case "getMetaData":
+			return source.getMetaData(random.nextBoolean() ? MirthMigrator.CHANNEL_GROUP : MirthMigrator.CODE_TEMPLATE_LIBRARY, refresh);
+		case "getConflicts":
+			return source.getConflicts(TARGET_SYSTEM, pickComponent(random), refresh);
+		case "compareComponent":
+			return source.compareComponent(TARGET_SYSTEM, pickComponent(random));
+		case "migrateComponents":
+			return source.migrateComponents(TARGET_SYSTEM, new NativeArray(new Object[] { pickComponent(random) }));
+		default:
+			throw new IllegalArgumentException("Unknown scenario \"" + scenario + "\"");
+		}
+	}
+
+	/**
+	 * Selects a random channel or code template
+	 *
+	 * @param random
+	 *            The random generator of the calling thread
+	 * @return The component in the format expected by the Mirth Migrator API
+	 */
+	private NativeObject pickComponent(ThreadLocalRandom random) {
+		boolean isChannel = export.getCodeTemplateIds().isEmpty() || random.nextBoolean();
+		List<String> ids = isChannel ? export.getChannelIds() : export.getCodeTemplateIds();
+
+		NativeObject component = new NativeObject();
+		component.put("id", component, ids.get(random.nextInt(ids.size())));
+		component.put("type", component, isChannel ? MirthMigrator.CHANNEL : MirthMigrator.CODE_TEMPLATE);
+		return component;
+	}
+
+	/**
+	 * Runs the scenarios concurrently and prints the results
+	 *
+	 * @param threads
+	 *            The number of concurrent callers
+	 * @param duration
+	 *            The duration of the run in seconds
+	 * @throws Exception
+	 */
+	public void run(int threads, int duration) throws Exception {
+		MirthMigrator source = MirthMigrator.getClient(SOURCE_SYSTEM);
+		String[] scenarios = latencies.keySet().toArray(new String[0]);
+
+		long end = System.nanoTime() + duration * 1000000000L;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		ArrayList<Future<?>> workers = new ArrayList<Future<?>>();
+		for (int thread = 0; thread < threads; thread++) {
+			workers.add(executor.submit(() -> {
+				while (System.nanoTime() < end) {
+					String scenario = scenarios[ThreadLocalRandom.current().nextInt(scenarios.length)];
+					long start = System.nanoTime();
+					boolean success = false;
+					try {
+						success = isSuccessful(execute(scenario, source));
+					} catch (Exception e) {
+						// counted as failure below
+					}
+					latencies.get(scenario).add(System.nanoTime() - start);
+					if (!success) {
+						failures.get(scenario).incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+		for (Future<?> worker : workers) {
+			worker.get();
+		}
+		executor.shutdown();
+
+		System.out.println(String.format("%-20s %8s %10s %8s %10s %10s %10s %10s", "Scenario", "calls", "calls/s", "failed", "p50 [ms]", "p90 [ms]",
+				"p99 [ms]", "max [ms]"));
+		for (Map.Entry<String, ConcurrentLinkedQueue<Long>> scenario : latencies.entrySet()) {
+			long[] durations = new long[scenario.getValue().size()];
+			int index = 0;
+			for (Long latency : scenario.getValue()) {
+				durations[index++] = latency;
+			}
+			Arrays.sort(durations);
+
+			System.out.println(String.format("%-20s %8d %10.1f %8d %10.3f %10.3f %10.3f %10.3f", scenario.getKey(), durations.length,
+					durations.length / (double) duration, failures.get(scenario.getKey()).get(), MirthMigratorBenchmark.percentile(durations, 50) / 1e6,
+					MirthMigratorBenchmark.percentile(durations, 90) / 1e6, MirthMigratorBenchmark.percentile(durations, 99) / 1e6,
+					(durations.length == 0) ? 0 : durations[durations.length - 1] / 1e6));
+		}
+	}
+
+	/**
+	 * Loads the caches of both systems once so that the first calls do not dominate the results
+	 *
+	 * @throws Exception
+	 */
+	public void warmUp() throws Exception {
+		for (String system : new String[] { SOURCE_SYSTEM, TARGET_SYSTEM }) {
+			if (!isSuccessful(MirthMigrator.getClient(system).getMetaData(MirthMigrator.CHANNEL_GROUP))) {
+				throw new IllegalStateException("Unable to load the configuration of \"" + system + "\"");
+			}
+		}
+	}
+
+	/**
+	 * Checks the status code of a Mirth Migrator result
+	 *
+	 * @param result
+	 *            The result of an API call
+	 * @return true, if the call was successful
+	 */
+	private static boolean isSuccessful(NativeObject result) {
+		Object statusCode = (result == null) ? null : result.get("statusCode", result);
+		return (statusCode instanceof Number) && (((Number) statusCode).intValue() == 200);
+	}
+
+	/**
+	 * Creates the Mirth Migrator configuration for the mock servers
+	 *
+	 * @param sourcePort
+	 *            The port of the source mock server
+	 * @param targetPort
+	 *            The port of the target mock server
+	 * @throws Exception
+	 */
+	private static void createConfiguration(int sourcePort, int targetPort) throws Exception {
+		JSONObject environment = new JSONObject();
+		environment.put("color", "#32cd32");
+		environment.put("name", "Load Test");
+		environment.put("id", "3f36b282-f1a1-4fa0-acbf-45853aa40af5");
+		environment.put("position", 1);
+
+		JSONArray systems = new JSONArray();
+		for (Object[] system : new Object[][] { { SOURCE_SYSTEM, sourcePort }, { TARGET_SYSTEM, targetPort } }) {
+			JSONObject entry = new JSONObject();
+			entry.put("server", "localhost");
+			entry.put("environment", environment.getString("id"));
+			entry.put("password", PASSWORD);
+			entry.put("port", system[1]);
+			entry.put("name", system[0]);
+			entry.put("description", "Mock Mirth server for load testing");
+			entry.put("user", USERNAME);
+			systems.put(entry);
+		}
+
+		JSONObject configuration = new JSONObject();
+		configuration.put("environment", new JSONArray().put(environment));
+		configuration.put("system", systems);
+		configuration.put("excludeFromFunctionDetection", new JSONArray());
+
+		File configFile = new File(configurationFileLocation);
+		configFile.getParentFile().mkdirs();
+		Files.write(configFile.toPath(), configuration.toString(4).getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static void main(String[] arguments) throws Exception {
+		// never overwrite a real configuration
+		if (new File(configurationFileLocation).exists()) {
+			System.err.println("There is already a Mirth Migrator configuration at \"" + new File(configurationFileLocation).getAbsolutePath()
+					+ "\". Please start the load driver from an empty working directory.");
+			System.exit(1);
+		}
+
+		SyntheticMirthExport export = MirthMigratorBenchmark.createExport(arguments);
+		int serverThreads = MirthMigratorBenchmark.getOption(arguments, "serverThreads", 16);
+		ArrayList<MockMirthServer> servers = new ArrayList<MockMirthServer>();
+		try {
+			for (int index = 0; index < 2; index++) {
+				MockMirthServer server = new MockMirthServer(export, USERNAME, PASSWORD);
+				server.setLatency(MirthMigratorBenchmark.getOption(arguments, "minLatency", 0), MirthMigratorBenchmark.getOption(arguments, "maxLatency", 5));
+				server.start(0, serverThreads);
+				servers.add(server);
+			}
+			createConfiguration(servers.get(0).getPort(), servers.get(1).getPort());
+
+			System.out.println("Configuration: " + export.describe());
+			MirthMigratorLoadDriver driver = new MirthMigratorLoadDriver(export,
+					Arrays.asList(MirthMigratorBenchmark.getOption(arguments, "scenarios", "getMetaData,getConflicts,compareComponent,migrateComponents")
+							.split(",")),
+					Boolean.parseBoolean(MirthMigratorBenchmark.getOption(arguments, "refresh", "false")));
+			driver.warmUp();
+
+			// errors and session expiry are only simulated once the caches are loaded
+			for (MockMirthServer server : servers) {
+				server.setSessionLifetime(MirthMigratorBenchmark.getOption(arguments, "sessionLifetime", 0));
+				server.setErrorRate(Double.parseDouble(MirthMigratorBenchmark.getOption(arguments, "errorRate", "0")));
+			}
+			driver.run(MirthMigratorBenchmark.getOption(arguments, "threads", 8), MirthMigratorBenchmark.getOption(arguments, "duration", 30));
+
+			System.out.println("Source server: " + servers.get(0).getStatistics());
+			System.out.println("Target server: " + servers.get(1).getStatistics());
+			System.out.println("Client re-logins: " + MirthMigratorMetrics.getSnapshot().getJSONObject("relogins"));
+			System.out.println("Client caches: " + MirthMigratorMetrics.getSnapshot().getJSONObject("caches").toString(2));
+		} finally {
+			for (MockMirthServer server : servers) {
+				server.stop();
+			}
+			new File(configurationFileLocation).delete();
+		}
+		System.exit(0);
+	}
+}
@@ -0,0 +1,574 @@
+package lu.hrs.mirth.migration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import org.apache.commons.io.IOUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+/**
+ * An in-process stand-in for the Mirth REST API that serves a synthetic configuration (see {@link SyntheticMirthExport}) from memory.<br/>
+ * <br/>
+ * It implements the endpoints used by {@link MirthMigrator} (login/logout, channels, code templates, channel groups, code template libraries, tags,
+ * dependencies, channel metadata, statuses, resources, version and the corresponding update operations). For load testing, the server can delay
+ * every response, randomly fail requests and expire sessions after a given time.<br/>
+ * <br/>
+ * As Mirth Migrator only talks HTTPS, a self-signed certificate is created at startup via <b>keytool</b> of the running JVM.
+ */
+public class MockMirthServer {
+
+	/** The password of the temporary key store */
+	private final static char[] KEY_STORE_PASSWORD = "mockMirth".toCharArray();
+
+	private final String username;
+	private final String password;
+
+	/** The stored components by id (in order of the id) */
+	private final ConcurrentSkipListMap<String, String> channels = new ConcurrentSkipListMap<String, String>();
+	private final ConcurrentSkipListMap<String, String> codeTemplates = new ConcurrentSkipListMap<String, String>();
+	private final ConcurrentSkipListMap<String, String> channelGroups = new ConcurrentSkipListMap<String, String>();
+	private final ConcurrentSkipListMap<String, String> codeTemplateLibraries = new ConcurrentSkipListMap<String, String>();
+	/** The channel metadata entries by channel id */
+	private final ConcurrentSkipListMap<String, String> channelMetadata = new ConcurrentSkipListMap<String, String>();
+	private volatile String channelTags = "<set/>";
+	private volatile String channelDependencies = "<set/>";
+
+	/** Maps the active session ids to their creation time */
+	private final ConcurrentHashMap<String, Long> sessions = new ConcurrentHashMap<String, Long>();
+
+	private volatile int minimumLatency = 0;
+	private volatile int maximumLatency = 0;
+	private volatile double errorRate = 0;
+	private volatile long sessionLifetime = 0;
+	private volatile boolean acceptCompressedRequests = false;
+
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong loginCount = new AtomicLong();
+	private final AtomicLong injectedErrorCount = new AtomicLong();
+	private final AtomicLong expiredSessionCount = new AtomicLong();
+	private final AtomicLong compressedRequestCount = new AtomicLong();
+	private final AtomicLong compressedResponseCount = new AtomicLong();
+
+	private HttpsServer server = null;
+	private ExecutorService executor = null;
+
+	/**
+	 * Creates a mock server that holds the given configuration
+	 *
+	 * @param export
+	 *            The configuration that is served
+	 * @param username
+	 *            The user that is accepted at login
+	 * @param password
+	 *            The password of the user
+	 * @throws ConfigurationException
+	 *             If the configuration is not well-formed
+	 */
+	public MockMirthServer(SyntheticMirthExport export, String username, String password) throws ConfigurationException {
+		this.username = username;
+		this.password = password;
+
+		store(channels, export.getChannels());
+		store(codeTemplates, export.getCodeTemplates());
+		store(channelGroups, export.getChannelGroups());
+		store(codeTemplateLibraries, export.getCodeTemplateLibraries());
+
+		// the channel metadata is part of the channel export
+		for (XmlNode channel : XmlNode.parse(export.getChannels()).getChildren()) {
+			XmlNode metadata = channel.getChild("exportData").getChild("metadata");
+			StringBuilder entry = new StringBuilder();
+			entry.append("<entry>\n  <string>").append(channel.getChildText("id")).append("</string>\n");
+			entry.append("  <com.mirth.connect.model.ChannelMetadata>\n");
+			for (XmlNode child : metadata.getChildren()) {
+				child.write(entry, 2);
+			}
+			entry.append("  </com.mirth.connect.model.ChannelMetadata>\n</entry>\n");
+			channelMetadata.put(channel.getChildText("id"), entry.toString());
+		}
+	}
+
+	/**
+	 * Sets the delay of every response
+	 *
+	 * @param minimumLatency
+	 *            The minimum delay in milliseconds
+	 * @param maximumLatency
+	 *            The maximum delay in milliseconds
+	 */
+	public void setLatency(int minimumLatency, int maximumLatency) {
+		this.minimumLatency = minimumLatency;
+		this.maximumLatency = Math.max(minimumLatency, maximumLatency);
+	}
+
+	/**
+	 * Sets the share of requests that fail with an internal server error
+	 *
+	 * @param errorRate
+	 *            A value between 0 (no errors) and 1 (every request fails)
+	 */
+	public void setErrorRate(double errorRate) {
+		this.errorRate = errorRate;
+	}
+
+	/**
+	 * Sets the time after which a session expires
+	 *
+	 * @param sessionLifetime
+	 *            The lifetime in milliseconds (0 for sessions that never expire)
+	 */
+	public void setSessionLifetime(long sessionLifetime) {
+		this.sessionLifetime = sessionLifetime;
+	}
+
+	/**
+	 * Defines if gzip compressed request bodies are inflated. If not, they are rejected like by a Mirth server that passes them to the XML
+	 * parser as they are.
+	 *
+	 * @param acceptCompressedRequests
+	 *            true, if compressed request bodies are accepted
+	 */
+	public void setAcceptCompressedRequests(boolean acceptCompressedRequests) {
+		this.acceptCompressedRequests = acceptCompressedRequests;
+	}
+
+	/**
+	 * Starts the server
+	 *
+	 * @param port
+	 *            The port at which the server listens (0 for any free port)
+	 * @param threads
+	 *            The number of threads that serve requests
+	 * @throws IOException
+	 *             If the server could not be started
+	 */
+	public void start(int port, int threads) throws IOException {
+		server = HttpsServer.create(new InetSocketAddress("localhost", port), 0);
+		server.setHttpsConfigurator(new HttpsConfigurator(createSslContext()));
+		server.createContext("/api", this::handle);
+		executor = Executors.newFixedThreadPool(threads);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	public void stop() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdownNow();
+			server = null;
+		}
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Provides the request statistics of the server
+	 *
+	 * @return A short summary of requests, logins, injected errors, expired sessions and compressed transfers
+	 */
+	public String getStatistics() {
+		return String.format("requests=%d, logins=%d, injectedErrors=%d, expiredSessions=%d, compressedRequests=%d, compressedResponses=%d",
+				requestCount.get(), loginCount.get(), injectedErrorCount.get(), expiredSessionCount.get(), compressedRequestCount.get(),
+				compressedResponseCount.get());
+	}
+
+	/**
+	 * Splits a list of components and stores them by their id
+	 *
+	 * @param store
+	 *            The store
+	 * @param list
+	 *            The XML list of components
+	 * @throws ConfigurationException
+	 */
+	private static void store(Map<String, String> store, String list) throws ConfigurationException {
+		for (XmlNode component : XmlNode.parse(list).getChildren()) {
+			StringBuilder xml = new StringBuilder();
+			component.write(xml, 1);
+			store.put(component.getChildText("id"), xml.toString());
+		}
+	}
+
+	/**
+	 * Creates a TLS context with a self-signed certificate for localhost
+	 *
+	 * @return The TLS context
+	 * @throws IOException
+	 *             If the certificate could not be created
+	 */
+	private static SSLContext createSslContext() throws IOException {
+		File keyStoreFile = File.createTempFile("mockMirth", ".p12");
+		keyStoreFile.delete();
+		try {
+			String keytool = System.getProperty("java.home") + File.separator + "bin" + File.separator + "keytool";
+			Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias", "mockMirth", "-keyalg", "RSA", "-keysize", "2048", "-validity", "2",
+					"-dname", "CN=localhost", "-storetype", "PKCS12", "-keystore", keyStoreFile.getAbsolutePath(), "-storepass",
+					new String(KEY_STORE_PASSWORD), "-keypass", new String(KEY_STORE_PASSWORD)).redirectErrorStream(true).start();
+			IOUtils.toByteArray(process.getInputStream());
+			if (!process.waitFor(60, TimeUnit.SECONDS) || (process.exitValue() != 0)) {
+				throw new IOException("Unable to create the certificate of the mock server");
+			}
+
+			KeyStore keyStore = KeyStore.getInstance("PKCS12");
+			try (InputStream input = new FileInputStream(keyStoreFile)) {
+				keyStore.load(input, KEY_STORE_PASSWORD);
+			}
+			KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+			keyManagerFactory.init(keyStore, KEY_STORE_PASSWORD);
+			SSLContext sslContext = SSLContext.getInstance("TLS");
+			sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+
+			return sslContext;
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Unable to initialize TLS for the mock server: " + e.getMessage(), e);
+		} finally {
+			keyStoreFile.delete();
+		}
+	}
+
+	/**
+	 * Dispatches a request
+	 *
+	 * @param exchange
+	 *            The request and response
+	 * @throws IOException
+	 */
+	private void handle(HttpExchange exchange) throws IOException {
+		requestCount.incrementAndGet();
+		try {
+			String method = exchange.getRequestMethod();
+			String path = exchange.getRequestURI().getPath();
+			String query = exchange.getRequestURI().getRawQuery();
+			byte[] body = IOUtils.toByteArray(exchange.getRequestBody());
+			if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+				if (!acceptCompressedRequests) {
+					respond(exchange, 400, "text/plain", "malformed request body");
+					return;
+				}
+				compressedRequestCount.incrementAndGet();
+				body = IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(body)));
+			}
+
+			// simulate the network and processing time
+			if (maximumLatency > 0) {
+				Thread.sleep(ThreadLocalRandom.current().nextInt(minimumLatency, maximumLatency + 1));
+			}
+			// simulate a failing server
+			if ((errorRate > 0) && (ThreadLocalRandom.current().nextDouble() < errorRate)) {
+				injectedErrorCount.incrementAndGet();
+				respond(exchange, 500, "text/plain", "injected error");
+				return;
+			}
+
+			if (path.equals("/api/users/_login")) {
+				login(exchange, new String(body, StandardCharsets.UTF_8));
+				return;
+			}
+			// every other request requires a valid session
+			String session = getSession(exchange);
+			if (session == null) {
+				respond(exchange, 401, "text/plain", "");
+				return;
+			}
+			if (path.equals("/api/users/_logout")) {
+				sessions.remove(session);
+				respond(exchange, 204, null, null);
+				return;
+			}
+
+			if (method.equals("GET")) {
+				handleGet(exchange, path, getParameter(query, null));
+			} else {
+				handleUpdate(exchange, path, new String(body, StandardCharsets.UTF_8));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			respond(exchange, 503, "text/plain", "server is shutting down");
+		} catch (Exception e) {
+			respond(exchange, 500, "text/plain", e.toString());
+		}
+	}
+
+	private void handleGet(HttpExchange exchange, String path, String parameter) throws IOException {
+		switch (path) {
+		case "/api/channels":
+			respond(exchange, 200, "application/xml", createList(channels, parameter));
+			break;
+		case "/api/codeTemplates":
+			respond(exchange, 200, "application/xml", createList(codeTemplates, parameter));
+			break;
+		case "/api/channelgroups":
+			respond(exchange, 200, "application/xml", createList(channelGroups, parameter));
+			break;
+		case "/api/codeTemplateLibraries":
+			// the parameter might be "includeCodeTemplates" which does not select a library
+			respond(exchange, 200, "application/xml",
+					createList(codeTemplateLibraries, codeTemplateLibraries.containsKey(String.valueOf(parameter)) ? parameter : null));
+			break;
+		case "/api/channels/statuses":
+			respond(exchange, 200, "application/xml", createStatusList(null));
+			break;
+		case "/api/server/channelMetadata":
+			respond(exchange, 200, "application/xml", "<map>\n" + String.join("", channelMetadata.values()) + "</map>");
+			break;
+		case "/api/server/channelTags":
+			respond(exchange, 200, "application/xml", channelTags);
+			break;
+		case "/api/server/channelDependencies":
+			respond(exchange, 200, "application/xml", channelDependencies);
+			break;
+		case "/api/server/version":
+			respond(exchange, 200, "text/plain", SyntheticMirthExport.getMirthVersion());
+			break;
+		case "/api/server/resources":
+			respond(exchange, 200, "application/xml", "<list>\n"
+					+ "  <com.mirth.connect.plugins.directoryresource.DirectoryResourceProperties version=\"" + SyntheticMirthExport.getMirthVersion()
+					+ "\">\n" + "    <pluginPointName>Directory Resource</pluginPointName>\n" + "    <type>Directory</type>\n"
+					+ "    <id>Default Resource</id>\n" + "    <name>[Default Resource]</name>\n"
+					+ "    <description>Loads libraries from the custom-lib folder in the Mirth Connect home directory.</description>\n"
+					+ "    <includeWithGlobalScripts>true</includeWithGlobalScripts>\n" + "    <loadParentFirst>false</loadParentFirst>\n"
+					+ "    <directory>custom-lib</directory>\n" + "    <directoryRecursion>true</directoryRecursion>\n"
+					+ "  </com.mirth.connect.plugins.directoryresource.DirectoryResourceProperties>\n" + "</list>");
+			break;
+		default:
+			respond(exchange, 404, "text/plain", "unknown resource " + path);
+		}
+	}
+
+	private void handleUpdate(HttpExchange exchange, String path, String body) throws IOException, ConfigurationException {
+		if (path.equals("/api/channels/statuses/_getChannelStatusList")) {
+			respond(exchange, 200, "application/xml", createStatusList(body));
+		} else if (path.startsWith("/api/channels/") && (path.indexOf('/', 14) > 0)) {
+			// state changes (deploy, start, enable, ...) are accepted but have no effect
+			respond(exchange, 204, null, null);
+		} else if (path.startsWith("/api/channels/")) {
+			channels.put(path.substring(14), body);
+			respond(exchange, 200, "application/xml", "<boolean>true</boolean>");
+		} else if (path.startsWith("/api/codeTemplates/")) {
+			codeTemplates.put(path.substring(19), body);
+			respond(exchange, 200, "application/xml", "<boolean>true</boolean>");
+		} else if (path.equals("/api/channelgroups/_bulkUpdate")) {
+			storeAll(channelGroups, extractPart(body, "channelGroups"));
+			respond(exchange, 200, "application/xml", "<boolean>true</boolean>");
+		} else if (path.equals("/api/codeTemplateLibraries/_bulkUpdate")) {
+			storeAll(codeTemplateLibraries, extractPart(body, "libraries"));
+			respond(exchange, 200, "application/xml", "<boolean>true</boolean>");
+		} else if (path.equals("/api/server/channelTags")) {
+			channelTags = body;
+			respond(exchange, 204, null, null);
+		} else if (path.equals("/api/server/channelDependencies")) {
+			channelDependencies = body;
+			respond(exchange, 204, null, null);
+		} else if (path.equals("/api/server/channelMetadata")) {
+			respond(exchange, 204, null, null);
+		} else {
+			respond(exchange, 404, "text/plain", "unknown resource " + path);
+		}
+	}
+
+	/**
+	 * Validates the credentials and opens a session
+	 *
+	 * @param exchange
+	 *            The request and response
+	 * @param body
+	 *            The form encoded credentials
+	 * @throws IOException
+	 */
+	private void login(HttpExchange exchange, String body) throws IOException {
+		loginCount.incrementAndGet();
+		if (!username.equals(getParameter(body, "username")) || !password.equals(getParameter(body, "password"))) {
+			respond(exchange, 401, "application/xml",
+					"<com.mirth.connect.model.LoginStatus>\n  <status>FAIL</status>\n  <message>Incorrect username or password.</message>\n</com.mirth.connect.model.LoginStatus>");
+			return;
+		}
+
+		String session = UUID.randomUUID().toString().replace("-", "").toUpperCase();
+		sessions.put(session, System.currentTimeMillis());
+		exchange.getResponseHeaders().add("Set-Cookie", "JSESSIONID=" + session + ";Path=/api;Secure");
+		respond(exchange, 200, "application/xml", "<com.mirth.connect.model.LoginStatus>\n  <status>SUCCESS</status>\n  <updatedUsername>" + username
+				+ "</updatedUsername>\n</com.mirth.connect.model.LoginStatus>");
+	}
+
+	/**
+	 * Determines the session of a request
+	 *
+	 * @param exchange
+	 *            The request
+	 * @return The id of the session or null if there is no valid session
+	 */
+	private String getSession(HttpExchange exchange) {
+		String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+		if ((cookie == null) || !cookie.startsWith("JSESSIONID=")) {
+			return null;
+		}
+		String session = cookie.substring(11).split(";")[0].trim();
+		Long created = sessions.get(session);
+		if (created == null) {
+			return null;
+		}
+		// sessions might expire
+		if ((sessionLifetime > 0) && (System.currentTimeMillis() - created > sessionLifetime)) {
+			sessions.remove(session);
+			expiredSessionCount.incrementAndGet();
+			return null;
+		}
+		return session;
+	}
+
+	/**
+	 * Assembles a list of all components or of a single component
+	 *
+	 * @param store
+	 *            The component store
+	 * @param id
+	 *            The id of the requested component (null for all)
+	 * @return The XML list
+	 */
+	private static String createList(ConcurrentSkipListMap<String, String> store, String id) {
+		if (id != null) {
+			String component = store.get(id);
+			return (component == null) ? "<list/>" : "<list>\n" + component + "</list>";
+		}
+		return "<list>\n" + String.join("", store.values()) + "</list>";
+	}
+
+	/**
+	 * Assembles the dashboard status of channels
+	 *
+	 * @param requestedIds
+	 *            An XML set of the requested channel ids (null for all channels)
+	 * @return The status list
+	 */
+	private String createStatusList(String requestedIds) {
+		StringBuilder xml = new StringBuilder("<list>\n");
+		for (String channelId : channels.keySet()) {
+			if ((requestedIds != null) && !requestedIds.contains(channelId)) {
+				continue;
+			}
+			xml.append("  <dashboardStatus>\n");
+			xml.append("    <channelId>").append(channelId).append("</channelId>\n");
+			xml.append("    <name>").append(channelId).append("</name>\n");
+			xml.append("    <state>STARTED</state>\n");
+			xml.append("  </dashboardStatus>\n");
+		}
+		return xml.append("</list>").toString();
+	}
+
+	/**
+	 * Replaces the stored components by the components of an XML set
+	 *
+	 * @param store
+	 *            The component store
+	 * @param set
+	 *            The XML set
+	 * @throws ConfigurationException
+	 */
+	private static void storeAll(Map<String, String> store, String set) throws ConfigurationException {
+		if (set != null) {
+			store.clear();
+			store(store, set);
+		}
+	}
+
+	/**
+	 * Extracts the content of a part of a multipart request
+	 *
+	 * @param body
+	 *            The request body
+	 * @param name
+	 *            The name of the part
+	 * @return The content of the part or null if it was not found
+	 */
+	private static String extractPart(String body, String name) {
+		int start = body.indexOf("name=\"" + name + "\"");
+		if (start < 0) {
+			return null;
+		}
+		// the content starts after the part headers
+		start = body.indexOf("\n\n", start);
+		int end = body.indexOf("\n--", start + 2);
+		return body.substring(start + 2, (end < 0) ? body.length() : end).trim();
+	}
+
+	/**
+	 * Extracts a parameter from a query or form encoded body
+	 *
+	 * @param query
+	 *            The query
+	 * @param name
+	 *            The parameter name (null for the value of the first parameter)
+	 * @return The decoded value or null if the parameter is not present
+	 * @throws UnsupportedEncodingException
+	 */
+	private static String getParameter(String query, String name) throws UnsupportedEncodingException {
+		if (query == null) {
+			return null;
+		}
+		for (String parameter : query.split("&")) {
+			int separator = parameter.indexOf('=');
+			if (separator < 0) {
+				continue;
+			}
+			if ((name == null) || parameter.substring(0, separator).equals(name)) {
+				return URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8.name());
+			}
+		}
+		return null;
+	}
+
+	private void respond(HttpExchange exchange, int code, String contentType, String body) throws IOException {
+		byte[] content = (body == null) ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+		if (contentType != null) {
+			exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=UTF-8");
+		}
+		// compress like Jetty does if the client accepts it
+		String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		if ((content.length > 0) && (acceptEncoding != null) && acceptEncoding.contains("gzip")) {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+				gzip.write(content);
+			}
+			content = compressed.toByteArray();
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+			compressedResponseCount.incrementAndGet();
+		}
+		exchange.sendResponseHeaders(code, (content.length == 0) ? -1 : content.length);
+		if (content.length > 0) {
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(content);
+			}
+		}
+		exchange.close();
+	}
+}
@@ -0,0 +1,487 @@
+package lu.hrs.mirth.migration;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates deterministic Mirth configurations in the format delivered by the Mirth REST API (<b>/api/channels</b>, <b>/api/codeTemplates</b>,
+ * <b>/api/codeTemplateLibraries</b> and <b>/api/channelgroups</b>).<br/>
+ * <br/>
+ * The content mimics real installations: channels consist of a source connector and several destinations whose transformer steps contain
+ * JavaScript that calls functions of the code templates. Code templates contain documented functions that again call each other. The same
+ * seed and sizes always produce exactly the same configuration.
+ */
+public class SyntheticMirthExport {
+
+	/** The Mirth version that is written to the version attributes */
+	private final static String MIRTH_VERSION = "3.9.1";
+	/** A fixed point in time used as base for all modification dates */
+	private final static long BASE_TIME = 1700000000000L;
+	/** Fragments that are used to generate readable names */
+	private final static String[] words = { "patient", "order", "result", "admission", "transfer", "discharge", "lab", "radiology", "billing",
+			"archive", "notify", "validate", "map", "route", "convert", "split", "merge", "lookup", "hl7", "fhir" };
+
+	private final int channelCount;
+	private final int connectorsPerChannel;
+	private final int scriptLines;
+	private final int codeTemplateCount;
+	private final int functionsPerTemplate;
+	private final int callsPerFunction;
+
+	private final ArrayList<String> channelIds = new ArrayList<String>();
+	private final ArrayList<String> channelNames = new ArrayList<String>();
+	private final ArrayList<String> codeTemplateIds = new ArrayList<String>();
+	private final ArrayList<String> codeTemplateNames = new ArrayList<String>();
+	/** The names of all generated functions, ordered by code template */
+	private final ArrayList<String> functionNames = new ArrayList<String>();
+
+	private final String channels;
+	private final String codeTemplates;
+	private final String codeTemplateLibraries;
+	private final String channelGroups;
+
+	/**
+	 * Generates a Mirth configuration
+	 *
+	 * @param seed
+	 *            The seed of the random generator. The same seed (and sizes) always leads to the same configuration.
+	 * @param channelCount
+	 *            The number of channels
+	 * @param connectorsPerChannel
+	 *            The number of destination connectors per channel
+	 * @param scriptLines
+	 *            The number of lines of every transformer script
+	 * @param codeTemplateCount
+	 *            The number of code templates
+	 * @param functionsPerTemplate
+	 *            The number of functions per code template
+	 * @param callsPerFunction
+	 *            The number of calls to other functions in every function and script (the density of the call graph)
+	 */
+	public SyntheticMirthExport(long seed, int channelCount, int connectorsPerChannel, int scriptLines, int codeTemplateCount,
+			int functionsPerTemplate, int callsPerFunction) {
+		this.channelCount = channelCount;
+		this.connectorsPerChannel = connectorsPerChannel;
+		this.scriptLines = scriptLines;
+		this.codeTemplateCount = codeTemplateCount;
+		this.functionsPerTemplate = functionsPerTemplate;
+		this.callsPerFunction = callsPerFunction;
+
+		Random random = new Random(seed);
+
+		// first create all identifiers as they are cross-referenced
+		for (int index = 0; index < codeTemplateCount; index++) {
+			codeTemplateIds.add(createId(random));
+			codeTemplateNames.add(createName(random, index));
+			for (int function = 0; function < functionsPerTemplate; function++) {
+				functionNames.add(createFunctionName(random, index, function));
+			}
+		}
+		for (int index = 0; index < channelCount; index++) {
+			channelIds.add(createId(random));
+			channelNames.add(createName(random, index).toUpperCase());
+		}
+
+		// and then the configurations
+		this.codeTemplates = generateCodeTemplates(random);
+		this.channels = generateChannels(random);
+		this.codeTemplateLibraries = generateCodeTemplateLibraries(random);
+		this.channelGroups = generateChannelGroups(random);
+	}
+
+	/**
+	 * Provides a textual description of the configuration size (e.g. for benchmark reports)
+	 *
+	 * @return The sizes used for generating the configuration
+	 */
+	public String describe() {
+		return String.format("channels=%d, connectors=%d, scriptLines=%d, codeTemplates=%d, functions=%d, calls=%d", channelCount,
+				connectorsPerChannel, scriptLines, codeTemplateCount, functionsPerTemplate, callsPerFunction);
+	}
+
+	public static String getMirthVersion() {
+		return MIRTH_VERSION;
+	}
+
+	/**
+	 * @return All channels as delivered by <b>/api/channels</b>
+	 */
+	public String getChannels() {
+		return channels;
+	}
+
+	/**
+	 * @return All code templates as delivered by <b>/api/codeTemplates</b>
+	 */
+	public String getCodeTemplates() {
+		return codeTemplates;
+	}
+
+	/**
+	 * @return All code template libraries as delivered by <b>/api/codeTemplateLibraries?includeCodeTemplates=false</b>
+	 */
+	public String getCodeTemplateLibraries() {
+		return codeTemplateLibraries;
+	}
+
+	/**
+	 * @return All channel groups as delivered by <b>/api/channelgroups</b>
+	 */
+	public String getChannelGroups() {
+		return channelGroups;
+	}
+
+	public ArrayList<String> getChannelIds() {
+		return channelIds;
+	}
+
+	public ArrayList<String> getCodeTemplateIds() {
+		return codeTemplateIds;
+	}
+
+	public ArrayList<String> getFunctionNames() {
+		return functionNames;
+	}
+
+	private String generateChannels(Random random) {
+		StringBuilder xml = new StringBuilder(channelCount * (connectorsPerChannel + 1) * scriptLines * 80);
+		xml.append("<list>\n");
+		for (int index = 0; index < channelCount; index++) {
+			xml.append("  <channel version=\"").append(MIRTH_VERSION).append("\">\n");
+			xml.append("    <id>").append(channelIds.get(index)).append("</id>\n");
+			xml.append("    <nextMetaDataId>").append(connectorsPerChannel + 1).append("</nextMetaDataId>\n");
+			xml.append("    <name>").append(channelNames.get(index)).append("</name>\n");
+			xml.append("    <description>").append(escape(createChannelDescription(random))).append("</description>\n");
+			xml.append("    <revision>").append(1 + random.nextInt(50)).append("</revision>\n");
+
+			// the source connector
+			xml.append("    <sourceConnector version=\"").append(MIRTH_VERSION).append("\">\n");
+			xml.append("      <metaDataId>0</metaDataId>\n");
+			xml.append("      <name>sourceConnector</name>\n");
+			xml.append("      <properties class=\"com.mirth.connect.connectors.vm.VmReceiverProperties\" version=\"").append(MIRTH_VERSION)
+					.append("\">\n");
+			xml.append("        <pluginProperties/>\n");
+			xml.append("      </properties>\n");
+			appendTransformer(xml, random, "Map incoming message");
+			xml.append("      <transportName>Channel Reader</transportName>\n");
+			xml.append("      <mode>SOURCE</mode>\n");
+			xml.append("      <enabled>true</enabled>\n");
+			xml.append("      <waitForPrevious>true</waitForPrevious>\n");
+			xml.append("    </sourceConnector>\n");
+
+			// the destination connectors
+			xml.append("    <destinationConnectors>\n");
+			for (int connector = 1; connector <= connectorsPerChannel; connector++) {
+				xml.append("      <connector version=\"").append(MIRTH_VERSION).append("\">\n");
+				xml.append("        <metaDataId>").append(connector).append("</metaDataId>\n");
+				xml.append("        <name>").append(words[random.nextInt(words.length)]).append(' ').append(connector).append("</name>\n");
+				xml.append("        <properties class=\"com.mirth.connect.connectors.js.JavaScriptDispatcherProperties\" version=\"")
+						.append(MIRTH_VERSION).append("\">\n");
+				xml.append("          <pluginProperties/>\n");
+				xml.append("          <script>").append(escape(createScript(random, scriptLines / 2))).append("</script>\n");
+				xml.append("        </properties>\n");
+				appendTransformer(xml, random, "Prepare outbound message");
+				xml.append("        <transportName>JavaScript Writer</transportName>\n");
+				xml.append("        <mode>DESTINATION</mode>\n");
+				xml.append("        <enabled>true</enabled>\n");
+				xml.append("        <waitForPrevious>true</waitForPrevious>\n");
+				xml.append("      </connector>\n");
+			}
+			xml.append("    </destinationConnectors>\n");
+
+			xml.append("    <preprocessingScript>return message;</preprocessingScript>\n");
+			xml.append("    <postprocessingScript>return;</postprocessingScript>\n");
+			xml.append("    <deployScript>").append(escape(createScript(random, 3))).append("</deployScript>\n");
+			xml.append("    <undeployScript>return;</undeployScript>\n");
+			xml.append("    <properties version=\"").append(MIRTH_VERSION).append("\">\n");
+			xml.append("      <clearGlobalChannelMap>true</clearGlobalChannelMap>\n");
+			xml.append("      <messageStorageMode>DEVELOPMENT</messageStorageMode>\n");
+			xml.append("      <initialState>").append(random.nextInt(5) == 0 ? "STOPPED" : "STARTED").append("</initialState>\n");
+			xml.append("      <resourceIds class=\"linked-hash-map\">\n");
+			xml.append("        <entry>\n");
+			xml.append("          <string>Default Resource</string>\n");
+			xml.append("          <string>[Default Resource]</string>\n");
+			xml.append("        </entry>\n");
+			xml.append("      </resourceIds>\n");
+			xml.append("    </properties>\n");
+			xml.append("    <exportData>\n");
+			xml.append("      <metadata>\n");
+			xml.append("        <enabled>").append(random.nextInt(10) != 0).append("</enabled>\n");
+			appendLastModified(xml, random, "        ");
+			xml.append("        <pruningSettings>\n");
+			xml.append("          <pruneMetaDataDays>").append(1 + random.nextInt(90)).append("</pruneMetaDataDays>\n");
+			xml.append("          <archiveEnabled>true</archiveEnabled>\n");
+			xml.append("        </pruningSettings>\n");
+			xml.append("      </metadata>\n");
+			xml.append("    </exportData>\n");
+			xml.append("  </channel>\n");
+		}
+		xml.append("</list>");
+
+		return xml.toString();
+	}
+
+	/**
+	 * Appends a transformer with a single JavaScript step and an empty filter
+	 *
+	 * @param xml
+	 *            The configuration that is generated
+	 * @param random
+	 *            The random generator
+	 * @param stepName
+	 *            The name of the transformer step
+	 */
+	private void appendTransformer(StringBuilder xml, Random random, String stepName) {
+		xml.append("      <filter version=\"").append(MIRTH_VERSION).append("\">\n");
+		xml.append("        <elements/>\n");
+		xml.append("      </filter>\n");
+		xml.append("      <transformer version=\"").append(MIRTH_VERSION).append("\">\n");
+		xml.append("        <elements>\n");
+		xml.append("          <com.mirth.connect.plugins.javascriptstep.JavaScriptStep version=\"").append(MIRTH_VERSION).append("\">\n");
+		xml.append("            <name>").append(stepName).append("</name>\n");
+		xml.append("            <sequenceNumber>0</sequenceNumber>\n");
+		xml.append("            <enabled>true</enabled>\n");
+		xml.append("            <script>").append(escape(createScript(random, scriptLines))).append("</script>\n");
+		xml.append("          </com.mirth.connect.plugins.javascriptstep.JavaScriptStep>\n");
+		xml.append("        </elements>\n");
+		xml.append("        <inboundDataType>HL7V2</inboundDataType>\n");
+		xml.append("        <outboundDataType>HL7V2</outboundDataType>\n");
+		xml.append("      </transformer>\n");
+	}
+
+	private String generateCodeTemplates(Random random) {
+		StringBuilder xml = new StringBuilder(codeTemplateCount * functionsPerTemplate * 1024);
+		xml.append("<list>\n");
+		for (int index = 0; index < codeTemplateCount; index++) {
+			xml.append("  <codeTemplate version=\"").append(MIRTH_VERSION).append("\">\n");
+			xml.append("    <id>").append(codeTemplateIds.get(index)).append("</id>\n");
+			xml.append("    <name>").append(codeTemplateNames.get(index)).append("</name>\n");
+			xml.append("    <revision>").append(1 + random.nextInt(20)).append("</revision>\n");
+			appendLastModified(xml, random, "    ");
+			xml.append("    <contextSet>\n");
+			xml.append("      <delegate>\n");
+			xml.append("        <contextType>SOURCE_FILTER_TRANSFORMER</contextType>\n");
+			xml.append("        <contextType>DESTINATION_FILTER_TRANSFORMER</contextType>\n");
+			xml.append("        <contextType>DESTINATION_DISPATCHER</contextType>\n");
+			xml.append("      </delegate>\n");
+			xml.append("    </contextSet>\n");
+			xml.append("    <properties class=\"com.mirth.connect.model.codetemplates.BasicCodeTemplateProperties\">\n");
+			xml.append("      <type>FUNCTION</type>\n");
+			xml.append("      <code>").append(escape(createCodeTemplateCode(random, index))).append("</code>\n");
+			xml.append("    </properties>\n");
+			xml.append("  </codeTemplate>\n");
+		}
+		xml.append("</list>");
+
+		return xml.toString();
+	}
+
+	private String generateCodeTemplateLibraries(Random random) {
+		StringBuilder xml = new StringBuilder();
+		xml.append("<list>\n");
+		// about ten code templates per library
+		int libraryCount = Math.max(1, (codeTemplateCount + 9) / 10);
+		for (int library = 0; library < libraryCount; library++) {
+			xml.append("  <codeTemplateLibrary version=\"").append(MIRTH_VERSION).append("\">\n");
+			xml.append("    <id>").append(createId(random)).append("</id>\n");
+			xml.append("    <name>Library ").append(words[library % words.length]).append(' ').append(library).append("</name>\n");
+			xml.append("    <revision>").append(1 + random.nextInt(20)).append("</revision>\n");
+			appendLastModified(xml, random, "    ");
+			xml.append("    <description>Functions for ").append(words[library % words.length]).append(" processing</description>\n");
+			xml.append("    <includeNewChannels>false</includeNewChannels>\n");
+			// every channel references about half of the libraries
+			xml.append("    <enabledChannelIds>\n");
+			for (String channelId : channelIds) {
+				if (random.nextBoolean()) {
+					xml.append("      <string>").append(channelId).append("</string>\n");
+				}
+			}
+			xml.append("    </enabledChannelIds>\n");
+			xml.append("    <disabledChannelIds/>\n");
+			xml.append("    <codeTemplates>\n");
+			for (int index = library * 10; index < Math.min(codeTemplateCount, (library + 1) * 10); index++) {
+				xml.append("      <codeTemplate version=\"").append(MIRTH_VERSION).append("\">\n");
+				xml.append("        <id>").append(codeTemplateIds.get(index)).append("</id>\n");
+				xml.append("      </codeTemplate>\n");
+			}
+			xml.append("    </codeTemplates>\n");
+			xml.append("  </codeTemplateLibrary>\n");
+		}
+		xml.append("</list>");
+
+		return xml.toString();
+	}
+
+	private String generateChannelGroups(Random random) {
+		StringBuilder xml = new StringBuilder();
+		xml.append("<list>\n");
+		// about ten channels per group
+		int groupCount = Math.max(1, (channelCount + 9) / 10);
+		for (int group = 0; group < groupCount; group++) {
+			xml.append("  <channelGroup version=\"").append(MIRTH_VERSION).append("\">\n");
+			xml.append("    <id>").append(createId(random)).append("</id>\n");
+			xml.append("    <name>Group ").append(words[group % words.length]).append(' ').append(group).append("</name>\n");
+			xml.append("    <revision>").append(1 + random.nextInt(20)).append("</revision>\n");
+			appendLastModified(xml, random, "    ");
+			xml.append("    <description></description>\n");
+			xml.append("    <channels>\n");
+			for (int index = group * 10; index < Math.min(channelCount, (group + 1) * 10); index++) {
+				xml.append("      <channel version=\"").append(MIRTH_VERSION).append("\">\n");
+				xml.append("        <id>").append(channelIds.get(index)).append("</id>\n");
+				xml.append("        <revision>0</revision>\n");
+				xml.append("      </channel>\n");
+			}
+			xml.append("    </channels>\n");
+			xml.append("  </channelGroup>\n");
+		}
+		xml.append("</list>");
+
+		return xml.toString();
+	}
+
+	/**
+	 * Creates the code of a code template: a list of documented functions that call other functions
+	 *
+	 * @param random
+	 *            The random generator
+	 * @param codeTemplate
+	 *            The index of the code template
+	 * @return The JavaScript code
+	 */
+	private String createCodeTemplateCode(Random random, int codeTemplate) {
+		StringBuilder code = new StringBuilder();
+		for (int function = 0; function < functionsPerTemplate; function++) {
+			String functionName = functionNames.get(codeTemplate * functionsPerTemplate + function);
+			code.append("/**\n");
+			code.append("\t").append(capitalize(words[random.nextInt(words.length)])).append("s the ").append(words[random.nextInt(words.length)])
+					.append(" of a message.\n");
+			code.append("\tThe result is cached for the current channel.\n\n");
+			code.append("\t@param {String} message - The message that should be processed\n");
+			code.append("\t@param {Object} options - Optional settings\n");
+			code.append("\t@return {String} The processed message\n");
+			code.append("*/\n");
+			code.append("function ").append(functionName).append("(message, options) {\n");
+			code.append(createScript(random, Math.max(4, scriptLines / 4)));
+			code.append("\treturn message;\n");
+			code.append("}\n\n");
+		}
+		return code.toString();
+	}
+
+	/**
+	 * Creates a JavaScript snippet that contains function calls, strings, regular expressions, comments and instantiations (all of which are
+	 * handled by the function detection)
+	 *
+	 * @param random
+	 *            The random generator
+	 * @param lines
+	 *            The number of lines
+	 * @return The JavaScript code
+	 */
+	private String createScript(Random random, int lines) {
+		StringBuilder script = new StringBuilder();
+		int calls = 0;
+		for (int line = 0; line < lines; line++) {
+			// distribute the function calls over the script
+			if (!functionNames.isEmpty() && (calls < callsPerFunction) && (random.nextInt(Math.max(1, lines / Math.max(1, callsPerFunction))) == 0)) {
+				script.append("\tvar result").append(line).append(" = ").append(functionNames.get(random.nextInt(functionNames.size())))
+						.append("(msg['PID']['PID.5']['PID.5.1'].toString(), {mode: \"strict\"});\n");
+				calls++;
+				continue;
+			}
+			switch (random.nextInt(6)) {
+			case 0:
+				script.append("\t// ").append(words[random.nextInt(words.length)]).append(" handling as agreed (see ticket ").append(random.nextInt(9999))
+						.append(")\n");
+				break;
+			case 1:
+				script.append("\tvar value").append(line).append(" = new java.lang.String(\"").append(words[random.nextInt(words.length)])
+						.append("\");\n");
+				break;
+			case 2:
+				script.append("\tif (/^[A-Z]{2}\\d+(foo)?$/.test(value)) { logger.info('match: ' + value); }\n");
+				break;
+			case 3:
+				script.append("\tchannelMap.put('").append(words[random.nextInt(words.length)]).append("', msg['MSH']['MSH.10'].toString());\n");
+				break;
+			case 4:
+				script.append("\tfor (var i = 0; i < msg['OBX'].length(); i++) { total += parseInt(msg['OBX'][i]['OBX.5'].toString(), 10); }\n");
+				break;
+			default:
+				script.append("\ttmp['ZZZ']['ZZZ.").append(line % 20).append("'] = \"").append(words[random.nextInt(words.length)]).append("\";\n");
+			}
+		}
+		return script.toString();
+	}
+
+	private static String createChannelDescription(Random random) {
+		StringBuilder description = new StringBuilder();
+		description.append("Processes ").append(words[random.nextInt(words.length)]).append(" messages.\n");
+		description.append("IN:").append(6000 + random.nextInt(100)).append(":HIS:").append(words[random.nextInt(words.length)]).append('\n');
+		description.append("OUT:*:LIS:").append(words[random.nextInt(words.length)]).append('\n');
+		description.append("Versions:\n");
+		for (int change = 0; change < 1 + random.nextInt(4); change++) {
+			description.append(String.format("2023%02d%02d: ", 1 + random.nextInt(12), 1 + random.nextInt(28)))
+					.append(capitalize(words[random.nextInt(words.length)])).append(" adapted\n");
+		}
+		return description.toString();
+	}
+
+	private static void appendLastModified(StringBuilder xml, Random random, String indentation) {
+		xml.append(indentation).append("<lastModified>\n");
+		xml.append(indentation).append("  <time>").append(BASE_TIME + random.nextInt(1000000000)).append("</time>\n");
+		xml.append(indentation).append("  <timezone>Europe/Luxembourg</timezone>\n");
+		xml.append(indentation).append("</lastModified>\n");
+	}
+
+	private static String createId(Random random) {
+		return new UUID(random.nextLong(), random.nextLong()).toString();
+	}
+
+	private static String createName(Random random, int index) {
+		return words[random.nextInt(words.length)] + "_" + words[random.nextInt(words.length)] + "_" + index;
+	}
+
+	private static String createFunctionName(Random random, int codeTemplate, int function) {
+		return words[random.nextInt(words.length)] + capitalize(words[random.nextInt(words.length)]) + codeTemplate + "_" + function;
+	}
+
+	private static String capitalize(String word) {
+		return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+	}
+
+	/**
+	 * Escapes text the way Mirth does in it's XML exports (incl. apostrophes and quotes)
+	 *
+	 * @param text
+	 *            The text
+	 * @return The escaped text
+	 */
+	private static String escape(String text) {
+		StringBuilder escaped = new StringBuilder(text.length() + 64);
+		for (int index = 0; index < text.length(); index++) {
+			char character = text.charAt(index);
+			switch (character) {
+			case '&':
+				escaped.append("&amp;");
+				break;
+			case '<':
+				escaped.append("&lt;");
+				break;
+			case '>':
+				escaped.append("&gt;");
+				break;
+			case '"':
+				escaped.append("&quot;");
+				break;
+			case '\'':
+				escaped.append("&apos;");
+				break;
+			default:
+				escaped.append(character);
+			}
+		}
+		return escaped.toString();
+	}
+}
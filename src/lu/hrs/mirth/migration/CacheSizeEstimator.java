@@ -0,0 +1,126 @@
+package lu.hrs.mirth.migration;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Approximates the heap that is retained by the caches of a Mirth client.<br/>
+ * <br/>
+ * The estimation walks the cached structures (maps, collections, JSON objects, strings, arrays) and sums up the payload plus a typical per-object
+ * overhead of a 64 bit JVM with compressed references. It is not exact, but it is cheap enough to be done regularly and it is precise enough for
+ * deciding which system occupies how much memory. Objects that are referenced from multiple places (e.g. the ids that are used as keys by
+ * several maps) are only counted once.
+ */
+public class CacheSizeEstimator {
+
+	/** Object header incl. alignment */
+	private final static int OBJECT_OVERHEAD = 16;
+	/** A reference to another object */
+	private final static int REFERENCE = 4;
+	/** A string object without the content array */
+	private final static int STRING_OVERHEAD = 24;
+	/** A boxed number */
+	private final static int NUMBER = 24;
+	/** A hash map incl. it's table (without entries) */
+	private final static int MAP_OVERHEAD = 64;
+	/** A single map entry (hash and tree maps) */
+	private final static int MAP_ENTRY = 40;
+	/** A list incl. it's element array (without elements) */
+	private final static int COLLECTION_OVERHEAD = 40;
+
+	/** The objects that have already been counted */
+	private final IdentityHashMap<Object, Boolean> visited = new IdentityHashMap<Object, Boolean>();
+	private long bytes = 0;
+
+	/**
+	 * Adds the size of an object and of everything that is referenced by it
+	 *
+	 * @param object
+	 *            The object. Null values are ignored.
+	 * @return The estimator itself
+	 */
+	public CacheSizeEstimator add(Object object) {
+		if ((object == null) || (object == JSONObject.NULL) || (object instanceof Boolean) || (visited.put(object, Boolean.TRUE) != null)) {
+			return this;
+		}
+
+		if (object instanceof String) {
+			// compact strings mostly use one byte per character
+			bytes += STRING_OVERHEAD + OBJECT_OVERHEAD + ((String) object).length();
+		} else if (object instanceof Number) {
+			bytes += NUMBER;
+		} else if (object instanceof JSONObject) {
+			JSONObject json = (JSONObject) object;
+			bytes += OBJECT_OVERHEAD + MAP_OVERHEAD + json.length() * (MAP_ENTRY + REFERENCE);
+			for (String key : json.keySet()) {
+				add(key);
+				add(json.opt(key));
+			}
+		} else if (object instanceof JSONArray) {
+			JSONArray json = (JSONArray) object;
+			bytes += OBJECT_OVERHEAD + COLLECTION_OVERHEAD + json.length() * REFERENCE;
+			for (int index = 0; index < json.length(); index++) {
+				add(json.opt(index));
+			}
+		} else if (object instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) object;
+			bytes += MAP_OVERHEAD + map.size() * (MAP_ENTRY + REFERENCE);
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				add(entry.getKey());
+				add(entry.getValue());
+			}
+		} else if (object instanceof Collection) {
+			Collection<?> collection = (Collection<?>) object;
+			bytes += COLLECTION_OVERHEAD + collection.size() * REFERENCE;
+			for (Object element : collection) {
+				add(element);
+			}
+		} else if (object instanceof Object[]) {
+			Object[] array = (Object[]) object;
+			bytes += OBJECT_OVERHEAD + array.length * REFERENCE;
+			for (Object element : array) {
+				add(element);
+			}
+		} else if (object instanceof byte[]) {
+			bytes += OBJECT_OVERHEAD + ((byte[]) object).length;
+		} else if (object instanceof ComponentFingerprints) {
+			((ComponentFingerprints) object).estimateSize(this);
+		} else if (object instanceof CodeTemplateHeaders) {
+			((CodeTemplateHeaders) object).estimateSize(this);
+		} else if (object instanceof ComponentIndex) {
+			((ComponentIndex<?>) object).estimateSize(this);
+		} else if (object instanceof ComponentMeta) {
+			((ComponentMeta) object).estimateSize(this);
+		} else {
+			// unknown objects are only counted by their header
+			bytes += OBJECT_OVERHEAD;
+		}
+
+		return this;
+	}
+
+	/**
+	 * Adds a number of bytes that has been determined by other means (e.g. the size of compressed content)
+	 *
+	 * @param bytes
+	 *            The number of bytes
+	 * @return The estimator itself
+	 */
+	public CacheSizeEstimator addBytes(long bytes) {
+		this.bytes += bytes;
+		return this;
+	}
+
+	/**
+	 * Provides the estimated size of all objects that have been added
+	 *
+	 * @return The number of bytes
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+}
@@ -0,0 +1,134 @@
+package lu.hrs.mirth.migration;
+
+import java.util.Collection;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * The cached metadata of a channel
+ */
+public class ChannelMeta extends ComponentMeta {
+
+	private final String initialState;
+	private final boolean disabled;
+	/** The functions used by the channel that could not be found or null if there are none */
+	private final Collection<String> unknownFunctions;
+	/** The code template libraries that are needed but not referenced by the channel or null if there are none */
+	private final JSONArray missingReferences;
+
+	/**
+	 * Creates the metadata of a channel
+	 *
+	 * @param id
+	 *            The id of the channel
+	 * @param name
+	 *            The name of the channel
+	 * @param version
+	 *            The revision of the channel
+	 * @param lastModified
+	 *            The point of time of the last modification in milliseconds or {@link ComponentMeta#NO_DATE}
+	 * @param description
+	 *            The description of the channel (already formatted for displaying)
+	 * @param initialState
+	 *            The state of the channel after deployment
+	 * @param disabled
+	 *            true, if the channel is disabled
+	 * @param unknownFunctions
+	 *            The functions used by the channel that could not be found (<i>OPTIONAL</i>)
+	 * @param missingReferences
+	 *            The code template libraries that are needed but not referenced by the channel (<i>OPTIONAL</i>)
+	 */
+	public ChannelMeta(String id, String name, int version, long lastModified, String description, String initialState, boolean disabled,
+			Collection<String> unknownFunctions, JSONArray missingReferences) {
+		super(id, name, version, lastModified, description);
+		this.initialState = initialState;
+		this.disabled = disabled;
+		this.unknownFunctions = unknownFunctions;
+		this.missingReferences = ((missingReferences != null) && !missingReferences.isEmpty()) ? missingReferences : null;
+	}
+
+	@Override
+	public String getType() {
+		return MirthMigrator.CHANNEL;
+	}
+
+	/**
+	 * Provides the state of the channel after deployment
+	 *
+	 * @return The state (e.g. <b>STARTED</b>)
+	 */
+	public String getInitialState() {
+		return initialState;
+	}
+
+	/**
+	 * Checks if the channel is disabled
+	 *
+	 * @return true, if it is disabled
+	 */
+	public boolean isDisabled() {
+		return disabled;
+	}
+
+	/**
+	 * Checks if issues have been detected for the channel
+	 *
+	 * @return true, if there are unknown functions or missing code template library references
+	 */
+	public boolean hasIssues() {
+		return (unknownFunctions != null) || (missingReferences != null);
+	}
+
+	/**
+	 * Creates the JSON representation of the channel metadata
+	 *
+	 * @return A JSON object containing the following attributes:
+	 *         <ul>
+	 *         <li><b>Display name</b> - the name of the channel</li>
+	 *         <li><b>Id</b> - the UUID of the channel</li>
+	 *         <li><b>Initial state</b> - the state of the channel after deployment</li>
+	 *         <li><b>Version</b> - the revision of the channel</li>
+	 *         <li><b>Type</b> - always <b>channel</b></li>
+	 *         <li><b>Last modified</b> - the point of time of the last modification in milliseconds (<i>OPTIONAL</i>)</li>
+	 *         <li><b>Display date</b> - a human readable representation of <b>Last modified</b> or <b>-</b></li>
+	 *         <li><b>Description</b> - the description of the channel</li>
+	 *         <li><b>Is disabled</b> - only present (and true) if the channel is disabled</li>
+	 *         <li><b>Issues</b> - the <b>unknownFunctions</b> and <b>missingReferences</b> of the channel (<i>OPTIONAL</i>)</li>
+	 *         </ul>
+	 */
+	@Override
+	public JSONObject toJson() {
+		JSONObject metaData = new JSONObject();
+		metaData.put("Display name", getName());
+		metaData.put("Id", getId());
+		metaData.put("Initial state", initialState);
+		metaData.put("Version", getVersion());
+		metaData.put("Type", getType());
+		if (hasLastModified()) {
+			metaData.put("Last modified", getLastModified());
+		}
+		metaData.put("Display date", getDisplayDate());
+		metaData.put("Description", getDescription());
+		if (disabled) {
+			metaData.put("Is disabled", true);
+		}
+		if (hasIssues()) {
+			JSONObject issues = new JSONObject();
+			if (unknownFunctions != null) {
+				issues.put("unknownFunctions", unknownFunctions);
+			}
+			if (missingReferences != null) {
+				issues.put("missingReferences", missingReferences);
+			}
+			metaData.put("Issues", issues);
+		}
+		return metaData;
+	}
+
+	@Override
+	void estimateSize(CacheSizeEstimator estimator) {
+		super.estimateSize(estimator);
+		estimator.addBytes(16).add(initialState).add(unknownFunctions).add(missingReferences);
+	}
+}
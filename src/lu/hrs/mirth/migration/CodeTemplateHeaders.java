@@ -0,0 +1,307 @@
+package lu.hrs.mirth.migration;
+
+import java.util.HashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.json.JSONObject;
+
+/**
+ * Extracts the JavaScript Doc headers of a code template in a single linear pass over its code.<br/>
+ * <br/>
+ * The code is scanned once for <b>/** ... *&#47;</b> headers and <b>function name(parameters)</b> signatures. A header that is only separated by
+ * white space from the following signature is attached to that function. The description, parameter and return value documentation of every
+ * function is prepared right away, so that a code template with multiple functions does not have to be scanned once per function. As the result
+ * only depends on the code, it can be cached for as long as the revision of the code template does not change.
+ */
+public class CodeTemplateHeaders {
+
+	/**
+	 * Provides the function description from the JavaScript Doc header
+	 */
+	private final static Pattern descriptionPattern = Pattern.compile("^[\\p{Cntrl}\\s]+([^@]*)");
+	/**
+	 * Provides the Parameter descriptions from the JavaScript Doc header
+	 */
+	private final static Pattern parameterPattern = Pattern.compile("@param\\s+(?:\\{.*?\\})?\\s*?([^@\\s]+)([^@]+)");
+	/**
+	 * Extracts the parameters from a function definition
+	 */
+	private final static Pattern functionParameterPattern = Pattern.compile("[^\\s ,]+");
+	/**
+	 * Provides the return value description from the JavaScript Doc header
+	 */
+	private final static Pattern returnValuePattern = Pattern.compile("@return\\s+(?:\\{.*?\\})?\\s*?([^@]+)");
+	/**
+	 * Detects line breaks incl. the preceding white space
+	 */
+	private final static Pattern lineBreakPattern = Pattern.compile("\\s*(\\r?\\n|\\r)");
+	/**
+	 * Detects HTML line breaks at the end of a line
+	 */
+	private final static Pattern htmlLineBreakPattern = Pattern.compile("(?i)<br?\\/>(\\r?\\n|\\r)");
+	/**
+	 * Detects line breaks in a description that are not preceded by a list tag
+	 */
+	private final static Pattern descriptionLineBreakPattern = Pattern.compile("(?i)(?<!<(ol|ul|\\/ol|\\/ul|\\/li)>)(\\n)");
+	/**
+	 * Detects line breaks in a parameter description that are not preceded by a list or table tag
+	 */
+	private final static Pattern parameterLineBreakPattern = Pattern
+			.compile("(?i)(?<!<(ol|ul|tr|td|table\\/ol|\\/ul|\\/li|\\/td|\\/tr|\\/table)>)(\\n)");
+
+	/** The revision of the code template from which the headers have been extracted */
+	private final Object revision;
+	/** The documentation of the first header of the code template (used if the code template does not contain functions) */
+	private JSONObject firstHeader = null;
+	/** The documentation of all functions identified by their name (incl. brackets). The first definition of a function wins */
+	private final HashMap<String, JSONObject> functionHeaders = new HashMap<String, JSONObject>();
+
+	/**
+	 * Scans the code of a code template for JavaScript Doc headers and function signatures
+	 *
+	 * @param code
+	 *            The code of the code template
+	 * @param revision
+	 *            The revision of the code template (see {@link #isRevision(Object)})
+	 */
+	public CodeTemplateHeaders(String code, Object revision) {
+		this.revision = revision;
+
+		int length = code.length();
+		int position = 0;
+		String header = null;
+		while (position < length) {
+			char character = code.charAt(position);
+			if ((character == '/') && code.startsWith("/**", position)) {
+				// a header ends with the first closing comment tag - empty headers are not considered
+				int end = code.indexOf("*/", position + 3);
+				if ((end < 0) || (end == position + 3)) {
+					position += 3;
+					continue;
+				}
+				String content = code.substring(position + 3, end);
+				// the first header of the code template is also it's description if there are no functions
+				if (firstHeader == null) {
+					firstHeader = describe(content, null);
+				}
+
+				// skip the white space following the header
+				int next = end + 2;
+				while ((next < length) && Character.isWhitespace(code.charAt(next))) {
+					next++;
+				}
+				// the header only belongs to a function if the signature follows immediately
+				if (isFunctionKeyword(code, next)) {
+					header = content;
+					position = next;
+				} else {
+					// otherwise it is not a function header - but it might contain something that looks like a function
+					position += 3;
+				}
+				continue;
+			}
+
+			if ((character == 'f') && isFunctionKeyword(code, position)) {
+				int end = parseSignature(code, position, header);
+				if (end > 0) {
+					position = end;
+					header = null;
+					continue;
+				}
+			}
+			header = null;
+			position++;
+		}
+	}
+
+	/**
+	 * Checks if the headers have been extracted from a specific revision of the code template
+	 *
+	 * @param revision
+	 *            The current revision of the code template
+	 * @return true, if the headers are still valid for this revision
+	 */
+	public boolean isRevision(Object revision) {
+		return String.valueOf(this.revision).equals(String.valueOf(revision));
+	}
+
+	/**
+	 * Provides the documentation of a function or of the code template itself
+	 *
+	 * @param functionName
+	 *            The name of the function (incl. brackets - e.g. <b>myFunction()</b>). If none is provided, the first JavaScript Doc header will be
+	 *            used (this is e.g. the case if the code template does not contain a function) (<i>OPTIONAL</i>)
+	 * @return A JSON object containing the following attributes:
+	 *         <ul>
+	 *         <li><b>description</b> - the description of the function or code template (<i>OPTIONAL</i>)</li>
+	 *         <li><b>parameters</b> - the name and description of the function parameters (<i>OPTIONAL</i>)</li>
+	 *         <li><b>returnValue</b> - the description of the return value of the function (<i>OPTIONAL</i>)</li>
+	 *         </ul>
+	 *         The return value is <b>null</b> if the required description was not found
+	 */
+	public JSONObject get(String functionName) {
+		return (functionName == null) ? firstHeader : functionHeaders.get(functionName);
+	}
+
+	/**
+	 * Adds the size of all extracted headers to a cache size estimation
+	 *
+	 * @param estimator
+	 *            The estimator
+	 */
+	void estimateSize(CacheSizeEstimator estimator) {
+		estimator.addBytes(24).add(revision).add(firstHeader).add(functionHeaders);
+	}
+
+	/**
+	 * Checks if the keyword <b>function</b> starts at a given position and is not part of another identifier
+	 *
+	 * @param code
+	 *            The code
+	 * @param position
+	 *            The position to check
+	 * @return true, if it is the function keyword
+	 */
+	private static boolean isFunctionKeyword(String code, int position) {
+		if (!code.startsWith("function", position)) {
+			return false;
+		}
+		if ((position > 0) && Character.isJavaIdentifierPart(code.charAt(position - 1))) {
+			return false;
+		}
+		int end = position + 8;
+		return (end >= code.length()) || !Character.isJavaIdentifierPart(code.charAt(end));
+	}
+
+	/**
+	 * Parses a function signature (<b>function name(parameters)</b>) and registers the documentation of the function
+	 *
+	 * @param code
+	 *            The code
+	 * @param position
+	 *            The position of the function keyword
+	 * @param header
+	 *            The JavaScript Doc header that precedes the function or null if there is none
+	 * @return The position after the signature or -1 if it is no named function declaration
+	 */
+	private int parseSignature(String code, int position, String header) {
+		int length = code.length();
+		int index = position + 8;
+		// skip white space before the name
+		while ((index < length) && Character.isWhitespace(code.charAt(index))) {
+			index++;
+		}
+		// the name ends with white space or the opening bracket
+		int nameStart = index;
+		while ((index < length) && !Character.isWhitespace(code.charAt(index)) && (code.charAt(index) != '(')) {
+			index++;
+		}
+		if (index == nameStart) {
+			// anonymous function
+			return -1;
+		}
+		String name = code.substring(nameStart, index);
+		// skip white space before the parameter list
+		while ((index < length) && Character.isWhitespace(code.charAt(index))) {
+			index++;
+		}
+		if ((index >= length) || (code.charAt(index) != '(')) {
+			return -1;
+		}
+		int parametersEnd = code.indexOf(')', index);
+		if (parametersEnd < 0) {
+			return -1;
+		}
+
+		// the first definition of a function is the documented one
+		functionHeaders.putIfAbsent(name + "()", describe((header != null) ? header : "", code.substring(index + 1, parametersEnd)));
+
+		return parametersEnd + 1;
+	}
+
+	/**
+	 * Prepares the documentation of a JavaScript Doc header
+	 *
+	 * @param header
+	 *            The content of the header (without the comment tags)
+	 * @param parameterList
+	 *            The parameter list of the function or null if the header does not belong to a function
+	 * @return The documentation (see {@link #get(String)})
+	 */
+	private static JSONObject describe(String header, String parameterList) {
+		JSONObject properties = new JSONObject();
+
+		// extract the function description
+		Matcher descriptionMatcher = descriptionPattern.matcher(header);
+		if (descriptionMatcher.find()) {
+			// and add it to the record
+			properties.put("description", format(descriptionMatcher.group(1), descriptionLineBreakPattern));
+		}
+
+		// if the code template contains no functions
+		if (parameterList == null) {
+			// analysis ends here
+			return properties;
+		}
+
+		// stores the detected description
+		HashMap<String, String> detectedDescription = new HashMap<String, String>();
+		Matcher parameterMatcher = parameterPattern.matcher(header);
+		// detect all parameter descriptions in the function header
+		while (parameterMatcher.find()) {
+			// extract the parameter name
+			String parameterName = parameterMatcher.group(1).trim();
+			// the parameter description
+			String parameterDescription = parameterMatcher.group(2).trim();
+			// remove a potential "-" prefix
+			if (!parameterDescription.isEmpty() && (parameterDescription.charAt(0) == '-')) {
+				parameterDescription = parameterDescription.substring(1);
+			}
+			// adjust description
+			parameterDescription = format(parameterDescription, parameterLineBreakPattern);
+			// and add it to the list of detected descriptions
+			detectedDescription.put(parameterName, parameterDescription);
+		}
+
+		// generate documentation for all function parameters
+		StringBuilder parameters = new StringBuilder();
+		Matcher functionParameterMatcher = functionParameterPattern.matcher(parameterList);
+		while (functionParameterMatcher.find()) {
+			// extract the parameter name
+			String name = functionParameterMatcher.group();
+			// the parameter description (if there is one in the function header)
+			String description = detectedDescription.getOrDefault(name, "");
+			// and add the formatted parameter
+			parameters.append(String.format("<tr><td><b>%s</b>\t</td><td>%s</td></tr>\n", name, description));
+		}
+		if (parameters.length() > 0) {
+			// add the formatted parameter list to the result set
+			properties.put("parameters", "<table class='parameters'>" + parameters + "</table>");
+		}
+
+		// finally extract the return value description
+		Matcher returnValueMatcher = returnValuePattern.matcher(header);
+		if (returnValueMatcher.find()) {
+			// add the return value description
+			properties.put("returnValue", format(returnValueMatcher.group(1), descriptionLineBreakPattern));
+		}
+
+		return properties;
+	}
+
+	/**
+	 * Normalizes the line breaks of a documentation text and converts them to HTML line breaks
+	 *
+	 * @param text
+	 *            The documentation text
+	 * @param lineBreakTagPattern
+	 *            Detects the line breaks that should be converted (line breaks after list or table tags are kept)
+	 * @return The formatted text
+	 */
+	private static String format(String text, Pattern lineBreakTagPattern) {
+		text = lineBreakPattern.matcher(text).replaceAll("\n");
+		text = htmlLineBreakPattern.matcher(text).replaceAll("\n");
+		return lineBreakTagPattern.matcher(text).replaceAll("<br/>\n");
+	}
+}
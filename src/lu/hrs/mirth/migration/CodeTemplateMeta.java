@@ -0,0 +1,148 @@
+package lu.hrs.mirth.migration;
+
+import java.util.Collection;
+
+import org.json.JSONObject;
+
+/**
+ * The cached metadata of a code template or of a single function of a code template
+ */
+public class CodeTemplateMeta extends ComponentMeta {
+
+	/** The name of the function or null if the code template is no function */
+	private final String functionName;
+	private final String parameters;
+	private final String returnValue;
+	/** The code templates that define the same function or null if there are none */
+	private final Collection<String> multipleDefinitions;
+
+	/**
+	 * Creates the metadata of a code template
+	 *
+	 * @param id
+	 *            The id of the code template (incl. the function number if the code template contains several functions)
+	 * @param name
+	 *            The name of the code template
+	 * @param functionName
+	 *            The name of the function (incl. brackets) or null if the code template is no function
+	 * @param version
+	 *            The revision of the code template
+	 * @param lastModified
+	 *            The point of time of the last modification in milliseconds or {@link ComponentMeta#NO_DATE}
+	 * @param description
+	 *            The description of the function or code template (<i>OPTIONAL</i>)
+	 * @param parameters
+	 *            The description of the function parameters (<i>OPTIONAL</i>)
+	 * @param returnValue
+	 *            The description of the return value of the function (<i>OPTIONAL</i>)
+	 * @param multipleDefinitions
+	 *            The code templates that define the same function (<i>OPTIONAL</i>)
+	 */
+	public CodeTemplateMeta(String id, String name, String functionName, int version, long lastModified, String description, String parameters,
+			String returnValue, Collection<String> multipleDefinitions) {
+		super(id, name, version, lastModified, description);
+		this.functionName = functionName;
+		this.parameters = parameters;
+		this.returnValue = returnValue;
+		this.multipleDefinitions = multipleDefinitions;
+	}
+
+	@Override
+	public String getType() {
+		return MirthMigrator.CODE_TEMPLATE;
+	}
+
+	/**
+	 * Checks if the code template is a function
+	 *
+	 * @return true, if it is a function
+	 */
+	public boolean isFunction() {
+		return functionName != null;
+	}
+
+	/**
+	 * Provides the name of the function
+	 *
+	 * @return The name of the function (incl. brackets) or the name of the code template if it is no function
+	 */
+	public String getFunctionName() {
+		return isFunction() ? functionName : getName();
+	}
+
+	/**
+	 * Provides the description of the function parameters
+	 *
+	 * @return The description or null if there is none
+	 */
+	public String getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * Provides the description of the return value of the function
+	 *
+	 * @return The description or null if there is none
+	 */
+	public String getReturnValue() {
+		return returnValue;
+	}
+
+	/**
+	 * Checks if issues have been detected for the code template
+	 *
+	 * @return true, if the function is defined multiple times
+	 */
+	public boolean hasIssues() {
+		return multipleDefinitions != null;
+	}
+
+	/**
+	 * Creates the JSON representation of the code template metadata
+	 *
+	 * @return A JSON object containing the following attributes:
+	 *         <ul>
+	 *         <li><b>Display name</b> - the name of the code template</li>
+	 *         <li><b>Function name</b> - the name of the function or the name of the code template if it is no function</li>
+	 *         <li><b>Id</b> - the UUID of the code template</li>
+	 *         <li><b>Version</b> - the revision of the code template</li>
+	 *         <li><b>Type</b> - always <b>codeTemplate</b></li>
+	 *         <li><b>Last modified</b> - the point of time of the last modification in milliseconds or <b>-</b></li>
+	 *         <li><b>Display date</b> - a human readable representation of <b>Last modified</b> or <b>-</b></li>
+	 *         <li><b>Description</b> - the description of the function or code template (<i>OPTIONAL</i>)</li>
+	 *         <li><b>Parameters</b> - the description of the function parameters (<i>OPTIONAL</i>)</li>
+	 *         <li><b>Return value</b> - the description of the return value of the function (<i>OPTIONAL</i>)</li>
+	 *         <li><b>Is function</b> - true, if the code template is a function</li>
+	 *         <li><b>Issues</b> - the <b>multipleDefinitions</b> of the function (<i>OPTIONAL</i>)</li>
+	 *         </ul>
+	 */
+	@Override
+	public JSONObject toJson() {
+		JSONObject metaData = new JSONObject();
+		metaData.put("Display name", getName());
+		metaData.put("Function name", getFunctionName());
+		metaData.put("Id", getId());
+		metaData.put("Version", getVersion());
+		metaData.put("Type", getType());
+		if (hasLastModified()) {
+			metaData.put("Last modified", getLastModified());
+		} else {
+			metaData.put("Last modified", "-");
+		}
+		metaData.put("Display date", getDisplayDate());
+		metaData.putOpt("Description", getDescription());
+		metaData.putOpt("Parameters", parameters);
+		metaData.putOpt("Return value", returnValue);
+		metaData.put("Is function", isFunction());
+		if (hasIssues()) {
+			metaData.put("Issues", new JSONObject().put("multipleDefinitions", multipleDefinitions));
+		}
+		return metaData;
+	}
+
+	@Override
+	void estimateSize(CacheSizeEstimator estimator) {
+		super.estimateSize(estimator);
+		estimator.addBytes(16).add(functionName).add(parameters).add(returnValue).add(multipleDefinitions);
+	}
+}
@@ -0,0 +1,363 @@
+package lu.hrs.mirth.migration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.json.JSONObject;
+
+/**
+ * Keeps the raw XML of the channels and code templates of a Mirth system in memory without holding it as strings.<br/>
+ * <br/>
+ * Every component is stored as a Deflate compressed byte array. As the single components are rather small, the compressor is primed with a preset
+ * dictionary that consists of the fragments every Mirth export repeats over and over (connector properties, data type properties, transformer
+ * skeleton, ...). The most recently used components are additionally kept decompressed in a small LRU so that e.g. comparing and migrating the
+ * same component does not decompress it twice.<br/>
+ * <br/>
+ * A component is only served as long as it's revision is the same like the one it was stored with. Thus the store is not invalidated if the
+ * configuration of the system is reloaded - unchanged components remain valid.
+ */
+public class ComponentContentStore {
+
+	/** The default number of components that are kept decompressed */
+	public final static int DEFAULT_HOT_ENTRIES = 16;
+
+	/**
+	 * The preset dictionary of the compressor. It contains the fragments that are repeated in (nearly) every Mirth channel and code template export.
+	 * The most frequent fragments are at the end of the dictionary as Deflate encodes shorter distances more efficiently.
+	 */
+	private final static byte[] dictionary = ("<codeTemplate version=\"\"><id></id><name></name><revision></revision><lastModified><time></time>"
+			+ "<timezone>Europe/Luxembourg</timezone></lastModified><contextSet><delegate><contextType>CHANNEL_PREPROCESSOR</contextType>"
+			+ "<contextType>CHANNEL_ATTACHMENT</contextType><contextType>SOURCE_FILTER_TRANSFORMER</contextType>"
+			+ "<contextType>DESTINATION_FILTER_TRANSFORMER</contextType><contextType>DESTINATION_RESPONSE_TRANSFORMER</contextType>"
+			+ "<contextType>CHANNEL_DEPLOY</contextType><contextType>CHANNEL_UNDEPLOY</contextType><contextType>CHANNEL_POSTPROCESSOR</contextType>"
+			+ "<contextType>GLOBAL_DEPLOY</contextType><contextType>CHANNEL_BATCH</contextType></delegate></contextSet>"
+			+ "<properties class=\"com.mirth.connect.model.codetemplates.BasicCodeTemplateProperties\"><type>FUNCTION</type><code>/**\n"
+			+ "\t@param {String} \n\t@return {String} \n*/\nfunction </code></properties></codeTemplate>\n"
+			+ "<channel version=\"\"><id></id><nextMetaDataId></nextMetaDataId><name></name><description></description><revision></revision>"
+			+ "<sourceConnector version=\"\"><metaDataId>0</metaDataId><name>sourceConnector</name><pluginProperties/>"
+			+ "<listenerConnectorProperties version=\"\"><host>0.0.0.0</host><port></port></listenerConnectorProperties>"
+			+ "<sourceConnectorProperties version=\"\"><responseVariable>None</responseVariable><respondAfterProcessing>true</respondAfterProcessing>"
+			+ "<processBatch>false</processBatch><firstResponse>false</firstResponse><processingThreads>1</processingThreads>"
+			+ "<queueBufferSize>1000</queueBufferSize></sourceConnectorProperties><preprocessingScript>// Modify the message variable below to "
+			+ "pre process data\nreturn message;</preprocessingScript><postprocessingScript>// This script executes once after a message has "
+			+ "been processed\n// Responses returned from here will be stored as &quot;Postprocessor&quot; in the response map\nreturn;"
+			+ "</postprocessingScript><deployScript>// This script executes once when the channel is deployed\n// You only have access to the "
+			+ "globalMap and globalChannelMap here to persist data\nreturn;</deployScript><undeployScript>// This script executes once when the "
+			+ "channel is undeployed\n// You only have access to the globalMap and globalChannelMap here to persist data\nreturn;</undeployScript>"
+			+ "<properties version=\"\"><clearGlobalChannelMap>true</clearGlobalChannelMap><messageStorageMode>DEVELOPMENT</messageStorageMode>"
+			+ "<encryptData>false</encryptData><removeContentOnCompletion>false</removeContentOnCompletion>"
+			+ "<removeOnlyFilteredOnCompletion>false</removeOnlyFilteredOnCompletion><removeAttachmentsOnCompletion>false"
+			+ "</removeAttachmentsOnCompletion><initialState>STARTED</initialState><storeAttachments>false</storeAttachments>"
+			+ "<metaDataColumns/><attachmentProperties version=\"\"><type>None</type><properties/></attachmentProperties>"
+			+ "<resourceIds class=\"linked-hash-map\"><entry><string>Default Resource</string><string>[Default Resource]</string></entry>"
+			+ "</resourceIds></properties><exportData><metadata><enabled>true</enabled><lastModified><time></time><timezone></timezone>"
+			+ "</lastModified><pruningSettings><archiveEnabled>true</archiveEnabled></pruningSettings></metadata><channelTags/></exportData>"
+			+ "<destinationConnectors><connector version=\"\"><metaDataId></metaDataId><name></name>"
+			+ "<properties class=\"com.mirth.connect.connectors.js.JavaScriptDispatcherProperties\" version=\"\"><pluginProperties/>"
+			+ "<destinationConnectorProperties version=\"\"><queueEnabled>false</queueEnabled><sendFirst>false</sendFirst>"
+			+ "<retryIntervalMillis>10000</retryIntervalMillis><regenerateTemplate>false</regenerateTemplate><retryCount>0</retryCount>"
+			+ "<rotate>false</rotate><includeFilterTransformer>false</includeFilterTransformer><threadCount>1</threadCount>"
+			+ "<threadAssignmentVariable></threadAssignmentVariable><validateResponse>false</validateResponse>"
+			+ "<resourceIds class=\"linked-hash-map\"><entry><string>Default Resource</string><string>[Default Resource]</string></entry>"
+			+ "</resourceIds><queueBufferSize>1000</queueBufferSize><reattachAttachments>true</reattachAttachments>"
+			+ "</destinationConnectorProperties><script></script></properties>"
+			+ "<transformer version=\"\"><elements><com.mirth.connect.plugins.javascriptstep.JavaScriptStep version=\"\"><name></name>"
+			+ "<sequenceNumber>0</sequenceNumber><enabled>true</enabled><script></script></com.mirth.connect.plugins.javascriptstep.JavaScriptStep>"
+			+ "</elements><inboundTemplate encoding=\"base64\"></inboundTemplate><outboundTemplate encoding=\"base64\"></outboundTemplate>"
+			+ "<inboundDataType>HL7V2</inboundDataType><outboundDataType>HL7V2</outboundDataType>"
+			+ "<inboundProperties class=\"com.mirth.connect.plugins.datatypes.hl7v2.HL7v2DataTypeProperties\" version=\"\">"
+			+ "<serializationProperties class=\"com.mirth.connect.plugins.datatypes.hl7v2.HL7v2SerializationProperties\" version=\"\">"
+			+ "<handleRepetitions>true</handleRepetitions><handleSubcomponents>true</handleSubcomponents><useStrictParser>false</useStrictParser>"
+			+ "<useStrictValidation>false</useStrictValidation><stripNamespaces>false</stripNamespaces><segmentDelimiter>\\r</segmentDelimiter>"
+			+ "<convertLineBreaks>true</convertLineBreaks></serializationProperties></inboundProperties>"
+			+ "<inboundDataType>JSON</inboundDataType><outboundDataType>JSON</outboundDataType>"
+			+ "<inboundProperties class=\"com.mirth.connect.plugins.datatypes.json.JSONDataTypeProperties\" version=\"\">"
+			+ "<batchProperties class=\"com.mirth.connect.plugins.datatypes.json.JSONBatchProperties\" version=\"\"><splitType>JavaScript"
+			+ "</splitType><batchScript></batchScript></batchProperties></inboundProperties>"
+			+ "<outboundProperties class=\"com.mirth.connect.plugins.datatypes.json.JSONDataTypeProperties\" version=\"\">"
+			+ "<batchProperties class=\"com.mirth.connect.plugins.datatypes.json.JSONBatchProperties\" version=\"\"><splitType>JavaScript"
+			+ "</splitType><batchScript></batchScript></batchProperties></outboundProperties></transformer>"
+			+ "<responseTransformer version=\"\"><elements/></responseTransformer><filter version=\"\"><elements/></filter>"
+			+ "<transportName>JavaScript Writer</transportName><mode>DESTINATION</mode><enabled>true</enabled>"
+			+ "<waitForPrevious>true</waitForPrevious></connector></destinationConnectors>\n"
+			+ "&amp;&lt;&gt;&quot;&apos;&#xd;\n          </batchProperties>\n        </inboundProperties>\n        </outboundProperties>\n"
+			+ "      </transformer>\n      <filter version=\"3.\">\n        <elements/>\n      </filter>\n    </connector>\n"
+			+ "            <string>Default Resource</string>\n            <string>[Default Resource]</string>\n          </entry>\n").getBytes(StandardCharsets.UTF_8);
+
+	/** The name of the system to which the components belong */
+	private final String systemName;
+	/** The compressed components identified by component type and id */
+	private final HashMap<String, Entry> entries = new HashMap<String, Entry>();
+	/** The most recently used components in decompressed form (least recently used first) */
+	private final LinkedHashMap<String, String> hotEntries;
+	/** The size of all stored components in UTF-8 encoding */
+	private long rawBytes = 0;
+	/** The size of all stored components in compressed form */
+	private long compressedBytes = 0;
+
+	/**
+	 * Creates a new content store
+	 *
+	 * @param systemName
+	 *            The name of the system to which the components belong
+	 * @param hotEntries
+	 *            The number of most recently used components that are kept decompressed
+	 */
+	public ComponentContentStore(String systemName, final int hotEntries) {
+		this.systemName = systemName;
+		this.hotEntries = new LinkedHashMap<String, String>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > hotEntries;
+			}
+		};
+	}
+
+	/**
+	 * Provides the content of a component
+	 *
+	 * @param componentType
+	 *            The type of the component (e.g. {@link MirthMigrator#CHANNEL})
+	 * @param componentId
+	 *            The id of the component
+	 * @param revision
+	 *            The current revision of the component
+	 * @return The content of the component or null if it is not stored in this revision
+	 */
+	public synchronized String get(String componentType, String componentId, Object revision) {
+		String key = componentType + ":" + componentId;
+		Entry entry = entries.get(key);
+		if ((entry == null) || !entry.revision.equals(String.valueOf(revision))) {
+			return null;
+		}
+
+		// it might still be around in decompressed form
+		String content = hotEntries.get(key);
+		if (content == null) {
+			content = decompress(entry);
+			hotEntries.put(key, content);
+		}
+
+		return content;
+	}
+
+	/**
+	 * Stores the content of a component. A previous revision of the component is replaced.
+	 *
+	 * @param componentType
+	 *            The type of the component (e.g. {@link MirthMigrator#CHANNEL})
+	 * @param componentId
+	 *            The id of the component
+	 * @param revision
+	 *            The revision of the component
+	 * @param content
+	 *            The content of the component
+	 */
+	public void put(String componentType, String componentId, Object revision, String content) {
+		// compress outside of the lock
+		byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+		Entry entry = new Entry(String.valueOf(revision), compress(raw), raw.length);
+
+		String key = componentType + ":" + componentId;
+		synchronized (this) {
+			discard(entries.put(key, entry));
+			rawBytes += entry.rawLength;
+			compressedBytes += entry.content.length;
+			hotEntries.put(key, content);
+		}
+	}
+
+	/**
+	 * Removes a component from the store (e.g. because it has been changed)
+	 *
+	 * @param componentType
+	 *            The type of the component (e.g. {@link MirthMigrator#CHANNEL})
+	 * @param componentId
+	 *            The id of the component
+	 */
+	public synchronized void remove(String componentType, String componentId) {
+		String key = componentType + ":" + componentId;
+		discard(entries.remove(key));
+		hotEntries.remove(key);
+	}
+
+	/**
+	 * Removes all components of a type that are not part of a given set of components (e.g. because they have been deleted)
+	 *
+	 * @param componentType
+	 *            The type of the component (e.g. {@link MirthMigrator#CHANNEL})
+	 * @param componentIds
+	 *            The ids of all existing components of this type
+	 */
+	public synchronized void retain(String componentType, Set<String> componentIds) {
+		String prefix = componentType + ":";
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, Entry> entry = iterator.next();
+			if (entry.getKey().startsWith(prefix) && !componentIds.contains(entry.getKey().substring(prefix.length()))) {
+				discard(entry.getValue());
+				hotEntries.remove(entry.getKey());
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes all components from the store
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		hotEntries.clear();
+		rawBytes = 0;
+		compressedBytes = 0;
+	}
+
+	/**
+	 * Provides the size of all components in compressed form
+	 *
+	 * @return The number of bytes
+	 */
+	public synchronized long getCompressedBytes() {
+		return compressedBytes;
+	}
+
+	/**
+	 * Provides the approximate heap that is occupied by the store: the compressed components, their bookkeeping and the components that are
+	 * currently kept decompressed
+	 *
+	 * @return The number of bytes
+	 */
+	public synchronized long getRetainedBytes() {
+		// compressed content plus entry, revision and map entry overhead
+		long bytes = compressedBytes + entries.size() * 160L;
+		for (String content : hotEntries.values()) {
+			bytes += 40 + content.length();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Provides statistics about the store
+	 *
+	 * @return A JSON object with the following attributes:
+	 *         <ul>
+	 *         <li><b>system</b> - the name of the system to which the components belong</li>
+	 *         <li><b>components</b> - the number of stored components</li>
+	 *         <li><b>rawBytes</b> - the size of all components in UTF-8 encoding</li>
+	 *         <li><b>compressedBytes</b> - the size of all components in compressed form</li>
+	 *         <li><b>compressionRatio</b> - the raw size divided by the compressed size</li>
+	 *         <li><b>hotComponents</b> - the number of components that are currently kept decompressed</li>
+	 *         </ul>
+	 */
+	public synchronized JSONObject getStatistics() {
+		JSONObject statistics = new JSONObject();
+		statistics.put("system", systemName);
+		statistics.put("components", entries.size());
+		statistics.put("rawBytes", rawBytes);
+		statistics.put("compressedBytes", compressedBytes);
+		statistics.put("compressionRatio", (compressedBytes > 0) ? rawBytes / (double) compressedBytes : 0);
+		statistics.put("hotComponents", hotEntries.size());
+		return statistics;
+	}
+
+	/**
+	 * Updates the size accounting for a component that is no longer stored
+	 *
+	 * @param entry
+	 *            The removed entry or null if there was none
+	 */
+	private void discard(Entry entry) {
+		if (entry != null) {
+			rawBytes -= entry.rawLength;
+			compressedBytes -= entry.content.length;
+		}
+	}
+
+	/**
+	 * Compresses a component using the preset dictionary
+	 *
+	 * @param raw
+	 *            The UTF-8 encoded component
+	 * @return The compressed component
+	 */
+	private static byte[] compress(byte[] raw) {
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		try {
+			deflater.setDictionary(dictionary);
+			deflater.setInput(raw);
+			deflater.finish();
+
+			// components usually shrink to a fraction of their size
+			byte[] buffer = new byte[Math.max(64, raw.length / 4)];
+			int length = 0;
+			while (!deflater.finished()) {
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				}
+				length += deflater.deflate(buffer, length, buffer.length - length);
+			}
+			return Arrays.copyOf(buffer, length);
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Decompresses a component
+	 *
+	 * @param entry
+	 *            The stored component
+	 * @return The content of the component
+	 */
+	private static String decompress(Entry entry) {
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setDictionary(dictionary);
+			inflater.setInput(entry.content);
+
+			// the size of the decompressed component is known
+			byte[] raw = new byte[entry.rawLength];
+			int length = 0;
+			while ((length < raw.length) && !inflater.finished()) {
+				int inflated = inflater.inflate(raw, length, raw.length - length);
+				if ((inflated == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				length += inflated;
+			}
+			if (length != raw.length) {
+				throw new IllegalStateException("Stored component is corrupt: expected " + raw.length + " bytes but got " + length);
+			}
+			return new String(raw, StandardCharsets.UTF_8);
+		} catch (DataFormatException e) {
+			throw new IllegalStateException("Stored component is corrupt: " + e.getMessage(), e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * A compressed component
+	 */
+	private static class Entry {
+		private final String revision;
+		private final byte[] content;
+		private final int rawLength;
+
+		private Entry(String revision, byte[] content, int rawLength) {
+			this.revision = revision;
+			this.content = content;
+			this.rawLength = rawLength;
+		}
+	}
+}
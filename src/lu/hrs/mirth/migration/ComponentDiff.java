@@ -0,0 +1,404 @@
+package lu.hrs.mirth.migration;
+
+import java.util.HashMap;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Calculates a line based difference between two versions of a component using the linear space variant of the Myers algorithm.<br/>
+ * <br/>
+ * Only the changed hunks plus some lines of context are reported. For channels, every hunk is labeled with the section of the channel to which it
+ * belongs (e.g. the connector and the transformer step), so the client does not have to receive and diff the complete configurations.
+ */
+public class ComponentDiff {
+
+	/** The lines of the source version */
+	private final String[] sourceLines;
+	/** The lines of the target version */
+	private final String[] targetLines;
+	/** The lines of the source version as symbols (equal lines share the same symbol) */
+	private final int[] source;
+	/** The lines of the target version as symbols */
+	private final int[] target;
+	/** Flags the lines of the source version that are not part of the target version */
+	private final boolean[] removed;
+	/** Flags the lines of the target version that are not part of the source version */
+	private final boolean[] added;
+	/** The furthest reaching paths of the forward search, indexed by diagonal */
+	private final int[] forward;
+	/** The furthest reaching paths of the reverse search, indexed by diagonal */
+	private final int[] reverse;
+	/** The offset that maps diagonal 0 to the middle of the path arrays */
+	private final int offset;
+
+	private ComponentDiff(String sourceContent, String targetContent) {
+		this.sourceLines = splitLines(sourceContent);
+		this.targetLines = splitLines(targetContent);
+
+		// map every distinct line to a symbol to make comparisons cheap
+		HashMap<String, Integer> symbols = new HashMap<String, Integer>();
+		this.source = toSymbols(this.sourceLines, symbols);
+		this.target = toSymbols(this.targetLines, symbols);
+
+		this.removed = new boolean[this.source.length];
+		this.added = new boolean[this.target.length];
+
+		// a path can not be longer than the sum of both versions
+		this.offset = this.source.length + this.target.length + 1;
+		this.forward = new int[2 * this.offset + 1];
+		this.reverse = new int[2 * this.offset + 1];
+	}
+
+	/**
+	 * Calculates the difference between two versions of a component
+	 *
+	 * @param sourceContent
+	 *            The content of the component at the source system
+	 * @param targetContent
+	 *            The content of the component at the target system
+	 * @param contextLines
+	 *            The number of unchanged lines that are reported before and after every change
+	 * @return A JSON object containing the following information:
+	 *         <ul>
+	 *         <li><b>identical</b> - true, if there is no difference at all</li>
+	 *         <li><b>sourceLines</b> - the number of lines of the source version</li>
+	 *         <li><b>targetLines</b> - the number of lines of the target version</li>
+	 *         <li><b>hunks</b> - a JSON Array of changed regions. Each entry contains the following attributes:
+	 *         <ul>
+	 *         <li><b>section</b> - the section of the component to which the hunk belongs (<i>OPTIONAL</i>)</li>
+	 *         <li><b>sourceStart</b> - the first source line of the hunk (starting at 1)</li>
+	 *         <li><b>sourceLength</b> - the number of source lines covered by the hunk</li>
+	 *         <li><b>targetStart</b> - the first target line of the hunk (starting at 1)</li>
+	 *         <li><b>targetLength</b> - the number of target lines covered by the hunk</li>
+	 *         <li><b>lines</b> - the lines of the hunk, each prefixed by <b>' '</b> (unchanged), <b>'-'</b> (only in the source) or <b>'+'</b>
+	 *         (only in the target)</li>
+	 *         </ul>
+	 *         </li>
+	 *         </ul>
+	 */
+	public static JSONObject diff(String sourceContent, String targetContent, int contextLines) {
+		ComponentDiff diff = new ComponentDiff(sourceContent, targetContent);
+		diff.compare(0, diff.source.length, 0, diff.target.length);
+
+		JSONObject result = new JSONObject();
+		JSONArray hunks = diff.createHunks(Math.max(0, contextLines));
+		result.put("identical", hunks.isEmpty());
+		result.put("sourceLines", diff.source.length);
+		result.put("targetLines", diff.target.length);
+		result.put("hunks", hunks);
+
+		return result;
+	}
+
+	/**
+	 * Splits a content into lines. Line endings are normalized and trailing whitespace is ignored.
+	 *
+	 * @param content
+	 *            The content
+	 * @return The lines of the content
+	 */
+	private static String[] splitLines(String content) {
+		if ((content == null) || content.isEmpty()) {
+			return new String[0];
+		}
+		String[] lines = content.replace("\r\n", "\n").replace('\r', '\n').split("\n", -1);
+		for (int index = 0; index < lines.length; index++) {
+			lines[index] = stripTrailingWhitespace(lines[index]);
+		}
+		return lines;
+	}
+
+	private static String stripTrailingWhitespace(String line) {
+		int end = line.length();
+		while ((end > 0) && Character.isWhitespace(line.charAt(end - 1))) {
+			end--;
+		}
+		return line.substring(0, end);
+	}
+
+	private static int[] toSymbols(String[] lines, HashMap<String, Integer> symbols) {
+		int[] result = new int[lines.length];
+		for (int index = 0; index < lines.length; index++) {
+			Integer symbol = symbols.get(lines[index]);
+			if (symbol == null) {
+				symbol = symbols.size();
+				symbols.put(lines[index], symbol);
+			}
+			result[index] = symbol;
+		}
+		return result;
+	}
+
+	/**
+	 * Recursively determines the changed lines of a region by splitting it at the middle snake of the shortest edit script
+	 *
+	 * @param sourceStart
+	 *            The first source line of the region
+	 * @param sourceEnd
+	 *            The source line after the region
+	 * @param targetStart
+	 *            The first target line of the region
+	 * @param targetEnd
+	 *            The target line after the region
+	 */
+	private void compare(int sourceStart, int sourceEnd, int targetStart, int targetEnd) {
+		// skip the common prefix
+		while ((sourceStart < sourceEnd) && (targetStart < targetEnd) && (source[sourceStart] == target[targetStart])) {
+			sourceStart++;
+			targetStart++;
+		}
+		// and the common suffix
+		while ((sourceStart < sourceEnd) && (targetStart < targetEnd) && (source[sourceEnd - 1] == target[targetEnd - 1])) {
+			sourceEnd--;
+			targetEnd--;
+		}
+
+		if (sourceStart == sourceEnd) {
+			// only additions are left
+			for (int index = targetStart; index < targetEnd; index++) {
+				added[index] = true;
+			}
+		} else if (targetStart == targetEnd) {
+			// only removals are left
+			for (int index = sourceStart; index < sourceEnd; index++) {
+				removed[index] = true;
+			}
+		} else {
+			// divide and conquer
+			int[] snake = findMiddleSnake(sourceStart, sourceEnd, targetStart, targetEnd);
+			compare(sourceStart, snake[0], targetStart, snake[1]);
+			compare(snake[2], sourceEnd, snake[3], targetEnd);
+		}
+	}
+
+	/**
+	 * Searches the middle snake of the shortest edit script of a region by simultaneously searching forward from the start and backward from the
+	 * end of the region until both paths overlap
+	 *
+	 * @param sourceStart
+	 *            The first source line of the region
+	 * @param sourceEnd
+	 *            The source line after the region
+	 * @param targetStart
+	 *            The first target line of the region
+	 * @param targetEnd
+	 *            The target line after the region
+	 * @return The start (source and target line) and the end (source and target line) of the middle snake
+	 */
+	private int[] findMiddleSnake(int sourceStart, int sourceEnd, int targetStart, int targetEnd) {
+		int sourceLength = sourceEnd - sourceStart;
+		int targetLength = targetEnd - targetStart;
+		int delta = sourceLength - targetLength;
+		boolean isOdd = (delta & 1) != 0;
+		int maxDistance = (sourceLength + targetLength + 1) / 2;
+
+		// the reverse search works on mirrored coordinates (counting from the end of the region)
+		forward[offset + 1] = 0;
+		reverse[offset + 1] = 0;
+
+		for (int distance = 0; distance <= maxDistance; distance++) {
+			// extend the forward paths
+			for (int diagonal = -distance; diagonal <= distance; diagonal += 2) {
+				int x = ((diagonal == -distance) || ((diagonal != distance) && (forward[offset + diagonal - 1] < forward[offset + diagonal + 1])))
+						? forward[offset + diagonal + 1]
+						: forward[offset + diagonal - 1] + 1;
+				int y = x - diagonal;
+				int snakeX = x;
+				int snakeY = y;
+				// follow the diagonal as long as the lines are equal
+				while ((x < sourceLength) && (y < targetLength) && (source[sourceStart + x] == target[targetStart + y])) {
+					x++;
+					y++;
+				}
+				forward[offset + diagonal] = x;
+
+				// check for an overlap with the reverse path on the same diagonal
+				int reverseDiagonal = delta - diagonal;
+				if (isOdd && (reverseDiagonal >= -(distance - 1)) && (reverseDiagonal <= distance - 1)
+						&& (x + reverse[offset + reverseDiagonal] >= sourceLength)) {
+					return new int[] { sourceStart + snakeX, targetStart + snakeY, sourceStart + x, targetStart + y };
+				}
+			}
+
+			// extend the reverse paths
+			for (int diagonal = -distance; diagonal <= distance; diagonal += 2) {
+				int x = ((diagonal == -distance) || ((diagonal != distance) && (reverse[offset + diagonal - 1] < reverse[offset + diagonal + 1])))
+						? reverse[offset + diagonal + 1]
+						: reverse[offset + diagonal - 1] + 1;
+				int y = x - diagonal;
+				int snakeX = x;
+				int snakeY = y;
+				// follow the diagonal backwards as long as the lines are equal
+				while ((x < sourceLength) && (y < targetLength) && (source[sourceEnd - 1 - x] == target[targetEnd - 1 - y])) {
+					x++;
+					y++;
+				}
+				reverse[offset + diagonal] = x;
+
+				// check for an overlap with the forward path on the same diagonal
+				int forwardDiagonal = delta - diagonal;
+				if (!isOdd && (forwardDiagonal >= -distance) && (forwardDiagonal <= distance)
+						&& (x + forward[offset + forwardDiagonal] >= sourceLength)) {
+					return new int[] { sourceEnd - x, targetEnd - y, sourceEnd - snakeX, targetEnd - snakeY };
+				}
+			}
+		}
+
+		// can not happen as the paths overlap at the latest after half of the maximum distance
+		throw new IllegalStateException("no middle snake found");
+	}
+
+	/**
+	 * Groups the changed lines into hunks
+	 *
+	 * @param contextLines
+	 *            The number of unchanged lines that are reported before and after every change
+	 * @return The hunks
+	 */
+	private JSONArray createHunks(int contextLines) {
+		JSONArray hunks = new JSONArray();
+		String[] sourceSections = null;
+		String[] targetSections = null;
+
+		int sourceIndex = 0;
+		int targetIndex = 0;
+		while ((sourceIndex < source.length) || (targetIndex < target.length)) {
+			// skip unchanged lines
+			if ((sourceIndex < source.length) && (targetIndex < target.length) && !removed[sourceIndex] && !added[targetIndex]) {
+				sourceIndex++;
+				targetIndex++;
+				continue;
+			}
+
+			// a change was found - the section labels are only determined if there actually are changes
+			if (sourceSections == null) {
+				sourceSections = determineSections(sourceLines);
+				targetSections = determineSections(targetLines);
+			}
+
+			// the hunk starts with some context
+			int context = Math.min(contextLines, Math.min(sourceIndex, targetIndex));
+			int hunkSourceStart = sourceIndex - context;
+			int hunkTargetStart = targetIndex - context;
+			JSONArray lines = new JSONArray();
+			for (int index = 0; index < context; index++) {
+				lines.put(" " + sourceLines[hunkSourceStart + index]);
+			}
+			String section = (sourceIndex < source.length && removed[sourceIndex]) ? sourceSections[sourceIndex] : targetSections[targetIndex];
+
+			// collect changes until there are more unchanged lines than can be covered by the context of two hunks
+			while ((sourceIndex < source.length) || (targetIndex < target.length)) {
+				if ((sourceIndex < source.length) && removed[sourceIndex]) {
+					lines.put("-" + sourceLines[sourceIndex++]);
+				} else if ((targetIndex < target.length) && added[targetIndex]) {
+					lines.put("+" + targetLines[targetIndex++]);
+				} else {
+					// look ahead if the next change is close enough to be part of this hunk
+					int nextChange = 0;
+					while ((sourceIndex + nextChange < source.length) && (targetIndex + nextChange < target.length)
+							&& !removed[sourceIndex + nextChange] && !added[targetIndex + nextChange]) {
+						nextChange++;
+					}
+					boolean isLast = (sourceIndex + nextChange >= source.length) && (targetIndex + nextChange >= target.length);
+					if (isLast || (nextChange > 2 * contextLines)) {
+						// finish the hunk with the trailing context
+						for (int index = 0; index < Math.min(contextLines, nextChange); index++) {
+							lines.put(" " + sourceLines[sourceIndex++]);
+							targetIndex++;
+						}
+						break;
+					}
+					// the gap is covered by the context
+					for (int index = 0; index < nextChange; index++) {
+						lines.put(" " + sourceLines[sourceIndex++]);
+						targetIndex++;
+					}
+				}
+			}
+
+			JSONObject hunk = new JSONObject();
+			if (section != null) {
+				hunk.put("section", section);
+			}
+			hunk.put("sourceStart", hunkSourceStart + 1);
+			hunk.put("sourceLength", sourceIndex - hunkSourceStart);
+			hunk.put("targetStart", hunkTargetStart + 1);
+			hunk.put("targetLength", targetIndex - hunkTargetStart);
+			hunk.put("lines", lines);
+			hunks.put(hunk);
+		}
+
+		return hunks;
+	}
+
+	/**
+	 * Determines for every line of a channel configuration the section to which it belongs. A section is described by the connector and the filter
+	 * rule or transformer step (e.g. <i>Destination "Write file" / transformer step "Map fields"</i>) or the channel script.
+	 *
+	 * @param lines
+	 *            The lines of the configuration
+	 * @return The section labels (an entry is null if the line does not belong to a specific section)
+	 */
+	private static String[] determineSections(String[] lines) {
+		String[] sections = new String[lines.length];
+		String connector = null;
+		String stage = null;
+		String step = null;
+		String script = null;
+		// indicates which element waits for it's name
+		boolean awaitingConnectorName = false;
+		boolean awaitingStepName = false;
+
+		for (int index = 0; index < lines.length; index++) {
+			String line = lines[index].trim();
+
+			if (line.startsWith("<sourceConnector")) {
+				connector = "Source";
+				stage = null;
+				step = null;
+			} else if (line.startsWith("<connector ") || line.equals("<connector>")) {
+				connector = "Destination";
+				stage = null;
+				step = null;
+				awaitingConnectorName = true;
+			} else if (line.startsWith("<transformer") || line.startsWith("<responseTransformer") || line.startsWith("<filter")) {
+				stage = line.startsWith("<transformer") ? "transformer" : line.startsWith("<filter") ? "filter" : "response transformer";
+				step = null;
+			} else if ((stage != null) && line.startsWith("<com.mirth.") && (line.contains("Step ") || line.contains("Rule "))) {
+				awaitingStepName = true;
+			} else if (line.startsWith("<name>") && line.endsWith("</name>") && (awaitingConnectorName || awaitingStepName)) {
+				String name = line.substring(6, line.length() - 7);
+				if (awaitingStepName) {
+					step = (stage.equals("filter") ? "filter rule" : stage + " step") + " \"" + name + "\"";
+					awaitingStepName = false;
+				} else {
+					connector = "Destination \"" + name + "\"";
+					awaitingConnectorName = false;
+				}
+			} else if (line.startsWith("</transformer>") || line.startsWith("</responseTransformer>") || line.startsWith("</filter>")) {
+				stage = null;
+				step = null;
+			} else if (line.startsWith("</sourceConnector>") || line.startsWith("</connector>")) {
+				connector = null;
+				stage = null;
+				step = null;
+			} else if ((connector == null) && line.matches("<(preprocessing|postprocessing|deploy|undeploy)Script>.*")) {
+				script = line.substring(1, line.indexOf('>'));
+			}
+
+			// assign the label
+			if (script != null) {
+				sections[index] = script;
+				// scripts end with the closing tag
+				if (line.endsWith("</" + script + ">")) {
+					script = null;
+				}
+			} else if (connector != null) {
+				sections[index] = (step == null) ? connector : connector + " / " + step;
+			}
+		}
+
+		return sections;
+	}
+}
@@ -0,0 +1,213 @@
+package lu.hrs.mirth.migration;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Holds a canonical fingerprint for every channel, code template, channel group and code template library of a Mirth system.<br/>
+ * <br/>
+ * The fingerprint is a hash of the component configuration without volatile fields (revision, last modification date, export data, version
+ * attributes), without the component id and without formatting. As components are identified across systems by type and name, two systems can
+ * thus be compared by a simple lookup per component instead of downloading and comparing every single configuration.
+ */
+public class ComponentFingerprints {
+
+	/** Elements that change without an actual change of the component and are thus ignored */
+	private final static Set<String> volatileElements = new HashSet<String>(Arrays.asList("revision", "lastModified", "exportData"));
+	/** Member lists of channel groups and code template libraries. Only their content is relevant, not the order of the members. */
+	private final static Set<String> memberLists = new HashSet<String>(
+			Arrays.asList("channels", "codeTemplates", "enabledChannelIds", "disabledChannelIds"));
+
+	/** Maps the component type to the components of this type. Each component name is mapped to it's id and fingerprint. */
+	private final LinkedHashMap<String, TreeMap<String, String[]>> fingerprints = new LinkedHashMap<String, TreeMap<String, String[]>>();
+
+	/**
+	 * Adds the fingerprints of all components of a list
+	 *
+	 * @param componentType
+	 *            The type of the components (e.g. {@link MirthMigrator#CHANNEL})
+	 * @param configuration
+	 *            The XML list of components as delivered by the Mirth REST API
+	 * @throws ConfigurationException
+	 *             If the list is not well-formed
+	 */
+	public void add(String componentType, String configuration) throws ConfigurationException {
+		TreeMap<String, String[]> components = fingerprints.get(componentType);
+		if (components == null) {
+			components = new TreeMap<String, String[]>();
+			fingerprints.put(componentType, components);
+		}
+
+		// an empty list might arrive without any element at all
+		if ((configuration == null) || configuration.trim().isEmpty()) {
+			return;
+		}
+
+		for (XmlNode component : XmlNode.parse(configuration).getChildren()) {
+			String name = component.getChildText("name");
+			// skip anything that is not a named component
+			if (name != null) {
+				components.put(name, new String[] { component.getChildText("id"), createFingerprint(component) });
+			}
+		}
+	}
+
+	/**
+	 * Provides the number of components of all types
+	 *
+	 * @return The number of fingerprints
+	 */
+	public int size() {
+		int size = 0;
+		for (TreeMap<String, String[]> components : fingerprints.values()) {
+			size += components.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Adds the size of all fingerprints to a cache size estimation
+	 *
+	 * @param estimator
+	 *            The estimator
+	 */
+	void estimateSize(CacheSizeEstimator estimator) {
+		estimator.addBytes(16).add(fingerprints);
+	}
+
+	/**
+	 * Creates the canonical fingerprint of a component
+	 *
+	 * @param component
+	 *            The component configuration
+	 * @return The hash value of the canonical form of the component
+	 */
+	public static String createFingerprint(XmlNode component) {
+		XmlNode canonical = component.copy();
+		// the id is not relevant as components are matched by name
+		canonical.getChildren().remove(canonical.getChild("id"));
+		removeVolatileContent(canonical);
+		sortMembers(canonical);
+
+		return MirthMigrator.createHash(canonical.toString());
+	}
+
+	/**
+	 * Recursively removes all volatile elements and version attributes of a component
+	 *
+	 * @param node
+	 *            The element that should be cleaned
+	 */
+	private static void removeVolatileContent(XmlNode node) {
+		node.removeAttribute("version");
+		for (Iterator<XmlNode> children = node.getChildren().iterator(); children.hasNext();) {
+			XmlNode child = children.next();
+			if (volatileElements.contains(child.getName())) {
+				children.remove();
+			} else {
+				removeVolatileContent(child);
+			}
+		}
+	}
+
+	/**
+	 * Sorts the members of a channel group or code template library by their ids. Otherwise, a group would differ from the same group at
+	 * another system just because the members were added in a different order (e.g. by a migration).
+	 *
+	 * @param component
+	 *            The component configuration
+	 */
+	private static void sortMembers(XmlNode component) {
+		for (XmlNode child : component.getChildren()) {
+			if (memberLists.contains(child.getName())) {
+				child.getChildren().sort(Comparator.comparing(ComponentFingerprints::getMemberId));
+			}
+		}
+	}
+
+	private static String getMemberId(XmlNode member) {
+		// members are either referenced by an id element (channels, code templates) or are the id itself (channel ids)
+		String id = member.getChildText("id");
+		return (id != null) ? id : member.getText();
+	}
+
+	/**
+	 * Classifies the components of two systems by comparing their fingerprints
+	 *
+	 * @param source
+	 *            The fingerprints of the source system
+	 * @param target
+	 *            The fingerprints of the target system
+	 * @return A JSON object with the following lists. Each entry contains the <b>type</b> and <b>name</b> of the component as well as the
+	 *         <b>sourceId</b> and/or <b>targetId</b>:
+	 *         <ul>
+	 *         <li><b>identical</b> - components that exist on both systems with the same content</li>
+	 *         <li><b>modified</b> - components that exist on both systems but differ in content</li>
+	 *         <li><b>sourceOnly</b> - components that only exist on the source system</li>
+	 *         <li><b>targetOnly</b> - components that only exist on the target system</li>
+	 *         </ul>
+	 */
+	public static JSONObject compare(ComponentFingerprints source, ComponentFingerprints target) {
+		JSONArray identical = new JSONArray();
+		JSONArray modified = new JSONArray();
+		JSONArray sourceOnly = new JSONArray();
+		JSONArray targetOnly = new JSONArray();
+
+		for (Map.Entry<String, TreeMap<String, String[]>> type : source.fingerprints.entrySet()) {
+			TreeMap<String, String[]> targetComponents = target.fingerprints.get(type.getKey());
+			for (Map.Entry<String, String[]> component : type.getValue().entrySet()) {
+				String[] targetComponent = (targetComponents == null) ? null : targetComponents.get(component.getKey());
+				if (targetComponent == null) {
+					// the component is missing at the target system
+					sourceOnly.put(createEntry(type.getKey(), component.getKey(), component.getValue(), null));
+				} else if (component.getValue()[1].equals(targetComponent[1])) {
+					// the content is the same
+					identical.put(createEntry(type.getKey(), component.getKey(), component.getValue(), targetComponent));
+				} else {
+					// the content differs
+					modified.put(createEntry(type.getKey(), component.getKey(), component.getValue(), targetComponent));
+				}
+			}
+		}
+
+		// finally add all components that are unknown to the source system
+		for (Map.Entry<String, TreeMap<String, String[]>> type : target.fingerprints.entrySet()) {
+			TreeMap<String, String[]> sourceComponents = source.fingerprints.get(type.getKey());
+			for (Map.Entry<String, String[]> component : type.getValue().entrySet()) {
+				if ((sourceComponents == null) || !sourceComponents.containsKey(component.getKey())) {
+					targetOnly.put(createEntry(type.getKey(), component.getKey(), null, component.getValue()));
+				}
+			}
+		}
+
+		JSONObject result = new JSONObject();
+		result.put("identical", identical);
+		result.put("modified", modified);
+		result.put("sourceOnly", sourceOnly);
+		result.put("targetOnly", targetOnly);
+
+		return result;
+	}
+
+	private static JSONObject createEntry(String componentType, String name, String[] sourceComponent, String[] targetComponent) {
+		JSONObject entry = new JSONObject();
+		entry.put("type", componentType);
+		entry.put("name", name);
+		if (sourceComponent != null) {
+			entry.put("sourceId", sourceComponent[0]);
+		}
+		if (targetComponent != null) {
+			entry.put("targetId", targetComponent[0]);
+		}
+		return entry;
+	}
+}
@@ -0,0 +1,244 @@
+package lu.hrs.mirth.migration;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An index of component metadata by id.<br/>
+ * <br/>
+ * UUID based ids are looked up in an open addressing table that is keyed by the numeric representation of the id. Thus, neither a string hash
+ * nor a map entry per component is needed. The few ids that are no UUID are kept in a small map.<br/>
+ * <br/>
+ * The index is filled once while the metadata is loaded and only read afterwards. It is not synchronized.
+ *
+ * @param <T>
+ *            The type of the metadata
+ */
+public class ComponentIndex<T extends ComponentMeta> implements Iterable<T> {
+
+	private final static int MINIMUM_CAPACITY = 16;
+
+	/** The metadata with UUID based ids (the table length is always a power of 2) */
+	private ComponentMeta[] table;
+	/** The metadata with ids that are no UUID */
+	private final HashMap<String, T> others = new HashMap<String, T>();
+	/** The number of entries of the table */
+	private int tableSize = 0;
+
+	/**
+	 * Creates an empty index
+	 */
+	public ComponentIndex() {
+		this(MINIMUM_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty index
+	 *
+	 * @param expectedSize
+	 *            The expected number of components
+	 */
+	public ComponentIndex(int expectedSize) {
+		// keep the table at most half full
+		table = new ComponentMeta[tableLength(expectedSize)];
+	}
+
+	/**
+	 * Adds the metadata of a component. The metadata of a component with the same id is replaced.
+	 *
+	 * @param meta
+	 *            The metadata
+	 * @return The metadata that has been replaced or null if there was none
+	 */
+	public T put(T meta) {
+		if (meta.getIdText() != null) {
+			return others.put(meta.getIdText(), meta);
+		}
+		if ((tableSize + 1) * 2 > table.length) {
+			resize(table.length * 2);
+		}
+		int mask = table.length - 1;
+		for (int slot = meta.idHash() & mask;; slot = (slot + 1) & mask) {
+			ComponentMeta entry = table[slot];
+			if (entry == null) {
+				table[slot] = meta;
+				tableSize++;
+				return null;
+			}
+			if (sameId(entry, meta)) {
+				table[slot] = meta;
+				return cast(entry);
+			}
+		}
+	}
+
+	/**
+	 * Provides the metadata of a component
+	 *
+	 * @param id
+	 *            The id of the component
+	 * @return The metadata or null if the index does not contain the component
+	 */
+	public T get(String id) {
+		if (id == null) {
+			return null;
+		}
+		if (!ComponentMeta.isUuid(id)) {
+			return others.get(id);
+		}
+		long high = ComponentMeta.parseHex(id, 0, 18);
+		long low = ComponentMeta.parseHex(id, 19, 36);
+		int index = ComponentMeta.parseIndex(id);
+		int mask = table.length - 1;
+		for (int slot = ComponentMeta.hash(high, low, index) & mask;; slot = (slot + 1) & mask) {
+			ComponentMeta entry = table[slot];
+			if (entry == null) {
+				return null;
+			}
+			if (entry.hasId(high, low, index)) {
+				return cast(entry);
+			}
+		}
+	}
+
+	/**
+	 * Checks if the index contains a component
+	 *
+	 * @param id
+	 *            The id of the component
+	 * @return true, if it is contained
+	 */
+	public boolean containsKey(String id) {
+		return get(id) != null;
+	}
+
+	/**
+	 * Provides the number of components
+	 *
+	 * @return The number of components in the index
+	 */
+	public int size() {
+		return tableSize + others.size();
+	}
+
+	/**
+	 * Checks if the index is empty
+	 *
+	 * @return true, if it contains no components
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Provides the ids of all components
+	 *
+	 * @return A new set containing the ids
+	 */
+	public Set<String> ids() {
+		Set<String> ids = new HashSet<String>(size() * 2);
+		for (T meta : this) {
+			ids.add(meta.getId());
+		}
+		return ids;
+	}
+
+	/**
+	 * Provides the metadata of all components in no specific order
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		final Iterator<T> otherIterator = others.values().iterator();
+		return new Iterator<T>() {
+			private int slot = nextSlot(0);
+
+			private int nextSlot(int start) {
+				while ((start < table.length) && (table[start] == null)) {
+					start++;
+				}
+				return start;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return (slot < table.length) || otherIterator.hasNext();
+			}
+
+			@Override
+			public T next() {
+				if (slot < table.length) {
+					T meta = cast(table[slot]);
+					slot = nextSlot(slot + 1);
+					return meta;
+				}
+				if (!otherIterator.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return otherIterator.next();
+			}
+		};
+	}
+
+	/**
+	 * Adds the size of the index and of all metadata to a cache size estimation
+	 *
+	 * @param estimator
+	 *            The estimator
+	 */
+	void estimateSize(CacheSizeEstimator estimator) {
+		// the index itself, the table and the map of other ids
+		estimator.addBytes(32 + 16 + table.length * 4).add(others);
+		for (ComponentMeta meta : table) {
+			if (meta != null) {
+				meta.estimateSize(estimator);
+			}
+		}
+	}
+
+	/**
+	 * Moves all entries to a table of a different length
+	 *
+	 * @param length
+	 *            The new table length (a power of 2)
+	 */
+	private void resize(int length) {
+		ComponentMeta[] oldTable = table;
+		table = new ComponentMeta[length];
+		int mask = length - 1;
+		for (ComponentMeta entry : oldTable) {
+			if (entry != null) {
+				int slot = entry.idHash() & mask;
+				while (table[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				table[slot] = entry;
+			}
+		}
+	}
+
+	/**
+	 * Checks if two UUID based metadata entries have the same id
+	 */
+	private static boolean sameId(ComponentMeta first, ComponentMeta second) {
+		return first.idHash() == second.idHash() && first.getId().equals(second.getId());
+	}
+
+	/**
+	 * Determines the table length for a number of entries
+	 */
+	private static int tableLength(int expectedSize) {
+		int length = MINIMUM_CAPACITY;
+		while (length < expectedSize * 2) {
+			length <<= 1;
+		}
+		return length;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T cast(ComponentMeta meta) {
+		return (T) meta;
+	}
+}
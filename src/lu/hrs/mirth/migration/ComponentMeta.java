@@ -0,0 +1,307 @@
+package lu.hrs.mirth.migration;
+
+import org.json.JSONObject;
+
+/**
+ * The cached metadata of a Mirth component (channel, code template, channel group or code template library).<br/>
+ * <br/>
+ * The metadata is kept in primitive fields instead of a JSON object with human readable keys. The id is stored as the two halves of the UUID
+ * plus the number of the function for code templates that contain several functions (ids like <b>&lt;uuid&gt;_2</b>). Ids that are no UUID
+ * (e.g. the artificial group of unassigned channels) are kept as they are. The JSON representation that is known by the client is only
+ * created on demand by {@link #toJson()}.
+ */
+public abstract class ComponentMeta {
+
+	/** Indicates that the point of time of the last modification is unknown */
+	public final static long NO_DATE = Long.MIN_VALUE;
+
+	/** The first 64 bits of the UUID */
+	private final long idHigh;
+	/** The last 64 bits of the UUID */
+	private final long idLow;
+	/** The number of the function within the code template or 0 if the id has no function suffix */
+	private final int idIndex;
+	/** The id if it is no UUID, null otherwise */
+	private final String idText;
+
+	private final String name;
+	private final int version;
+	private final long lastModified;
+	private final String description;
+
+	/**
+	 * Creates the metadata of a component
+	 *
+	 * @param id
+	 *            The id of the component
+	 * @param name
+	 *            The display name of the component
+	 * @param version
+	 *            The revision of the component
+	 * @param lastModified
+	 *            The point of time of the last modification in milliseconds or {@link #NO_DATE}
+	 * @param description
+	 *            The description of the component (<i>OPTIONAL</i>)
+	 */
+	protected ComponentMeta(String id, String name, int version, long lastModified, String description) {
+		if (isUuid(id)) {
+			this.idHigh = parseHex(id, 0, 18);
+			this.idLow = parseHex(id, 19, 36);
+			this.idIndex = parseIndex(id);
+			this.idText = null;
+		} else {
+			this.idHigh = 0;
+			this.idLow = 0;
+			this.idIndex = 0;
+			this.idText = id;
+		}
+		this.name = name;
+		this.version = version;
+		this.lastModified = lastModified;
+		this.description = description;
+	}
+
+	/**
+	 * Provides the id of the component
+	 *
+	 * @return The id as it is used by Mirth (incl. the function suffix, if any)
+	 */
+	public String getId() {
+		if (idText != null) {
+			return idText;
+		}
+		char[] id = new char[36];
+		formatHex(idHigh >>> 32, id, 0, 8);
+		id[8] = '-';
+		formatHex(idHigh >>> 16, id, 9, 4);
+		id[13] = '-';
+		formatHex(idHigh, id, 14, 4);
+		id[18] = '-';
+		formatHex(idLow >>> 48, id, 19, 4);
+		id[23] = '-';
+		formatHex(idLow, id, 24, 12);
+		return (idIndex > 0) ? new String(id) + "_" + idIndex : new String(id);
+	}
+
+	/**
+	 * Provides the display name of the component
+	 *
+	 * @return The name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Provides the version of the component
+	 *
+	 * @return The revision of the component. Every change increases it by 1.
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Checks if the point of time of the last modification is known
+	 *
+	 * @return true, if it is known
+	 */
+	public boolean hasLastModified() {
+		return lastModified != NO_DATE;
+	}
+
+	/**
+	 * Provides the point of time of the last modification
+	 *
+	 * @return The timestamp in milliseconds or {@link #NO_DATE}
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Provides the point of time of the last modification in a human readable format
+	 *
+	 * @return The date in the format <b>dd.MM.yyyy, HH:mm:ss</b> or <b>-</b> if it is unknown
+	 */
+	public String getDisplayDate() {
+		return hasLastModified() ? MirthMigrator.formatDate(lastModified) : "-";
+	}
+
+	/**
+	 * Provides the description of the component
+	 *
+	 * @return The description or null if there is none
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Provides the type of the component
+	 *
+	 * @return The type (e.g. {@link MirthMigrator#CHANNEL})
+	 */
+	public abstract String getType();
+
+	/**
+	 * Creates the JSON representation of the metadata as it is delivered to the client
+	 *
+	 * @return A new JSON object
+	 */
+	public abstract JSONObject toJson();
+
+	/**
+	 * Adds the size of the metadata to a cache size estimation
+	 *
+	 * @param estimator
+	 *            The estimator
+	 */
+	void estimateSize(CacheSizeEstimator estimator) {
+		// header, 3 longs, 2 ints and 3 references
+		estimator.addBytes(56).add(idText).add(name).add(description);
+	}
+
+	/**
+	 * Checks if the component has a specific UUID based id
+	 *
+	 * @param high
+	 *            The first 64 bits of the UUID
+	 * @param low
+	 *            The last 64 bits of the UUID
+	 * @param index
+	 *            The number of the function or 0
+	 * @return true, if it is the id of this component
+	 */
+	final boolean hasId(long high, long low, int index) {
+		return (idText == null) && (idHigh == high) && (idLow == low) && (idIndex == index);
+	}
+
+	/**
+	 * Provides the id if it could not be stored as numbers
+	 *
+	 * @return The id if it is no UUID, null otherwise
+	 */
+	final String getIdText() {
+		return idText;
+	}
+
+	/**
+	 * Provides the hash of the UUID based id
+	 *
+	 * @return The hash (see {@link #hash(long, long, int)})
+	 */
+	final int idHash() {
+		return hash(idHigh, idLow, idIndex);
+	}
+
+	/**
+	 * Calculates the hash of a UUID based id
+	 *
+	 * @param high
+	 *            The first 64 bits of the UUID
+	 * @param low
+	 *            The last 64 bits of the UUID
+	 * @param index
+	 *            The number of the function or 0
+	 * @return The hash
+	 */
+	static int hash(long high, long low, int index) {
+		long hash = (high ^ Long.rotateLeft(low, 29)) + index;
+		// spread the bits as the table index is taken from the lower bits
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		return (int) hash;
+	}
+
+	/**
+	 * Checks if an id is a UUID in it's canonical form (lower case), optionally followed by the number of a function (e.g. <b>_2</b>)
+	 *
+	 * @param id
+	 *            The id
+	 * @return true, if the id can be stored as numbers without changing it's textual representation
+	 */
+	static boolean isUuid(String id) {
+		int length = id.length();
+		if (length < 36) {
+			return false;
+		}
+		for (int position = 0; position < 36; position++) {
+			char character = id.charAt(position);
+			if ((position == 8) || (position == 13) || (position == 18) || (position == 23)) {
+				if (character != '-') {
+					return false;
+				}
+			} else if (!(((character >= '0') && (character <= '9')) || ((character >= 'a') && (character <= 'f')))) {
+				return false;
+			}
+		}
+		if (length == 36) {
+			return true;
+		}
+		// the function number must not have leading zeros and has to fit into an int
+		if ((length < 38) || (length > 45) || (id.charAt(36) != '_') || (id.charAt(37) < '1') || (id.charAt(37) > '9')) {
+			return false;
+		}
+		for (int position = 38; position < length; position++) {
+			char character = id.charAt(position);
+			if ((character < '0') || (character > '9')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Converts the hexadecimal digits of a part of a UUID to a number (dashes are skipped)
+	 *
+	 * @param id
+	 *            The UUID (see {@link #isUuid(String)})
+	 * @param start
+	 *            The first position
+	 * @param end
+	 *            The position after the last digit
+	 * @return The number
+	 */
+	static long parseHex(String id, int start, int end) {
+		long value = 0;
+		for (int position = start; position < end; position++) {
+			char character = id.charAt(position);
+			if (character != '-') {
+				value = (value << 4) | Character.digit(character, 16);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Extracts the number of the function from an id
+	 *
+	 * @param id
+	 *            The UUID (see {@link #isUuid(String)})
+	 * @return The number of the function or 0 if there is none
+	 */
+	static int parseIndex(String id) {
+		return (id.length() > 36) ? Integer.parseInt(id.substring(37)) : 0;
+	}
+
+	/**
+	 * Writes the lower bits of a number as hexadecimal digits
+	 *
+	 * @param value
+	 *            The number
+	 * @param target
+	 *            The characters that receive the digits
+	 * @param offset
+	 *            The position of the first digit
+	 * @param digits
+	 *            The number of digits
+	 */
+	private static void formatHex(long value, char[] target, int offset, int digits) {
+		for (int position = offset + digits - 1; position >= offset; position--) {
+			target[position] = Character.forDigit((int) (value & 0xf), 16);
+			value >>>= 4;
+		}
+	}
+}
@@ -0,0 +1,577 @@
+package lu.hrs.mirth.migration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An indexed model of the Mirth configurations that assign channels and code templates to each other: channel groups, code template libraries,
+ * channel tags, inter-channel dependencies and channel prunings.<br/>
+ * <br/>
+ * A configuration is parsed once, all merges are done as set operations on the indexed membership collections of its entries and the result is
+ * serialized once. Entries are identified by their key (the name for groups, libraries and tags, the channel id for prunings and the pair of
+ * channel ids for dependencies). A reverse index provides all entries that reference a given id.
+ */
+public class ConfigurationModel {
+
+	/** The channel references of a channel group */
+	public final static String CHANNELS = "channels";
+	/** The code template references of a code template library */
+	public final static String CODE_TEMPLATES = "codeTemplates";
+	/** The channels for which a code template library is enabled */
+	public final static String ENABLED_CHANNEL_IDS = "enabledChannelIds";
+	/** The channels for which a code template library is disabled */
+	public final static String DISABLED_CHANNEL_IDS = "disabledChannelIds";
+	/** The channel references of a channel tag */
+	public final static String CHANNEL_IDS = "channelIds";
+	/** The channel that depends on another channel (inter-channel dependency) */
+	public final static String DEPENDENT_ID = "dependentId";
+	/** The channel that must be started first (inter-channel dependency) */
+	public final static String DEPENDENCY_ID = "dependencyId";
+	/** The channel to which a pruning configuration belongs */
+	public final static String PRUNED_CHANNEL_ID = "string";
+
+	/** The version attribute of newly added references. It will be adjusted by {@link MirthMigrator#convert(String, MirthVersion, MirthVersion)} */
+	private final static String PLACEHOLDER_VERSION = "1.2.3";
+
+	/**
+	 * The supported configuration types
+	 */
+	public enum Kind {
+		CHANNEL_GROUP("channel group", "list", "channelGroup", new String[] { "name" }, "id", new String[] { CHANNELS }),
+		CODE_TEMPLATE_LIBRARY("code template library", "list", "codeTemplateLibrary", new String[] { "name" }, "id",
+				new String[] { CODE_TEMPLATES, ENABLED_CHANNEL_IDS, DISABLED_CHANNEL_IDS }),
+		CHANNEL_TAG("tag", "set", "channelTag", new String[] { "name" }, "id", new String[] { CHANNEL_IDS }),
+		INTER_CHANNEL_DEPENDENCY("inter-channel dependency", "set", "channelDependency", new String[] { DEPENDENT_ID, DEPENDENCY_ID }, null,
+				new String[0]),
+		CHANNEL_PRUNING("channel pruning", "map", "entry", new String[] { PRUNED_CHANNEL_ID }, null, new String[0]);
+
+		/** A readable name used for error messages */
+		private final String label;
+		/** The name of the root element if a new configuration has to be created */
+		private final String rootName;
+		/** The element name of a single entry */
+		private final String entryName;
+		/** The leaf elements that build up the key of an entry. They are also added to the reference index */
+		private final String[] keyFields;
+		/** The leaf element containing the id of an entry (if any) */
+		private final String idField;
+		/** The elements that contain references to other components */
+		private final String[] collections;
+
+		private Kind(String label, String rootName, String entryName, String[] keyFields, String idField, String[] collections) {
+			this.label = label;
+			this.rootName = rootName;
+			this.entryName = entryName;
+			this.keyFields = keyFields;
+			this.idField = idField;
+			this.collections = collections;
+		}
+	}
+
+	/** The type of this configuration */
+	private final Kind kind;
+	/** The root element of the configuration */
+	private final XmlNode root;
+	/** All entries of the configuration identified by their key */
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>();
+	/** All ids that were ever part of this configuration (needed for collision detection) */
+	private final HashSet<String> ids = new HashSet<String>();
+	/** Maps a collection or key field to the referenced ids and those to the entries that reference them */
+	private final HashMap<String, HashMap<String, LinkedHashSet<Entry>>> references = new HashMap<String, HashMap<String, LinkedHashSet<Entry>>>();
+
+	private ConfigurationModel(Kind kind, XmlNode root) {
+		this.kind = kind;
+		this.root = root;
+	}
+
+	/**
+	 * Parses a configuration as it is delivered by the Mirth REST API
+	 *
+	 * @param xml
+	 *            The XML representation of the configuration. If empty, an empty configuration will be created.
+	 * @param kind
+	 *            The type of the configuration
+	 * @return The indexed configuration
+	 * @throws ConfigurationException
+	 *             If the configuration is invalid or an entry lacks it's key or id
+	 */
+	public static ConfigurationModel parse(String xml, Kind kind) throws ConfigurationException {
+		// an empty configuration might not even contain the root element
+		if ((xml == null) || xml.trim().isEmpty()) {
+			return new ConfigurationModel(kind, new XmlNode(kind.rootName));
+		}
+
+		XmlNode root = XmlNode.parse(xml);
+		ConfigurationModel model = new ConfigurationModel(kind, root);
+		// index all entries of the configuration
+		for (XmlNode node : root.getChildren()) {
+			if (!node.getName().equals(kind.entryName)) {
+				continue;
+			}
+			Entry entry = new Entry(kind, node);
+			// assure that the entry can be identified
+			for (String keyField : kind.keyFields) {
+				if (node.getChildText(keyField) == null) {
+					throw new ConfigurationException("unable to find " + kind.label + " " + keyField + ": \n" + node);
+				}
+			}
+			if ((kind.idField != null) && (entry.getId() == null)) {
+				throw new ConfigurationException("unable to find " + kind.label + " " + kind.idField + ": \n" + node);
+			}
+			model.put(entry);
+		}
+		// entries are serialized from the index
+		root.getChildren().clear();
+
+		return model;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Provides an entry by it's key
+	 *
+	 * @param key
+	 *            The name for groups, libraries and tags, the channel id for prunings or "dependentId:dependencyId" for inter-channel dependencies
+	 * @return The entry or null if there is none
+	 */
+	public Entry getEntry(String key) {
+		return entries.get(key);
+	}
+
+	public Collection<Entry> getEntries() {
+		return Collections.unmodifiableCollection(entries.values());
+	}
+
+	/**
+	 * Checks if an id is or was in use by any entry of this configuration
+	 *
+	 * @param id
+	 *            The id
+	 * @return true, if the id is occupied
+	 */
+	public boolean containsId(String id) {
+		return ids.contains(id);
+	}
+
+	/**
+	 * Provides all entries that reference an id
+	 *
+	 * @param collection
+	 *            The collection or key field in which the id is referenced (e.g. {@link #CHANNELS} or {@link #DEPENDENT_ID})
+	 * @param id
+	 *            The referenced id
+	 * @return A snapshot of the referencing entries (thus it is safe to alter the configuration while iterating)
+	 */
+	public List<Entry> getEntriesReferencing(String collection, String id) {
+		HashMap<String, LinkedHashSet<Entry>> index = references.get(collection);
+		if (index == null) {
+			return Collections.emptyList();
+		}
+		LinkedHashSet<Entry> referencing = index.get(id);
+		return (referencing == null) ? Collections.<Entry>emptyList() : new ArrayList<Entry>(referencing);
+	}
+
+	/**
+	 * Removes a reference from all entries of this configuration
+	 *
+	 * @param collection
+	 *            The collection from which the reference should be removed
+	 * @param id
+	 *            The referenced id
+	 */
+	public void removeMember(String collection, String id) {
+		removeMember(collection, id, Collections.<Entry>emptySet());
+	}
+
+	/**
+	 * Removes a reference from all entries of this configuration except the given ones. The references of the retained entries keep their
+	 * position.
+	 *
+	 * @param collection
+	 *            The collection from which the reference should be removed
+	 * @param id
+	 *            The referenced id
+	 * @param retained
+	 *            The entries that should keep the reference
+	 */
+	public void removeMember(String collection, String id, Collection<Entry> retained) {
+		for (Entry entry : getEntriesReferencing(collection, id)) {
+			if (!retained.contains(entry)) {
+				entry.removeMember(collection, id);
+			}
+		}
+	}
+
+	/**
+	 * Removes all entries that reference an id in one of their key fields
+	 *
+	 * @param keyField
+	 *            The key field (e.g. {@link #DEPENDENT_ID})
+	 * @param id
+	 *            The referenced id
+	 */
+	public void removeEntriesReferencing(String keyField, String id) {
+		for (Entry entry : getEntriesReferencing(keyField, id)) {
+			remove(entry);
+		}
+	}
+
+	/**
+	 * Adds an entry to the configuration. An existing entry with the same key will be replaced (the new entry takes over it's position).
+	 *
+	 * @param entry
+	 *            A detached entry (e.g. created by {@link Entry#copy()})
+	 */
+	public void put(Entry entry) {
+		if (entry.model != null) {
+			entry.model.remove(entry);
+		}
+		Entry existing = entries.get(entry.getKey());
+		if (existing != null) {
+			detach(existing);
+		}
+
+		entry.model = this;
+		entries.put(entry.getKey(), entry);
+		if (entry.getId() != null) {
+			ids.add(entry.getId());
+		}
+		// index the key fields
+		for (String keyField : kind.keyFields) {
+			index(keyField, entry.node.getChildText(keyField), entry);
+		}
+		// and the references
+		for (Map.Entry<String, LinkedHashMap<String, XmlNode>> collection : entry.members.entrySet()) {
+			for (String id : collection.getValue().keySet()) {
+				index(collection.getKey(), id, entry);
+			}
+		}
+	}
+
+	/**
+	 * Removes an entry from the configuration
+	 *
+	 * @param entry
+	 *            The entry
+	 */
+	public void remove(Entry entry) {
+		if (entry.model != this) {
+			return;
+		}
+		entries.remove(entry.getKey());
+		detach(entry);
+	}
+
+	/**
+	 * Removes an entry from the indexes
+	 *
+	 * @param entry
+	 *            The entry
+	 */
+	private void detach(Entry entry) {
+		for (String keyField : kind.keyFields) {
+			unindex(keyField, entry.node.getChildText(keyField), entry);
+		}
+		for (Map.Entry<String, LinkedHashMap<String, XmlNode>> collection : entry.members.entrySet()) {
+			for (String id : collection.getValue().keySet()) {
+				unindex(collection.getKey(), id, entry);
+			}
+		}
+		entry.model = null;
+	}
+
+	private void index(String collection, String id, Entry entry) {
+		HashMap<String, LinkedHashSet<Entry>> index = references.get(collection);
+		if (index == null) {
+			index = new HashMap<String, LinkedHashSet<Entry>>();
+			references.put(collection, index);
+		}
+		LinkedHashSet<Entry> referencing = index.get(id);
+		if (referencing == null) {
+			referencing = new LinkedHashSet<Entry>();
+			index.put(id, referencing);
+		}
+		referencing.add(entry);
+	}
+
+	private void unindex(String collection, String id, Entry entry) {
+		HashMap<String, LinkedHashSet<Entry>> index = references.get(collection);
+		if (index == null) {
+			return;
+		}
+		LinkedHashSet<Entry> referencing = index.get(id);
+		if (referencing != null) {
+			referencing.remove(entry);
+			if (referencing.isEmpty()) {
+				index.remove(id);
+			}
+		}
+	}
+
+	/**
+	 * Serializes the configuration
+	 *
+	 * @return The XML representation of the configuration
+	 */
+	@Override
+	public String toString() {
+		List<XmlNode> children = root.getChildren();
+		children.clear();
+		for (Entry entry : entries.values()) {
+			entry.synchronize();
+			children.add(entry.node);
+		}
+		String xml = root.toString();
+		// the entries are only attached for serialization
+		children.clear();
+
+		return xml;
+	}
+
+	/**
+	 * A single channel group, code template library, channel tag, inter-channel dependency or channel pruning
+	 */
+	public static class Entry {
+		/** The type of the configuration this entry belongs to */
+		private final Kind kind;
+		/** The XML representation of the entry (reference collections are only synchronized on serialization) */
+		private final XmlNode node;
+		/** The references of the entry per collection. The referenced id maps to the XML representation of the reference */
+		private final HashMap<String, LinkedHashMap<String, XmlNode>> members = new HashMap<String, LinkedHashMap<String, XmlNode>>();
+		/** The configuration to which this entry is currently attached */
+		private ConfigurationModel model = null;
+
+		private Entry(Kind kind, XmlNode node) {
+			this.kind = kind;
+			this.node = node;
+
+			// index the references of all collections
+			for (String collection : kind.collections) {
+				LinkedHashMap<String, XmlNode> collectionMembers = new LinkedHashMap<String, XmlNode>();
+				XmlNode container = node.getChild(collection);
+				if (container != null) {
+					for (XmlNode member : container.getChildren()) {
+						// either a reference element w/ an id (channel, code template) or just a string
+						String id = member.getChildText("id");
+						collectionMembers.put((id != null) ? id : member.getText(), member);
+					}
+				}
+				members.put(collection, collectionMembers);
+			}
+		}
+
+		/**
+		 * Provides the key of this entry
+		 *
+		 * @return The name for groups, libraries and tags, the channel id for prunings or "dependentId:dependencyId" for inter-channel
+		 *         dependencies
+		 */
+		public String getKey() {
+			if (kind.keyFields.length == 1) {
+				return node.getChildText(kind.keyFields[0]);
+			}
+
+			StringBuilder key = new StringBuilder();
+			for (String keyField : kind.keyFields) {
+				if (key.length() > 0) {
+					key.append(':');
+				}
+				key.append(node.getChildText(keyField));
+			}
+			return key.toString();
+		}
+
+		public String getId() {
+			return (kind.idField == null) ? null : node.getChildText(kind.idField);
+		}
+
+		public String getName() {
+			return node.getChildText("name");
+		}
+
+		/**
+		 * Provides the text of a leaf element of this entry
+		 *
+		 * @param field
+		 *            The element name
+		 * @return The text or null if the element does not exist
+		 */
+		public String getText(String field) {
+			return node.getChildText(field);
+		}
+
+		/**
+		 * Sets the text of a leaf element of this entry. If it is part of the key, the entry is re-indexed.
+		 *
+		 * @param field
+		 *            The element name
+		 * @param value
+		 *            The new text
+		 */
+		public void setText(String field, String value) {
+			ConfigurationModel attachedTo = this.model;
+			if (attachedTo != null) {
+				attachedTo.remove(this);
+			}
+			node.setChildText(field, value);
+			if (attachedTo != null) {
+				attachedTo.put(this);
+			}
+		}
+
+		/**
+		 * Sets the text of a leaf element of this entry only if the element already exists
+		 *
+		 * @param field
+		 *            The element name
+		 * @param value
+		 *            The new text
+		 */
+		public void replaceText(String field, String value) {
+			if (node.getChild(field) != null) {
+				setText(field, value);
+			}
+		}
+
+		public boolean containsMember(String collection, String id) {
+			LinkedHashMap<String, XmlNode> collectionMembers = members.get(collection);
+			return (collectionMembers != null) && collectionMembers.containsKey(id);
+		}
+
+		public Set<String> getMembers(String collection) {
+			LinkedHashMap<String, XmlNode> collectionMembers = members.get(collection);
+			return (collectionMembers == null) ? Collections.<String>emptySet() : Collections.unmodifiableSet(collectionMembers.keySet());
+		}
+
+		/**
+		 * Adds a reference to a collection of this entry
+		 *
+		 * @param collection
+		 *            The collection (e.g. {@link ConfigurationModel#CHANNELS})
+		 * @param id
+		 *            The id of the referenced component
+		 * @return true, if the reference was added - false if it was already present
+		 */
+		public boolean addMember(String collection, String id) {
+			LinkedHashMap<String, XmlNode> collectionMembers = members.get(collection);
+			if (collectionMembers == null) {
+				throw new IllegalArgumentException("A " + kind.label + " does not possess a collection \"" + collection + "\"");
+			}
+			if (collectionMembers.containsKey(id)) {
+				return false;
+			}
+
+			collectionMembers.put(id, createMember(collection, id));
+			if (model != null) {
+				model.index(collection, id, this);
+			}
+			return true;
+		}
+
+		/**
+		 * Removes a reference from a collection of this entry
+		 *
+		 * @param collection
+		 *            The collection (e.g. {@link ConfigurationModel#CHANNELS})
+		 * @param id
+		 *            The id of the referenced component
+		 * @return true, if the reference was removed - false if it was not present
+		 */
+		public boolean removeMember(String collection, String id) {
+			LinkedHashMap<String, XmlNode> collectionMembers = members.get(collection);
+			if ((collectionMembers == null) || (collectionMembers.remove(id) == null)) {
+				return false;
+			}
+			if (model != null) {
+				model.unindex(collection, id, this);
+			}
+			return true;
+		}
+
+		/**
+		 * Removes all references of this entry
+		 */
+		public void clearMembers() {
+			for (Map.Entry<String, LinkedHashMap<String, XmlNode>> collection : members.entrySet()) {
+				if (model != null) {
+					for (String id : collection.getValue().keySet()) {
+						model.unindex(collection.getKey(), id, this);
+					}
+				}
+				collection.getValue().clear();
+			}
+		}
+
+		/**
+		 * Creates a detached deep copy of this entry that can be altered and added to another configuration
+		 *
+		 * @return The copy
+		 */
+		public Entry copy() {
+			synchronize();
+			return new Entry(kind, node.copy());
+		}
+
+		/**
+		 * Creates the XML representation of a new reference like Mirth would do
+		 *
+		 * @param collection
+		 *            The collection to which the reference belongs
+		 * @param id
+		 *            The id of the referenced component
+		 * @return The XML representation of the reference
+		 */
+		private static XmlNode createMember(String collection, String id) {
+			XmlNode member;
+
+			switch (collection) {
+			case CHANNELS:
+				member = new XmlNode("channel");
+				member.setAttribute("version", PLACEHOLDER_VERSION);
+				member.addChild(new XmlNode("id", id));
+				member.addChild(new XmlNode("revision", "0"));
+				break;
+			case CODE_TEMPLATES:
+				member = new XmlNode("codeTemplate");
+				member.setAttribute("version", PLACEHOLDER_VERSION);
+				member.addChild(new XmlNode("id", id));
+				break;
+			default:
+				member = new XmlNode("string", id);
+				break;
+			}
+
+			return member;
+		}
+
+		/**
+		 * Writes the indexed references back to the XML representation of the entry
+		 */
+		private void synchronize() {
+			for (Map.Entry<String, LinkedHashMap<String, XmlNode>> collection : members.entrySet()) {
+				// do not introduce collections that were not part of the original configuration unless they are needed
+				if ((node.getChild(collection.getKey()) == null) && collection.getValue().isEmpty()) {
+					continue;
+				}
+				XmlNode container = node.getOrCreateChild(collection.getKey());
+				container.getChildren().clear();
+				container.getChildren().addAll(collection.getValue().values());
+			}
+		}
+	}
+}
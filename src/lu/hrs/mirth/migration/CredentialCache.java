@@ -0,0 +1,151 @@
+package lu.hrs.mirth.migration;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers user accounts that have recently been validated successfully against a Mirth service.<br/>
+ * <br/>
+ * Every login to Mirth Migrator is validated by a login and logout at the Mirth service. If all clients have to log in again at the same time
+ * (e.g. after a configuration change), this results in a burst of logins at the Mirth service. Thus, an account that has been validated is
+ * accepted without asking the Mirth service again for a short period of time:
+ * <ul>
+ * <li>Passwords are never stored. Only a salted SHA-256 hash of the credentials is kept, with a random salt per entry.</li>
+ * <li>An entry expires after {@link #TIME_TO_LIVE} and is dropped as soon as a login of the account fails at the Mirth service.</li>
+ * </ul>
+ * A password change at the Mirth service might thus become effective for Mirth Migrator only after {@link #TIME_TO_LIVE}.
+ */
+public class CredentialCache {
+
+	/** The time in milliseconds for which a successfully validated account is accepted without asking the Mirth service */
+	public final static long TIME_TO_LIVE = 5 * 60000L;
+
+	private final static int SALT_LENGTH = 16;
+	private final static SecureRandom random = new SecureRandom();
+	/** The validated accounts identified by server, port and username */
+	private final static ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * A validated account
+	 */
+	private final static class Entry {
+		private final byte[] salt;
+		private final byte[] hash;
+		private final long expires;
+
+		private Entry(byte[] salt, byte[] hash, long expires) {
+			this.salt = salt;
+			this.hash = hash;
+			this.expires = expires;
+		}
+	}
+
+	/**
+	 * Checks if an account has recently been validated successfully
+	 *
+	 * @param server
+	 *            The name of the server at which the Mirth service is located
+	 * @param port
+	 *            The port at which the Mirth service listens
+	 * @param username
+	 *            The name of the user
+	 * @param password
+	 *            The password of the user
+	 * @return true, if the account was validated with the very same password less than {@link #TIME_TO_LIVE} ago, false otherwise
+	 */
+	public static boolean isValidated(String server, int port, String username, String password) {
+		String key = getKey(server, port, username);
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return false;
+		}
+		if (System.currentTimeMillis() >= entry.expires) {
+			// the entry is outdated
+			entries.remove(key, entry);
+			return false;
+		}
+
+		return MessageDigest.isEqual(entry.hash, hash(entry.salt, username, password));
+	}
+
+	/**
+	 * Remembers an account that has been validated successfully by the Mirth service
+	 *
+	 * @param server
+	 *            The name of the server at which the Mirth service is located
+	 * @param port
+	 *            The port at which the Mirth service listens
+	 * @param username
+	 *            The name of the user
+	 * @param password
+	 *            The password of the user
+	 */
+	public static void add(String server, int port, String username, String password) {
+		byte[] salt = new byte[SALT_LENGTH];
+		random.nextBytes(salt);
+		entries.put(getKey(server, port, username), new Entry(salt, hash(salt, username, password), System.currentTimeMillis() + TIME_TO_LIVE));
+
+		// get rid of outdated entries of other accounts
+		long now = System.currentTimeMillis();
+		entries.values().removeIf(entry -> now >= entry.expires);
+	}
+
+	/**
+	 * Forgets an account. This is done if a login of the account failed.
+	 *
+	 * @param server
+	 *            The name of the server at which the Mirth service is located
+	 * @param port
+	 *            The port at which the Mirth service listens
+	 * @param username
+	 *            The name of the user
+	 */
+	public static void remove(String server, int port, String username) {
+		entries.remove(getKey(server, port, username));
+	}
+
+	/**
+	 * Creates a random session id. It is used for a new user session if the account was validated by the cache and thus the Mirth service did
+	 * not provide a session cookie.
+	 *
+	 * @return The session id in the format of a session cookie
+	 */
+	public static String createSessionId() {
+		byte[] id = new byte[24];
+		random.nextBytes(id);
+		return "JSESSIONID=" + Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+	}
+
+	private static String getKey(String server, int port, String username) {
+		return server.toLowerCase() + ":" + port + ":" + username;
+	}
+
+	/**
+	 * Calculates the salted hash of an account
+	 *
+	 * @param salt
+	 *            The salt of the entry
+	 * @param username
+	 *            The name of the user
+	 * @param password
+	 *            The password of the user
+	 * @return The SHA-256 hash of salt, username and password
+	 */
+	private static byte[] hash(byte[] salt, String username, String password) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(salt);
+			digest.update(username.getBytes(StandardCharsets.UTF_8));
+			// separates username and password
+			digest.update((byte) 0);
+			return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform has to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package lu.hrs.mirth.migration;
+
+import java.util.List;
+
+import org.json.JSONObject;
+
+/**
+ * The cached metadata of a channel group
+ */
+public class GroupMeta extends ComponentMeta {
+
+	/** The version of the Mirth system (shared by all groups of a system) */
+	private final String mirthVersion;
+	/** true, if it is the group of unassigned channels, which is not an actual channel group */
+	private final boolean artificial;
+	/** The ids of the channels of the group ordered by name or null if the group is empty */
+	private final List<String> members;
+
+	/**
+	 * Creates the metadata of a channel group
+	 *
+	 * @param id
+	 *            The id of the channel group
+	 * @param name
+	 *            The name of the channel group
+	 * @param version
+	 *            The revision of the channel group
+	 * @param lastModified
+	 *            The point of time of the last modification in milliseconds or {@link ComponentMeta#NO_DATE}
+	 * @param description
+	 *            The description of the channel group (already formatted for displaying)
+	 * @param mirthVersion
+	 *            The version of the Mirth system
+	 * @param artificial
+	 *            true, if it is the group of unassigned channels
+	 * @param members
+	 *            The ids of the channels of the group ordered by name (<i>OPTIONAL</i>)
+	 */
+	public GroupMeta(String id, String name, int version, long lastModified, String description, String mirthVersion, boolean artificial,
+			List<String> members) {
+		super(id, name, version, lastModified, description);
+		this.mirthVersion = mirthVersion;
+		this.artificial = artificial;
+		this.members = members;
+	}
+
+	@Override
+	public String getType() {
+		return MirthMigrator.CHANNEL_GROUP;
+	}
+
+	/**
+	 * Checks if it is the group of unassigned channels
+	 *
+	 * @return true, if it is no actual channel group
+	 */
+	public boolean isArtificial() {
+		return artificial;
+	}
+
+	/**
+	 * Provides the channels of the group
+	 *
+	 * @return The ids of the channels ordered by name or null if the group is empty
+	 */
+	public List<String> getMembers() {
+		return members;
+	}
+
+	/**
+	 * Provides the number of channels of the group
+	 *
+	 * @return The number of channels
+	 */
+	public int getNumberOfMembers() {
+		return (members != null) ? members.size() : 0;
+	}
+
+	/**
+	 * Creates the JSON representation of the channel group metadata
+	 *
+	 * @return A JSON object containing the following attributes:
+	 *         <ul>
+	 *         <li><b>Display name</b> - the name of the channel group</li>
+	 *         <li><b>Id</b> - the UUID of the channel group</li>
+	 *         <li><b>artificial</b> - true, if it is the group of unassigned channels</li>
+	 *         <li><b>Description</b> - the description of the channel group</li>
+	 *         <li><b>Last modified</b> - the point of time of the last modification in milliseconds (<i>OPTIONAL</i>)</li>
+	 *         <li><b>Display date</b> - a human readable representation of <b>Last modified</b> or <b>-</b></li>
+	 *         <li><b>Version</b> - the revision of the channel group</li>
+	 *         <li><b>Mirth version</b> - the version of the Mirth system</li>
+	 *         <li><b>Group</b> - always <b>true</b></li>
+	 *         <li><b>Type</b> - always <b>channelGroup</b></li>
+	 *         <li><b>Number of members</b> - the number of channels of the group</li>
+	 *         <li><b>Members</b> - the ids of the channels ordered by name (<i>OPTIONAL</i>)</li>
+	 *         </ul>
+	 */
+	@Override
+	public JSONObject toJson() {
+		JSONObject metaData = new JSONObject();
+		metaData.put("Display name", getName());
+		metaData.put("Id", getId());
+		metaData.put("artificial", artificial);
+		metaData.put("Description", getDescription());
+		if (hasLastModified()) {
+			metaData.put("Last modified", getLastModified());
+		}
+		metaData.put("Display date", getDisplayDate());
+		// the group of unassigned channels always had a textual version
+		metaData.put("Version", artificial ? (Object) String.valueOf(getVersion()) : getVersion());
+		metaData.put("Mirth version", mirthVersion);
+		metaData.put("Group", true);
+		metaData.put("Type", getType());
+		metaData.put("Number of members", getNumberOfMembers());
+		if (members != null) {
+			metaData.put("Members", members);
+		}
+		return metaData;
+	}
+
+	@Override
+	void estimateSize(CacheSizeEstimator estimator) {
+		super.estimateSize(estimator);
+		estimator.addBytes(12).add(mirthVersion).add(members);
+	}
+}
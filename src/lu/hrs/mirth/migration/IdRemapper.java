@@ -0,0 +1,177 @@
+package lu.hrs.mirth.migration;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * Remaps component ids (e.g. due to id collisions between source and target system) in a single linear pass over a component configuration.<br/>
+ * <br/>
+ * Instead of running one regular expression per id, the configuration is scanned once for leaf elements of the configured names (like
+ * <b>&lt;id&gt;</b> or <b>&lt;string&gt;</b>). The text of each such element is looked up in a hash map of replacements and substituted if a
+ * replacement exists. Thus the effort is independent of the number of replacements.
+ */
+public class IdRemapper {
+
+	/** The names of the elements whose content is subject to replacement */
+	private final String[] elements;
+	/** Maps the original ids to their replacements (in order of registration) */
+	private final LinkedHashMap<String, String> replacements = new LinkedHashMap<String, String>();
+
+	/**
+	 * Creates a new id remapper
+	 *
+	 * @param elements
+	 *            The names of the elements whose content should be remapped by {@link #apply(String)}. Only elements without attributes are
+	 *            considered.
+	 */
+	public IdRemapper(String... elements) {
+		this.elements = elements;
+	}
+
+	/**
+	 * Registers an id and it's replacement. An identical replacement just registers the id (see {@link #getOriginalIds()})
+	 *
+	 * @param originalId
+	 *            The original id
+	 * @param replacementId
+	 *            The id by which it should be replaced
+	 * @return This remapper
+	 */
+	public IdRemapper put(String originalId, String replacementId) {
+		replacements.put(originalId, replacementId);
+		return this;
+	}
+
+	/**
+	 * Provides the replacement for an id
+	 *
+	 * @param id
+	 *            The original id
+	 * @return The replacement or the original id if there is none
+	 */
+	public String remap(String id) {
+		String replacement = replacements.get(id);
+		return (replacement == null) ? id : replacement;
+	}
+
+	/**
+	 * Checks if an id is actually replaced by another one
+	 *
+	 * @param id
+	 *            The original id
+	 * @return true, if the id is replaced by a different id
+	 */
+	public boolean isRemapped(String id) {
+		String replacement = replacements.get(id);
+		return (replacement != null) && !replacement.equals(id);
+	}
+
+	/**
+	 * Provides all registered ids in order of registration
+	 *
+	 * @return The original ids
+	 */
+	public Set<String> getOriginalIds() {
+		return Collections.unmodifiableSet(replacements.keySet());
+	}
+
+	public boolean isEmpty() {
+		return replacements.isEmpty();
+	}
+
+	/**
+	 * Applies all replacements to a configuration in a single pass
+	 *
+	 * @param xml
+	 *            The configuration
+	 * @return The configuration with all ids replaced. If nothing had to be replaced, the original string is returned.
+	 */
+	public String apply(String xml) {
+		if ((xml == null) || replacements.isEmpty()) {
+			return xml;
+		}
+
+		StringBuilder result = null;
+		// the position up to which the configuration has already been copied to the result
+		int copied = 0;
+		int position = xml.indexOf('<');
+
+		while (position >= 0) {
+			// find the end of the tag and the start of the following tag
+			int tagEnd = xml.indexOf('>', position + 1);
+			if (tagEnd < 0) {
+				break;
+			}
+			int contentEnd = xml.indexOf('<', tagEnd + 1);
+			if (contentEnd < 0) {
+				break;
+			}
+
+			// check if the tag opens one of the relevant elements
+			String element = matchElement(xml, position + 1, tagEnd);
+			if ((element != null) && isClosingTag(xml, contentEnd, element)) {
+				String id = xml.substring(tagEnd + 1, contentEnd);
+				String replacement = replacements.get(id);
+				// only alter the configuration if the id actually changes
+				if ((replacement != null) && !replacement.equals(id)) {
+					if (result == null) {
+						result = new StringBuilder(xml.length() + 64);
+					}
+					result.append(xml, copied, tagEnd + 1).append(replacement);
+					copied = contentEnd;
+				}
+			}
+
+			// continue with the next tag
+			position = contentEnd;
+		}
+
+		// if nothing was replaced there is no need for a copy
+		if (result == null) {
+			return xml;
+		}
+		result.append(xml, copied, xml.length());
+
+		return result.toString();
+	}
+
+	/**
+	 * Checks if a tag name matches one of the relevant elements
+	 *
+	 * @param xml
+	 *            The configuration
+	 * @param start
+	 *            The start position of the tag name
+	 * @param end
+	 *            The position of the closing bracket of the tag
+	 * @return The matching element name or null if the tag is not relevant
+	 */
+	private String matchElement(String xml, int start, int end) {
+		int length = end - start;
+		for (String element : elements) {
+			if ((element.length() == length) && xml.regionMatches(start, element, 0, length)) {
+				return element;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if a closing tag of an element starts at a given position
+	 *
+	 * @param xml
+	 *            The configuration
+	 * @param position
+	 *            The position of the opening bracket
+	 * @param element
+	 *            The element name
+	 * @return true, if the closing tag of the element is found at the position
+	 */
+	private static boolean isClosingTag(String xml, int position, String element) {
+		int nameStart = position + 2;
+		int nameEnd = nameStart + element.length();
+		return (nameEnd < xml.length()) && (xml.charAt(position + 1) == '/') && xml.regionMatches(nameStart, element, 0, element.length())
+				&& (xml.charAt(nameEnd) == '>');
+	}
+}
@@ -0,0 +1,125 @@
+package lu.hrs.mirth.migration;
+
+import java.util.List;
+
+import org.json.JSONObject;
+
+/**
+ * The cached metadata of a code template library
+ */
+public class LibraryMeta extends ComponentMeta {
+
+	/** The version of the Mirth system (shared by all libraries of a system) */
+	private final String mirthVersion;
+	/** The ids of the channels that reference the library or null if there are none */
+	private final List<String> usedBy;
+	/** The ids of the code templates of the library ordered by function name or null if the library is empty */
+	private final List<String> members;
+
+	/**
+	 * Creates the metadata of a code template library
+	 *
+	 * @param id
+	 *            The id of the code template library
+	 * @param name
+	 *            The name of the code template library
+	 * @param version
+	 *            The revision of the code template library
+	 * @param lastModified
+	 *            The point of time of the last modification in milliseconds
+	 * @param description
+	 *            The description of the code template library (already formatted for displaying)
+	 * @param mirthVersion
+	 *            The version of the Mirth system
+	 * @param usedBy
+	 *            The ids of the channels that reference the library (<i>OPTIONAL</i>)
+	 * @param members
+	 *            The ids of the code templates of the library ordered by function name (<i>OPTIONAL</i>)
+	 */
+	public LibraryMeta(String id, String name, int version, long lastModified, String description, String mirthVersion, List<String> usedBy,
+			List<String> members) {
+		super(id, name, version, lastModified, description);
+		this.mirthVersion = mirthVersion;
+		this.usedBy = usedBy;
+		this.members = members;
+	}
+
+	@Override
+	public String getType() {
+		return MirthMigrator.CODE_TEMPLATE_LIBRARY;
+	}
+
+	/**
+	 * Provides the channels that reference the library
+	 *
+	 * @return The ids of the channels or null if there are none
+	 */
+	public List<String> getUsedBy() {
+		return usedBy;
+	}
+
+	/**
+	 * Provides the code templates of the library
+	 *
+	 * @return The ids of the code templates ordered by function name or null if the library is empty
+	 */
+	public List<String> getMembers() {
+		return members;
+	}
+
+	/**
+	 * Provides the number of code templates of the library
+	 *
+	 * @return The number of code templates (functions of the same code template are counted separately)
+	 */
+	public int getNumberOfMembers() {
+		return (members != null) ? members.size() : 0;
+	}
+
+	/**
+	 * Creates the JSON representation of the code template library metadata
+	 *
+	 * @return A JSON object containing the following attributes:
+	 *         <ul>
+	 *         <li><b>Display name</b> - the name of the code template library</li>
+	 *         <li><b>Id</b> - the UUID of the code template library</li>
+	 *         <li><b>Description</b> - the description of the code template library</li>
+	 *         <li><b>Last modified</b> - the point of time of the last modification in milliseconds</li>
+	 *         <li><b>Display date</b> - a human readable representation of <b>Last modified</b></li>
+	 *         <li><b>Version</b> - the revision of the code template library</li>
+	 *         <li><b>Mirth version</b> - the version of the Mirth system</li>
+	 *         <li><b>Group</b> - always <b>true</b></li>
+	 *         <li><b>Type</b> - always <b>codeTemplateLibrary</b></li>
+	 *         <li><b>Used by</b> - the ids of the channels that reference the library (<i>OPTIONAL</i>)</li>
+	 *         <li><b>Number of members</b> - the number of code templates of the library</li>
+	 *         <li><b>Members</b> - the ids of the code templates ordered by function name (<i>OPTIONAL</i>)</li>
+	 *         </ul>
+	 */
+	@Override
+	public JSONObject toJson() {
+		JSONObject metaData = new JSONObject();
+		metaData.put("Display name", getName());
+		metaData.put("Id", getId());
+		metaData.put("Description", getDescription());
+		metaData.put("Last modified", getLastModified());
+		metaData.put("Display date", getDisplayDate());
+		metaData.put("Version", getVersion());
+		metaData.put("Mirth version", mirthVersion);
+		metaData.put("Group", true);
+		metaData.put("Type", getType());
+		if (usedBy != null) {
+			metaData.put("Used by", usedBy);
+		}
+		metaData.put("Number of members", getNumberOfMembers());
+		if (members != null) {
+			metaData.put("Members", members);
+		}
+		return metaData;
+	}
+
+	@Override
+	void estimateSize(CacheSizeEstimator estimator) {
+		super.estimateSize(estimator);
+		estimator.addBytes(12).add(mirthVersion).add(usedBy).add(members);
+	}
+}
@@ -0,0 +1,268 @@
+package lu.hrs.mirth.migration;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Locale;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Records the timing of a migration as a tree of spans. Every migration step (e.g. updating the channel groups) and every component (fetch,
+ * conversion and push) opens a span, every REST call to a Mirth service is added as a leaf span to the span that is active at that moment.<br/>
+ * <br/>
+ * The trace is bound to the thread that performs the migration. Thus the REST layer does not have to know about it: if no trace is active for
+ * the current thread, all calls are simply ignored.
+ */
+public class MigrationTrace {
+
+	/** The trace of the migration that is performed by the current thread */
+	private final static ThreadLocal<MigrationTrace> currentTrace = new ThreadLocal<MigrationTrace>();
+	/** Is returned if no trace is active so that callers do not have to check */
+	private final static Span inactiveSpan = new Span(null, null, 0);
+
+	private final long startTime;
+	private final Span root;
+	private Span active;
+
+	private MigrationTrace(String name) {
+		this.startTime = System.nanoTime();
+		this.root = new Span(this, name, 0);
+		this.active = this.root;
+	}
+
+	/**
+	 * Starts a new trace for the current thread
+	 *
+	 * @param name
+	 *            The name of the root span
+	 * @return The trace
+	 */
+	static MigrationTrace begin(String name) {
+		MigrationTrace trace = new MigrationTrace(name);
+		currentTrace.set(trace);
+		return trace;
+	}
+
+	/**
+	 * Opens a new span as child of the currently active span
+	 *
+	 * @param name
+	 *            The name of the span
+	 * @return The new span. It has to be closed via {@link Span#end()}
+	 */
+	static Span start(String name) {
+		MigrationTrace trace = currentTrace.get();
+		if (trace == null) {
+			return inactiveSpan;
+		}
+
+		Span span = new Span(trace, name, System.nanoTime() - trace.startTime);
+		span.parent = trace.active;
+		trace.active.children.add(span);
+		trace.active = span;
+
+		return span;
+	}
+
+	/**
+	 * Adds a REST call to the currently active span
+	 *
+	 * @param url
+	 *            The URL of the call
+	 * @param method
+	 *            The HTTP method
+	 * @param responseCode
+	 *            The HTTP response code or -1 if the service was not available
+	 * @param durationInNanos
+	 *            The duration of the call
+	 * @param bytes
+	 *            The number of bytes that have been received
+	 */
+	static void recordCall(URL url, String method, int responseCode, long durationInNanos, long bytes) {
+		MigrationTrace trace = currentTrace.get();
+		if (trace == null) {
+			return;
+		}
+
+		Span call = new Span(trace, method + " " + url.getHost() + ":" + url.getPort() + url.getPath(),
+				System.nanoTime() - trace.startTime - durationInNanos);
+		call.duration = durationInNanos;
+		call.remote = true;
+		call.put("statusCode", responseCode);
+		if (bytes > 0) {
+			call.put("bytes", bytes);
+		}
+		call.parent = trace.active;
+		trace.active.children.add(call);
+	}
+
+	/**
+	 * Finishes the trace and detaches it from the current thread. Spans that are still open (e.g. due to an exception) are closed as well.
+	 */
+	void finish() {
+		while (active != null) {
+			active.close();
+			active = active.parent;
+		}
+		currentTrace.remove();
+	}
+
+	/**
+	 * Provides the trace as a tree of spans
+	 *
+	 * @return The root span with the following attributes:
+	 *         <ul>
+	 *         <li><b>name</b> - the name of the step, component or REST call</li>
+	 *         <li><b>startMillis</b> - the start of the span relative to the start of the trace</li>
+	 *         <li><b>durationMillis</b> - the duration of the span</li>
+	 *         <li><b>attributes</b> - additional information like the component name or the HTTP status code (<i>OPTIONAL</i>)</li>
+	 *         <li><b>children</b> - the nested spans (<i>OPTIONAL</i>)</li>
+	 *         </ul>
+	 */
+	public JSONObject toJson() {
+		return root.toJson();
+	}
+
+	/**
+	 * Provides a compact, single-line summary of the trace that lists the duration, the number of REST calls and the time spent in REST calls for
+	 * every top-level step
+	 *
+	 * @return The summary
+	 */
+	public String getSummary() {
+		StringBuilder summary = new StringBuilder();
+		summary.append(root.name).append(' ').append(formatMillis(root.duration));
+		appendRemoteTime(summary, root);
+		summary.append(':');
+		for (Span step : root.children) {
+			summary.append(' ').append(step.name).append('=').append(formatMillis(step.duration));
+			appendRemoteTime(summary, step);
+			// list the steps of the migrated component types
+			if (!step.remote) {
+				ArrayList<String> subSteps = new ArrayList<String>();
+				for (Span subStep : step.children) {
+					if (!subStep.remote) {
+						subSteps.add(subStep.name + "=" + formatMillis(subStep.duration));
+					}
+				}
+				if (!subSteps.isEmpty()) {
+					summary.append(" (").append(String.join(", ", subSteps)).append(')');
+				}
+			}
+		}
+
+		return summary.toString();
+	}
+
+	private static void appendRemoteTime(StringBuilder summary, Span span) {
+		long[] remote = new long[2];
+		span.collectRemoteTime(remote);
+		if (remote[0] > 0) {
+			summary.append(" [").append(remote[0]).append(" calls, ").append(formatMillis(remote[1])).append(']');
+		}
+	}
+
+	private static String formatMillis(long nanos) {
+		return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+	}
+
+	/**
+	 * A single timed step of the migration
+	 */
+	static class Span {
+		private final MigrationTrace trace;
+		private final String name;
+		private final long start;
+		private long duration = -1;
+		private boolean remote = false;
+		private JSONObject attributes = null;
+		private Span parent = null;
+		private final ArrayList<Span> children = new ArrayList<Span>();
+
+		private Span(MigrationTrace trace, String name, long start) {
+			this.trace = trace;
+			this.name = name;
+			this.start = start;
+		}
+
+		/**
+		 * Adds an attribute to the span
+		 *
+		 * @param key
+		 *            The attribute name
+		 * @param value
+		 *            The attribute value
+		 * @return The span itself
+		 */
+		Span put(String key, Object value) {
+			if (trace != null) {
+				if (attributes == null) {
+					attributes = new JSONObject();
+				}
+				attributes.put(key, value);
+			}
+			return this;
+		}
+
+		/**
+		 * Closes the span and makes it's parent the active span again
+		 */
+		void end() {
+			// nothing to do if tracing is inactive or the span was already closed
+			if ((trace == null) || (duration >= 0)) {
+				return;
+			}
+			close();
+
+			// only spans on the path to the active span can be ended
+			Span span = trace.active;
+			while ((span != null) && (span != this)) {
+				span = span.parent;
+			}
+			if (span == null) {
+				return;
+			}
+			// nested spans that have not been closed are closed as well
+			while (trace.active != this) {
+				trace.active.close();
+				trace.active = trace.active.parent;
+			}
+			trace.active = parent;
+		}
+
+		private void close() {
+			if (duration < 0) {
+				duration = System.nanoTime() - trace.startTime - start;
+			}
+		}
+
+		private void collectRemoteTime(long[] remote) {
+			if (this.remote) {
+				remote[0]++;
+				remote[1] += duration;
+			}
+			for (Span child : children) {
+				child.collectRemoteTime(remote);
+			}
+		}
+
+		private JSONObject toJson() {
+			JSONObject span = new JSONObject();
+			span.put("name", name);
+			span.put("startMillis", start / 1e6);
+			span.put("durationMillis", Math.max(0, duration) / 1e6);
+			if (attributes != null) {
+				span.put("attributes", attributes);
+			}
+			if (!children.isEmpty()) {
+				JSONArray childSpans = new JSONArray();
+				for (Span child : children) {
+					childSpans.put(child.toJson());
+				}
+				span.put("children", childSpans);
+			}
+			return span;
+		}
+	}
+}
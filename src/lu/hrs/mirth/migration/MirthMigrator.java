@@ -6,6 +6,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.ProtocolException;
@@ -21,7 +22,6 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.security.KeyManagementException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -38,10 +38,13 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -56,7 +59,9 @@ import org.apache.commons.io.IOUtils;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONPathQuery;
 import org.json.XML;
+import org.json.XMLParserConfiguration;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.NativeArray;
@@ -110,13 +115,20 @@ public class MirthMigrator {
 	/** Key for decrypting user credentials */
 	private final static String CREDENTIALS_KEY = "}G~8.I$+dC4ObH2qG\\VM4088<115Hyf]W=7Nf`6bi@%'^4_uO4";
 
-	private final static DateFormat displayDate = new SimpleDateFormat("dd.MM.yyyy, HH:mm:ss");
+	private final static DateTimeFormatter displayDate = DateTimeFormatter.ofPattern("dd.MM.yyyy, HH:mm:ss").withZone(ZoneId.systemDefault());
 	private final static String clientIdentifier = "MirthMigrator";
 
 	/** used for parsing the change date in the channel description */
 	private final static SimpleDateFormat changeParseDateFormat = new SimpleDateFormat("yyyyMMdd");
 	/** used for formatting the change date in the channel details table */
 	private final static SimpleDateFormat changeDisplayDateFormat = new SimpleDateFormat("dd.MM.yyyy");
+	/** the maximum number of component differences that are cached per Mirth instance */
+	private final static int MAX_CACHED_DIFFS = 100;
+	/** the time in seconds the systems overview waits for the systems if no deadline is specified */
+	private final static int DEFAULT_OVERVIEW_DEADLINE_IN_SECONDS = 5;
+	/** the counters of the systems overview that are summed up over all systems */
+	private final static String[] SYSTEM_SUMMARY_COUNTERS = { "channels", "enabledChannels", "codeTemplates", "channelsWithIssues",
+			"codeTemplatesWithIssues" };
 
 	private MirthVersion mirthVersion = null;
 
@@ -125,6 +137,15 @@ public class MirthMigrator {
 
 	// indicates when the client was last updated (this is needed for automated refresh)
 	private Long lastUpdate = null;
+	// indicates when the client was last requested (this is needed for releasing the caches of idle and least recently used clients)
+	private volatile long lastAccess = System.currentTimeMillis();
+	// held shared by every call that uses the client and exclusively while its caches are released (see ClientUsage)
+	private final ReentrantReadWriteLock usageLock = new ReentrantReadWriteLock();
+	// the estimated heap that is occupied by the caches of this client
+	private long estimatedCacheSize = 0;
+	// the point of time at which the cache size was estimated and the last update of the client at that time
+	private long cacheSizeEstimationDate = 0;
+	private Long cacheSizeEstimationUpdate = null;
 
 	/**
 	 * A cash for the Mirth client instances used to access the different Mirth systems. Those are shared by all sessions
@@ -152,9 +173,49 @@ public class MirthMigrator {
 	private static ArrayList<String> functionFilter = new ArrayList<String>();
 
 	/**
-	 * The session cookie of the current session.
+	 * The session at the Mirth service
 	 */
-	private String serverSessionCookie;
+	private final ServerSession serverSession;
+
+	/**
+	 * Used for parsing channel and code template exports. The values are only converted to numbers or booleans if they are read as such
+	 */
+	private final static XMLParserConfiguration metaDataParserConfiguration = new XMLParserConfiguration().withLazyValueCoercion(true);
+	/**
+	 * Extracts the channels from the channel export
+	 */
+	private final static JSONPathQuery channelListQuery = new JSONPathQuery("/list/channel[]");
+	/**
+	 * Extracts the attributes of a channel: name, id, initial state, revision, last modified date and state (before Mirth 3.6.0), last modified
+	 * date and state (since Mirth 3.6.0) and description
+	 */
+	private final static JSONPathQuery channelQuery = new JSONPathQuery("/name", "/id", "/properties/initialState", "/revision",
+			"/lastModified/time", "/enabled", "/exportData/metadata/lastModified/time", "/exportData/metadata/enabled", "/description");
+	/**
+	 * Extracts the attributes of a channel group: name, id, description, last modified date, revision, Mirth version and channel references
+	 */
+	private final static JSONPathQuery channelGroupQuery = new JSONPathQuery("/name", "/id", "/description", "/lastModified/time", "/revision",
+			"/version", "/channels/channel[]");
+	/**
+	 * Extracts the code templates from the code template export
+	 */
+	private final static JSONPathQuery codeTemplateListQuery = new JSONPathQuery("/list/codeTemplate[]");
+	/**
+	 * Extracts the attributes of a code template: name, id, revision, last modified date and code (since and before Mirth 3.7.0)
+	 */
+	private final static JSONPathQuery codeTemplateQuery = new JSONPathQuery("/name", "/id", "/revision", "/lastModified/time",
+			"/properties/code", "/code");
+	/**
+	 * Extracts the attributes of a code template library: name, id, description, last modified date, revision, referencing channels and code
+	 * template references
+	 */
+	private final static JSONPathQuery codeTemplateLibraryQuery = new JSONPathQuery("/name", "/id", "/description", "/lastModified/time",
+			"/revision", "/enabledChannelIds/string[]", "/codeTemplates/codeTemplate[]");
+	/**
+	 * Extracts the attributes of a channel metadata entry: channel id, last modified date and state
+	 */
+	private final static JSONPathQuery channelMetadataQuery = new JSONPathQuery("/string",
+			"/com.mirth.connect.model.ChannelMetadata/lastModified/time", "/com.mirth.connect.model.ChannelMetadata/enabled");
 
 	/**
 	 * Used to extract passwords from the configuration file
@@ -253,36 +314,11 @@ public class MirthMigrator {
 	 * Detects all descriptions
 	 */
 	private final static Pattern selectTagDetectionPattern = Pattern.compile("<select>.*?</select>", Pattern.DOTALL);
+	// private final static Pattern CodeTemplateDescriptionPattern = Pattern.compile("\\/\\*\\*([^@\\*]*)");
 	/**
-	 * This pattern is used to extract the JavaScript Doc header (group 1) as well as the name (group 2) from a function
-	 */
-
-	private final static Pattern functionHeaderPattern = Pattern
-			.compile("(?:\\/\\*\\*((?:[\\s\\S](?!\\*\\/))*.)\\*\\/\\s*){0,1}function\\s*([^\\s\\(]+)\\s*\\(([^\\)]*)\\)", Pattern.DOTALL);
-
-	/**
-	 * This pattern is used to extract the JavaScript Doc header (group 1) from a code template that does not contain functions
-	 */
-	private final static Pattern codeTemplateHeaderPattern = Pattern.compile("\\/\\*\\*((?:[\\s\\S](?!\\*\\/))*.)\\*\\/", Pattern.DOTALL);
-	/**
-	 * Provides the function description from the JavaScript Doc header
-	 */
-	private final static Pattern codeTemplateHeaderDescriptionPattern = Pattern.compile("^[\\p{Cntrl}\\s]+([^@]*)");
-	/**
-	 * Provides the Parameter descriptions from the JavaScript Doc header
-	 */
-	private final static Pattern codeTemplateHeaderParameterPattern = Pattern.compile("@param\\s+(?:\\{.*?\\})?\\s*?([^@\\s]+)([^@]+)");
-	/**
-	 * Extracts the parameters from a function definition
-	 */
-	private final static Pattern functionParameterPattern = Pattern.compile("[^\\s ,]+");
-
-	/**
-	 * Provides the return value description from the JavaScript Doc header
-	 *
+	 * This pattern is used to find the revision of a channel or code template (it is the first revision element of the configuration)
 	 */
-	private final static Pattern codeTemplateHeaderReturnValuePattern = Pattern.compile("@return\\s+(?:\\{.*?\\})?\\s*?([^@]+)");
-	// private final static Pattern CodeTemplateDescriptionPattern = Pattern.compile("\\/\\*\\*([^@\\*]*)");
+	private final static Pattern componentRevisionPattern = Pattern.compile("<revision>([^<]*)</revision>");
 	/**
 	 * This pattern is used to find all occurrences of a components version.
 	 */
@@ -303,33 +339,11 @@ public class MirthMigrator {
 	 */
 	private final static Pattern messagePattern = Pattern.compile("<message>([^<]+)<\\/message>");
 
-	/**
-	 * This pattern is used to find a channel tag
-	 */
-	private final static Pattern channelTagPattern = Pattern.compile("<channelTag[\\s\\S]*?<\\/channelTag>");
-
 	/**
 	 * This pattern is used to find a channel tag
 	 */
 	private final static Pattern channelChildStatusPattern = Pattern.compile("<childStatuses>[\\s\\S]*?</childStatuses>");
 
-	/**
-	 * This pattern is used to find a inter-channel dependency
-	 */
-	private final static Pattern interChannelDependencyPattern = Pattern.compile("<channelDependency[\\s\\S]*?<\\/channelDependency>");
-
-	/**
-	 * This pattern is used to find inter-channel dependency details: group 1 indicates the channel that depends on another channel; group 2 indicates
-	 * the channel that must be started first
-	 */
-	private final static Pattern interChannelDependencyDetailsPattern = Pattern
-			.compile("<dependentId>([^<]+)</dependentId>[\\s]*<dependencyId>([^<]+)</dependencyId>");
-
-	/**
-	 * This pattern is used to find a channel pruning configuration
-	 */
-	private final static Pattern pruningPattern = Pattern.compile("<entry[\\s\\S]*?<\\/entry>");
-
 	/**
 	 * This pattern is used to find a channel pruning configuration
 	 */
@@ -341,11 +355,6 @@ public class MirthMigrator {
 	private final static Pattern externalResourceEntityPattern = Pattern
 			.compile("<entry>[\\s\\S]*?<string>([^<]*)</string>[\\s\\S]*?<string>([^<]*)</string>[\\s\\S]*?</entry>");
 
-	/**
-	 * This pattern is used to find channel references
-	 */
-	private final static Pattern channelIdsPattern = Pattern.compile("<channelIds[\\s\\S]*?<\\/channelIds>");
-
 	/**
 	 * This pattern is used to find all relevant information about the current channel state (stopped, running, paused, etc.)
 	 */
@@ -357,43 +366,33 @@ public class MirthMigrator {
 	 */
 	private final static Pattern channelPattern = Pattern.compile("<channel [\\s\\S]*?<\\/channel>");
 
-	/**
-	 * This pattern is used to find channel references in code template libraries
-	 */
-	private final static Pattern channelReferencesPattern = Pattern.compile("<enabledChannelIds[\\s\\S]*?<\\/enabledChannelIds>");
-
 	/**
 	 * This pattern is used to find code template definitions
 	 */
 	private final static Pattern codeTemplatePattern = Pattern.compile("<codeTemplate [\\s\\S]*?<\\/codeTemplate>");
 
-	/**
-	 * This pattern is used to find code template references in code template libraries
-	 */
-	private final static Pattern codeTemplateReferencesPattern = Pattern.compile("<codeTemplates[\\s\\S]*?<\\/codeTemplates>");
-
-	// get channel group
-	private final static Pattern channelGroupPattern = Pattern.compile("<channelGroup[\\s\\S]*?<\\/channelGroup>");
-	// get code template library
-	private final static Pattern codeTemplateLibraryPattern = Pattern
-			.compile("<codeTemplateLibrary version=\"[^\"]+\">(?:(?!codeTemplateLibrary)[\\s\\S])*</codeTemplateLibrary>");
 	// get channel group id (group 1):
 	// private final static Pattern groupIdPattern = Pattern.compile("<id>([\\s\\S]*?)<\\/id>");
 	// get channel group name (group 1)
 	private final static Pattern namePattern = Pattern.compile("<name>([\\s\\S]*?)<\\/name>");
-	// get the channels section of the channel group
-	private final static Pattern channelGroupChannelsPattern = Pattern.compile("<channels>([\\s\\S]*?)<\\/channels>");
 	// get the codeTemplates section of the code template library
 	private final static Pattern codeTemplateLibraryCodeTemplatesPattern = Pattern.compile("<codeTemplates>([\\s\\S]*?)<\\/codeTemplates>");
+	// fields of channels and code templates that change w/o a change of the actual content (revision, modification date, export data)
+	private final static Pattern volatileFieldPattern = Pattern
+			.compile("\\s*<(revision|lastModified|exportData)(?:\\s[^>]*)?(?:/>|>[\\s\\S]*?</\\1>)");
+	// whitespace between two tags (formatting)
+	private final static Pattern interTagWhitespacePattern = Pattern.compile(">\\s+<");
 	// a pattern used to separate the original id (of the source system) from the new id (for the destination system because of a detected id
 	// collision)
 	private final static Pattern idSeparatorPattern = Pattern.compile("([^\\:]+):(.+)");
 
 	private static Logger logger = null;
 	private static JsonParser jsonParser = null;
+	// the return values that are created by the current thread are recorded here if requested by the embedded server (see MirthMigratorServer)
+	private final static ThreadLocal<JSONObject[]> returnValueRecorder = new ThreadLocal<JSONObject[]>();
 
 	// maps code template meta information to the code template id
-	private HashMap<String, JSONObject> codeTemplateInfo = null;
+	private ComponentIndex<CodeTemplateMeta> codeTemplateInfo = null;
 	// maps code template name to code template id
 	private HashMap<String, String> codeTemplateIdbyName = null;
 	// maps code template id to code template name
@@ -401,7 +400,11 @@ public class MirthMigrator {
 	// maps code template Id to the names of the functions that reside in this code template
 	private HashMap<String, HashSet<String>> codeTemplateIdToFunction = null;
 	// maps channel meta information to the channel id
-	private HashMap<String, JSONObject> channelInfo = null;
+	private ComponentIndex<ChannelMeta> channelInfo = null;
+	// the original description of all channels that document changes or interfaces (needed for rendering the channel details)
+	private HashMap<String, String> channelDocumentation = null;
+	// the details of channels that are only rendered on demand (see getChannelEnrichment())
+	private HashMap<String, JSONObject> channelEnrichments = null;
 	// maps a channel to a list of libraries that are referenced by it
 	private HashMap<String, ArrayList<String>> channelCodeTemplateLibraryReferences = null;
 	// Information about the state of all channels (activated or deactivated)
@@ -431,11 +434,11 @@ public class MirthMigrator {
 	// A link between functions and the code template to which they belong
 	private HashMap<String, String> codeTemplateIdByFunctionName = null;
 	// maps channel group meta information to the channel group id
-	private HashMap<String, JSONObject> channelGroupInfo = null;
+	private ComponentIndex<GroupMeta> channelGroupInfo = null;
 	// provides channel groups in alphabetical order
 	private TreeMap<String, String> channelGroupOrder = null;
 	// maps code template library meta information to the code template library id
-	private HashMap<String, JSONObject> codeTemplateLibraryInfo = null;
+	private ComponentIndex<LibraryMeta> codeTemplateLibraryInfo = null;
 	// maps a code template id to a code template library id
 	private HashMap<String, String> codeTemplateLibraryIdByCodeTemplateId = null;
 	// provides code template libraries in alphabetical order
@@ -446,15 +449,51 @@ public class MirthMigrator {
 	private HashMap<String, JSONObject> interChannelDependencies = null;
 	// stores detected code template conflicts
 	private HashMap<String, HashMap<String, Integer>> functionConflicts = null;
+	// the JavaScript Doc headers of all code templates identified by the code template id (valid as long as the code template revision does not change)
+	private final HashMap<String, CodeTemplateHeaders> codeTemplateHeaders = new HashMap<String, CodeTemplateHeaders>();
+	// canonical fingerprints of all channels, code templates, channel groups and code template libraries
+	private ComponentFingerprints componentFingerprints = null;
+	// the compressed raw content of all channels and code templates that have been fetched (valid as long as the revision does not change)
+	private final ComponentContentStore componentContents;
+	// differences between component versions of this and another system identified by the revisions of both versions (least recently used first)
+	private final LinkedHashMap<String, JSONObject> componentDiffs = new LinkedHashMap<String, JSONObject>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, JSONObject> eldest) {
+			return size() > MAX_CACHED_DIFFS;
+		}
+	};
 
 	// stores user sessions
 	private static final Map<String, HashMap<String, Object>> userSessionCache = Collections
 			.synchronizedMap(new HashMap<String, HashMap<String, Object>>());
+	// provides the cookie of the session of a user
+	private static final Map<String, String> userSessionIndex = new ConcurrentHashMap<String, String>();
 
 	/** Determines the maximum inactivity period of a user session before it will automatically be ended */
 	private static Integer userSessionLifeSpanInMinutes = 20;
 	/** Determines the update frequency of the channel status */
 	private static Integer channelStatusUpdateIntervalInSeconds = 5;
+	/** Determines the heap that may be occupied by the caches of all Mirth clients before the least recently used clients release their caches */
+	private static Integer cacheMemoryBudgetInMB = 256;
+	/** Determines the inactivity period of a Mirth client after which it releases it's caches */
+	private static Integer idleClientTimeoutInMinutes = 60;
+	/** Determines how long to wait for a connection to a Mirth service */
+	private static Integer connectTimeoutInSeconds = 5;
+	/** Determines how long to wait for data from a Mirth service */
+	private static Integer readTimeoutInSeconds = 60;
+
+	/** The minimum interval in milliseconds between two checks of the cache memory budget */
+	private final static long CACHE_BUDGET_CHECK_INTERVAL = 10000;
+	/** The maximum age in milliseconds of a cache size estimation if the client was not updated in the meantime */
+	private final static long CACHE_SIZE_ESTIMATION_LIFESPAN = 60000;
+	/** Serializes the cache memory budget checks */
+	private final static Object cacheBudgetLock = new Object();
+	/** The point of time at which the cache memory budget was last checked */
+	private static volatile long lastCacheBudgetCheck = 0;
+	/** The number of clients that released their caches because they were idle or because the memory budget was exceeded */
+	private static long idleCacheReleases = 0, budgetCacheReleases = 0;
 
 	/** The point of time at which the configuration has last been loaded */
 	private static Long configurationLoadingDate = null;
@@ -521,6 +560,75 @@ public class MirthMigrator {
 		return createReturnValue(200, result);
 	}
 
+	/**
+	 * Provides the runtime metrics of all Mirth clients
+	 *
+	 * @return A JSON object containing the metrics as described in {@link MirthMigratorMetrics#getSnapshot()}
+	 */
+	public static NativeObject getMetrics() {
+		return getMetrics(false);
+	}
+
+	/**
+	 * Provides the runtime metrics of all Mirth clients
+	 *
+	 * @param reset
+	 *            If set, the metrics are cleared after the snapshot has been taken
+	 * @return A JSON object with the following structure:
+	 *         <ul>
+	 *         <li><b>success</b> - The status that indicates if the operation was successful (true) or not (false)</li>
+	 *         <li><b>statusCode</b> - The HTTP return code (e.g. 200 in case of success)</li>
+	 *         <li><b>payload</b> - the metrics as described in {@link MirthMigratorMetrics#getSnapshot()}. Additionally, the element
+	 *         <b>contentStores</b> provides the statistics of the component content store of every system (see
+	 *         {@link ComponentContentStore#getStatistics()}) as well as the compressed size of all stores (<b>totalCompressedBytes</b>). The element
+	 *         <b>cacheMemory</b> provides the estimated cache size and the idle time of every system (<b>systems</b>), the sum of all cache sizes
+	 *         (<b>totalEstimatedBytes</b>), the configured budget (<b>budgetBytes</b>) and the number of clients that released their caches due to
+	 *         inactivity (<b>idleReleases</b>) or due to the exceeded budget (<b>budgetReleases</b>)</li>
+	 *         </ul>
+	 */
+	public static NativeObject getMetrics(boolean reset) {
+		JSONObject metrics = MirthMigratorMetrics.getSnapshot();
+		if (reset) {
+			MirthMigratorMetrics.clear();
+		}
+
+		// add the size of the component content stores of all clients
+		JSONObject contentStores = new JSONObject();
+		long compressedBytes = 0;
+		if (mirthClients != null) {
+			for (MirthMigrator client : mirthClients.values()) {
+				contentStores.put(client.getSystemName(), client.componentContents.getStatistics());
+				compressedBytes += client.componentContents.getCompressedBytes();
+			}
+		}
+		contentStores.put("totalCompressedBytes", compressedBytes);
+		metrics.put("contentStores", contentStores);
+
+		// add the estimated cache size of all clients
+		JSONObject cacheMemory = new JSONObject();
+		JSONObject systems = new JSONObject();
+		long totalSize = 0;
+		synchronized (cacheBudgetLock) {
+			if (mirthClients != null) {
+				for (MirthMigrator client : mirthClients.values()) {
+					long size = client.getEstimatedCacheSize();
+					JSONObject system = new JSONObject();
+					system.put("estimatedBytes", size);
+					system.put("idleSeconds", (System.currentTimeMillis() - client.lastAccess) / 1000);
+					systems.put(client.getSystemName(), system);
+					totalSize += size;
+				}
+			}
+			cacheMemory.put("idleReleases", idleCacheReleases);
+			cacheMemory.put("budgetReleases", budgetCacheReleases);
+		}
+		cacheMemory.put("systems", systems);
+		cacheMemory.put("totalEstimatedBytes", totalSize);
+		cacheMemory.put("budgetBytes", getCacheMemoryBudget() * 1024L * 1024L);
+		metrics.put("cacheMemory", cacheMemory);
+
+		return createReturnValue(200, metrics);
+	}
 
 	/**
 	 * Creates a Mirth client instance
@@ -552,6 +660,12 @@ public class MirthMigrator {
 		setPassword(password);
 		setDescription(description);
 
+		// the session is opened with the first call and renewed if needed
+		this.serverSession = new ServerSession(systemName, this::createServerSession);
+
+		// the content of fetched channels and code templates is kept in compressed form
+		this.componentContents = new ComponentContentStore(systemName, ComponentContentStore.DEFAULT_HOT_ENTRIES);
+
 		// disable certificate validation
 		trustAll();
 
@@ -743,6 +857,11 @@ public class MirthMigrator {
 			// by default use the Mirth standard port
 			serverPort = defaultServerPort;
 		}
+		// if the account was validated recently, there is no need to ask the Mirth service again
+		if (CredentialCache.isValidated(serverName, serverPort, username, password)) {
+			// use the active session of the user or create a new one
+			return activateUserSession(username, null);
+		}
 		trustAll();
 		// try to authenticate
 		JSONObject login = login(serverName, serverPort, username, password);
@@ -754,58 +873,65 @@ public class MirthMigrator {
 			userSessionCookie = login.getString("sessionCookie").replaceAll(";Path=/api;Secure", "");
 			// log the user out again
 			logout(userSessionCookie, serverPort, serverName);
+			// remember the validated account for subsequent logins
+			CredentialCache.add(serverName, serverPort, username, password);
+			// reuse the active session of the user or store the new one
+			userSessionCookie = activateUserSession(username, userSessionCookie);
+		} else {
+			// the account might have been changed at the Mirth service
+			CredentialCache.remove(serverName, serverPort, username);
+		}
 
-			synchronized (MirthMigrator.userSessionCache) {
-				// check if there is still an active session in the cache. This avoids double session timeout in case of concurrent ajax requests
-				Iterator<Map.Entry<String, HashMap<String, Object>>> iterator = MirthMigrator.userSessionCache.entrySet().iterator();
-				while (iterator.hasNext()) {
-					// check next session
-					HashMap<String, Object> session = iterator.next().getValue();
-					if (logger.isDebugEnabled()) {
-						logger.debug("Checking session \"" + session.get("sessionCookie") + "\"");
-					}
-					// if the session contains the username and is still valid
-					if ((session.get("sessionCookie") != null) && session.get("username").equals(username)
-							&& (System.currentTimeMillis() - ((long) session.get("lastAccess")) <= getUserSessionLifeSpan() * 60000)) {
-						// reset the session life
-						session.put("lastAccess", System.currentTimeMillis());
-						String backup = userSessionCookie;
-						// and reuse this session
-						userSessionCookie = (String) session.get("sessionCookie");
-						if (logger.isDebugEnabled()) {
-							logger.debug("Recycled session \"" + userSessionCookie + "\". New session \"" + backup + "\" will be discarded");
-						}
-						// work is done
-						break;
-					}
+		return userSessionCookie;
+	}
+
+	/**
+	 * Provides the session of a user who logged in successfully. If the user still has an active session, it is reused. This avoids double
+	 * session timeout in case of concurrent ajax requests. Otherwise, a new session is created.
+	 * 
+	 * @param username
+	 *            The name of the user
+	 * @param newSessionCookie
+	 *            The cookie for a new session or null if a new session id should be generated
+	 * @return The cookie of the user session
+	 */
+	private static String activateUserSession(String username, String newSessionCookie) {
+		synchronized (MirthMigrator.userSessionCache) {
+			String activeSessionCookie = userSessionIndex.get(username);
+			// if the user still has a valid session (this also resets the session life)
+			if ((activeSessionCookie != null) && isValidUserSession(activeSessionCookie)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Recycled session \"" + activeSessionCookie + "\""
+							+ ((newSessionCookie != null) ? ". New session \"" + newSessionCookie + "\" will be discarded" : ""));
 				}
+				// the app is loaded anew after a login, thus a pending configuration change is obsolete
+				userSessionCache.get(activeSessionCookie).remove("configurationChanged");
+				// reuse this session
+				return activeSessionCookie;
+			}
+			if (newSessionCookie == null) {
+				newSessionCookie = CredentialCache.createSessionId();
 			}
 			// store the session cookie (and assure that any pre-existing session of the very user is terminated)
-			setUserSession(username, userSessionCookie, true);
+			setUserSession(username, newSessionCookie, true);
 		}
 
-		return userSessionCookie;
+		return newSessionCookie;
 	}
 
 	/**
-	 * Establishes a mirth client session for a mirth server. In case of success the session cookie is stored in the client instance.
+	 * Establishes a mirth client session for a mirth server. The session is managed by {@link ServerSession}.
 	 * 
-	 * @return true, if the login was successful, false otherwise
+	 * @return The session cookie if the login was successful, null otherwise
 	 * @throws ServiceUnavailableException
 	 */
-	private boolean createServerSession() throws ServiceUnavailableException {
+	private String createServerSession() throws ServiceUnavailableException {
 
 		// try to authenticate
 		JSONObject login = login(getServer(), getPort(), getUsername(), getPassword());
-		// get the indicator if login was successful
-		boolean loginSuccessful = login.getBoolean("loginSuccessful");
-		// if the login was successful
-		if (loginSuccessful) {
-			// store the session cookie
-			setServerSessionCookie(login.getString("sessionCookie"));
-		}
 
-		return loginSuccessful;
+		// provide the session cookie if the login was successful
+		return login.getBoolean("loginSuccessful") ? login.getString("sessionCookie") : null;
 	}
 
 	/**
@@ -873,7 +999,9 @@ public class MirthMigrator {
 			try {
 				// and also the encoded parameters
 				urlConnection.getOutputStream().write(postDataBytes);
+				MirthMigratorMetrics.recordBytesSent(urlConnection.getURL(), "POST", postDataBytes.length);
 			} catch (SocketTimeoutException e) {
+				SystemHealth.get(urlConnection.getURL()).recordFailure(e.getMessage());
 				logger.error("Service at " + urlConnection.getURL().getHost() + ":" + urlConnection.getURL().getPort()
 						+ " is currently not available: " + e.getMessage());
 				// indicate the unavailable service also in the response
@@ -900,6 +1028,7 @@ public class MirthMigrator {
 			result.put("sessionCookie",
 					(urlConnection.getResponseCode() == 200) ? urlConnection.getHeaderField("Set-Cookie").replaceAll(";Path=/api;Secure", "") : "");
 		} catch (IOException e) {// internal server error (default) will be returned if this happens
+			SystemHealth.get(urlConnection.getURL()).recordFailure(e.getMessage());
 		}
 
 		try {
@@ -945,8 +1074,8 @@ public class MirthMigrator {
 	 *            The date in milliseconds
 	 * @return The date in the following format: <b>dd.MM.yyyy, HH:mm:ss</b>
 	 */
-	private static String formatDate(long timestamp) {
-		return (timestamp > 0) ? displayDate.format(new Date(timestamp)) : "-";
+	static String formatDate(long timestamp) {
+		return (timestamp > 0) ? displayDate.format(Instant.ofEpochMilli(timestamp)) : "-";
 	}
 
 	/**
@@ -992,6 +1121,7 @@ public class MirthMigrator {
 		// determine group type (channel group or code template library)
 		boolean isChannelGroup = (CHANNEL_GROUP.equals(groupType));
 
+		ClientUsage usage = ClientUsage.acquire(this);
 		try {
 			// if a refresh was requested
 			if (refresh) {
@@ -1009,6 +1139,8 @@ public class MirthMigrator {
 		} catch (ServiceUnavailableException e) {
 			// the target system is not available
 			return createReturnValue(503, e.getMessage());
+		} finally {
+			usage.release();
 		}
 
 	}
@@ -1041,21 +1173,18 @@ public class MirthMigrator {
 			// get all channel groups in alphabetical order
 			for (String channelGroupId : getChannelGroupList()) {
 				// get the meta data for the current channel group
-				JSONObject currentGroup = getChannelGroupInfoById(channelGroupId);
+				GroupMeta currentGroup = getChannelGroupInfoById(channelGroupId);
 				// and add it to the structure
-				metaData.accumulate("item", currentGroup);
+				metaData.accumulate("item", currentGroup.toJson());
 				// now add the meta-data of all child elements
-				if (currentGroup.has("Members")) {
-					for (Object channelId : currentGroup.getJSONArray("Members")) {
+				if (currentGroup.getMembers() != null) {
+					for (String channelId : currentGroup.getMembers()) {
 						// add the current element to the structure
-						metaData.accumulate("item", getChannelMetaDataById((String) channelId));
+						metaData.accumulate("item", getChannelMetaDataById(channelId).toJson());
 					}
-					// indicate how many channels a group possesses
-					metaData.put("Number of members", currentGroup.get("Number of members"));
-				} else {
-					// no channels in this group
-					metaData.put("Number of members", 0);
 				}
+				// indicate how many channels a group possesses
+				metaData.put("Number of members", currentGroup.getNumberOfMembers());
 			}
 			// add info about the total number of groups (the group of unassigned channels is not a real group)
 			metaData.put("Number of groups", getChannelGroupInfo().size() - 1);
@@ -1063,21 +1192,21 @@ public class MirthMigrator {
 			metaData.put("Number of members", getChannelInfo().size());
 		} else {
 			// get the metadata for the current code template library
-			JSONObject currentGroup = getChannelGroupInfoById(id);
+			GroupMeta currentGroup = getChannelGroupInfoById(id);
 			// and add it to the structure
-			metaData.accumulate("item", currentGroup);
+			metaData.accumulate("item", currentGroup.toJson());
 
-			if (currentGroup.has("Members")) {
+			if (currentGroup.getMembers() != null) {
 				// now add the meta-data of all child elements
-				for (Object channelId : currentGroup.getJSONArray("Members")) {
+				for (String channelId : currentGroup.getMembers()) {
 					// add the current element to the structure
-					metaData.accumulate("item", getChannelMetaDataById((String) channelId));
+					metaData.accumulate("item", getChannelMetaDataById(channelId).toJson());
 				}
 			}
 			// add info about the total number of groups (the group of unassigned channels is not a real group)
-			metaData.put("Number of groups", (currentGroup.getString("Id").indexOf(' ') < 0) ? 1 : 0);
+			metaData.put("Number of groups", currentGroup.isArtificial() ? 0 : 1);
 			// add info about the total number of channels
-			metaData.put("Number of members", currentGroup.get("Number of members"));
+			metaData.put("Number of members", currentGroup.getNumberOfMembers());
 		}
 
 		// remember the mirth version
@@ -1120,6 +1249,11 @@ public class MirthMigrator {
 	 * <ul>
 	 * <li><b>sessionLifeSpanInMinutes</b> - The inactivity period after which a session expires</li>
 	 * <li><b>channelStatusUpdateIntervalInSeconds</b> -the number of seconds after which the channel status will automatically be updated</li>
+	 * <li><b>cacheMemoryBudgetInMB</b> - the heap that may be occupied by the caches of all systems. If it is exceeded, the least recently used
+	 * systems release their caches (0 deactivates the budget)</li>
+	 * <li><b>idleClientTimeoutInMinutes</b> - the inactivity period after which a system releases it's caches (0 deactivates the timeout)</li>
+	 * <li><b>connectTimeoutInSeconds</b> - the maximum time for establishing a connection to a Mirth service</li>
+	 * <li><b>readTimeoutInSeconds</b> - the maximum time for waiting for data from a Mirth service (0 deactivates the timeout)</li>
 	 * </ul>
 	 * </li>
 	 * </ul>
@@ -1294,6 +1428,21 @@ public class MirthMigrator {
 
 			password = system.getString("password");
 
+			// the compression mode is optional
+			if (!system.has("compression")) {
+				// add the parameter with the default compression mode
+				system.put("compression", TransferCompression.RESPONSES);
+				// altered config should also be written to disk
+				configNeedsUpdate = true;
+			}
+			String compression = system.getString("compression");
+			if (!TransferCompression.isValidMode(compression)) {
+				logger.warn("Configured compression mode \"" + compression + "\" of the system \"" + systemName
+						+ "\" is invalid. Using default compression mode \"" + TransferCompression.RESPONSES + "\"");
+				compression = TransferCompression.RESPONSES;
+			}
+			TransferCompression.get(server, port).setMode(compression);
+
 			// create the client for the mirth instance
 			addClient(systemName, environment, server, port, user, password, description);
 		}
@@ -1373,12 +1522,108 @@ public class MirthMigrator {
 					+ MirthMigrator.channelStatusUpdateIntervalInSeconds + " seconds");
 		}
 
+		/* c) cache memory budget */
+		// if a cache memory budget was defined
+		if (miscellaneous.has("cacheMemoryBudgetInMB")) {
+			int memoryBudget = miscellaneous.getInt("cacheMemoryBudgetInMB");
+			if (memoryBudget >= 0) {
+				// update the cache memory budget
+				setCacheMemoryBudget(memoryBudget);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Cache memory budget has been set to " + getCacheMemoryBudget() + " MB");
+				}
+			} else {
+				logger.warn("Configured cache memory budget of " + memoryBudget + " MB is invalid. Using default cache memory budget of "
+						+ MirthMigrator.cacheMemoryBudgetInMB + " MB");
+			}
+		} else {
+			// add the parameter to the misc section
+			miscellaneous.accumulate("cacheMemoryBudgetInMB", MirthMigrator.cacheMemoryBudgetInMB);
+			// altered config should also be written to disk
+			configNeedsUpdate = true;
+			logger.warn("Cache memory budget was not found in configuration file. Using default cache memory budget of "
+					+ MirthMigrator.cacheMemoryBudgetInMB + " MB");
+		}
+
+		/* d) idle client timeout */
+		// if an idle client timeout was defined
+		if (miscellaneous.has("idleClientTimeoutInMinutes")) {
+			int idleTimeout = miscellaneous.getInt("idleClientTimeoutInMinutes");
+			if (idleTimeout >= 0) {
+				// update the idle client timeout
+				setIdleClientTimeout(idleTimeout);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Idle client timeout has been set to " + getIdleClientTimeout() + " minutes");
+				}
+			} else {
+				logger.warn("Configured idle client timeout of " + idleTimeout + " minutes is invalid. Using default idle client timeout of "
+						+ MirthMigrator.idleClientTimeoutInMinutes + " minutes");
+			}
+		} else {
+			// add the parameter to the misc section
+			miscellaneous.accumulate("idleClientTimeoutInMinutes", MirthMigrator.idleClientTimeoutInMinutes);
+			// altered config should also be written to disk
+			configNeedsUpdate = true;
+			logger.warn("Idle client timeout was not found in configuration file. Using default idle client timeout of "
+					+ MirthMigrator.idleClientTimeoutInMinutes + " minutes");
+		}
+
+		/* e) connect timeout */
+		// if a connect timeout was defined
+		if (miscellaneous.has("connectTimeoutInSeconds")) {
+			int connectTimeout = miscellaneous.getInt("connectTimeoutInSeconds");
+			if (connectTimeout > 0) {
+				// update the connect timeout
+				setConnectTimeout(connectTimeout);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Connect timeout has been set to " + getConnectTimeout() + " seconds");
+				}
+			} else {
+				logger.warn("Configured connect timeout of " + connectTimeout + " seconds is invalid. Using default connect timeout of "
+						+ MirthMigrator.connectTimeoutInSeconds + " seconds");
+			}
+		} else {
+			// add the parameter to the misc section
+			miscellaneous.accumulate("connectTimeoutInSeconds", MirthMigrator.connectTimeoutInSeconds);
+			// altered config should also be written to disk
+			configNeedsUpdate = true;
+			logger.warn("Connect timeout was not found in configuration file. Using default connect timeout of "
+					+ MirthMigrator.connectTimeoutInSeconds + " seconds");
+		}
+
+		/* f) read timeout */
+		// if a read timeout was defined
+		if (miscellaneous.has("readTimeoutInSeconds")) {
+			int readTimeout = miscellaneous.getInt("readTimeoutInSeconds");
+			if (readTimeout >= 0) {
+				// update the read timeout
+				setReadTimeout(readTimeout);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Read timeout has been set to " + getReadTimeout() + " seconds");
+				}
+			} else {
+				logger.warn("Configured read timeout of " + readTimeout + " seconds is invalid. Using default read timeout of "
+						+ MirthMigrator.readTimeoutInSeconds + " seconds");
+			}
+		} else {
+			// add the parameter to the misc section
+			miscellaneous.accumulate("readTimeoutInSeconds", MirthMigrator.readTimeoutInSeconds);
+			// altered config should also be written to disk
+			configNeedsUpdate = true;
+			logger.warn("Read timeout was not found in configuration file. Using default read timeout of " + MirthMigrator.readTimeoutInSeconds
+					+ " seconds");
+		}
+		// the timeouts are applied to all REST calls
+		SystemHealth.setTimeouts(getConnectTimeout(), getReadTimeout());
+
 		// Its wise to automatically save the config if the structure has changed, so it is not up to the user to take care for that
 		if(configNeedsUpdate) {
 			// get the path to which the configuration file is written
 			Path configLocation = Paths.get(configurationFileLocation);
-			// and write the altered configuration to file
-			Files.write(configLocation, configuration.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+			// and stream the altered configuration to file (without building the whole text first)
+			try (OutputStream out = Files.newOutputStream(configLocation, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				configuration.write(out, 0);
+			}
 		}
 		
 		// cache the configuration (do it here as it might have been updated above)
@@ -1487,9 +1732,223 @@ public class MirthMigrator {
 			client.forceRefresh();
 		}
 
+		if (client != null) {
+			// remember the access for the cache eviction
+			client.lastAccess = System.currentTimeMillis();
+			// and assure that the caches of all clients stay within the memory budget
+			releaseCacheMemory(client);
+		}
+
 		return client;
 	}
 
+	/**
+	 * Releases the caches of all Mirth clients that have been idle for longer than the idle client timeout. Afterwards, if the estimated size of
+	 * all caches still exceeds the cache memory budget, the caches of the least recently used clients are released till the budget is met again.
+	 * The released caches are transparently reloaded from the server as soon as the client is used again.<br/>
+	 * <br/>
+	 * The check is done at most every {@link #CACHE_BUDGET_CHECK_INTERVAL} milliseconds. Clients that are currently in use (see {@link ClientUsage})
+	 * are skipped.
+	 * 
+	 * @param currentClient
+	 *            The client that is currently requested. It's caches are never released.
+	 */
+	private static void releaseCacheMemory(MirthMigrator currentClient) {
+		long now = System.currentTimeMillis();
+		// nothing to do if the last check was only recently
+		if (now - lastCacheBudgetCheck < CACHE_BUDGET_CHECK_INTERVAL) {
+			return;
+		}
+
+		synchronized (cacheBudgetLock) {
+			// another thread might just have done the check
+			if (now - lastCacheBudgetCheck < CACHE_BUDGET_CHECK_INTERVAL) {
+				return;
+			}
+			lastCacheBudgetCheck = now;
+
+			HashMap<String, MirthMigrator> clients = MirthMigrator.mirthClients;
+			if (clients == null) {
+				return;
+			}
+			// the clients ordered by their last access (least recently used first)
+			ArrayList<MirthMigrator> candidates = new ArrayList<MirthMigrator>(clients.values());
+			candidates.remove(currentClient);
+			candidates.sort((first, second) -> Long.compare(first.lastAccess, second.lastAccess));
+
+			// 1. release the caches of all idle clients
+			long idleTimeout = getIdleClientTimeout() * 60000L;
+			if (idleTimeout > 0) {
+				for (MirthMigrator client : candidates) {
+					if ((now - client.lastAccess > idleTimeout) && client.hasCaches() && client.releaseCachesIfUnused()) {
+						logger.info("Released the caches of \"" + client.getSystemName() + "\" as it has been idle for "
+								+ ((now - client.lastAccess) / 60000) + " minutes");
+						idleCacheReleases++;
+					}
+				}
+			}
+
+			// 2. release the caches of the least recently used clients while the memory budget is exceeded
+			long budget = getCacheMemoryBudget() * 1024L * 1024L;
+			if (budget > 0) {
+				long totalSize = currentClient.getEstimatedCacheSize();
+				for (MirthMigrator client : candidates) {
+					totalSize += client.getEstimatedCacheSize();
+				}
+				for (MirthMigrator client : candidates) {
+					if (totalSize <= budget) {
+						break;
+					}
+					long size = client.getEstimatedCacheSize();
+					if ((size > 0) && client.releaseCachesIfUnused()) {
+						logger.info("Released the caches of \"" + client.getSystemName() + "\" (approx. " + (size / 1024) + " KB) as the cache memory budget of "
+								+ getCacheMemoryBudget() + " MB is exceeded");
+						totalSize -= size;
+						budgetCacheReleases++;
+					}
+				}
+				if (totalSize > budget) {
+					logger.warn("The caches of \"" + currentClient.getSystemName() + "\" alone occupy approx. " + (totalSize / (1024 * 1024))
+							+ " MB and thus exceed the cache memory budget of " + getCacheMemoryBudget() + " MB");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks if the client currently holds cached configuration
+	 * 
+	 * @return true, if at least one of the caches is filled
+	 */
+	private boolean hasCaches() {
+		return (this.channelInfo != null) || (this.codeTemplateInfo != null) || (this.channelGroupInfo != null) || (this.codeTemplateLibraryInfo != null)
+				|| (this.componentFingerprints != null) || !this.codeTemplateHeaders.isEmpty() || !this.componentDiffs.isEmpty()
+				|| (this.componentContents.getCompressedBytes() > 0);
+	}
+
+	/**
+	 * Releases all caches of the client if it is not in use by any call (see {@link ClientUsage}). A call that starts meanwhile waits till the
+	 * caches are released.
+	 * 
+	 * @return true, if the caches were released, false if the client is in use
+	 */
+	private boolean releaseCachesIfUnused() {
+		if (!this.usageLock.writeLock().tryLock()) {
+			return false;
+		}
+		try {
+			releaseCaches();
+		} finally {
+			this.usageLock.writeLock().unlock();
+		}
+		return true;
+	}
+
+	/**
+	 * Marks clients as in use for the duration of a call. The caches of a client that is in use are never released by
+	 * {@link MirthMigrator#releaseCacheMemory(MirthMigrator)} as the call relies on them. It has to be released by the thread that acquired it.
+	 */
+	private final static class ClientUsage {
+		private final ArrayList<MirthMigrator> clients = new ArrayList<MirthMigrator>();
+
+		/**
+		 * Marks a client as in use till the usage is released
+		 * 
+		 * @param client
+		 *            The client
+		 * @return The usage, which has to be released in a finally block
+		 */
+		private static ClientUsage acquire(MirthMigrator client) {
+			ClientUsage usage = new ClientUsage();
+			usage.add(client);
+			return usage;
+		}
+
+		/**
+		 * Marks a further client as in use till the usage is released
+		 * 
+		 * @param client
+		 *            The client. Nothing is done if it is null.
+		 */
+		private void add(MirthMigrator client) {
+			if (client != null) {
+				client.usageLock.readLock().lock();
+				clients.add(client);
+			}
+		}
+
+		/**
+		 * Ends the usage of all clients
+		 */
+		private void release() {
+			for (MirthMigrator client : clients) {
+				client.usageLock.readLock().unlock();
+			}
+			clients.clear();
+		}
+	}
+
+	/**
+	 * Releases all caches of the client. They will be reloaded from the server on demand.
+	 */
+	private void releaseCaches() {
+		try {
+			forceRefresh();
+		} catch (ServiceUnavailableException e) {
+			// does not occur as nothing is loaded
+		}
+		this.codeTemplateHeaders.clear();
+		synchronized (this.componentDiffs) {
+			this.componentDiffs.clear();
+		}
+		this.componentContents.clear();
+		this.estimatedCacheSize = 0;
+		this.cacheSizeEstimationDate = System.currentTimeMillis();
+		this.cacheSizeEstimationUpdate = this.lastUpdate;
+	}
+
+	/**
+	 * Provides the approximate heap that is occupied by the caches of this client (see {@link CacheSizeEstimator}). As walking all caches is not
+	 * for free, the estimation is reused till the client is updated or the estimation is older than {@link #CACHE_SIZE_ESTIMATION_LIFESPAN}
+	 * milliseconds. The content store is always accounted with it's current size.
+	 * 
+	 * @return The estimated cache size in bytes
+	 */
+	private long getEstimatedCacheSize() {
+		long now = System.currentTimeMillis();
+		if (!Objects.equals(this.lastUpdate, this.cacheSizeEstimationUpdate) || (now - this.cacheSizeEstimationDate > CACHE_SIZE_ESTIMATION_LIFESPAN)) {
+			Long lastUpdate = this.lastUpdate;
+			try {
+				CacheSizeEstimator estimator = new CacheSizeEstimator();
+				// the meta data
+				estimator.add(this.channelInfo).add(this.channelDocumentation).add(this.channelEnrichments).add(this.channelCodeTemplateLibraryReferences)
+						.add(this.channelState).add(this.channelLastModified).add(this.channelFunctionReferences).add(this.channelInternalFunctionsByChannelId)
+						.add(this.unknownChannelFunctions).add(this.unknownFunctionFunctions).add(this.channelIdbyName).add(this.channelNameById)
+						.add(this.channelGroupInfo).add(this.channelGroupOrder);
+				estimator.add(this.codeTemplateInfo).add(this.codeTemplateIdbyName).add(this.codeTemplateNameById).add(this.codeTemplateIdToFunction)
+						.add(this.codeTemplateLibraryInfo).add(this.codeTemplateLibraryIdByCodeTemplateId).add(this.codeTemplateLibraryOrder);
+				// the function references
+				estimator.add(this.channelReferencesToFunction).add(this.functionLinkedByFunctions).add(this.functionUsesFunctions)
+						.add(this.codeTemplateIdByFunctionName).add(this.functionConflicts);
+				estimator.add(this.externalResources).add(this.interChannelDependencies).add(this.componentFingerprints);
+				estimator.add(this.codeTemplateHeaders);
+				synchronized (this.componentDiffs) {
+					estimator.add(this.componentDiffs);
+				}
+				this.estimatedCacheSize = estimator.getBytes();
+				this.cacheSizeEstimationDate = now;
+				this.cacheSizeEstimationUpdate = lastUpdate;
+			} catch (RuntimeException e) {
+				// a cache was modified concurrently - the previous estimation is used till the next check
+				if (logger.isDebugEnabled()) {
+					logger.debug("Unable to estimate the cache size of \"" + getSystemName() + "\": " + e);
+				}
+			}
+		}
+
+		return this.estimatedCacheSize + this.componentContents.getRetainedBytes();
+	}
+
 	/**
 	 * Checks if the Mirth Migrator configuration has changed. If the configuration has changed, it will automatically be reloaded once.
 	 * 
@@ -1554,19 +2013,12 @@ public class MirthMigrator {
 				String username = credentialSplitMatcher.group(1);
 
 				// check if there is an old session for this user. This would mean the user session had a timeout.
-				Iterator<Map.Entry<String, HashMap<String, Object>>> iterator = MirthMigrator.userSessionCache.entrySet().iterator();
-				while (iterator.hasNext()) {
-					// check next session
-					HashMap<String, Object> session = iterator.next().getValue();
-					// if the session contains the username and the configurationChanged indicator
-					if (session.get("username").equals(username) && session.containsKey(configurationChanged)) {
-						// remove the indicator from the session
-						session.remove(configurationChanged);
-						// and set the changed flag
-						hasChanged = true;
-						// work is done
-						break;
-					}
+				String oldSessionCookie = userSessionIndex.get(username);
+				HashMap<String, Object> session = (oldSessionCookie != null) ? MirthMigrator.userSessionCache.get(oldSessionCookie) : null;
+				// if the session contains the configurationChanged indicator
+				if ((session != null) && (session.remove(configurationChanged) != null)) {
+					// set the changed flag
+					hasChanged = true;
 				}
 			}
 		}
@@ -1683,7 +2135,7 @@ public class MirthMigrator {
 	 *            the string from which the hash value should be created
 	 * @return the hash value as string (not as hex string) or null if the conversion was not possible
 	 */
-	private static String createHash(String string) {
+	static String createHash(String string) {
 		String checksum = null;
 
 		try {
@@ -1742,7 +2194,7 @@ public class MirthMigrator {
 	 * @throws ServiceUnavailableException
 	 * @throws ConfigurationException
 	 */
-	private JSONObject getChannelGroupInfoById(String channelGroupId) throws ConfigurationException, ServiceUnavailableException {
+	private GroupMeta getChannelGroupInfoById(String channelGroupId) throws ConfigurationException, ServiceUnavailableException {
 		return getChannelGroupInfo().get(channelGroupId);
 	}
 
@@ -1750,7 +2202,7 @@ public class MirthMigrator {
 	 * Provides a map containing metadata of all channel groups and their channels<br>
 	 * 
 	 * 
-	 * @return A HashMap identifying each group by it's id and providing the following information per group:
+	 * @return An index identifying each group by it's id and providing the following information per group (see {@link GroupMeta#toJson()}):
 	 *         <ul>
 	 *         <li><b>Display name</b> - The name of the channel group<br/>
 	 *         <i>For the default group this value will always be "<b>Unassigned Channels</b>"</i></li>
@@ -1776,19 +2228,41 @@ public class MirthMigrator {
 	 * @throws ServiceUnavailableException
 	 * @throws ConfigurationException
 	 */
-	private HashMap<String, JSONObject> getChannelGroupInfo() throws ConfigurationException, ServiceUnavailableException {
+	private ComponentIndex<GroupMeta> getChannelGroupInfo() throws ConfigurationException, ServiceUnavailableException {
+		// serve the cache if it is already populated
+		if (this.channelGroupInfo != null) {
+			MirthMigratorMetrics.recordCacheHit(getSystemName(), "channelGroupInfo");
+			return this.channelGroupInfo;
+		}
+
+		long start = System.nanoTime();
+		try {
+			return loadChannelGroupInfo();
+		} finally {
+			// keep track of the time needed for building the cache
+			MirthMigratorMetrics.recordCacheMiss(getSystemName(), "channelGroupInfo", System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Fetches the channel group configuration from the server and builds up the channel group caches (see {@link #getChannelGroupInfo()})
+	 * 
+	 * @return An index with meta data of all channel groups identified by their id
+	 * @throws ConfigurationException
+	 * @throws ServiceUnavailableException
+	 */
+	private ComponentIndex<GroupMeta> loadChannelGroupInfo() throws ConfigurationException, ServiceUnavailableException {
 		// lazy fetching
 		if (this.channelGroupInfo == null) {
 
 			HttpURLConnection service = null;
 			// either code-template libraries or channel groups
 			JSONObject raw = null;
-			JSONObject currentGroup = null;
 			JSONArray groups = null;
 			String mirthVersion = null;
 
 			HashSet<String> assignedChannels = new HashSet<String>();
-			this.channelGroupInfo = new HashMap<String, JSONObject>();
+			this.channelGroupInfo = new ComponentIndex<GroupMeta>();
 			this.channelGroupOrder = new TreeMap<String, String>();
 
 			// 1.) retrieve the group structure and harmonize it if necessary
@@ -1797,127 +2271,76 @@ public class MirthMigrator {
 
 			if (raw != null) {
 				// make sure that it is always an array - even if only one channel group was provided
-				groups = (raw.get(CHANNEL_GROUP) instanceof JSONArray) ? raw.getJSONArray(CHANNEL_GROUP)
-						: new JSONArray().put(raw.getJSONObject(CHANNEL_GROUP));
+				groups = JSONPathQuery.asList(raw.opt(CHANNEL_GROUP));
 
 				// 2.) fetch meta data for all groups
 
-				// extract the version of the mirth system from the first channel
-				if (mirthVersion == null) {
-					mirthVersion = groups.getJSONObject(0).getString("version");
-				}
-
 				// collect meta data for all channel groups
 				for (Object element : groups) {
-					// scan next group
-					currentGroup = (JSONObject) element;
-					// a new jsonObject to put the groups main attributes
-					JSONObject metaData = new JSONObject();
-
-					// add the group name
-					metaData.accumulate("Display name", String.valueOf(currentGroup.get("name")));
-					// add the group id
-					metaData.accumulate("Id", currentGroup.getString("id"));
-					// indicate that this group is not artificial
-					metaData.accumulate("artificial", false);
-					// add the description of the channel purpose
-					metaData.accumulate("Description", String.valueOf(currentGroup.get("description")).replaceAll("&lt;", "<").replaceAll("&gt;", ">")
-							.replaceAll("\\r\\n|\\r|\\n", "<br>"));
-					// add the last modified date for sorting
-					metaData.accumulate("Last modified", currentGroup.getJSONObject("lastModified").getLong("time"));
-					// add the last modified date for displaying
-					metaData.accumulate("Display date", formatDate(metaData.getLong("Last modified")));
-					// add the revision id
-					metaData.accumulate("Version", currentGroup.get("revision"));
-					// add the revision id
-					metaData.accumulate("Mirth version", mirthVersion);
-					// indicate that it is a grouping element
-					metaData.accumulate("Group", true);
-					// not yet sure for what the item type is needed
-					metaData.accumulate("Type", CHANNEL_GROUP);
+					// get all relevant attributes of the next group at once
+					JSONArray currentGroup = channelGroupQuery.queryFrom(element);
+					// extract the version of the mirth system from the first group
+					if (mirthVersion == null) {
+						mirthVersion = currentGroup.getString(5);
+					}
+					// the group name
+					String groupName = String.valueOf(currentGroup.get(0));
+					// the description of the channel purpose
+					String description = String.valueOf(currentGroup.get(2)).replaceAll("&lt;", "<").replaceAll("&gt;", ">")
+							.replaceAll("\\r\\n|\\r|\\n", "<br>");
 					// 3.) Add ordered references to channels
+					ArrayList<String> members = null;
 					TreeMap<String, String> groupMemberOrder = new TreeMap<String, String>();
+					// get harmonized reference to all channels of a group
+					JSONArray groupMembers = currentGroup.getJSONArray(6);
 					// tag does not exist if group is empty
-					try {
-						// get harmonized reference to all channels of a group
-						JSONArray groupMembers = (currentGroup.getJSONObject("channels").get("channel") instanceof JSONArray)
-								? currentGroup.getJSONObject("channels").getJSONArray("channel")
-								: new JSONArray().put(currentGroup.getJSONObject("channels").getJSONObject("channel"));
-
+					if (!groupMembers.isEmpty()) {
 						// now order all channels of the channel group by name
 						for (Object member : groupMembers) {
 							// get the reference to the channel
 							String reference = ((JSONObject) member).getString("id");
 							// if the referenced channel actually exists
-							if (getChannelInfo().containsKey(reference)) {
+							ChannelMeta channel = getChannelInfo().get(reference);
+							if (channel != null) {
 								// add it to the ordered map with its name as key
-								groupMemberOrder.put(getChannelInfo().get(reference).getString("Display name").toLowerCase(), reference);
+								groupMemberOrder.put(channel.getName().toLowerCase(), reference);
 								// remember that this channel has been assigned to a group
 								assignedChannels.add(reference);
 							} else {
-								logger.error("The channel group \"" + currentGroup.getString("name") + "\" references a channel with id \""
-										+ reference + "\" that does not exist.");
+								logger.error("The channel group \"" + groupName + "\" references a channel with id \"" + reference
+										+ "\" that does not exist.");
 							}
 						}
-
-						// add information about the number of channels in this group
-						metaData.accumulate("Number of members", groupMemberOrder.size());
-						// add the ordered list of references to the channel group meta data
-						metaData.put("Members", groupMemberOrder.values());
-
-					} catch (JSONException ex) {
-						// this group does not possess any channels
-						metaData.accumulate("Number of members", 0);
+						// the ordered list of references to the channels of the group
+						members = new ArrayList<String>(groupMemberOrder.values());
 					}
+					GroupMeta metaData = new GroupMeta(currentGroup.getString(1), groupName, currentGroup.getInt(4), currentGroup.getLong(3),
+							description, mirthVersion, false, members);
 
 					// 4.) add channel group to the ordered list
-					this.channelGroupOrder.put(metaData.getString("Display name").toLowerCase(), metaData.getString("Id"));
+					this.channelGroupOrder.put(groupName.toLowerCase(), metaData.getId());
 					// and also to the cache
-					this.channelGroupInfo.put(metaData.getString("Id"), metaData);
+					this.channelGroupInfo.put(metaData);
 				}
 			}
 
 			// 5.) generate a default group and add all unassigned channels
-			JSONObject metaData = new JSONObject();
-
-			// add the group name
-			metaData.accumulate("Display name", "Unassigned Channels");
-			// add the group id
-			metaData.accumulate("Id", "Unassigned Channels");
-			// indicate that this group is artificial
-			metaData.accumulate("artificial", true);
-			// add the description of the channel purpose
-			metaData.accumulate("Description", "All channels that have not yet been assigned to a group.");
-			// add the last modified date for sorting
-			metaData.accumulate("Last modified", null);
-			// add the last modified date for displaying
-			metaData.accumulate("Display date", "-");
-			// add the revision id
-			metaData.accumulate("Version", "1");
-			// add the revision id
-			metaData.accumulate("Mirth version", mirthVersion);
-			// indicate that it is a grouping element
-			metaData.accumulate("Group", true);
-			// not yet sure for what the item type is needed
-			metaData.accumulate("Type", CHANNEL_GROUP);
-
-			// now scan for channels that have not been assigned to a channel group
 			TreeMap<String, String> groupMemberOrder = new TreeMap<String, String>();
-			for (String currentChannelId : getChannelInfo().keySet()) {
+			for (ChannelMeta channel : getChannelInfo()) {
+				String currentChannelId = channel.getId();
 				if (assignedChannels.contains(currentChannelId)) {
 					continue;
 				}
-				groupMemberOrder.put(getChannelInfo().get(currentChannelId).getString("Display name").toLowerCase(), currentChannelId);
+				groupMemberOrder.put(channel.getName().toLowerCase(), currentChannelId);
 			}
-			// add information about the number of channels in this group
-			metaData.accumulate("Number of members", groupMemberOrder.size());
-			// add the ordered list of references to the "Unassigned channels" group meta data
-			metaData.put("Members", groupMemberOrder.values());
+			// the group of unassigned channels has no modification date and always possesses a (maybe empty) member list
+			GroupMeta metaData = new GroupMeta("Unassigned Channels", "Unassigned Channels", 1, ComponentMeta.NO_DATE,
+					"All channels that have not yet been assigned to a group.", mirthVersion, true, new ArrayList<String>(groupMemberOrder.values()));
 
 			// add the artificial channel group to the ordered list
-			this.channelGroupOrder.put(metaData.getString("Display name").toLowerCase(), metaData.getString("Id"));
+			this.channelGroupOrder.put(metaData.getName().toLowerCase(), metaData.getId());
 			// and also to the cache
-			this.channelGroupInfo.put(metaData.getString("Id"), metaData);
+			this.channelGroupInfo.put(metaData);
 
 			// update the update indicator
 			this.lastUpdate = System.currentTimeMillis();
@@ -1935,7 +2358,7 @@ public class MirthMigrator {
 	 * @throws ServiceUnavailableException
 	 * @throws ConfigurationException
 	 */
-	private JSONObject getChannelMetaDataById(String channelId) throws ConfigurationException, ServiceUnavailableException {
+	private ChannelMeta getChannelMetaDataById(String channelId) throws ConfigurationException, ServiceUnavailableException {
 		return getChannelInfo().get(channelId);
 	}
 
@@ -1966,17 +2389,12 @@ public class MirthMigrator {
 			// get all code template libraries in alphabetical order
 			for (String codeTemplateLibraryId : getCodeTemplateLibraryList()) {
 				// get the metadata for the current code template library
-				JSONObject currentGroup = getCodeTemplateLibraryInfoById(codeTemplateLibraryId);
+				LibraryMeta currentGroup = getCodeTemplateLibraryInfoById(codeTemplateLibraryId);
 				// and add it to the structure
-				metaData.accumulate("item", currentGroup);
+				metaData.accumulate("item", currentGroup.toJson());
 
 				// now add the metadata of all child elements
-				if (currentGroup.has("Members")) {
-					for (Object codeTemplateId : currentGroup.getJSONArray("Members")) {
-						// add the current element to the structure
-						metaData.accumulate("item", getCodeTemplateMetaDataById((String) codeTemplateId));
-					}
-				}
+				addCodeTemplateItems(metaData, currentGroup);
 			}
 			// add info about the total number of groups (the group of unassigned channels is not a real group)
 			metaData.put("Number of groups", getCodeTemplateLibraryInfo().size());
@@ -1984,22 +2402,17 @@ public class MirthMigrator {
 			metaData.put("Number of members", getCodeTemplateInfo().size());
 		} else {
 			// get the metadata for the current code template library
-			JSONObject currentGroup = getCodeTemplateLibraryInfoById(id);
+			LibraryMeta currentGroup = getCodeTemplateLibraryInfoById(id);
 			// and add it to the structure
-			metaData.accumulate("item", currentGroup);
+			metaData.accumulate("item", currentGroup.toJson());
 
 			// now add the metadata of all child elements
-			if (currentGroup.has("Members")) {
-				for (Object codeTemplateId : currentGroup.getJSONArray("Members")) {
-					// add the current element to the structure
-					metaData.accumulate("item", getCodeTemplateMetaDataById((String) codeTemplateId));
-				}
-			}
+			addCodeTemplateItems(metaData, currentGroup);
 
 			// add info about the total number of groups, which is always 1 in this case
 			metaData.put("Number of groups", 1);
-			// add info about the total number of channels
-			metaData.put("Number of members", currentGroup.getJSONArray("Members").length());
+			// add info about the total number of channels (an empty library has no members)
+			metaData.put("Number of members", currentGroup.getNumberOfMembers());
 		}
 
 		// if the is no channel from which it can be taken, fetch it from the server via the api (expensive!)
@@ -2021,6 +2434,28 @@ public class MirthMigrator {
 		return metaData;
 	}
 
+	/**
+	 * Adds the metadata of all code templates of a code template library to a metadata structure
+	 * 
+	 * @param metaData
+	 *            The structure to which the code templates are added as <b>item</b>
+	 * @param library
+	 *            The code template library
+	 * @throws ServiceUnavailableException
+	 */
+	private void addCodeTemplateItems(JSONObject metaData, LibraryMeta library) throws ServiceUnavailableException {
+		if (library.getMembers() == null) {
+			return;
+		}
+		for (String codeTemplateId : library.getMembers()) {
+			CodeTemplateMeta codeTemplate = getCodeTemplateMetaDataById(codeTemplateId);
+			// add the current element to the structure
+			if (codeTemplate != null) {
+				metaData.accumulate("item", codeTemplate.toJson());
+			}
+		}
+	}
+
 	/**
 	 * Provides an ordered list of all code template libraries
 	 * 
@@ -2064,6 +2499,8 @@ public class MirthMigrator {
 		this.channelGroupInfo = null;
 		this.channelGroupOrder = null;
 		this.channelInfo = null;
+		this.channelDocumentation = null;
+		this.channelEnrichments = null;
 		this.channelInternalFunctionsByChannelId = null;
 		this.channelLastModified = null;
 		this.channelReferencesToFunction = null;
@@ -2083,6 +2520,7 @@ public class MirthMigrator {
 		this.externalResources = null;
 		this.interChannelDependencies = null;
 		this.functionConflicts = null;
+		this.componentFingerprints = null;
 		this.unknownChannelFunctions = null;
 		this.unknownFunctionFunctions = null;
 
@@ -2109,7 +2547,7 @@ public class MirthMigrator {
 	 * @return The code template library meta data
 	 * @throws ServiceUnavailableException
 	 */
-	private JSONObject getCodeTemplateLibraryInfoById(String codeTemplateLibraryId) throws ServiceUnavailableException {
+	private LibraryMeta getCodeTemplateLibraryInfoById(String codeTemplateLibraryId) throws ServiceUnavailableException {
 		return getCodeTemplateLibraryInfo().get(codeTemplateLibraryId);
 	}
 
@@ -2130,24 +2568,46 @@ public class MirthMigrator {
 	 * <li><b>Code templates</b> - An ordered list of ids of code templates that belong to this code template library</li>
 	 * </ul>
 	 * 
-	 * @return A hashmap with meta data of all code template libraries identified by their id
+	 * @return An index with meta data of all code template libraries identified by their id (see {@link LibraryMeta#toJson()})
+	 * @throws ServiceUnavailableException
+	 */
+	private ComponentIndex<LibraryMeta> getCodeTemplateLibraryInfo() throws ServiceUnavailableException {
+		// serve the cache if it is already populated
+		if (this.codeTemplateLibraryInfo != null) {
+			MirthMigratorMetrics.recordCacheHit(getSystemName(), "codeTemplateLibraryInfo");
+			return this.codeTemplateLibraryInfo;
+		}
+
+		long start = System.nanoTime();
+		try {
+			return loadCodeTemplateLibraryInfo();
+		} finally {
+			// keep track of the time needed for building the cache
+			MirthMigratorMetrics.recordCacheMiss(getSystemName(), "codeTemplateLibraryInfo", System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Fetches the code template library configuration from the server and builds up the code template library caches (see {@link #getCodeTemplateLibraryInfo()})
+	 * 
+	 * @return An index with meta data of all code template librarys identified by their id
 	 * @throws ServiceUnavailableException
 	 */
-	private HashMap<String, JSONObject> getCodeTemplateLibraryInfo() throws ServiceUnavailableException {
+	private ComponentIndex<LibraryMeta> loadCodeTemplateLibraryInfo() throws ServiceUnavailableException {
 
 		// lazy fetching
 		if (this.codeTemplateLibraryInfo == null) {
 			HttpURLConnection service = null;
 			// either code-template libraries or channel groups
 			JSONObject raw = null;
-			JSONObject currentGroup = null;
+			JSONArray currentGroup = null;
 			JSONArray groups = null;
 
 			// 1.) retrieve the group structure and harmonize it if necessary
 			service = connectToRestService("/api/codeTemplateLibraries");
 			raw = getResponseAsJson(service);
 
-			this.codeTemplateLibraryInfo = new HashMap<String, JSONObject>();
+			this.codeTemplateLibraryInfo = new ComponentIndex<LibraryMeta>();
 			this.codeTemplateLibraryOrder = new TreeMap<String, String>();
 			this.channelCodeTemplateLibraryReferences = new HashMap<String, ArrayList<String>>();
 			this.codeTemplateLibraryIdByCodeTemplateId = new HashMap<String, String>();
@@ -2160,8 +2620,7 @@ public class MirthMigrator {
 			}
 
 			// if it is an object instead of an array (meaning only 1 code template library)
-			groups = (raw.get(CODE_TEMPLATE_LIBRARY) instanceof JSONArray) ? raw.getJSONArray(CODE_TEMPLATE_LIBRARY)
-					: new JSONArray().put(raw.getJSONObject(CODE_TEMPLATE_LIBRARY));
+			groups = JSONPathQuery.asList(raw.opt(CODE_TEMPLATE_LIBRARY));
 
 			// 2.) fetch meta data for all code template library
 
@@ -2170,47 +2629,29 @@ public class MirthMigrator {
 
 			// collect meta data for all code template libraries
 			for (Object element : groups) {
-				// scan next group
-				currentGroup = (JSONObject) element;
-				// a new jsonObject to put the groups main attributes
-				JSONObject metaData = new JSONObject();
-
-				// add the code template library name
-				metaData.accumulate("Display name", String.valueOf(currentGroup.get("name")));
-				// add the code template library id
-				String libraryId = currentGroup.getString("id");
-				metaData.accumulate("Id", libraryId);
-				// add the description of the code template library purpose
-				metaData.accumulate("Description", String.valueOf(currentGroup.get("description")).replaceAll("&lt;", "<").replaceAll("&gt;", ">")
-						.replaceAll("\\\"", "&quot;").replaceAll("\\r|\\n", "<br>"));
-				// add the last modified date for sorting
-				metaData.accumulate("Last modified", currentGroup.getJSONObject("lastModified").getLong("time"));
-				// add the last modified date for displaying
-				metaData.accumulate("Display date", formatDate(metaData.getLong("Last modified")));
-				// add the revision id
-				metaData.accumulate("Version", currentGroup.getInt("revision"));
-				// add the revision id
-				metaData.accumulate("Mirth version", mirthVersion);
-				// indicate that it is a grouping element
-				metaData.accumulate("Group", true);
-				// not sure for what the item type is needed
-				metaData.accumulate("Type", CODE_TEMPLATE_LIBRARY);
+				// get all relevant attributes of the next group at once
+				currentGroup = codeTemplateLibraryQuery.queryFrom(element);
 
-				// 3.) references to channels
-				if (currentGroup.get("enabledChannelIds") instanceof JSONObject) {
-
-					// get harmonized reference to all code templates of a code template library
-					JSONArray referencingChannels = (currentGroup.getJSONObject("enabledChannelIds").get("string") instanceof JSONArray)
-							? currentGroup.getJSONObject("enabledChannelIds").getJSONArray("string")
-							: new JSONArray().put(currentGroup.getJSONObject("enabledChannelIds").getString("string"));
+				// the code template library name
+				String libraryName = String.valueOf(currentGroup.get(0));
+				// the code template library id
+				String libraryId = currentGroup.getString(1);
+				// the description of the code template library purpose
+				String description = String.valueOf(currentGroup.get(2)).replaceAll("&lt;", "<").replaceAll("&gt;", ">")
+						.replaceAll("\\\"", "&quot;").replaceAll("\\r|\\n", "<br>");
 
-					// add the ordered list of referencing channels
-					metaData.put("Used by", referencingChannels);
+				// 3.) references to channels
+				ArrayList<String> usedBy = null;
+				JSONArray referencingChannels = currentGroup.getJSONArray(5);
+				if (!referencingChannels.isEmpty()) {
+					usedBy = new ArrayList<String>(referencingChannels.length());
 
 					// build up an index of libraries used per channel
 					for (Object id : referencingChannels) {
 						// get the next channel reference
 						String channelId = (String) id;
+						// remember the ordered list of referencing channels
+						usedBy.add(channelId);
 						// if there is not yet an entry for the channel
 						if (!this.channelCodeTemplateLibraryReferences.containsKey(channelId)) {
 							// generate one
@@ -2224,20 +2665,18 @@ public class MirthMigrator {
 				}
 
 				// 4.) Add ordered references to code templates
+				ArrayList<String> members = null;
 				TreeMap<String, String> groupMemberOrder = new TreeMap<String, String>();
-				try {
-					// get harmonized reference to all code templates of a code template library
-					JSONArray groupMembers = (currentGroup.getJSONObject("codeTemplates").get("codeTemplate") instanceof JSONArray)
-							? currentGroup.getJSONObject("codeTemplates").getJSONArray("codeTemplate")
-							: new JSONArray().put(currentGroup.getJSONObject("codeTemplates").getJSONObject("codeTemplate"));
-
+				// get harmonized reference to all code templates of a code template library
+				JSONArray groupMembers = currentGroup.getJSONArray(6);
+				if (!groupMembers.isEmpty()) {
 					// now order all templates of the library by name
 					for (Object member : groupMembers) {
 
 						// get the reference to the code template
 						String codeTemplateId = ((JSONObject) member).getString("id");
 						// and also the function name
-						String functionName = getCodeTemplateMetaDataById(codeTemplateId).getString("Function name");
+						String functionName = getCodeTemplateMetaDataById(codeTemplateId).getFunctionName();
 						// and add it to the ordered map with its name as key
 						groupMemberOrder.put(functionName.toLowerCase(), codeTemplateId);
 						// create mapping from function to library
@@ -2245,11 +2684,12 @@ public class MirthMigrator {
 
 						int counter = 2;
 						String functionId = null;
-						while (getCodeTemplateInfo().containsKey(codeTemplateId + "_" + counter)) {
+						CodeTemplateMeta function = null;
+						while ((function = getCodeTemplateMetaDataById(codeTemplateId + "_" + counter)) != null) {
 							// create the function id
 							functionId = codeTemplateId + "_" + counter++;
 							// get the function name
-							functionName = getCodeTemplateMetaDataById(functionId).getString("Function name");
+							functionName = function.getFunctionName();
 							// add it to the order list
 							groupMemberOrder.put(functionName.toLowerCase(), functionId);
 							// create mapping from function to library
@@ -2260,19 +2700,16 @@ public class MirthMigrator {
 						}
 					}
 
-					// add information about the number of templates in this group
-					metaData.accumulate("Number of members", groupMemberOrder.size());
-					// add the ordered list of references to the code template library meta data
-					metaData.put("Members", groupMemberOrder.values());
-				} catch (JSONException ex) {
-					// this group does not possess any code template
-					metaData.accumulate("Number of members", 0);
+					// the ordered list of references to the code templates of the library
+					members = new ArrayList<String>(groupMemberOrder.values());
 				}
+				LibraryMeta metaData = new LibraryMeta(libraryId, libraryName, currentGroup.getInt(4), currentGroup.getLong(3), description,
+						mirthVersion, usedBy, members);
 
 				// 5.) add code template library to the ordered list
-				this.codeTemplateLibraryOrder.put(metaData.getString("Display name").toLowerCase(), metaData.getString("Id"));
+				this.codeTemplateLibraryOrder.put(libraryName.toLowerCase(), libraryId);
 				// and also to the cache
-				this.codeTemplateLibraryInfo.put(libraryId, metaData);
+				this.codeTemplateLibraryInfo.put(metaData);
 			}
 			// update the update indicator
 			this.lastUpdate = System.currentTimeMillis();
@@ -2352,15 +2789,15 @@ public class MirthMigrator {
 	 * @return The code template meta data
 	 * @throws ServiceUnavailableException
 	 */
-	private JSONObject getCodeTemplateMetaDataById(String codeTemplateId) throws ServiceUnavailableException {
+	private CodeTemplateMeta getCodeTemplateMetaDataById(String codeTemplateId) throws ServiceUnavailableException {
 		return getCodeTemplateInfo().get(codeTemplateId);
 	}
 
 	/**
 	 * Provides a map containing metadata of all code templates. If it does not exist, it will be generated.
 	 * 
-	 * @return A HashMap with meta data of all code templates identified by their id. The value consists of a JSON object containing the following
-	 *         information:<br>
+	 * @return An index with meta data of all code templates identified by their id. The JSON representation of each entry (see
+	 *         {@link CodeTemplateMeta#toJson()}) contains the following information:<br>
 	 *         <ul>
 	 *         <li><b>Display name</b> - The display name that has been configured for the code template</li>
 	 *         <li><b>Function name</b> - The name of the actual function if the code template is a function. Otherwise the same like <b>Display
@@ -2376,11 +2813,33 @@ public class MirthMigrator {
 	 *         </ul>
 	 * @throws ServiceUnavailableException
 	 */
-	private synchronized HashMap<String, JSONObject> getCodeTemplateInfo() throws ServiceUnavailableException {
+	private synchronized ComponentIndex<CodeTemplateMeta> getCodeTemplateInfo() throws ServiceUnavailableException {
+		// serve the cache if it is already populated
+		if (this.codeTemplateInfo != null) {
+			MirthMigratorMetrics.recordCacheHit(getSystemName(), "codeTemplateInfo");
+			return this.codeTemplateInfo;
+		}
+
+		long start = System.nanoTime();
+		try {
+			return loadCodeTemplateInfo();
+		} finally {
+			// keep track of the time needed for building the cache
+			MirthMigratorMetrics.recordCacheMiss(getSystemName(), "codeTemplateInfo", System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Fetches the code template configuration from the server and builds up the code template caches (see {@link #getCodeTemplateInfo()})
+	 * 
+	 * @return An index with meta data of all code templates identified by their id
+	 * @throws ServiceUnavailableException
+	 */
+	private ComponentIndex<CodeTemplateMeta> loadCodeTemplateInfo() throws ServiceUnavailableException {
 		// lazy fetching
 		if (this.codeTemplateInfo == null) {
 			// initialize container
-			this.codeTemplateInfo = new HashMap<String, JSONObject>();
+			this.codeTemplateInfo = new ComponentIndex<CodeTemplateMeta>();
 			// and also the name to template mapper
 			this.codeTemplateIdbyName = new HashMap<String, String>();
 			this.codeTemplateNameById = new HashMap<String, String>();
@@ -2389,28 +2848,29 @@ public class MirthMigrator {
 			// get info about all code templates
 			String xml = getResponseAsXml(connectToRestService("/api/codeTemplates"));
 			// scan the channel code for code template usage
+			long start = System.nanoTime();
 			buildUpTemplateToTemplateRelationships(xml);
+			MirthMigratorMetrics.recordPhase("codeTemplateReferenceDetection", System.nanoTime() - start);
 			// and prepare it for metadata parsing
-			JSONObject raw = XML.toJSONObject(xml);
-			try {
-				raw = raw.getJSONObject("list");
-			} catch (JSONException e) {
+			start = System.nanoTime();
+			JSONObject raw = XML.toJSONObject(xml, metaDataParserConfiguration);
+			MirthMigratorMetrics.recordPhase("codeTemplateParsing", System.nanoTime() - start);
+			JSONArray codeTemplates = codeTemplateListQuery.queryFrom(raw).getJSONArray(0);
+			if (codeTemplates.isEmpty()) {
 				// if the library is empty, there will be no code template information
 				return this.codeTemplateInfo;
 			}
 
 			// and extract the relevant information of each
-			JSONArray codeTemplates = (raw.get("codeTemplate") instanceof JSONArray) ? raw.getJSONArray("codeTemplate")
-					: (new JSONArray()).put(raw.get("codeTemplate"));
 			for (Object element : codeTemplates) {
-				// get next code template
-				JSONObject codeTemplate = (JSONObject) element;
+				// get all relevant attributes of the next code template at once
+				JSONArray codeTemplate = codeTemplateQuery.queryFrom(element);
 
 				// arm the matcher to check for function definitions within the code template
-				Matcher functionNameMatcher = functionNamePattern.matcher(codeTemplate.getJSONObject("properties").getString("code"));
+				Matcher functionNameMatcher = functionNamePattern.matcher(codeTemplate.getString(4));
 				// if a function definition is found, the code template contains at least one function
 				if (functionNameMatcher.find()) {
-					String codeTemplateId = codeTemplate.getString("id");
+					String codeTemplateId = codeTemplate.getString(1);
 					String functionName = functionNameMatcher.group(1) + "()";
 
 					// initialize the cache entry
@@ -2434,6 +2894,10 @@ public class MirthMigrator {
 					generateCodeTemplateMetaData(codeTemplate);
 				}
 			}
+			// forget the headers and the content of code templates that no longer exist
+			Set<String> codeTemplateIds = this.codeTemplateInfo.ids();
+			this.codeTemplateHeaders.keySet().retainAll(codeTemplateIds);
+			this.componentContents.retain(CODE_TEMPLATE, codeTemplateIds);
 			// update the update indicator
 			this.lastUpdate = System.currentTimeMillis();
 		}
@@ -2477,11 +2941,11 @@ public class MirthMigrator {
 	 * </ul>
 	 * 
 	 * @param codeTemplate
-	 *            The code template for which the metadata should be generated
+	 *            The attributes of the code template for which the metadata should be generated (see {@link #codeTemplateQuery})
 	 * @throws ServiceUnavailableException
 	 * 
 	 */
-	private void generateCodeTemplateMetaData(JSONObject codeTemplate) throws ServiceUnavailableException {
+	private void generateCodeTemplateMetaData(JSONArray codeTemplate) throws ServiceUnavailableException {
 		generateCodeTemplateMetaData(codeTemplate, null, null);
 	}
 
@@ -2501,12 +2965,12 @@ public class MirthMigrator {
 	 * </ul>
 	 * 
 	 * @param codeTemplate
-	 *            The code template for which the metadata should be generated
+	 *            The attributes of the code template for which the metadata should be generated (see {@link #codeTemplateQuery})
 	 * @param functionName
 	 *            The name of the function or null if it is no function
 	 * @throws ServiceUnavailableException
 	 */
-	private void generateCodeTemplateMetaData(JSONObject codeTemplate, String functionName) throws ServiceUnavailableException {
+	private void generateCodeTemplateMetaData(JSONArray codeTemplate, String functionName) throws ServiceUnavailableException {
 		generateCodeTemplateMetaData(codeTemplate, functionName, null);
 	}
 
@@ -2526,7 +2990,7 @@ public class MirthMigrator {
 	 * </ul>
 	 * 
 	 * @param codeTemplate
-	 *            The code template for which the metadata should be generated
+	 *            The attributes of the code template for which the metadata should be generated (see {@link #codeTemplateQuery})
 	 * @param functionName
 	 *            The name of the function or null if it is no function
 	 * @param index
@@ -2534,69 +2998,40 @@ public class MirthMigrator {
 	 *            will be added
 	 * @throws ServiceUnavailableException
 	 */
-	private void generateCodeTemplateMetaData(JSONObject codeTemplate, String functionName, Integer index) throws ServiceUnavailableException {
-		// create a new element
-		JSONObject metaData = new JSONObject();
-		// add the configured name of the code template
-		metaData.accumulate("Display name", String.valueOf(codeTemplate.get("name")));
-		// add the function name of the code template. If it is no function use the template name
-		metaData.accumulate("Function name", (functionName != null) ? functionName : metaData.getString("Display name"));
-		// add the id of the code template. If there are more than one functions in a code template, create an artificial id (that allows to
+	private void generateCodeTemplateMetaData(JSONArray codeTemplate, String functionName, Integer index) throws ServiceUnavailableException {
+		// the configured name of the code template
+		String codeTemplateName = codeTemplate.getString(0);
+		// the id of the code template. If there are more than one functions in a code template, create an artificial id (that allows to
 		// reconstruct the original id)
-		String codeTemplateId = codeTemplate.getString("id") + ((index != null) ? "_" + index.intValue() : "");
-		metaData.accumulate("Id", codeTemplateId);
-		// add the version of the code template
-		metaData.accumulate("Version", codeTemplate.get("revision"));
-		// not yet sure for what the item type is needed
-		metaData.accumulate("Type", CODE_TEMPLATE);
-
-		if (codeTemplate.getJSONObject("lastModified") != null) {
-			// add the last modified date for sorting
-			metaData.accumulate("Last modified", codeTemplate.getJSONObject("lastModified").get("time"));
-			// add the last modified date for displaying
-			metaData.accumulate("Display date", formatDate(metaData.getLong("Last modified")));
-		} else {
-			// no modified date
-			metaData.accumulate("Last modified", "-");
-			// no modified date
-			metaData.accumulate("Display date", "-");
-		}
+		String codeTemplateId = codeTemplate.getString(1) + ((index != null) ? "_" + index.intValue() : "");
+		// the last modified date (if any)
+		long lastModified = !codeTemplate.isNull(3) ? codeTemplate.getLong(3) : ComponentMeta.NO_DATE;
 
+		String description = null;
+		String parameters = null;
+		String returnValue = null;
 		JSONObject header = getCodeTemplateDescription(codeTemplate, functionName);
 
-		// if there is a JavaScript Doc header for this function, add the available details
+		// if there is a JavaScript Doc header for this function, take over the available details
 		if (header != null) {
-			// if there is a description of the function
-			if (header.has("description")) {
-				// add the description of the code template
-				metaData.accumulate("Description", header.getString("description"));
-			}
-			// if the function possesses parameters
-			if (header.has("parameters")) {
-				// add the parameters of the code template
-				metaData.accumulate("Parameters", header.getString("parameters"));
-			}
-			// if the function provides a return value
-			if (header.has("returnValue")) {
-				// add the return value of the code template
-				metaData.accumulate("Return value", header.getString("returnValue"));
-			}
+			// the description of the function (if any)
+			description = header.has("description") ? header.getString("description") : null;
+			// the parameters of the function (if any)
+			parameters = header.has("parameters") ? header.getString("parameters") : null;
+			// the return value of the function (if any)
+			returnValue = header.has("returnValue") ? header.getString("returnValue") : null;
 		}
 		boolean isFunction = (functionName != null);
-		// indicate if code template is contains functions
-		metaData.accumulate("Is function", isFunction);
-
-		// add the mapping to the metadata HashMap
-		this.codeTemplateInfo.put(codeTemplateId, metaData);
 
-		// as well as the mapping between the template name and the id
-		getCodeTemplateIdByName().put(metaData.getString("Display name"), codeTemplateId);
-		getCodeTemplateNameById().put(codeTemplateId, metaData.getString("Display name"));
+		// the mapping between the template name and the id
+		getCodeTemplateIdByName().put(codeTemplateName, codeTemplateId);
+		getCodeTemplateNameById().put(codeTemplateId, codeTemplateName);
 
+		ArrayList<String> multipleDefinitions = null;
 		// if it is a function
 		if (isFunction) {
 			// also add a mapping between function name and code template id
-			getCodeTemplateIdByName().put(metaData.getString("Function name"), codeTemplateId);
+			getCodeTemplateIdByName().put(functionName, codeTemplateId);
 
 			// check if the function has conflicts
 			if (checkForFunctionConflicts(functionName, codeTemplateId)) {
@@ -2604,23 +3039,19 @@ public class MirthMigrator {
 				HashMap<String, Integer> allConflicts = getFunctionConflicts(functionName);
 
 				// and assemble the display list of conflicting elements
-				ArrayList<String> multipleDefinitions = new ArrayList<String>();
+				multipleDefinitions = new ArrayList<String>();
 				for (Map.Entry<String, Integer> entry : allConflicts.entrySet()) {
 					String conflictingCodeTemplate = entry.getKey();
 					Integer numberOfDefinitions = entry.getValue();
 					multipleDefinitions.add(conflictingCodeTemplate + ((numberOfDefinitions != 1) ? " (<b>" + numberOfDefinitions + "x</b>)" : ""));
 				}
-
-				// first check if there is already an issue attribute for this channel
-				if (!metaData.has("Issues")) {
-					// if not, create it
-					metaData.put("Issues", new JSONObject());
-				}
-				// add the list of multiple definitions of the same function
-				metaData.getJSONObject("Issues").put("multipleDefinitions", multipleDefinitions);
 			}
 		}
 
+		// add the metadata to the cache
+		this.codeTemplateInfo.put(new CodeTemplateMeta(codeTemplateId, codeTemplateName, functionName, codeTemplate.getInt(2), lastModified,
+				description, parameters, returnValue, multipleDefinitions));
+
 		// and also one from function name to code template
 		this.codeTemplateIdByFunctionName.put(functionName, codeTemplateId);
 	}
@@ -2629,7 +3060,7 @@ public class MirthMigrator {
 	 * Provides a HashMap containing the header information of all functions detected in a code template
 	 * 
 	 * @param codeTemplate
-	 *            The codeTemplate from which the JavaScript Doc headers should be extracted
+	 *            The attributes of the code template from which the JavaScript Doc headers should be extracted (see {@link #codeTemplateQuery})
 	 * @param functionName
 	 *            The function for which the description headers should be extracted. If none is provided, the first JavaScript Doc header will be
 	 *            used (this is e.g. the case if the code template does not contain a function) (<i>OPTIONAL</i>)
@@ -2641,110 +3072,25 @@ public class MirthMigrator {
 	 *         </ul>
 	 *         The return value is <b>null</b> if the required description was not found
 	 */
-	private JSONObject getCodeTemplateDescription(JSONObject codeTemplate, String functionName) {
-		JSONObject properties = null;
-		String code, javascriptDocHeader, parameters, parameterName, parameterDescription, parameterList;
-		Matcher headerMatcher, codeTemplateHeaderDescriptionMatcher, codeTemplateHeaderParameterMatcher, codeTemplateHeaderReturnValueMatcher,
-				functionParameterMatcher;
-
-		// depending on the mirth version
-		if (!codeTemplate.has("code")) {
-			// the code section is encapsulated into properties. Thus make sure the right spot is accessed
-			codeTemplate = codeTemplate.getJSONObject("properties");
-		}
-		// obtain the code block (which contains the header(s))
-		code = codeTemplate.getString("code");
-		// determine if the description for a specific function is wanted
-		boolean isFunction = (functionName != null);
-
-		// determine the right matcher depending on if the code template contains a function
-		headerMatcher = isFunction ? functionHeaderPattern.matcher(code) : codeTemplateHeaderPattern.matcher(code);
-		// now find the correct header
-		while (headerMatcher.find()) {
-			// make sure that the right function documentation is read
-			if (isFunction && !functionName.equals(headerMatcher.group(2) + "()")) {
-				continue;
-			}
-
-			properties = new JSONObject();
-			// now analyze the JavaScript Doc header
-			javascriptDocHeader = headerMatcher.group(1);
-
-			if (javascriptDocHeader == null) {
-				javascriptDocHeader = "";
-			}
-			// extract the function description
-			codeTemplateHeaderDescriptionMatcher = codeTemplateHeaderDescriptionPattern.matcher(javascriptDocHeader);
-			if (codeTemplateHeaderDescriptionMatcher.find()) {
-				// and add it to the record
-				properties.put("description", codeTemplateHeaderDescriptionMatcher.group(1).replaceAll("\\s*(\\r?\\n|\\r)", "\n")
-						.replaceAll("(?i)<br?\\/>(\\r?\\n|\\r)", "\n").replaceAll("(?i)(?<!<(ol|ul|\\/ol|\\/ul|\\/li)>)(\\n)", "<br/>\n"));
-			}
-
-			// if the code template contains no functions
-			if (!isFunction) {
-				// analysis ends here
-				return properties;
-			}
-
-			// extract the parameters
-			parameters = "";
-			parameterList = headerMatcher.group(3);
-			// stores the detected description
-			HashMap<String, String> detectedDescription = new HashMap<String, String>();
-
-			codeTemplateHeaderParameterMatcher = codeTemplateHeaderParameterPattern.matcher(javascriptDocHeader);
-			// detect all parameter descriptions in the function header
-			while (codeTemplateHeaderParameterMatcher.find()) {
-				// extract the parameter name
-				parameterName = codeTemplateHeaderParameterMatcher.group(1).trim();
-				// the parameter description
-				parameterDescription = codeTemplateHeaderParameterMatcher.group(2).trim();
-				// remove a potential "-" prefix
-				if (parameterDescription.charAt(0) == '-') {
-					parameterDescription = parameterDescription.substring(1);
-				}
-				// adjust description
-				parameterDescription = parameterDescription.replaceAll("\\s*(\\r?\\n|\\r)", "\n").replaceAll("(?i)<br?\\/>(\\r?\\n|\\r)", "\n")
-						.replaceAll("(?i)(?<!<(ol|ul|tr|td|table\\/ol|\\/ul|\\/li|\\/td|\\/tr|\\/table)>)(\\n)", "<br/>\n");
-				// and add it to the list of detected descriptions
-				detectedDescription.put(parameterName, parameterDescription);
-			}
-
-			// generate documentation for all function parameters
-			functionParameterMatcher = functionParameterPattern.matcher(parameterList);
-			while (functionParameterMatcher.find()) {
-				// extract the parameter name
-				String name = functionParameterMatcher.group();
-				// the parameter description
-				String description = "";
-				// if there is a description for this parameter in the function header
-				if (detectedDescription.containsKey(name)) {
-					// load it from the list of detected descriptions
-					description = detectedDescription.get(name);
-				}
-				// and add the formatted parameter
-				parameters += String.format("<tr><td><b>%s</b>\t</td><td>%s</td></tr>\n", name, description);
-			}
-			if (!parameters.isEmpty()) {
-				parameters = "<table class='parameters'>" + parameters + "</table>";
-				// add the formatted parameter list to the result set
-				properties.put("parameters", parameters);
-			}
-
-			// finally extract the return value description
-			codeTemplateHeaderReturnValueMatcher = codeTemplateHeaderReturnValuePattern.matcher(javascriptDocHeader);
-			if (codeTemplateHeaderReturnValueMatcher.find()) {
-				// add the return value description
-				properties.put("returnValue", codeTemplateHeaderReturnValueMatcher.group(1).replaceAll("\\s*(\\r?\\n|\\r)", "\n")
-						.replaceAll("(?i)<br?\\/>(\\r?\\n|\\r)", "\n").replaceAll("(?i)(?<!<(ol|ul|\\/ol|\\/ul|\\/li)>)(\\n)", "<br/>\n"));
-			}
-
-			// header was found - not need for further investigation
-			break;
+	private JSONObject getCodeTemplateDescription(JSONArray codeTemplate, String functionName) {
+		String codeTemplateId = codeTemplate.getString(1);
+		Object revision = codeTemplate.opt(2);
+
+		// the headers of a code template only have to be extracted once per revision
+		CodeTemplateHeaders headers = this.codeTemplateHeaders.get(codeTemplateId);
+		if ((headers == null) || !headers.isRevision(revision)) {
+			long start = System.nanoTime();
+			// depending on the mirth version the code section is encapsulated into properties. Thus make sure the right spot is accessed
+			String code = codeTemplate.isNull(5) ? codeTemplate.getString(4) : codeTemplate.getString(5);
+			// scan the code block (which contains the header(s)) once for all functions
+			headers = new CodeTemplateHeaders(code, revision);
+			this.codeTemplateHeaders.put(codeTemplateId, headers);
+			MirthMigratorMetrics.recordCacheMiss(getSystemName(), "codeTemplateHeaders", System.nanoTime() - start);
+		} else {
+			MirthMigratorMetrics.recordCacheHit(getSystemName(), "codeTemplateHeaders");
 		}
 
-		return properties;
+		return headers.get(functionName);
 	}
 
 	/**
@@ -3002,7 +3348,7 @@ public class MirthMigrator {
 	/**
 	 * Provides a map containing metadata of all channels. If it does not exist, it will be generated.
 	 * 
-	 * @return A HashMap identifying each channel by it's id and providing the following information per channel:
+	 * @return An index identifying each channel by it's id and providing the following information per channel (see {@link ChannelMeta#toJson()}):
 	 *         <ul>
 	 *         <li><b>Display name</b> - The name of the channel</li>
 	 *         <li><b>Id</b> - The UUID of the channel</li>
@@ -3017,12 +3363,37 @@ public class MirthMigrator {
 	 * @throws ConfigurationException
 	 * @throws ServiceUnavailableException
 	 */
-	private HashMap<String, JSONObject> getChannelInfo() throws ConfigurationException, ServiceUnavailableException {
+	private ComponentIndex<ChannelMeta> getChannelInfo() throws ConfigurationException, ServiceUnavailableException {
+		// serve the cache if it is already populated
+		if (this.channelInfo != null) {
+			MirthMigratorMetrics.recordCacheHit(getSystemName(), "channelInfo");
+			return this.channelInfo;
+		}
+
+		long start = System.nanoTime();
+		try {
+			return loadChannelInfo();
+		} finally {
+			// keep track of the time needed for building the cache
+			MirthMigratorMetrics.recordCacheMiss(getSystemName(), "channelInfo", System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Fetches the channel configuration from the server and builds up the channel caches (see {@link #getChannelInfo()})
+	 * 
+	 * @return An index with meta data of all channels identified by their id
+	 * @throws ConfigurationException
+	 * @throws ServiceUnavailableException
+	 */
+	private ComponentIndex<ChannelMeta> loadChannelInfo() throws ConfigurationException, ServiceUnavailableException {
 
 		// lazy fetching
 		if (this.channelInfo == null) {
 			// initialize container
-			HashMap<String, JSONObject> channelInfo = new HashMap<String, JSONObject>();
+			ComponentIndex<ChannelMeta> channelInfo = new ComponentIndex<ChannelMeta>();
+			this.channelDocumentation = new HashMap<String, String>();
+			this.channelEnrichments = new HashMap<String, JSONObject>();
 			this.channelFunctionReferences = new HashMap<String, ArrayList<String>>();
 			this.channelReferencesToFunction = new HashMap<String, TreeSet<String>>();
 			this.channelInternalFunctionsByChannelId = new HashMap<String, ArrayList<String>>();
@@ -3032,12 +3403,16 @@ public class MirthMigrator {
 			// get info about all channels. The pure xml is used for finding channel/code template relationships
 			String xml = getResponseAsXml(connectToRestService("/api/channels"));
 			// scan the channel code for code template usage
+			long start = System.nanoTime();
 			buildUpCodeTemplateRelationships(xml);
+			MirthMigratorMetrics.recordPhase("channelFunctionReferenceDetection", System.nanoTime() - start);
 			// and prepare it for metadata parsing
-			JSONObject raw = XML.toJSONObject(xml);
-			try {
-				raw = raw.getJSONObject("list");
-			} catch (JSONException e) {
+			start = System.nanoTime();
+			JSONObject raw = XML.toJSONObject(xml, metaDataParserConfiguration);
+			MirthMigratorMetrics.recordPhase("channelParsing", System.nanoTime() - start);
+			// assure that an array will be used
+			JSONArray channels = channelListQuery.queryFrom(raw).getJSONArray(0);
+			if (channels.isEmpty()) {
 				// if the channel group is empty, there will be no channel information
 				this.channelInfo = channelInfo;
 				return this.channelInfo;
@@ -3047,157 +3422,55 @@ public class MirthMigrator {
 			HashMap<String, Long> channelLastModified = getChannelLastModified(false);
 			HashMap<String, Boolean> channeState = getChannelMetadata(false);
 
-			// assure that an array will be used
-			JSONArray channels = (raw.get("channel") instanceof JSONArray) ? raw.getJSONArray("channel") : (new JSONArray()).put(raw.get("channel"));
-
 			// and extract the relevant information of each channel
 			for (Object element : channels) {
-				// get next channel
-				JSONObject channel = (JSONObject) element;
-				// create a new element
-				JSONObject metaData = new JSONObject();
-				// add the display name of the channel
-				String channelName = String.valueOf(channel.get("name"));
-				metaData.accumulate("Display name", channelName);
-				// add the id of the channel
-				String channelId = channel.getString("id");
-				metaData.accumulate("Id", channelId);
-				// add the initial channel state after deployment
-				String initialState = channel.getJSONObject("properties").getString("initialState");
-				metaData.accumulate("Initial state", initialState);
+				// get all relevant attributes of the next channel at once
+				JSONArray channel = channelQuery.queryFrom(element);
+				// the display name of the channel
+				String channelName = channel.getString(0);
+				// the id of the channel
+				String channelId = channel.getString(1);
+				// the initial channel state after deployment
+				String initialState = channel.getString(2);
 				// add the channel to the name to id mapping
 				getChannelIdByName().put(channelName, channelId);
 				// add the channel to the id to name mapping
 				getChannelNameById().put(channelId, channelName);
-				// add the version of the channel
-				metaData.accumulate("Version", channel.get("revision"));
-				// not yet sure for what the item type is needed
-				metaData.accumulate("Type", CHANNEL);
 
-				// add the last modified date for sorting (structure changed w/ Mirth version 3.6.0)
-				Long lastModified = null;
+				// the last modified date for sorting (structure changed w/ Mirth version 3.6.0)
+				long lastModified = ComponentMeta.NO_DATE;
 				// and also the indicator if the channel is enabled
 				boolean channelDisabled = false;
 
 				// Now try to determine the last modified date of the channel
 				if (channelLastModified.containsKey(channelId)) {
 					// if the latest api version is supported, it can be taken from the cache
-					lastModified = channelLastModified.get(channelId);
+					Long cachedLastModified = channelLastModified.get(channelId);
+					lastModified = (cachedLastModified != null) ? cachedLastModified : ComponentMeta.NO_DATE;
 					// as well as the channel state
 					channelDisabled = !channeState.get(channelId);
-				} else if (channel.has("lastModified")) {
+				} else if (!channel.isNull(4)) {
 					// if channel uses the old format, the information is provided directly in the channel structure (to where it belongs from my
 					// point of view)
-					lastModified = channel.getJSONObject("lastModified").getLong("time");
-					channelDisabled = !channel.getBoolean("enabled");
-				} else {
+					lastModified = channel.getLong(4);
+					channelDisabled = !channel.getBoolean(5);
+				} else if (!channel.isNull(6)) {
 					// as a last resort try location of newer format (structure changed w/ Mirth version 3.6.0)
-					try {
-						// unfortunately, the query method does not work like advertised. Thus try/catch is needed
-						JSONObject infoLocation = (JSONObject) channel.query("/exportData/metadata");
-						// let's do it brute force as it is caught anyway
-						lastModified = infoLocation.getJSONObject("lastModified").getLong("time");
-						channelDisabled = !infoLocation.getBoolean("enabled");
-					} catch (Exception e) {
-						// root.error("Last Modified - Exception!");
-					}
-				}
-				// add the last modified date in ms
-				metaData.accumulate("Last modified", lastModified);
-				// add the last modified date for displaying
-				metaData.accumulate("Display date", (lastModified != null) ? formatDate(lastModified) : "-");
-
-				String description = String.valueOf(channel.get("description"));
-				// extract all documented channel changes and sort it from newest to oldest
-				TreeMap<Long, String> changes = new TreeMap<Long, String>(Collections.reverseOrder());
-				Matcher changesMatcher = changesPattern.matcher(description);
-				while (changesMatcher.find()) {
-					String changeDate, changeDescription;
-					Date parsedDate = null;
-					try {
-						parsedDate = changeParseDateFormat.parse(changesMatcher.group(1));
-						// format the data of the current change
-						changeDate = changeDisplayDateFormat.format(parsedDate);
-
-					} catch (java.text.ParseException e) {
-						// if the date string format is invalid, keep it in the initial format
-						changeDate = changesMatcher.group(1);
-						// there is no date for ordering. Thus use now
-						parsedDate = new Date(System.currentTimeMillis());
-						// but log an error
-						logger.error(
-								"The change date \"" + (changesMatcher.group(1) + "\" has an invalid format. It must be in the format yyyyDDmm!"));
-					}
-					// and also extract the change description
-					changeDescription = changesMatcher.group(2).trim();
-					changes.put(parsedDate.getTime(), "<tr><td><b>" + changeDate + "</b>\t</td><td>" + changeDescription + "</td></tr>");
-				}
-
-				// if changes were found
-				if (changes.size() > 0) {
-					// add changes as an attribute
-					metaData.accumulate("Changes",
-							"<table class='parameters'>" + changes.values().stream().collect(Collectors.joining("\n")) + "</table>");
-					// and remove the change entries from the description
-					description = changesMatcher.replaceAll("");
-					// and also a version heading
-					description = description.replaceFirst("(?i)[\\s\\#]*versions?\\s*\\:?[\\s\\#]*(?:\\r?:\\n|\\n)", "");
-				}
-
-				// now check for inbound and outbound interfaces to external systems
-				TreeMap<String, String> inboundInterfaces = new TreeMap<String, String>();
-				TreeMap<String, String> outboundInterfaces = new TreeMap<String, String>();
-
-				Matcher systemInterfaceMatcher = systemInterfacePattern.matcher(description);
-				while (systemInterfaceMatcher.find()) {
-					String direction, externalSystem, dataType, connector;
-					// INbound or OUTbound
-					direction = systemInterfaceMatcher.group(1);
-					// the connector id of the mirth channel
-					connector = systemInterfaceMatcher.group(2);
-					// the transferred data type
-					dataType = systemInterfaceMatcher.group(3).replaceFirst("\\_.+$", "");
-					// The name of the external system
-					externalSystem = systemInterfaceMatcher.group(4);
-
-					// add the entry to the respective map ordered by external system name
-					if (direction.equalsIgnoreCase("IN")) {
-						inboundInterfaces.put(externalSystem,
-								String.format("<li>%s from %s (connector %s)</li>", dataType, externalSystem, connector));
-					} else {
-						outboundInterfaces.put(externalSystem,
-								String.format("<li>%s to %s (connector %s)</li>", dataType, externalSystem, connector));
-					}
-				}
-
-				// if external system interfaces were found
-				if ((inboundInterfaces.size() > 0) || (outboundInterfaces.size() > 0)) {
-					// remove the interface description from the channel description
-					description = systemInterfaceMatcher.replaceAll("");
-
-					// if there were any inbound interfaces detected (data coming from an application interface to the mirth channel)
-					if (inboundInterfaces.size() > 0) {
-						// add an inbound property
-						metaData.accumulate("Inbound Interfaces",
-								"<ol>\n" + inboundInterfaces.values().stream().collect(Collectors.joining("\n")) + "</ol>\n");
-					}
-
-					// if there were any outbound interfaces detected (data going to an application interface from the mirth channel)
-					if (outboundInterfaces.size() > 0) {
-						// add an outbound property
-						metaData.accumulate("Outbound Interfaces",
-								"<ol>\n" + outboundInterfaces.values().stream().collect(Collectors.joining("\n")) + "</ol>\n");
-					}
+					lastModified = channel.optLong(6);
+					channelDisabled = !channel.optBoolean(7, true);
 				}
 
-				// add the description of the channel
-				metaData.accumulate("Description",
-						description.replaceFirst("^[\\p{Cntrl}\\s]*", "").replaceFirst("[\\p{Cntrl}\\s]*$", "").replaceAll("\\r\\n|\\r|\\n", "<br>"));
-
-				if (channelDisabled) {
-					// indicate if channel is disabled
-					metaData.accumulate("Is disabled", channelDisabled);
+				String description = channel.getString(8);
+				// the documented changes and interfaces are not part of the displayed description
+				String strippedDescription = removeChannelDocumentation(description);
+				if (!strippedDescription.equals(description)) {
+					// they are only rendered if the channel details are requested. Thus keep the original description until then
+					this.channelDocumentation.put(channelId, description);
+					description = strippedDescription;
 				}
+				// prepare the description of the channel for displaying
+				description = description.replaceFirst("^[\\p{Cntrl}\\s]*", "").replaceFirst("[\\p{Cntrl}\\s]*$", "").replaceAll("\\r\\n|\\r|\\n",
+						"<br>");
 
 				/** the following code accumulates the detected channel issues */
 
@@ -3206,15 +3479,6 @@ public class MirthMigrator {
 
 				// check for unknown functions
 				TreeSet<String> unknownFunctions = getUnknownChannelFunctions(channelId);
-				if (unknownFunctions != null) {
-					// first check if there is already an issue attribute for this channel
-					if (!metaData.has("Issues")) {
-						// if not, create it
-						metaData.put("Issues", new JSONObject());
-					}
-					// add the list of unknown functions
-					metaData.getJSONObject("Issues").put("unknownFunctions", unknownFunctions);
-				}
 
 				// get the validated list of (to be) referenced libraries
 				JSONObject libraryReferences = generateValidatedReferencedLibraryList(channelId,
@@ -3222,21 +3486,14 @@ public class MirthMigrator {
 
 				// check for missing code template library references
 				JSONArray missingReferences = libraryReferences.getJSONArray("issues");
-				// and if there are any
-				if (missingReferences.length() > 0) {
-					// first check if there is already an issue attribute for this channel
-					if (!metaData.has("Issues")) {
-						// if not, create it
-						metaData.put("Issues", new JSONObject());
-					}
-					// add the list of missing libraries
-					metaData.getJSONObject("Issues").put("missingReferences", missingReferences);
-				}
 
 				// write the meta data to cache
-				channelInfo.put(metaData.getString("Id"), metaData);
+				channelInfo.put(new ChannelMeta(channelId, channelName, channel.getInt(3), lastModified, description, initialState, channelDisabled,
+						(unknownFunctions != null) ? new ArrayList<String>(unknownFunctions) : null, missingReferences));
 			}
 			this.channelInfo = channelInfo;
+			// forget the content of channels that no longer exist
+			this.componentContents.retain(CHANNEL, channelInfo.ids());
 			// update the update indicator
 			this.lastUpdate = System.currentTimeMillis();
 		}
@@ -3314,7 +3571,11 @@ public class MirthMigrator {
 	 */
 	private HashMap<String, Long> getChannelLastModified(boolean forceReload) {
 		if (forceReload || (this.channelLastModified == null)) {
+			long start = System.nanoTime();
 			cacheChannelMetaData();
+			MirthMigratorMetrics.recordCacheMiss(getSystemName(), "channelMetadata", System.nanoTime() - start);
+		} else {
+			MirthMigratorMetrics.recordCacheHit(getSystemName(), "channelMetadata");
 		}
 
 		return this.channelLastModified;
@@ -3329,7 +3590,11 @@ public class MirthMigrator {
 	 */
 	private HashMap<String, Boolean> getChannelMetadata(boolean forceReload) {
 		if (forceReload || (this.channelState == null)) {
+			long start = System.nanoTime();
 			cacheChannelMetaData();
+			MirthMigratorMetrics.recordCacheMiss(getSystemName(), "channelMetadata", System.nanoTime() - start);
+		} else {
+			MirthMigratorMetrics.recordCacheHit(getSystemName(), "channelMetadata");
 		}
 
 		return this.channelState;
@@ -3355,24 +3620,22 @@ public class MirthMigrator {
 		}
 		try {
 			// make sure the work continues w/ an JSON array
-			JSONArray channel = (channelMetaData.get("entry") instanceof JSONArray) ? channelMetaData.getJSONArray("entry")
-					: (new JSONArray()).put(channelMetaData.get("entry"));
+			JSONArray channel = JSONPathQuery.asList(channelMetaData.opt("entry"));
 
 			// add all last modified time stamps and channel states to the caches
 			for (int index = 0; index < channel.length(); index++) {
-				// get the id of the current channel
-				String channelId = channel.getJSONObject(index).getString("string");
-				// access the actual metadata section of the channel
-				channelMetaData = channel.getJSONObject(index).getJSONObject("com.mirth.connect.model.ChannelMetadata");
+				// get the id as well as the actual metadata section of the current channel at once
+				JSONArray metaData = channelMetadataQuery.queryFrom(channel.get(index));
+				String channelId = metaData.getString(0);
 
 				// there are corrupt configurations where the attribute is actually missing - no idea why...
-				if (channelMetaData.has("lastModified")) {
+				if (!metaData.isNull(1)) {
 					// add the last modified date for the channel to the cache
-					this.channelLastModified.put(channelId, channelMetaData.getJSONObject("lastModified").getLong("time"));
+					this.channelLastModified.put(channelId, metaData.getLong(1));
 				}
 
 				// and add the channel state to the cache. Better check the attribute first to avoid potential issues like for lastModified
-				this.channelState.put(channelId, channelMetaData.has("enabled") ? channelMetaData.getBoolean("enabled") : true);
+				this.channelState.put(channelId, metaData.isNull(2) ? true : metaData.getBoolean(2));
 			}
 		} catch (Exception e) {
 			logger.error("Owh, getChannelLastModified() has to be revised! \n" + e.getMessage());
@@ -3631,6 +3894,7 @@ public class MirthMigrator {
 	 *         <li><b>description</b> - The description of the mirth instance</li>
 	 *         <li><b>server</b> - The server at which the mirth system is located</li>
 	 *         <li><b>port</b> - The port at which the system listens</li>
+	 *         <li><b>health</b> - The availability of the system as described in {@link SystemHealth#toJson()}</li>
 	 *         </ul>
 	 */
 	public static NativeObject getSystems() {
@@ -3656,6 +3920,8 @@ public class MirthMigrator {
 				entry.put("description", system.getDescription());
 				entry.put("server", system.getServer());
 				entry.put("port", system.getPort());
+				// the availability of the system
+				entry.put("health", SystemHealth.get(system.getServer(), system.getPort()).toJson());
 
 				// and add the system to the list
 				result.put(entry);
@@ -3672,6 +3938,178 @@ public class MirthMigrator {
 		return createReturnValue(200, result);
 	}
 
+	/**
+	 * Provides an overview of all Mirth systems. The systems are queried concurrently and only the results that are available within the
+	 * default deadline of {@link #DEFAULT_OVERVIEW_DEADLINE_IN_SECONDS} seconds are included (see {@link #getSystemsOverview(int)})
+	 * 
+	 * @return The overview as described in {@link #getSystemsOverview(int)}
+	 */
+	public static NativeObject getSystemsOverview() {
+		return getSystemsOverview(DEFAULT_OVERVIEW_DEADLINE_IN_SECONDS);
+	}
+
+	/**
+	 * Provides an overview of all Mirth systems. The systems are queried concurrently (see {@link SystemFanOut}) so that a slow or unreachable
+	 * system does not delay the others. Systems that do not answer within the deadline are reported as pending, their results will be available
+	 * for one of the next calls as soon as they arrive.
+	 * 
+	 * @param deadlineInSeconds
+	 *            The maximum time to wait for the systems
+	 * @return A JSON object with the following structure:
+	 *         <ul>
+	 *         <li><b>systems</b> - A JSON array of all systems ordered by their name:
+	 *         <ul>
+	 *         <li><b>name</b> - The name of the mirth instance</li>
+	 *         <li><b>environment</b> - The environment to which the mirth instance belongs</li>
+	 *         <li><b>color</b> - The color of the environment to which the mirth instance belongs</li>
+	 *         <li><b>status</b> - <b>ok</b> if the system delivered it's overview in time, <b>timeout</b> if it did not and <b>error</b> if it
+	 *         failed</li>
+	 *         <li><b>reachable</b> - true if the system answered, false if it failed (<i>not set for status timeout</i>)</li>
+	 *         <li><b>durationMillis</b> - the time needed by the system</li>
+	 *         <li><b>version</b> - the Mirth version of the system (<i>OPTIONAL</i>)</li>
+	 *         <li><b>channels</b> - the number of channels (<i>OPTIONAL</i>)</li>
+	 *         <li><b>enabledChannels</b> - the number of enabled channels (<i>OPTIONAL</i>)</li>
+	 *         <li><b>codeTemplates</b> - the number of code templates (<i>OPTIONAL</i>)</li>
+	 *         <li><b>channelsWithIssues</b> - the number of channels with issues like unknown functions (<i>OPTIONAL</i>)</li>
+	 *         <li><b>codeTemplatesWithIssues</b> - the number of code templates with issues like multiple definitions (<i>OPTIONAL</i>)</li>
+	 *         <li><b>message</b> - the reason if the system failed (<i>OPTIONAL</i>)</li>
+	 *         </ul>
+	 *         </li>
+	 *         <li><b>summary</b> - The aggregation over all systems: the number of <b>systems</b> as well as the number of <b>reachable</b>,
+	 *         <b>unreachable</b> and <b>pending</b> systems, the number of systems per Mirth version (<b>versions</b>) and the sums of the channel,
+	 *         code template and issue counters of all systems that answered in time</li>
+	 *         <li><b>complete</b> - true if all systems answered in time</li>
+	 *         </ul>
+	 */
+	public static NativeObject getSystemsOverview(int deadlineInSeconds) {
+		JSONObject result = new JSONObject();
+
+		try {
+			if (MirthMigrator.mirthClients == null) {
+				// assure that the configuration was loaded
+				loadConfiguration();
+			}
+
+			// query all systems at once (ordered by their names)
+			TreeMap<String, MirthMigrator> clients = new TreeMap<String, MirthMigrator>(MirthMigrator.mirthClients);
+			LinkedHashMap<String, JSONObject> outcomes = SystemFanOut.query(clients.values(), "systemSummary", client -> {
+				ClientUsage usage = ClientUsage.acquire(client);
+				try {
+					return client.getSystemSummary();
+				} finally {
+					usage.release();
+				}
+			}, deadlineInSeconds * 1000L);
+
+			JSONArray systems = new JSONArray();
+			JSONObject versions = new JSONObject();
+			int reachable = 0, unreachable = 0, pending = 0;
+			long[] totals = new long[SYSTEM_SUMMARY_COUNTERS.length];
+			for (MirthMigrator client : clients.values()) {
+				JSONObject outcome = outcomes.get(client.getSystemName());
+				JSONObject entry = new JSONObject();
+				entry.put("name", client.getSystemName());
+				entry.put("environment", client.getEnvironment());
+				entry.put("color", getEnvironment(client.getEnvironment()).get("color"));
+				entry.put("status", outcome.getString("status"));
+				entry.put("durationMillis", outcome.getLong("durationMillis"));
+
+				switch (outcome.getString("status")) {
+				case SystemFanOut.OK:
+					reachable++;
+					entry.put("reachable", true);
+					JSONObject summary = outcome.getJSONObject("result");
+					// count the systems per version
+					String version = summary.getString("version");
+					versions.put(version, versions.optInt(version) + 1);
+					entry.put("version", version);
+					// and add up the counters
+					for (int index = 0; index < SYSTEM_SUMMARY_COUNTERS.length; index++) {
+						long counter = summary.getLong(SYSTEM_SUMMARY_COUNTERS[index]);
+						entry.put(SYSTEM_SUMMARY_COUNTERS[index], counter);
+						totals[index] += counter;
+					}
+					break;
+				case SystemFanOut.ERROR:
+					unreachable++;
+					entry.put("reachable", false);
+					entry.put("message", outcome.getString("message"));
+					break;
+				default:
+					pending++;
+				}
+
+				systems.put(entry);
+			}
+
+			// aggregate the results of all systems
+			JSONObject summary = new JSONObject();
+			summary.put("systems", clients.size());
+			summary.put("reachable", reachable);
+			summary.put("unreachable", unreachable);
+			summary.put("pending", pending);
+			summary.put("versions", versions);
+			for (int index = 0; index < SYSTEM_SUMMARY_COUNTERS.length; index++) {
+				summary.put(SYSTEM_SUMMARY_COUNTERS[index], totals[index]);
+			}
+
+			result.put("systems", systems);
+			result.put("summary", summary);
+			result.put("complete", pending == 0);
+		} catch (IOException e) {
+			return createReturnValue(500, "Unable to load configuration: \n" + e.getMessage());
+		} catch (ConfigurationException e) {
+			return createReturnValue(500, "Corrupt configuration: \n" + e.getMessage());
+		} catch (ServiceUnavailableException e) {
+			return createReturnValue(503, "Service unavailable: \n" + e.getMessage());
+		}
+
+		return createReturnValue(200, result);
+	}
+
+	/**
+	 * Collects the key figures of this system for the systems overview (see {@link #getSystemsOverview(int)})
+	 * 
+	 * @return A JSON object containing the Mirth <b>version</b> as well as all counters of {@link #SYSTEM_SUMMARY_COUNTERS}
+	 * @throws ConfigurationException
+	 * @throws ServiceUnavailableException
+	 */
+	private JSONObject getSystemSummary() throws ConfigurationException, ServiceUnavailableException {
+		JSONObject summary = new JSONObject();
+		summary.put("version", getMirthVersion().getVersionString());
+
+		// the code templates are needed for resolving the function references of the channels (same order as for the meta data)
+		getCodeTemplateLibraryInfo();
+		ComponentIndex<CodeTemplateMeta> codeTemplates = getCodeTemplateInfo();
+		getChannelGroupInfo();
+		ComponentIndex<ChannelMeta> channels = getChannelInfo();
+		HashMap<String, Boolean> channelStates = getChannelMetadata(false);
+
+		int enabledChannels = 0, channelsWithIssues = 0, codeTemplatesWithIssues = 0;
+		for (ChannelMeta channel : channels) {
+			// channels are enabled by default
+			if (channelStates.getOrDefault(channel.getId(), true)) {
+				enabledChannels++;
+			}
+			if (channel.hasIssues()) {
+				channelsWithIssues++;
+			}
+		}
+		for (CodeTemplateMeta codeTemplate : codeTemplates) {
+			if (codeTemplate.hasIssues()) {
+				codeTemplatesWithIssues++;
+			}
+		}
+
+		summary.put("channels", channels.size());
+		summary.put("enabledChannels", enabledChannels);
+		summary.put("codeTemplates", codeTemplates.size());
+		summary.put("channelsWithIssues", channelsWithIssues);
+		summary.put("codeTemplatesWithIssues", codeTemplatesWithIssues);
+
+		return summary;
+	}
+
 	/**
 	 * Provides the Mirth Migrator configuration.
 	 * 
@@ -3792,6 +4230,7 @@ public class MirthMigrator {
 		// and also it's identifier
 		String componentId = (String) component.get("id", null);
 
+		ClientUsage usage = ClientUsage.acquire(this);
 		try {
 			// obtain the details and return them
 			return createReturnValue(200, getComponentDetails(componentType, componentId, false));
@@ -3802,6 +4241,8 @@ public class MirthMigrator {
 		} catch (ServiceUnavailableException e) {
 			// the target system is not available
 			return createReturnValue(503, e.getMessage());
+		} finally {
+			usage.release();
 		}
 	}
 
@@ -3909,15 +4350,15 @@ public class MirthMigrator {
 	private JSONObject getChannelDetails(String channelId, boolean nameOnly) throws ConfigurationException, ServiceUnavailableException {
 		JSONObject result = new JSONObject();
 		// get the cached information about the channel
-		JSONObject channel = getChannelInfoById(channelId);
+		ChannelMeta channel = getChannelInfoById(channelId);
 		if (channel == null) {
 			// channel does not exist on this server
 			return null;
 		}
 
 		// and assemble a new json object that just contains the information needed by the client
-		result.accumulate("Name", "<b>" + channel.getString("Display name") + "</b>"
-				+ (channel.has("Is disabled") ? " (<font color=\"red\"><b>Disabled</b></font>)" : ""));
+		result.accumulate("Name",
+				"<b>" + channel.getName() + "</b>" + (channel.isDisabled() ? " (<font color=\"red\"><b>Disabled</b></font>)" : ""));
 
 		if (nameOnly) {
 			// if just a mapping between component id and component name was
@@ -3927,48 +4368,180 @@ public class MirthMigrator {
 		// indicate the type
 		result.accumulate("Type", "Channel");
 		// as description is optional, only add the attribute if there actually is a description
-		if (channel.has("Description")) {
+		if (channel.getDescription() != null) {
 			// the description of the library
-			result.accumulate("Description", channel.getString("Description"));
+			result.accumulate("Description", channel.getDescription());
 		}
 		
-		if (channel.has("Initial state")) {
+		if (channel.getInitialState() != null) {
 			// the description of the library
-			result.accumulate("Initial state", channel.getString("Initial state"));
+			result.accumulate("Initial state", channel.getInitialState());
 		}
 
+		// the details that are not part of the channel metadata are rendered on first access
+		JSONObject enrichment = getChannelEnrichment(channelId);
+
 		// the documentation of changes that have been applied to the channel
-		if (channel.has("Changes")) {
-			result.accumulate("Changes", channel.getString("Changes"));
+		if (enrichment.has("Changes")) {
+			result.accumulate("Changes", enrichment.getString("Changes"));
 		}
 
 		// the outbound interfaces to external systems
-		if (channel.has("Outbound Interfaces")) {
-			result.accumulate("Outbound Interfaces", channel.getString("Outbound Interfaces"));
+		if (enrichment.has("Outbound Interfaces")) {
+			result.accumulate("Outbound Interfaces", enrichment.getString("Outbound Interfaces"));
 		}
 
 		// the inbound interfaces from external systems
-		if (channel.has("Inbound Interfaces")) {
-			result.accumulate("Inbound Interfaces", channel.getString("Inbound Interfaces"));
+		if (enrichment.has("Inbound Interfaces")) {
+			result.accumulate("Inbound Interfaces", enrichment.getString("Inbound Interfaces"));
 		}
 		// the version of the channel (revision)
-		result.accumulate("Version", channel.getInt("Version"));
+		result.accumulate("Version", channel.getVersion());
 		// the date of the last modification
-		if (channel.has("Last modified")) {
-			result.accumulate("Last modified", channel.getLong("Last modified"));
+		if (channel.hasLastModified()) {
+			result.accumulate("Last modified", channel.getLastModified());
 		}
 		// the human readable date of the last modification
-		if (channel.has("Display date")) {
-			result.accumulate("Display date", channel.getString("Display date"));
-		}
+		result.accumulate("Display date", channel.getDisplayDate());
 		// the id of the channel
 		result.accumulate("Id", channelId);
 
+		// the validated list of used functions
+		if (enrichment.has("Uses functions")) {
+			result.put("Uses functions", enrichment.get("Uses functions"));
+		}
+
+		// the validated list of (to be) referenced libraries
+		if (enrichment.has("Referenced Libraries")) {
+			result.put("Referenced Libraries", enrichment.get("Referenced Libraries"));
+		}
+
+		// now load the channel code
+		String code = getChannel(channelId);
+		// decode xml
+		code = code.replaceAll("&amp;", "&").replaceAll("&quot;", "\"").replaceAll("&apos;", "'").replaceAll("&gt;", ">").replaceAll("&lt;", "<")
+				.replaceAll("&#xd;", "\n");
+		// remove the embracing list tag from the channel definition
+		code = code.replaceAll("^\\s*<list>", "").replaceAll("</list>\\s*$", "");
+		// and add it to the structure
+		result.accumulate("content", code);
+
+		return result;
+	}
+
+	/**
+	 * Provides the details of a channel that are only needed if the channel is displayed on it's own. They are rendered on first access and kept
+	 * until the channel configuration is reloaded.
+	 * 
+	 * @param channelId
+	 *            The id of the channel
+	 * @return A JSON object containing the following attributes:
+	 *         <ul>
+	 *         <li><b>Changes</b> - A table of the changes that have been documented in the channel description (newest first) (<i>OPTIONAL</i>)</li>
+	 *         <li><b>Inbound Interfaces</b> - A list of the documented inbound interfaces from external systems (<i>OPTIONAL</i>)</li>
+	 *         <li><b>Outbound Interfaces</b> - A list of the documented outbound interfaces to external systems (<i>OPTIONAL</i>)</li>
+	 *         <li><b>Uses functions</b> - The validated list of functions used by the channel (<i>OPTIONAL</i>)</li>
+	 *         <li><b>Referenced Libraries</b> - The validated list of (to be) referenced code template libraries (<i>OPTIONAL</i>)</li>
+	 *         </ul>
+	 * @throws ConfigurationException
+	 * @throws ServiceUnavailableException
+	 */
+	private synchronized JSONObject getChannelEnrichment(String channelId) throws ConfigurationException, ServiceUnavailableException {
+		// make sure the channel caches are populated
+		getChannelInfo();
+
+		// serve the enrichment if it was already rendered
+		JSONObject enrichment = this.channelEnrichments.get(channelId);
+		if (enrichment != null) {
+			MirthMigratorMetrics.recordCacheHit(getSystemName(), "channelEnrichments");
+			return enrichment;
+		}
+
+		long start = System.nanoTime();
+		enrichment = new JSONObject();
+
+		// the documented changes and interfaces are extracted from the original channel description
+		String description = this.channelDocumentation.get(channelId);
+		if (description != null) {
+			// extract all documented channel changes and sort it from newest to oldest
+			TreeMap<Long, String> changes = new TreeMap<Long, String>(Collections.reverseOrder());
+			Matcher changesMatcher = changesPattern.matcher(description);
+			while (changesMatcher.find()) {
+				String changeDate, changeDescription;
+				Date parsedDate = null;
+				try {
+					// the date formats are shared by all clients
+					synchronized (changeParseDateFormat) {
+						parsedDate = changeParseDateFormat.parse(changesMatcher.group(1));
+						// format the data of the current change
+						changeDate = changeDisplayDateFormat.format(parsedDate);
+					}
+				} catch (java.text.ParseException e) {
+					// if the date string format is invalid, keep it in the initial format
+					changeDate = changesMatcher.group(1);
+					// there is no date for ordering. Thus use now
+					parsedDate = new Date(System.currentTimeMillis());
+					// but log an error
+					logger.error("The change date \"" + (changesMatcher.group(1) + "\" has an invalid format. It must be in the format yyyyDDmm!"));
+				}
+				// and also extract the change description
+				changeDescription = changesMatcher.group(2).trim();
+				changes.put(parsedDate.getTime(), "<tr><td><b>" + changeDate + "</b>\t</td><td>" + changeDescription + "</td></tr>");
+			}
+
+			// if changes were found
+			if (changes.size() > 0) {
+				// add changes as an attribute
+				enrichment.accumulate("Changes", "<table class='parameters'>" + changes.values().stream().collect(Collectors.joining("\n")) + "</table>");
+				// and remove the change entries from the description
+				description = changesMatcher.replaceAll("");
+				// and also a version heading
+				description = description.replaceFirst("(?i)[\\s\\#]*versions?\\s*\\:?[\\s\\#]*(?:\\r?:\\n|\\n)", "");
+			}
+
+			// now check for inbound and outbound interfaces to external systems
+			TreeMap<String, String> inboundInterfaces = new TreeMap<String, String>();
+			TreeMap<String, String> outboundInterfaces = new TreeMap<String, String>();
+
+			Matcher systemInterfaceMatcher = systemInterfacePattern.matcher(description);
+			while (systemInterfaceMatcher.find()) {
+				String direction, externalSystem, dataType, connector;
+				// INbound or OUTbound
+				direction = systemInterfaceMatcher.group(1);
+				// the connector id of the mirth channel
+				connector = systemInterfaceMatcher.group(2);
+				// the transferred data type
+				dataType = systemInterfaceMatcher.group(3).replaceFirst("\\_.+$", "");
+				// The name of the external system
+				externalSystem = systemInterfaceMatcher.group(4);
+
+				// add the entry to the respective map ordered by external system name
+				if (direction.equalsIgnoreCase("IN")) {
+					inboundInterfaces.put(externalSystem, String.format("<li>%s from %s (connector %s)</li>", dataType, externalSystem, connector));
+				} else {
+					outboundInterfaces.put(externalSystem, String.format("<li>%s to %s (connector %s)</li>", dataType, externalSystem, connector));
+				}
+			}
+
+			// if there were any inbound interfaces detected (data coming from an application interface to the mirth channel)
+			if (inboundInterfaces.size() > 0) {
+				// add an inbound property
+				enrichment.accumulate("Inbound Interfaces", "<ol>\n" + inboundInterfaces.values().stream().collect(Collectors.joining("\n")) + "</ol>\n");
+			}
+
+			// if there were any outbound interfaces detected (data going to an application interface from the mirth channel)
+			if (outboundInterfaces.size() > 0) {
+				// add an outbound property
+				enrichment.accumulate("Outbound Interfaces",
+						"<ol>\n" + outboundInterfaces.values().stream().collect(Collectors.joining("\n")) + "</ol>\n");
+			}
+		}
+
 		// get a validated list of used functions
 		TreeMap<String, String> validatedFunctions = validateFunctionReferences(channelId);
 		if (validatedFunctions != null) {
-			// get a list of functions used by the channel and add it to the metadata
-			result.put("Uses functions", validatedFunctions.values());
+			// get a list of functions used by the channel
+			enrichment.put("Uses functions", validatedFunctions.values());
 		}
 
 		// get the validated list of (to be) referenced libraries
@@ -3978,20 +4551,42 @@ public class MirthMigrator {
 		// and if there are any
 		if (libraries.length() > 0) {
 			// add the list of referenced channel libraries
-			result.put("Referenced Libraries", libraries);
+			enrichment.put("Referenced Libraries", libraries);
 		}
 
-		// now load the channel code
-		String code = getResponseAsXml(connectToRestService("/api/channels?channelId=" + channelId));
-		// decode xml
-		code = code.replaceAll("&amp;", "&").replaceAll("&quot;", "\"").replaceAll("&apos;", "'").replaceAll("&gt;", ">").replaceAll("&lt;", "<")
-				.replaceAll("&#xd;", "\n");
-		// remove the embracing list tag from the channel definition
-		code = code.replaceAll("^\\s*<list>", "").replaceAll("</list>\\s*$", "");
-		// and add it to the structure
-		result.accumulate("content", code);
+		// memorize the enrichment
+		this.channelEnrichments.put(channelId, enrichment);
+		MirthMigratorMetrics.recordCacheMiss(getSystemName(), "channelEnrichments", System.nanoTime() - start);
 
-		return result;
+		return enrichment;
+	}
+
+	/**
+	 * Removes the documented changes (<b>yyyyMMdd: description</b>) and interfaces (<b>IN|OUT:connector:data type:system</b>) from a channel
+	 * description
+	 * 
+	 * @param description
+	 *            The channel description
+	 * @return The description without the documentation entries or the unaltered description if there are none
+	 */
+	private static String removeChannelDocumentation(String description) {
+		Matcher changesMatcher = changesPattern.matcher(description);
+		// if changes were found
+		if (changesMatcher.find()) {
+			// remove the change entries from the description
+			description = changesMatcher.replaceAll("");
+			// and also a version heading
+			description = description.replaceFirst("(?i)[\\s\\#]*versions?\\s*\\:?[\\s\\#]*(?:\\r?:\\n|\\n)", "");
+		}
+
+		Matcher systemInterfaceMatcher = systemInterfacePattern.matcher(description);
+		// if external system interfaces were found
+		if (systemInterfaceMatcher.find()) {
+			// remove the interface description from the channel description
+			description = systemInterfaceMatcher.replaceAll("");
+		}
+
+		return description;
 	}
 
 	/**
@@ -4023,7 +4618,7 @@ public class MirthMigrator {
 	 * @throws ServiceUnavailableException
 	 * 
 	 */
-	private JSONObject getChannelInfoById(String id) throws ConfigurationException, ServiceUnavailableException {
+	private ChannelMeta getChannelInfoById(String id) throws ConfigurationException, ServiceUnavailableException {
 		return getChannelInfo().get(id);
 	}
 
@@ -4148,7 +4743,7 @@ public class MirthMigrator {
 				// fetch the id of the library to which the function belongs
 				functionLibId = codeTemplateToLibary.get(functionId);
 				// get the name of the corresponding code template library
-				codeTemplateLibraryName = getCodeTemplateLibraryInfoById(functionLibId).getString("Display name");
+				codeTemplateLibraryName = getCodeTemplateLibraryInfoById(functionLibId).getName();
 				// determine in which color the reference should be displayed. Green if the reference is valid and red if the code template
 				// library to which the referenced function belongs was identified. However this library is not referenced by the channel
 				diplayColor = referencedLibraries.contains(functionLibId) ? "green" : "red";
@@ -4286,7 +4881,7 @@ public class MirthMigrator {
 			}
 
 			// and finally the library name
-			libraryName = getCodeTemplateLibraryInfoById(libraryId).getString("Display name");
+			libraryName = getCodeTemplateLibraryInfoById(libraryId).getName();
 
 			// depending on if the library is already referenced, display its name in green or in red, if not
 			displayName = String.format("<font color='%s'><b>%s</b></font>", referencedLibraries.contains(libraryId) ? "green" : "red", libraryName);
@@ -4300,7 +4895,7 @@ public class MirthMigrator {
 
 		// finally add the libraries that are referenced but not (detected as) needed
 		for (String referencedLibraryId : referencedLibraries) {
-			String referencedLibraryName = getCodeTemplateLibraryInfoById(referencedLibraryId).getString("Display name");
+			String referencedLibraryName = getCodeTemplateLibraryInfoById(referencedLibraryId).getName();
 			// if library is not in the list
 			if (!libraries.containsKey(referencedLibraryName)) {
 				// it is not needed for the channel - indicate this to the user
@@ -4346,7 +4941,7 @@ public class MirthMigrator {
 		JSONObject result = new JSONObject();
 
 		// get the cached information about the channel group
-		JSONObject group = getChannelGroupInfoById(libraryId);
+		GroupMeta group = getChannelGroupInfoById(libraryId);
 
 		if (group == null) {
 			// channel group does not exist on this server
@@ -4354,7 +4949,7 @@ public class MirthMigrator {
 		}
 
 		// and assemble a new json object that just contains the information needed by the client
-		result.accumulate("Name", group.getString("Display name"));
+		result.accumulate("Name", group.getName());
 
 		if (nameOnly) {
 			// if just a mapping between component id and component name was
@@ -4364,23 +4959,23 @@ public class MirthMigrator {
 		// indicate the type
 		result.accumulate("Type", "Channel Group");
 		// as description is optional, only add the attribute if there actually is a description
-		value = String.valueOf(group.get("Description"));
+		value = String.valueOf(group.getDescription());
 
 		// the description of the channel group
 		result.accumulate("Description", !value.isEmpty() ? value : "-");
 
 		// the version of the channel group (revision)
-		result.accumulate("Version", group.getInt("Version"));
+		result.accumulate("Version", group.getVersion());
 		// check if it is a real group or the artificial group of unassigned channels
-		boolean isReal = !group.getBoolean("artificial");
+		boolean isReal = !group.isArtificial();
 		// the date of the last modification
-		result.accumulate("Last modified", isReal ? group.getLong("Last modified") : 0);
+		result.accumulate("Last modified", isReal ? group.getLastModified() : 0);
 		// the human readable date of the last modification
-		result.accumulate("Display date", isReal ? group.getString("Display date") : "");
+		result.accumulate("Display date", isReal ? group.getDisplayDate() : "");
 		// the id of the channel group
-		result.accumulate("Id", group.getString("Id"));
+		result.accumulate("Id", group.getId());
 		// add info about number of channels that belong to this channel group
-		result.accumulate("Number of channels", group.get("Number of members"));
+		result.accumulate("Number of channels", group.getNumberOfMembers());
 
 		return result;
 	}
@@ -4420,7 +5015,7 @@ public class MirthMigrator {
 
 		JSONObject result = new JSONObject();
 		// get the cached information about the code template
-		JSONObject codeTemplate = getCodeTemplateInfoById(codeTemplateId);
+		CodeTemplateMeta codeTemplate = getCodeTemplateInfoById(codeTemplateId);
 
 		if (codeTemplate == null) {
 			// code template does not exist on this server
@@ -4429,12 +5024,12 @@ public class MirthMigrator {
 
 		// and assemble a new json object that just contains the information needed by the client
 		String functionName = null;
-		if (codeTemplate.getBoolean("Is function")) {
-			functionName = codeTemplate.getString("Function name");
+		if (codeTemplate.isFunction()) {
+			functionName = codeTemplate.getFunctionName();
 			result.accumulate("Function Name", functionName);
 		}
 		// and assemble a new json object that just contains the information needed by the client
-		String codeTemplateName = codeTemplate.getString("Display name");
+		String codeTemplateName = codeTemplate.getName();
 		result.accumulate("Name", codeTemplateName);
 		result.accumulate("Template name", codeTemplateName);
 		if (nameOnly) {
@@ -4446,26 +5041,28 @@ public class MirthMigrator {
 		result.accumulate("Type", "Code Template");
 		// as description is optional, only add the attribute if there actually is a description
 
-		if (codeTemplate.has("Description")) {
+		if (codeTemplate.getDescription() != null) {
 			// the description of the library
-			result.accumulate("Description", codeTemplate.getString("Description"));
+			result.accumulate("Description", codeTemplate.getDescription());
 		}
-		if (codeTemplate.has("Parameters")) {
+		if (codeTemplate.getParameters() != null) {
 			// the description of the library
-			result.accumulate("Parameters", codeTemplate.getString("Parameters"));
+			result.accumulate("Parameters", codeTemplate.getParameters());
 		}
-		if (codeTemplate.has("Return value")) {
+		if (codeTemplate.getReturnValue() != null) {
 			// the description of the library
-			result.accumulate("Return value", codeTemplate.getString("Return value"));
+			result.accumulate("Return value", codeTemplate.getReturnValue());
 		}
 		// the version of the code template (revision)
-		result.accumulate("Version", codeTemplate.getInt("Version"));
-		// the date of the last modification
-		result.accumulate("Last modified", codeTemplate.getLong("Last modified"));
+		result.accumulate("Version", codeTemplate.getVersion());
+		// the date of the last modification (if known)
+		if (codeTemplate.hasLastModified()) {
+			result.accumulate("Last modified", codeTemplate.getLastModified());
+		}
 		// the human readable date of the last modification
-		result.accumulate("Display date", codeTemplate.getString("Display date"));
+		result.accumulate("Display date", codeTemplate.getDisplayDate());
 		// the id of the code template
-		result.accumulate("Id", codeTemplate.getString("Id"));
+		result.accumulate("Id", codeTemplate.getId());
 		// if function references for channels have not yet been fetched
 		if (this.channelReferencesToFunction == null) {
 			// load channel information as this also parses channels for function references
@@ -4498,7 +5095,7 @@ public class MirthMigrator {
 			// for requesting data from server, the artificial id has to be normalized, first
 			codeTemplateId = codeTemplateId.substring(0, codeTemplateId.indexOf('_'));
 		}
-		String code = getResponseAsXml(connectToRestService("/api/codeTemplates?codeTemplateId=" + codeTemplateId));
+		String code = getCodeTemplate(codeTemplateId);
 		// strip code from meta data
 		code = code.substring(code.indexOf("<code>") + 6, code.indexOf("</code>"));
 		// and add it to the structure
@@ -4545,14 +5142,14 @@ public class MirthMigrator {
 		libraryId = getCodeTemplateLibraryIdByCodeTemplateId().get(functionId);
 
 		// also get the name of the channel group
-		libraryName = getCodeTemplateLibraryInfoById(libraryId).getString("Display name");
+		libraryName = getCodeTemplateLibraryInfoById(libraryId).getName();
 
 		// now check for all channels that use the function if they are referencing this library
 		for (String channelId : referencingChannelIds) {
 			// get the channel
-			JSONObject channel = getChannelInfoById(channelId);
+			ChannelMeta channel = getChannelInfoById(channelId);
 			if (channel != null) {
-				channelName = channel.getString("Display name");
+				channelName = channel.getName();
 			} else {
 				logger.error("Unable to find channel with id \"" + channelId + "\" which references fuction \"" + functionName + "\" [library "
 						+ libraryName + "]");
@@ -4583,7 +5180,7 @@ public class MirthMigrator {
 	 * @return The code template meta data
 	 * @throws ServiceUnavailableException
 	 */
-	private JSONObject getCodeTemplateInfoById(String codeTemplateId) throws ServiceUnavailableException {
+	private CodeTemplateMeta getCodeTemplateInfoById(String codeTemplateId) throws ServiceUnavailableException {
 		return getCodeTemplateInfo().get(codeTemplateId);
 	}
 
@@ -4622,7 +5219,7 @@ public class MirthMigrator {
 		String value;
 		JSONObject result = new JSONObject();
 		// get the cached information about the code template library
-		JSONObject library = getCodeTemplateLibraryInfoById(libraryId);
+		LibraryMeta library = getCodeTemplateLibraryInfoById(libraryId);
 
 		if (library == null) {
 			// code template library does not exist on this server
@@ -4630,7 +5227,7 @@ public class MirthMigrator {
 		}
 
 		// and assemble a new json object that just contains the information needed by the client
-		result.accumulate("Name", library.getString("Display name"));
+		result.accumulate("Name", library.getName());
 
 		if (nameOnly) {
 			// if just a mapping between component id and component name was
@@ -4640,26 +5237,26 @@ public class MirthMigrator {
 		// indicate the type
 		result.accumulate("Type", "Code Template Library");
 		// as description is optional, only add the attribute if there actually is a description
-		value = library.getString("Description");
+		value = library.getDescription();
 		if (!value.isEmpty()) {
 			// the description of the library
-			result.accumulate("Description", library.getString("Description"));
+			result.accumulate("Description", value);
 		}
 		// the version of the library (revision)
-		result.accumulate("Version", library.getInt("Version"));
+		result.accumulate("Version", library.getVersion());
 		// the date of the last modification
-		result.accumulate("Last modified", library.getLong("Last modified"));
+		result.accumulate("Last modified", library.getLastModified());
 		// the human readable date of the last modification
-		result.accumulate("Display date", library.getString("Display date"));
+		result.accumulate("Display date", library.getDisplayDate());
 		// the id of the library
-		result.accumulate("Id", library.getString("Id"));
+		result.accumulate("Id", library.getId());
 
-		if (library.has("Used by")) {
+		if (library.getUsedBy() != null) {
 			TreeSet<String> referencingChannels = new TreeSet<>();
 			int invalidReferences = 0;
 			// get an ordered list
-			for (Object channelId : library.getJSONArray("Used by")) {
-				String channelName = getChannelNameById((String) channelId);
+			for (String channelId : library.getUsedBy()) {
+				String channelName = getChannelNameById(channelId);
 				if (channelName != null) {
 					// of all valid channel references
 					referencingChannels.add(channelName);
@@ -4708,6 +5305,7 @@ public class MirthMigrator {
 		String membersTag = (groupType.equals(CHANNEL_GROUP)) ? CHANNEL : CODE_TEMPLATE;
 		String membersContainer = (groupType.equals(CHANNEL_GROUP)) ? "channels" : "codeTemplates";
 
+		ClientUsage usage = ClientUsage.acquire(this);
 		try {
 			// add all children of the provided channel groups or code template libraries
 			for (int index = 0; index < groupIds.getLength(); index++) {
@@ -4756,6 +5354,8 @@ public class MirthMigrator {
 		} catch (ServiceUnavailableException e) {
 			// the target system is not available
 			return createReturnValue(503, e.getMessage());
+		} finally {
+			usage.release();
 		}
 	}
 
@@ -4776,6 +5376,8 @@ public class MirthMigrator {
 	 *            <li>codeTemplateLibrary</li>
 	 *            </ul>
 	 *            </li>
+	 *            <li><b>contextLines</b> - If set, only the changed hunks with the given number of context lines are returned instead of the
+	 *            complete source code of both versions (<i>OPTIONAL</i>)</li>
 	 *            </ul>
 	 * @return A JSON object containing the following information:
 	 *         <ul>
@@ -4785,6 +5387,8 @@ public class MirthMigrator {
 	 *         <ul>
 	 *         <li><b>sourceComponent</b> - The source code of the component at the source system</li>
 	 *         <li><b>destinationComponent</b> - The source code of the component at the target system</li>
+	 *         <li><b>diff</b> - The changed hunks as described in {@link ComponentDiff#diff(String, String, int)} <i>(replaces
+	 *         <b>sourceComponent</b> and <b>destinationComponent</b> if <b>contextLines</b> was set)</i></li>
 	 *         <li><b>componentType</b> - The type of the component</li>
 	 *         <li><b>metaData</b> -
 	 *         <ul>
@@ -4839,6 +5443,7 @@ public class MirthMigrator {
 			return createReturnValue(500, message);
 		}
 
+		ClientUsage usage = ClientUsage.acquire(this);
 		try {
 			// get the client of the target system
 			MirthMigrator targetSystem = null;
@@ -4848,6 +5453,7 @@ public class MirthMigrator {
 				return createReturnValue(500,
 						"Unable to create a client for the target Mirth instance \"" + destinationSystem + "\": \n" + e.getMessage());
 			}
+			usage.add(targetSystem);
 
 			// if another component to compare was selected via the context menu
 			if (component.containsKey("targetId")) {
@@ -4880,12 +5486,22 @@ public class MirthMigrator {
 						+ " definitions in the Mirth instance \"" + destinationSystem + "\" itself: \n" + e.getMessage());
 			}
 
-			// first add the source code of the component of the source system
-			result.put("sourceContent", sourceComponent.getString("content").replaceAll("&apos;", "'").replaceAll("&quot;", "\"")
-					.replaceAll("&lt;", "<").replaceAll("&gt;", ">").replaceAll("&amp;", "&"));
+			// get the source code of the component of the source system
+			String sourceContent = sourceComponent.getString("content").replaceAll("&apos;", "'").replaceAll("&quot;", "\"")
+					.replaceAll("&lt;", "<").replaceAll("&gt;", ">").replaceAll("&amp;", "&");
 			// and also the source code of the component of the target system
-			result.put("destinationContent", targetComponent.getString("content").replaceAll("&apos;", "'").replaceAll("&quot;", "\"")
-					.replaceAll("&lt;", "<").replaceAll("&gt;", ">").replaceAll("&amp;", "&"));
+			String destinationContent = targetComponent.getString("content").replaceAll("&apos;", "'").replaceAll("&quot;", "\"")
+					.replaceAll("&lt;", "<").replaceAll("&gt;", ">").replaceAll("&amp;", "&");
+			if (component.containsKey("contextLines")) {
+				// only the changed hunks are requested (the UI might also send the number as string)
+				int contextLines = (int) Context.toNumber(component.get("contextLines", null));
+				result.put("diff", getComponentDiff(destinationSystem, componentType, componentId, sourceComponent.getInt("Version"), sourceContent,
+						targetComponentId, targetComponent.getInt("Version"), destinationContent, contextLines));
+			} else {
+				// the client compares the complete versions
+				result.put("sourceContent", sourceContent);
+				result.put("destinationContent", destinationContent);
+			}
 			// set the type of the component to avoid confusion
 			result.put("type", componentType);
 			// besides that also some metadata should be compared
@@ -4921,16 +5537,160 @@ public class MirthMigrator {
 		} catch (ServiceUnavailableException e) {
 			// the target system is not available
 			return createReturnValue(503, e.getMessage());
+		} finally {
+			usage.release();
 		}
 	}
 
 	/**
-	 * Provides the IDs of all channels that are not assigned to a group
+	 * Compares all channels, code templates, channel groups and code template libraries of this system with those of another system in a single
+	 * operation. Components are matched by type and name and compared by their canonical fingerprints (see {@link ComponentFingerprints}).
 	 * 
-	 * @return All IDs of channels that do not belong to a channel group.
-	 * @throws ServiceUnavailableException
-	 * @throws JSONException
-	 */
+	 * @param destinationSystem
+	 *            The name of the Mirth instance with which this system should be compared
+	 * @param reloadCaches
+	 *            If true, the fingerprints of both systems are recalculated before the comparison
+	 * @return A JSON object with the following lists. Each entry contains the <b>type</b> and <b>name</b> of the component as well as the
+	 *         <b>sourceId</b> and/or <b>targetId</b>:
+	 *         <ul>
+	 *         <li><b>identical</b> - components that exist on both systems with the same content</li>
+	 *         <li><b>modified</b> - components that exist on both systems but differ in content</li>
+	 *         <li><b>sourceOnly</b> - components that only exist on this system</li>
+	 *         <li><b>targetOnly</b> - components that only exist on the destination system</li>
+	 *         </ul>
+	 *         If the request was not successful, the payload consists of an error message
+	 */
+	public NativeObject compareSystems(String destinationSystem, boolean reloadCaches) {
+
+		// check if there is a client under the provided system name
+		if (!hasClient(destinationSystem)) {
+			String message = "Mirth system with name\"" + destinationSystem + "\" is unknown. Please adapt MirthMigrator configuration.";
+
+			logger.error(message);
+			return createReturnValue(503, message);
+		}
+
+		ClientUsage usage = ClientUsage.acquire(this);
+		try {
+			// get the client of the target system
+			MirthMigrator targetSystem = getClient(destinationSystem);
+			usage.add(targetSystem);
+
+			if (reloadCaches) {
+				// drop the fingerprints of both systems to assure the latest versions of the components are used
+				this.componentFingerprints = null;
+				targetSystem.componentFingerprints = null;
+			}
+
+			// classify the components of both systems
+			ComponentFingerprints sourceFingerprints = getComponentFingerprints();
+			ComponentFingerprints targetFingerprints = targetSystem.getComponentFingerprints();
+			long start = System.nanoTime();
+			JSONObject differences = ComponentFingerprints.compare(sourceFingerprints, targetFingerprints);
+			MirthMigratorMetrics.recordPhase("fingerprintComparison", System.nanoTime() - start);
+
+			return createReturnValue(200, differences);
+
+		} catch (IOException e) {
+			return createReturnValue(500, e.getMessage());
+		} catch (ConfigurationException e) {
+			// an invalid configuration was detected
+			return createReturnValue(500, "Corrupt configuration (either in \"" + configurationFileLocation
+					+ "\" or in the component definitions of the Mirth instances \"" + getServer() + "\" and \"" + destinationSystem + "\": \n"
+					+ e.getMessage());
+		} catch (ServiceUnavailableException e) {
+			// the target system is not available
+			return createReturnValue(503, e.getMessage());
+		} finally {
+			usage.release();
+		}
+	}
+
+	/**
+	 * Provides the fingerprints of all channels, code templates, channel groups and code template libraries of this system. They are calculated
+	 * once from the bulk lists of the Mirth REST API and kept until the caches are refreshed.
+	 * 
+	 * @return The component fingerprints
+	 * @throws ConfigurationException
+	 * @throws ServiceUnavailableException
+	 */
+	private ComponentFingerprints getComponentFingerprints() throws ConfigurationException, ServiceUnavailableException {
+		if (this.componentFingerprints == null) {
+			long start = System.nanoTime();
+			ComponentFingerprints fingerprints = new ComponentFingerprints();
+			// fetch all components type by type - only the fingerprints are kept
+			fingerprints.add(CHANNEL, getResponseAsXml(connectToRestService("/api/channels")));
+			fingerprints.add(CODE_TEMPLATE, getResponseAsXml(connectToRestService("/api/codeTemplates")));
+			fingerprints.add(CHANNEL_GROUP, getChannelGroups());
+			fingerprints.add(CODE_TEMPLATE_LIBRARY, getCodeTemplateLibraries());
+
+			if (logger.isDebugEnabled()) {
+				logger.debug("Created " + fingerprints.size() + " component fingerprints for " + getSystemName());
+			}
+			this.componentFingerprints = fingerprints;
+			MirthMigratorMetrics.recordCacheMiss(getSystemName(), "componentFingerprints", System.nanoTime() - start);
+		} else {
+			MirthMigratorMetrics.recordCacheHit(getSystemName(), "componentFingerprints");
+		}
+
+		return this.componentFingerprints;
+	}
+
+	/**
+	 * Provides the difference between the versions of a component on this and another system. As a component version is identified by it's
+	 * revision, the result is cached per pair of revisions.
+	 * 
+	 * @param destinationSystem
+	 *            The name of the Mirth instance that holds the other version
+	 * @param componentType
+	 *            Either {@link #CHANNEL} or {@link #CODE_TEMPLATE}
+	 * @param sourceId
+	 *            The id of the component on this system
+	 * @param sourceRevision
+	 *            The revision of the component on this system
+	 * @param sourceContent
+	 *            The content of the component on this system
+	 * @param targetId
+	 *            The id of the component on the other system
+	 * @param targetRevision
+	 *            The revision of the component on the other system
+	 * @param targetContent
+	 *            The content of the component on the other system
+	 * @param contextLines
+	 *            The number of unchanged lines that are reported before and after every change
+	 * @return The changed hunks as described in {@link ComponentDiff#diff(String, String, int)}
+	 */
+	private JSONObject getComponentDiff(String destinationSystem, String componentType, String sourceId, int sourceRevision, String sourceContent,
+			String targetId, int targetRevision, String targetContent, int contextLines) {
+		String key = destinationSystem + ":" + componentType + ":" + sourceId + ":" + sourceRevision + ":" + targetId + ":" + targetRevision + ":"
+				+ contextLines;
+
+		synchronized (componentDiffs) {
+			JSONObject diff = componentDiffs.get(key);
+			if (diff != null) {
+				MirthMigratorMetrics.recordCacheHit(getSystemName(), "componentDiffs");
+				return diff;
+			}
+		}
+
+		// calculate the difference outside of the lock as this might take a while for large channels
+		long start = System.nanoTime();
+		JSONObject diff = ComponentDiff.diff(sourceContent, targetContent, contextLines);
+		MirthMigratorMetrics.recordCacheMiss(getSystemName(), "componentDiffs", System.nanoTime() - start);
+		synchronized (componentDiffs) {
+			componentDiffs.put(key, diff);
+		}
+
+		return diff;
+	}
+
+	/**
+	 * Provides the IDs of all channels that are not assigned to a group
+	 * 
+	 * @return All IDs of channels that do not belong to a channel group.
+	 * @throws ServiceUnavailableException
+	 * @throws JSONException
+	 */
 	private JSONArray getDefaultGroupChannelIds() throws JSONException, ServiceUnavailableException {
 
 		JSONArray result = new JSONArray();
@@ -5054,9 +5814,11 @@ public class MirthMigrator {
 			return createReturnValue(503, message);
 		}
 
+		ClientUsage usage = ClientUsage.acquire(this);
 		try {
 			// get the client of the target system
 			MirthMigrator targetSystem = getClient(destinationSystem);
+			usage.add(targetSystem);
 
 			if (reloadCaches) {
 				if (logger.isDebugEnabled()) {
@@ -5118,6 +5880,8 @@ public class MirthMigrator {
 		} catch (ServiceUnavailableException e) {
 			// the target system is not available
 			return createReturnValue(503, e.getMessage());
+		} finally {
+			usage.release();
 		}
 
 		return createReturnValue(200, result);
@@ -5145,6 +5909,7 @@ public class MirthMigrator {
 		HashMap<String, JSONObject> referencedCodeTemplates = new HashMap<String, JSONObject>();
 		HashSet<String> functionReferences = new HashSet<String>();
 
+		ClientUsage usage = ClientUsage.acquire(this);
 		try {
 			for (int index = 0; index < channels.getLength(); index++) {
 				// get the next component from the JavaScript JSON-array
@@ -5172,9 +5937,9 @@ public class MirthMigrator {
 							String codeTemplateId = getCodeTemplateIdByFunctionName(function);
 							// if the code template is not yet in the references list
 							if (!referencedCodeTemplates.containsKey(codeTemplateId)) {
-								JSONObject codeTemplate = getCodeTemplateInfoById(codeTemplateId);
+								CodeTemplateMeta codeTemplate = getCodeTemplateInfoById(codeTemplateId);
 								if (codeTemplate != null) {
-									String codeTemplateName = codeTemplate.getString("Display name");
+									String codeTemplateName = codeTemplate.getName();
 									// create a new entry
 									JSONObject newElement = new JSONObject();
 									newElement.put("name", codeTemplateName);
@@ -5195,6 +5960,8 @@ public class MirthMigrator {
 		} catch (ServiceUnavailableException e) {
 			// the target system is not available
 			return createReturnValue(503, e.getMessage());
+		} finally {
+			usage.release();
 		}
 
 		return createReturnValue(200, new JSONArray(referencedCodeTemplates.values()));
@@ -5448,7 +6215,7 @@ public class MirthMigrator {
 			String initialChannelState = null;
 			
 			// also obtain the channel information as the configured deploy state is needed
-			JSONObject channel = getChannelInfoById(channelId);
+			ChannelMeta channel = getChannelInfoById(channelId);
 			if(channel == null) {
 				logger.error("Channel with ID \""+channelId+"\" does not exist!");
 				continue;
@@ -5461,7 +6228,7 @@ public class MirthMigrator {
 			if(isStateProvided) {
 				
 				// get the configured state of the channel
-				initialChannelState = channel.getString("Initial state");
+				initialChannelState = channel.getInitialState();
 				
 				// if the desired state is the same as the configured state
 				if(initialChannelState.compareToIgnoreCase(requiredState) == 0) {
@@ -5842,6 +6609,71 @@ public class MirthMigrator {
 	 *         </ul>
 	 */
 	public NativeObject migrateComponents(String destinationSystem, NativeArray components) {
+		return migrateComponents(destinationSystem, components, false);
+	}
+
+	/**
+	 * Migrates components of this system to a target system
+	 * 
+	 * @param destinationSystem
+	 *            The target system to which the components should be migrated
+	 * @param components
+	 *            A JavaScript JSON Array with objects of the following structure:
+	 *            <ul>
+	 *            <li><b>id</b> - The id of the component</li>
+	 *            <li><b>type</b> - The type of the component (<i>channel</i> or <i>codeTemplate</i>)</li>
+	 *            </ul>
+	 * @param skipUnchanged
+	 *            If true, channels and code templates of which the target system already holds an equivalent version are not pushed again. Two
+	 *            versions are considered equivalent if their canonical content hashes match (volatile fields like revision, last modification
+	 *            date and export data are ignored). Group, library, tag, dependency and pruning assignments are nevertheless updated.
+	 * @return A migration report with the same structure as {@link #migrateComponents(String, NativeArray)} that additionally contains the
+	 *         following element if <b>skipUnchanged</b> is set:
+	 *         <ul>
+	 *         <li><b>unchanged</b> - a JSON Array of components that have been skipped. Each entry contains the following attributes:
+	 *         <ul>
+	 *         <li><b>name</b> - the name of the component</li>
+	 *         <li><b>id</b> - the id of the component</li>
+	 *         <li><b>type</b> - the type of the component (<i>channel</i> or <i>codeTemplate</i>)</li>
+	 *         </ul>
+	 *         </li>
+	 *         </ul>
+	 */
+	public NativeObject migrateComponents(String destinationSystem, NativeArray components, boolean skipUnchanged) {
+		return migrateComponents(destinationSystem, components, skipUnchanged, false);
+	}
+
+	/**
+	 * Migrates components of this system to a target system and traces the duration of every migration step
+	 * 
+	 * @param destinationSystem
+	 *            The target system to which the components should be migrated
+	 * @param components
+	 *            A JavaScript JSON Array with objects of the following structure:
+	 *            <ul>
+	 *            <li><b>id</b> - The id of the component</li>
+	 *            <li><b>type</b> - The type of the component (<i>channel</i> or <i>codeTemplate</i>)</li>
+	 *            </ul>
+	 * @param skipUnchanged
+	 *            If true, channels and code templates of which the target system already holds an equivalent version are not pushed again (see
+	 *            {@link #migrateComponents(String, NativeArray, boolean)})
+	 * @param includeTrace
+	 *            If true, the timing trace of the migration is added to the migration report. (A compact summary of the trace is always logged.)
+	 * @return A migration report with the same structure as {@link #migrateComponents(String, NativeArray, boolean)} that additionally contains the
+	 *         following element if <b>includeTrace</b> is set:
+	 *         <ul>
+	 *         <li><b>trace</b> - the migration steps as a tree of spans. Each span contains the following attributes:
+	 *         <ul>
+	 *         <li><b>name</b> - the name of the step (e.g. <i>updateChannelGroups</i>), the component type or the REST call (method and URL)</li>
+	 *         <li><b>startMillis</b> - the start of the step relative to the start of the migration</li>
+	 *         <li><b>durationMillis</b> - the duration of the step</li>
+	 *         <li><b>attributes</b> - the component name and id or the HTTP status code and size of the response (<i>OPTIONAL</i>)</li>
+	 *         <li><b>children</b> - the spans of the sub-steps (<i>OPTIONAL</i>)</li>
+	 *         </ul>
+	 *         </li>
+	 *         </ul>
+	 */
+	public NativeObject migrateComponents(String destinationSystem, NativeArray components, boolean skipUnchanged, boolean includeTrace) {
 		ArrayList<String> channelsToMigrate = new ArrayList<String>();
 		ArrayList<String> codeTemplatesToMigrate = new ArrayList<String>();
 		JSONObject migrationReport = null;
@@ -5854,9 +6686,13 @@ public class MirthMigrator {
 			return createReturnValue(503, message);
 		}
 
+		// trace the duration of all migration steps
+		MigrationTrace trace = MigrationTrace.begin("migrateComponents from " + getSystemName() + " to " + destinationSystem);
+		ClientUsage usage = ClientUsage.acquire(this);
 		try {
 			// get the client of the target system
 			MirthMigrator targetSystem = getClient(destinationSystem);
+			usage.add(targetSystem);
 
 			// separate code templates and channels as code templates must be migrated first (as they are referenced by channels)
 			for (int index = 0; index < components.getLength(); index++) {
@@ -5879,24 +6715,38 @@ public class MirthMigrator {
 			// if there are any code templates to migrate
 			if (!codeTemplatesToMigrate.isEmpty()) {
 				// do the job
-				migrationReport = migrateCodeTemplates(targetSystem, codeTemplatesToMigrate.toArray(new String[0]));
+				MigrationTrace.Span span = MigrationTrace.start("migrateCodeTemplates").put("count", codeTemplatesToMigrate.size());
+				migrationReport = migrateCodeTemplates(targetSystem, codeTemplatesToMigrate.toArray(new String[0]), skipUnchanged);
+				span.end();
 			}
 
 			// if there are any channels to migrate
 			if (!channelsToMigrate.isEmpty()) {
 				// do the job
-				JSONObject result = migrateChannels(targetSystem, channelsToMigrate.toArray(new String[0]));
+				MigrationTrace.Span span = MigrationTrace.start("migrateChannels").put("count", channelsToMigrate.size());
+				JSONObject result = migrateChannels(targetSystem, channelsToMigrate.toArray(new String[0]), skipUnchanged);
+				span.end();
 				if (migrationReport != null) {
 					// merge reports of successfully migrated components
 					migrationReport.getJSONArray("success").putAll(result.getJSONArray("success"));
 					// merge reports of failed migrated efforts
 					migrationReport.getJSONArray("failure").putAll(result.getJSONArray("failure"));
+					// merge reports of skipped components
+					if (skipUnchanged) {
+						migrationReport.getJSONArray("unchanged").putAll(result.getJSONArray("unchanged"));
+					}
 				} else {
 					// there is nothing else - thus the result can be used unaltered
 					migrationReport = result;
 				}
 			}
 
+			// add the timing of the migration steps if requested
+			trace.finish();
+			if (includeTrace && (migrationReport != null)) {
+				migrationReport.put("trace", trace.toJson());
+			}
+
 			return createReturnValue(200, migrationReport);
 
 		} catch (IOException e) {
@@ -5908,6 +6758,11 @@ public class MirthMigrator {
 		} catch (ServiceUnavailableException e) {
 			// the target system is not available
 			return createReturnValue(503, e.getMessage());
+		} finally {
+			// always provide a compact summary of the migration timing
+			trace.finish();
+			logger.info("Migration trace: " + trace.getSummary());
+			usage.release();
 		}
 	}
 
@@ -6140,6 +6995,27 @@ public class MirthMigrator {
 	 *         If the request was not successful (success = false), the payload usually only consists of an error message
 	 */
 	public NativeObject getConflicts(String destinationSystem, NativeObject component, boolean reloadCaches) {
+		long start = System.nanoTime();
+		try {
+			return detectConflicts(destinationSystem, component, reloadCaches);
+		} finally {
+			// keep track of the time spent for the conflict detection
+			MirthMigratorMetrics.recordPhase("conflictDetection", System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Detects the potential migration conflicts of a Mirth component (see {@link #getConflicts(String, NativeObject, boolean)})
+	 * 
+	 * @param destinationSystem
+	 *            The name of the Mirth instance to which the component should be migrated.
+	 * @param component
+	 *            A JSON object containing the <b>id</b> and the <b>type</b> of the component
+	 * @param reloadCaches
+	 *            If set, the caches of the mirth instances are reloaded before the conflict detection starts
+	 * @return The conflict report as described in {@link #getConflicts(String, NativeObject, boolean)}
+	 */
+	private NativeObject detectConflicts(String destinationSystem, NativeObject component, boolean reloadCaches) {
 
 		JSONObject result = new JSONObject();
 		String componentName = null;
@@ -6151,6 +7027,7 @@ public class MirthMigrator {
 		// and also the component type
 		String componentType = ((String) component.get("type", null));
 
+		ClientUsage usage = ClientUsage.acquire(this);
 		try {
 			// create the basic JSON structure
 			result.put("type", componentType);
@@ -6167,6 +7044,7 @@ public class MirthMigrator {
 
 			// get the client of the target system
 			MirthMigrator targetSystem = getClient(destinationSystem);
+			usage.add(targetSystem);
 
 			// if the type is application, the (currently) only possible conflict is a version conflict
 			if (componentType.equals("application")) {
@@ -6321,9 +7199,46 @@ public class MirthMigrator {
 		} catch (IOException e) {
 
 			return createReturnValue(500, e.getMessage());
+		} finally {
+			usage.release();
 		}
 	}
 
+	/**
+	 * Starts recording the return values that are created by the current thread. This allows the embedded server to access the JSON structure of
+	 * the return value without converting the JavaScript object (see {@link MirthMigratorServer}).
+	 */
+	static void startRecordingReturnValues() {
+		returnValueRecorder.set(new JSONObject[1]);
+	}
+
+	/**
+	 * Stops recording the return values of the current thread
+	 * 
+	 * @return The last return value that has been created since recording was started (see {@link #createReturnValue(int, Object)}) or null if
+	 *         there was none. As nested API calls create their return values before the caller does, this is the return value of the outermost
+	 *         call.
+	 */
+	static JSONObject stopRecordingReturnValues() {
+		JSONObject[] recorder = returnValueRecorder.get();
+		returnValueRecorder.remove();
+
+		return (recorder != null) ? recorder[0] : null;
+	}
+
+	/**
+	 * Converts a JSON string to the JavaScript structure that is expected by the API functions
+	 * 
+	 * @param json
+	 *            The JSON string
+	 * @return A {@link NativeObject}, a {@link NativeArray}, or a primitive value
+	 * @throws ParseException
+	 *             If the string is no valid JSON
+	 */
+	static Object parseJavaScriptValue(String json) throws ParseException {
+		return jsonParser.parseValue(json);
+	}
+
 	/**
 	 * Assembles a standardized structure for an API return value
 	 * 
@@ -6348,6 +7263,12 @@ public class MirthMigrator {
 		returnValue.put("statusCode", code);
 		returnValue.put("payload", payload);
 
+		// keep the JSON structure if the caller is not interested in the JavaScript object
+		JSONObject[] recorder = returnValueRecorder.get();
+		if (recorder != null) {
+			recorder[0] = returnValue;
+		}
+
 		try {
 
 			// and return it a JavasScript JSON object
@@ -6378,14 +7299,13 @@ public class MirthMigrator {
 		// assemble the URL for the rest call
 		switch (componentType) {
 		case CHANNEL:
-			serviceUrl = "/api/channels?channelId=" + componentId;
-			break;
+			// channels and code templates might be known already
+			return getChannel(componentId);
 		case CHANNEL_GROUP:
 			serviceUrl = "/api/channelgroups?channelGroupId=" + componentId;
 			break;
 		case CODE_TEMPLATE:
-			serviceUrl = "/api/codeTemplates?codeTemplateId=" + componentId;
-			break;
+			return getCodeTemplate(componentId);
 		case CODE_TEMPLATE_LIBRARY:
 			serviceUrl = "/api/codeTemplateLibraries?libraryId=" + componentId + "&includeCodeTemplates=false";
 			break;
@@ -6403,8 +7323,10 @@ public class MirthMigrator {
 	 * @param serviceEndpoint
 	 *            The remaining URL details after server_port/.. in most cases /api/<component_Type>
 	 * @return The opened HTTPUrlConnection.
+	 * @throws ServiceUnavailableException
+	 *             If the Mirth instance is known to be unavailable (see {@link SystemHealth})
 	 */
-	private HttpURLConnection connectToRestService(String serviceEndpoint) {
+	private HttpURLConnection connectToRestService(String serviceEndpoint) throws ServiceUnavailableException {
 		return connectToRestService(getServer(), getPort(), serviceEndpoint);
 	}
 
@@ -6418,16 +7340,21 @@ public class MirthMigrator {
 	 * @param Port
 	 *            The mirth service port
 	 * @return The opened HTTPUrlConnection.
+	 * @throws ServiceUnavailableException
+	 *             If the Mirth instance is known to be unavailable (see {@link SystemHealth})
 	 */
-	private static HttpURLConnection connectToRestService(String serverName, int Port, String serviceEndpoint) {
+	private static HttpURLConnection connectToRestService(String serverName, int Port, String serviceEndpoint) throws ServiceUnavailableException {
+		// fail fast if the service is known to be unavailable
+		SystemHealth.get(serverName, Port).checkAvailable();
+
 		URL url = null;
 		try {
 			// assemble the URL
 			url = new URL("https://" + serverName + ":" + Port + serviceEndpoint);
 			// and open the connection
 			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-			// connection should be established w/i 5 seconds
-			connection.setConnectTimeout(5000);
+			// connection should be established and data should be received w/i the configured timeouts
+			SystemHealth.applyTimeouts(connection);
 			if (logger.isDebugEnabled()) {
 				logger.debug("connection has been opened to " + url);
 			}
@@ -6437,6 +7364,8 @@ public class MirthMigrator {
 			connection.setRequestProperty("Cache-Control", "no-cache");
 			connection.setRequestProperty("accept", "application/xml");
 			connection.setRequestProperty("Accept-Charset", "UTF-8");
+			// the large XML exports are transferred much faster if they are compressed
+			TransferCompression.get(serverName, Port).applyTo(connection);
 			return connection;
 		} catch (SocketTimeoutException ste) {
 			logger.error("Webservice \"" + url + "\" is currently not available: " + ste.getMessage());
@@ -6468,6 +7397,8 @@ public class MirthMigrator {
 		InputStream response = null;
 		JSONObject result = new JSONObject();
 		int responseCode = -1;
+		// the request is actually sent when the response is requested
+		long start = System.nanoTime();
 
 		try {
 			// if everything went right read the response from the regular stream
@@ -6481,9 +7412,12 @@ public class MirthMigrator {
 		try {
 			// if no valid connection is available
 			responseCode = connection.getResponseCode();
+			// the service answered
+			SystemHealth.get(connection.getURL()).recordSuccess();
 			// this usually means no valid session and is e.g. the case if the service had been restarted
 			if (responseCode == 401) {
 				String message = "Response stream is not available - re-login is needed (" + responseCode + ")";
+				MirthMigratorMetrics.recordCall(connection.getURL(), connection.getRequestMethod(), responseCode, System.nanoTime() - start, 0);
 				connection.disconnect();
 				logger.error(message);
 				result.put("responseCode", 400);
@@ -6494,6 +7428,7 @@ public class MirthMigrator {
 			}
 			if (responseCode == 403) {
 				String message = "Mirth service explicitly rejected the request (" + responseCode + ")";
+				MirthMigratorMetrics.recordCall(connection.getURL(), connection.getRequestMethod(), responseCode, System.nanoTime() - start, 0);
 
 				logger.error(message);
 
@@ -6514,6 +7449,8 @@ public class MirthMigrator {
 			 * 
 			 * return result;
 			 */
+			MirthMigratorMetrics.recordCall(connection.getURL(), connection.getRequestMethod(), -1, System.nanoTime() - start, 0);
+			SystemHealth.get(connection.getURL()).recordFailure(e.getMessage());
 			throw new ServiceUnavailableException(
 					String.format("Service at %s:%d is currently not available", connection.getURL().getHost(), connection.getURL().getPort()));
 		}
@@ -6522,11 +7459,15 @@ public class MirthMigrator {
 		StringBuilder sb = null;
 		String line = null;
 
+		MirthMigratorMetrics.CountingInputStream countingStream = null;
+
 		try {
 			// if there is any response from the server
 			if (response != null) {
-				// read everything in
-				reader = new BufferedReader(new InputStreamReader(response, StandardCharsets.UTF_8));
+				// read everything in (and count the received bytes)
+				countingStream = new MirthMigratorMetrics.CountingInputStream(response);
+				// the received bytes are counted as transferred - before they are decompressed
+				reader = new BufferedReader(new InputStreamReader(TransferCompression.decode(connection, countingStream), StandardCharsets.UTF_8));
 				
 				sb = new StringBuilder();
 				
@@ -6551,8 +7492,16 @@ public class MirthMigrator {
 			result.put("successful", true);
 			// the response message
 			result.put("responseMessage", (sb != null) ? sb.toString() : "");
+			// keep track of the service performance
+			MirthMigratorMetrics.recordCall(connection.getURL(), connection.getRequestMethod(), responseCode, System.nanoTime() - start,
+					(countingStream != null) ? countingStream.getCount() : 0);
 
 			return result;
+		} catch (SocketTimeoutException e) {
+			// the service stopped sending data
+			SystemHealth.get(connection.getURL()).recordFailure(e.getMessage());
+			throw new ServiceUnavailableException(String.format("Service at %s:%d did not answer in time", connection.getURL().getHost(),
+					connection.getURL().getPort()));
 		} catch (IOException e) {
 			logger.error("readResponse() IOException: " + e.getMessage());
 			return null;
@@ -6571,21 +7520,8 @@ public class MirthMigrator {
 	 */
 	private String getResponseAsXml(HttpURLConnection restService) throws ServiceUnavailableException {
 
-		// try to execute the query
-		JSONObject response = getAsXml(restService, getServerSessionCookie());
-
-		if (response.getInt("responseCode") == 400) {
-
-			// if re-login was successful
-			if (createServerSession()) {
-				restService.disconnect();
-				String serviceUrl = restService.getURL().getPath();
-				// connection needs to be reestablished
-				restService = connectToRestService(serviceUrl);
-				// try to re-execute the query
-				response = getAsXml(restService, getServerSessionCookie());
-			}
-		}
+		// execute the query
+		JSONObject response = callWithSession(restService, (service, sessionCookie) -> getAsXml(service, sessionCookie));
 
 		return response.getBoolean("successful") ? response.getString("responseMessage") : "";
 	}
@@ -6601,23 +7537,67 @@ public class MirthMigrator {
 	 */
 	private String getResponseAsXml(HttpURLConnection restService, String payload) throws ServiceUnavailableException {
 
-		// try to execute the query
-		JSONObject response = getAsXml(restService, getServerSessionCookie(), payload);
+		// execute the query
+		JSONObject response = callWithSession(restService, (service, sessionCookie) -> getAsXml(service, sessionCookie, payload));
+
+		return response.getBoolean("successful") ? response.getString("responseMessage") : "";
+	}
+
+	/**
+	 * A REST call that needs a session
+	 */
+	@FunctionalInterface
+	private interface SessionCall {
+		/**
+		 * Executes the call
+		 * 
+		 * @param restService
+		 *            The connection to the rest service
+		 * @param sessionCookie
+		 *            The cookie that identifies the session
+		 * @return The response as provided by {@link #readResponse(HttpURLConnection)}
+		 * @throws ServiceUnavailableException
+		 */
+		JSONObject call(HttpURLConnection restService, String sessionCookie) throws ServiceUnavailableException;
+	}
 
-		if (response.getInt("responseCode") == 400) {
+	/**
+	 * Executes a REST call with the session of the client. If the session is rejected by the service, it is renewed (see {@link ServerSession})
+	 * and the call is repeated once via a new connection.
+	 * 
+	 * @param restService
+	 *            The connection to the rest service
+	 * @param call
+	 *            The call
+	 * @return The response as provided by {@link #readResponse(HttpURLConnection)}
+	 * @throws ServiceUnavailableException
+	 *             If the Mirth instance is not available
+	 */
+	private JSONObject callWithSession(HttpURLConnection restService, SessionCall call) throws ServiceUnavailableException {
+		String sessionCookie = getServerSessionCookie();
+		JSONObject response = call.call(restService, sessionCookie);
 
-			// if re-login was successful
-			if (createServerSession()) {
-				restService.disconnect();
-				String serviceUrl = restService.getURL().getPath();
-				// connection needs to be reestablished
-				restService = connectToRestService(serviceUrl);
-				// try to re-execute the query
-				response = getAsXml(restService, getServerSessionCookie(), payload);
+		// a rejected session is reported as unsuccessful with code 400 (see readResponse())
+		if (!response.getBoolean("successful") && (response.getInt("responseCode") == 400)) {
+			// get a new session - or the one another thread already created
+			sessionCookie = serverSession.renew(sessionCookie);
+			if (sessionCookie == null) {
+				logger.error("Re-login to \"" + restService.getURL().getHost() + ":" + restService.getURL().getPort() + "\" was not successful");
+				return response;
+			}
+			restService.disconnect();
+			// connection needs to be reestablished
+			restService = connectToRestService(restService.getURL().getFile());
+			// and the query re-executed
+			response = call.call(restService, sessionCookie);
+			if (!response.getBoolean("successful") && (response.getInt("responseCode") == 400)) {
+				return response;
 			}
 		}
+		// the session has been accepted
+		serverSession.recordUse();
 
-		return response.getBoolean("successful") ? response.getString("responseMessage") : "";
+		return response;
 	}
 
 	/**
@@ -6676,8 +7656,11 @@ public class MirthMigrator {
 				restService.setDoOutput(true);
 				// send the payload to the server
 				try {
-					restService.getOutputStream().write(payload.getBytes(StandardCharsets.UTF_8));
+					byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+					restService.getOutputStream().write(body);
+					MirthMigratorMetrics.recordBytesSent(restService.getURL(), "POST", body.length);
 				} catch (IOException e) {
+					SystemHealth.get(restService.getURL()).recordFailure(e.getMessage());
 					throw new ServiceUnavailableException(String.format("Service at %s:%d is currently not available", restService.getURL().getHost(),
 							restService.getURL().getPort()));
 				}
@@ -6705,25 +7688,8 @@ public class MirthMigrator {
 	 */
 	private JSONObject getResponseAsJson(HttpURLConnection restService) throws ServiceUnavailableException {
 
-		// try to execute the query
-		JSONObject response = getResponseAsJson(restService, getServerSessionCookie());
-
-		// if session at the server was lost (e.g. due to service restart)
-		if (response.getInt("responseCode") == 400) {
-
-			// log in again
-			response = login(getServer(), getPort(), getUsername(), getPassword());
-			// if re-login was successful
-			if (response.getBoolean("successful")) {
-				// close the connection to the rest service
-				restService.disconnect();
-				restService = connectToRestService(restService.getURL().getPath());
-				// try to re-execute the query
-				response = getResponseAsJson(restService, getServerSessionCookie());
-			} else {
-				logger.error("Re-login to \"" + restService.getURL().getHost() + ":" + restService.getURL().getPort() + "\"was not successful");
-			}
-		}
+		// execute the query (the session is renewed if it was lost at the server, e.g. due to service restart)
+		JSONObject response = callWithSession(restService, (service, sessionCookie) -> getResponseAsJson(service, sessionCookie));
 
 		return response.getBoolean("successful") ? response.getJSONObject("responseMessage") : null;
 	}
@@ -6785,18 +7751,9 @@ public class MirthMigrator {
 	 */
 	private String getResponseAsPlainText(HttpURLConnection restService) throws ServiceUnavailableException {
 
-		// try to execute the query
-		JSONObject response = getResponseAsPlainText(restService, getServerSessionCookie());
+		// execute the query
+		JSONObject response = callWithSession(restService, (service, sessionCookie) -> getResponseAsPlainText(service, sessionCookie));
 
-		if (response.getInt("responseCode") == 400) {
-			// log in again
-			response = login(getServer(), getPort(), getUsername(), getPassword());
-			// if re-login was successful
-			if (response.getBoolean("successful")) {
-				// try to re-execute the query
-				response = getResponseAsPlainText(restService, getServerSessionCookie());
-			}
-		}
 		return response.getBoolean("successful") ? response.getString("responseMessage") : "";
 	}
 
@@ -6910,10 +7867,7 @@ public class MirthMigrator {
 	}
 
 	private String getServerSessionCookie() throws ServiceUnavailableException {
-		if (serverSessionCookie == null) {
-			createServerSession();
-		}
-		return serverSessionCookie;
+		return serverSession.getCookie();
 	}
 
 	/**
@@ -6969,6 +7923,8 @@ public class MirthMigrator {
 		userSession.put("lastAccess", System.currentTimeMillis());
 		// finally add it to the cache
 		userSessionCache.put(userSessionCookie, userSession);
+		// and make it the session of the user
+		userSessionIndex.put(username, userSessionCookie);
 	}
 
 	/**
@@ -7019,6 +7975,7 @@ public class MirthMigrator {
 				synchronized (MirthMigrator.userSessionCache) {
 					// remove it from cache
 					MirthMigrator.userSessionCache.remove(userSessionCookie);
+					userSessionIndex.remove(userSession.get("username"), userSessionCookie);
 				}
 				// and invalidate the fetched session
 				userSession = null;
@@ -7065,15 +8022,12 @@ public class MirthMigrator {
 						|| ((account != null) && (session.get("username").equals(account)))) {
 					// remove it from cache
 					iterator.remove();
+					userSessionIndex.remove(session.get("username"), entry.getKey());
 				}
 			}
 		}
 	}
 
-	private void setServerSessionCookie(String serverSessionCookie) {
-		this.serverSessionCookie = serverSessionCookie;
-	}
-
 	private static void setUserSessionLifeSpan(Integer lifespanInMinutes) {
 		MirthMigrator.userSessionLifeSpanInMinutes = lifespanInMinutes;
 	}
@@ -7090,6 +8044,38 @@ public class MirthMigrator {
 		return MirthMigrator.channelStatusUpdateIntervalInSeconds;
 	}
 
+	private static void setCacheMemoryBudget(Integer cacheMemoryBudgetInMB) {
+		MirthMigrator.cacheMemoryBudgetInMB = cacheMemoryBudgetInMB;
+	}
+
+	public static Integer getCacheMemoryBudget() {
+		return MirthMigrator.cacheMemoryBudgetInMB;
+	}
+
+	private static void setIdleClientTimeout(Integer idleClientTimeoutInMinutes) {
+		MirthMigrator.idleClientTimeoutInMinutes = idleClientTimeoutInMinutes;
+	}
+
+	public static Integer getIdleClientTimeout() {
+		return MirthMigrator.idleClientTimeoutInMinutes;
+	}
+
+	private static void setConnectTimeout(Integer connectTimeoutInSeconds) {
+		MirthMigrator.connectTimeoutInSeconds = connectTimeoutInSeconds;
+	}
+
+	public static Integer getConnectTimeout() {
+		return MirthMigrator.connectTimeoutInSeconds;
+	}
+
+	private static void setReadTimeout(Integer readTimeoutInSeconds) {
+		MirthMigrator.readTimeoutInSeconds = readTimeoutInSeconds;
+	}
+
+	public static Integer getReadTimeout() {
+		return MirthMigrator.readTimeoutInSeconds;
+	}
+
 	private static void setConfigurationLoadingDate(long configurationLoadingDate) {
 		MirthMigrator.configurationLoadingDate = configurationLoadingDate;
 	}
@@ -7125,9 +8111,22 @@ public class MirthMigrator {
 	 * @throws ServiceUnavailableException
 	 */
 	private String getCodeTemplate(String codeTemplateId) throws ServiceUnavailableException {
-		HttpURLConnection urlConnection = connectToRestService("/api/codeTemplates?codeTemplateId=" + codeTemplateId);
+		return getCodeTemplate(codeTemplateId, false);
+	}
 
-		return getResponseAsXml(urlConnection);
+	/**
+	 * Provides a code template configuration from the server
+	 * 
+	 * @param codeTemplateId
+	 *            an ID identifying a code template
+	 * @param live
+	 *            If true, the code template is always fetched from the server (e.g. for migration). Otherwise, it might be served from the
+	 *            component content store.
+	 * @return the code template library configuration
+	 * @throws ServiceUnavailableException
+	 */
+	private String getCodeTemplate(String codeTemplateId, boolean live) throws ServiceUnavailableException {
+		return getStoredComponent(CODE_TEMPLATE, codeTemplateId, "/api/codeTemplates?codeTemplateId=" + codeTemplateId, live);
 	}
 
 	/**
@@ -7139,9 +8138,69 @@ public class MirthMigrator {
 	 * @throws ServiceUnavailableException
 	 */
 	public String getChannel(String channelId) throws ServiceUnavailableException {
-		HttpURLConnection urlConnection = connectToRestService("/api/channels?channelId=" + channelId);
+		return getChannel(channelId, false);
+	}
 
-		return getResponseAsXml(urlConnection);
+	/**
+	 * Provides channel configuration from the server
+	 * 
+	 * @param channelId
+	 *            an ID identifying a channel
+	 * @param live
+	 *            If true, the channel is always fetched from the server (e.g. for migration). Otherwise, it might be served from the component
+	 *            content store.
+	 * @return the channel group configuration
+	 * @throws ServiceUnavailableException
+	 */
+	private String getChannel(String channelId, boolean live) throws ServiceUnavailableException {
+		return getStoredComponent(CHANNEL, channelId, "/api/channels?channelId=" + channelId, live);
+	}
+
+	/**
+	 * Provides the configuration of a channel or code template. If the revision of the component is known (i.e. the metadata is loaded), the
+	 * configuration is served from the component content store as long as the component did not change. Otherwise it is fetched from the server.
+	 * <br/>
+	 * <br/>
+	 * As the revision of the metadata might already be outdated, components that are migrated have to be fetched <b>live</b>. A fetched
+	 * configuration is stored under the revision it actually has.
+	 * 
+	 * @param componentType
+	 *            {@link #CHANNEL} or {@link #CODE_TEMPLATE}
+	 * @param componentId
+	 *            The id of the component
+	 * @param serviceEndpoint
+	 *            The endpoint from which the component can be fetched
+	 * @param live
+	 *            If true, the component is always fetched from the server
+	 * @return The component configuration
+	 * @throws ServiceUnavailableException
+	 */
+	private String getStoredComponent(String componentType, String componentId, String serviceEndpoint, boolean live)
+			throws ServiceUnavailableException {
+		if (!live) {
+			// the current revision is only known if the metadata of the component type has already been loaded
+			ComponentIndex<? extends ComponentMeta> componentInfo = CHANNEL.equals(componentType) ? this.channelInfo : this.codeTemplateInfo;
+			ComponentMeta metaData = (componentInfo != null) ? componentInfo.get(componentId) : null;
+
+			if (metaData != null) {
+				String content = this.componentContents.get(componentType, componentId, metaData.getVersion());
+				if (content != null) {
+					MirthMigratorMetrics.recordCacheHit(getSystemName(), "componentContents");
+					return content;
+				}
+			}
+		}
+
+		long start = System.nanoTime();
+		String content = getResponseAsXml(connectToRestService(serviceEndpoint));
+		// keep it for the next time under the revision it actually has
+		Matcher revisionMatcher = componentRevisionPattern.matcher(content);
+		if (revisionMatcher.find()) {
+			this.componentContents.put(componentType, componentId, revisionMatcher.group(1).trim(), content);
+		}
+		MirthMigratorMetrics.recordCacheMiss(getSystemName(), "componentContents", System.nanoTime() - start);
+
+		return content;
 	}
 
 	/**
@@ -7211,6 +8270,8 @@ public class MirthMigrator {
 	 *            A Mirth client for the target system
 	 * @param channelIds
 	 *            A list of IDs for channels that should be migrated
+	 * @param skipUnchanged
+	 *            If true, channels of which the target system already holds an equivalent version are not pushed again
 	 * @return A JSON Object containing the following information:
 	 *         <ul>
 	 *         <li><b>success</b> - a JSON Array of successfully migrated components. Each entry contains the following attributes:
@@ -7248,7 +8309,8 @@ public class MirthMigrator {
 	 * @throws ConfigurationException
 	 * @throws ServiceUnavailableException
 	 */
-	private JSONObject migrateChannels(MirthMigrator targetSystem, String[] channelIds) throws ConfigurationException, ServiceUnavailableException {
+	private JSONObject migrateChannels(MirthMigrator targetSystem, String[] channelIds, boolean skipUnchanged)
+			throws ConfigurationException, ServiceUnavailableException {
 		JSONObject result, overallResult, element;
 		JSONArray newComponents, worklist;
 		boolean operationSucceeded = false;
@@ -7256,8 +8318,10 @@ public class MirthMigrator {
 		overallResult = new JSONObject();
 		JSONArray success = new JSONArray();
 		JSONArray failure = new JSONArray();
+		JSONArray unchanged = new JSONArray();
 
 		/** Check for all channels if an id replacement is needed */
+		MigrationTrace.Span span = MigrationTrace.start("idCollisionCheck");
 
 		for (int index = 0; index < channelIds.length; index++) {
 
@@ -7284,9 +8348,20 @@ public class MirthMigrator {
 				}
 			}
 		}
+		span.end();
+
+		// if requested, skip the channels of which the target system already holds an equivalent version
+		if (skipUnchanged) {
+			span = MigrationTrace.start("separateUnchangedComponents");
+			channelIds = separateUnchangedComponents(targetSystem, CHANNEL, channelIds, unchanged);
+			span.end();
+			overallResult.put("unchanged", unchanged);
+		}
 
 		// migrate the channels
+		span = MigrationTrace.start("updateChannels");
 		result = updateChannels(targetSystem, channelIds);
+		span.end();
 		// add the successfully migrated channels to the list
 		success.putAll(result.get("success"));
 		failure.putAll(result.get("failure"));
@@ -7301,12 +8376,18 @@ public class MirthMigrator {
 			// add channel id to list for further migration
 			migratedWithSuccess.add(success.getJSONObject(index).getString("id"));
 		}
+		// skipped channels are already present in the target system - but their assignments might still differ
+		for (int index = 0; index < unchanged.length(); index++) {
+			migratedWithSuccess.add(unchanged.getJSONObject(index).getString("id"));
+		}
 
 		// transform it back to a string array
 		channelIds = migratedWithSuccess.toArray(new String[migratedWithSuccess.size()]);
 
 		// adjust the channel group configuration of the target system and migrate it
+		span = MigrationTrace.start("updateChannelGroups");
 		result = updateChannelGroups(targetSystem, channelIds);
+		span.end();
 
 		// check if operation was successful
 		operationSucceeded = result.getBoolean("success");
@@ -7333,7 +8414,9 @@ public class MirthMigrator {
 			return overallResult;
 		}
 		// adjust the code template library dependencies of the target system and migrate them
+		span = MigrationTrace.start("updateCodeTemplateLibraries");
 		result = updateCodeTemplateLibraries(targetSystem, null, channelIds);
+		span.end();
 		// check if operation was successful
 		operationSucceeded = result.getBoolean("success");
 		// determine the list to which the migrated elements should be added
@@ -7356,7 +8439,9 @@ public class MirthMigrator {
 		}
 
 		// adjust the channel tags of the target system and migrate them
+		span = MigrationTrace.start("updateChannelTags");
 		result = updateChannelTags(targetSystem, channelIds);
+		span.end();
 		// check if operation was successful
 		operationSucceeded = result.getBoolean("success");
 		// determine the list to which the migrated elements should be added
@@ -7378,7 +8463,9 @@ public class MirthMigrator {
 			worklist.put(element);
 		}
 		// adjust the channel pruning settings of the target system and migrate them
+		span = MigrationTrace.start("updateChannelPrunings");
 		result = updateChannelPrunings(targetSystem, channelIds);
+		span.end();
 		// check if operation was successful
 		operationSucceeded = result.getBoolean("success");
 		// determine the list to which the migrated elements should be added
@@ -7396,7 +8483,9 @@ public class MirthMigrator {
 		worklist.put(element);
 
 		// adjust inter-channel dependencies and migrate them
+		span = MigrationTrace.start("updateInterChannelDependencies");
 		result = updateInterChannelDependencies(targetSystem, channelIds);
+		span.end();
 		// check if operation was successful
 		operationSucceeded = result.getBoolean("success");
 		// determine the list to which the migrated elements should be added
@@ -7423,6 +8512,8 @@ public class MirthMigrator {
 	 *            A Mirth client for the target system
 	 * @param codeTemplateIds
 	 *            A list of IDs for code templates that should be migrated
+	 * @param skipUnchanged
+	 *            If true, code templates of which the target system already holds an equivalent version are not pushed again
 	 * @return A JSON Object containing the following information:
 	 *         <ul>
 	 *         <li><b>success</b> - a JSON Array of successfully migrated components. Each entry contains the following attributes:
@@ -7455,7 +8546,7 @@ public class MirthMigrator {
 	 * @throws ConfigurationException
 	 * @throws ServiceUnavailableException
 	 */
-	private JSONObject migrateCodeTemplates(MirthMigrator targetSystem, String[] codeTemplateIds)
+	private JSONObject migrateCodeTemplates(MirthMigrator targetSystem, String[] codeTemplateIds, boolean skipUnchanged)
 			throws ConfigurationException, ServiceUnavailableException {
 
 		JSONObject result, overallResult, element;
@@ -7465,8 +8556,10 @@ public class MirthMigrator {
 		overallResult = new JSONObject();
 		JSONArray success = new JSONArray();
 		JSONArray failure = new JSONArray();
+		JSONArray unchanged = new JSONArray();
 
 		/** Check for all code templates if an id replacement is needed */
+		MigrationTrace.Span span = MigrationTrace.start("idCollisionCheck");
 		for (int index = 0; index < codeTemplateIds.length; index++) {
 
 			String codeTemplateId = codeTemplateIds[index];
@@ -7492,9 +8585,20 @@ public class MirthMigrator {
 				}
 			}
 		}
+		span.end();
+
+		// if requested, skip the code templates of which the target system already holds an equivalent version
+		if (skipUnchanged) {
+			span = MigrationTrace.start("separateUnchangedComponents");
+			codeTemplateIds = separateUnchangedComponents(targetSystem, CODE_TEMPLATE, codeTemplateIds, unchanged);
+			span.end();
+			overallResult.put("unchanged", unchanged);
+		}
 
 		// migrate the code templates
+		span = MigrationTrace.start("updateCodeTemplates");
 		result = updateCodeTemplates(targetSystem, codeTemplateIds);
+		span.end();
 		// add the successfully migrated code templates to the list
 		success.putAll(result.get("success"));
 		failure.putAll(result.get("failure"));
@@ -7508,11 +8612,17 @@ public class MirthMigrator {
 			// add code templates id to list for further migration
 			migratedWithSuccess.add(((JSONObject) success.get(index)).getString("id"));
 		}
+		// skipped code templates are already present in the target system - but their library assignment might still differ
+		for (int index = 0; index < unchanged.length(); index++) {
+			migratedWithSuccess.add(unchanged.getJSONObject(index).getString("id"));
+		}
 		// transform it back to a string array
 		codeTemplateIds = migratedWithSuccess.toArray(new String[migratedWithSuccess.size()]);
 
 		// adjust the code template libraries of the target system and migrate them
+		span = MigrationTrace.start("updateCodeTemplateLibraries");
 		result = updateCodeTemplateLibraries(targetSystem, codeTemplateIds, null);
+		span.end();
 		// check if operation was successful
 		operationSucceeded = result.getBoolean("success");
 		// determine the list to which the migrated elements should be added
@@ -7536,21 +8646,106 @@ public class MirthMigrator {
 	}
 
 	/**
-	 * Transforms a list of channels to the format of the target mirth system and migrates them
+	 * Separates the channels or code templates of which the target system already holds an equivalent version from those that actually have to be
+	 * migrated
 	 * 
 	 * @param targetSystem
-	 *            A mirth client for the target mirth system to which the channels should be migrated
-	 * @param channelIds
-	 *            A list of IDs of channels from the source system that should be migrated
-	 * @return A JSON Object containing the following elements:
-	 *         <ul>
-	 *         <li><b>success</b> - a JSON Array of successfully migrated mirth channels. Each entry contains the following attributes:
-	 *         <ul>
-	 *         <li><b>configuration</b> - the altered channel configuration in the format of the target system</li>
-	 *         <li><b>name</b> - the name of the channel</li>
-	 *         <li><b>id</b> - the id of the channel</li>
-	 *         <li><b>type</b> - value: <b>channel</b></li>
-	 *         </ul>
+	 *            A mirth client for the target mirth system
+	 * @param componentType
+	 *            Either {@link #CHANNEL} or {@link #CODE_TEMPLATE}
+	 * @param componentIds
+	 *            A list of component IDs (an entry might contain the original and the replacement id separated by a colon)
+	 * @param unchanged
+	 *            A JSON Array to which a record (name, id, type) is added for every component that does not have to be migrated
+	 * @return The list of component IDs that have to be migrated
+	 * @throws ConfigurationException
+	 * @throws ServiceUnavailableException
+	 */
+	private String[] separateUnchangedComponents(MirthMigrator targetSystem, String componentType, String[] componentIds, JSONArray unchanged)
+			throws ConfigurationException, ServiceUnavailableException {
+		ArrayList<String> toBeMigrated = new ArrayList<String>();
+		IdRemapper idMapping = createIdRemapper(componentIds);
+		boolean isChannel = componentType.equals(CHANNEL);
+
+		for (String sourceId : idMapping.getOriginalIds()) {
+			// the id that is (or will be) used in the target system
+			String targetId = idMapping.remap(sourceId);
+			// the list entry as it is passed between the migration steps
+			String componentIdEntry = idMapping.isRemapped(sourceId) ? sourceId + ":" + targetId : sourceId;
+
+			// if the target system does not know the component, it has to be migrated anyway
+			if ((isChannel ? targetSystem.getChannelNameById(targetId) : targetSystem.getCodeTemplateNameById(targetId)) == null) {
+				toBeMigrated.add(componentIdEntry);
+				continue;
+			}
+
+			// fetch both versions (live, as the decision must not be based on outdated versions)
+			String sourceComponent = isChannel ? getChannel(sourceId, true) : getCodeTemplate(sourceId, true);
+			String targetComponent = isChannel ? targetSystem.getChannel(targetId, true) : targetSystem.getCodeTemplate(targetId, true);
+			// bring the source version in the shape it would have in the target system (the same way it would be migrated)
+			if (isChannel) {
+				sourceComponent = adaptChannel(targetSystem, sourceComponent, sourceId, targetId);
+			} else {
+				sourceComponent = new IdRemapper("id").put(sourceId, targetId).apply(sourceComponent);
+				sourceComponent = convert(sourceComponent, getMirthVersion(), targetSystem.getMirthVersion());
+			}
+
+			// if the content is identical
+			if (createContentHash(sourceComponent).equals(createContentHash(targetComponent))) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Skipping unchanged {} \"{}\"", componentType,
+							isChannel ? getChannelNameById(sourceId) : getCodeTemplateNameById(sourceId));
+				}
+				// there is no need to push it again
+				JSONObject record = new JSONObject();
+				record.put("name", isChannel ? getChannelNameById(sourceId) : getCodeTemplateNameById(sourceId));
+				record.put("id", componentIdEntry);
+				record.put("type", componentType);
+				unchanged.put(record);
+			} else {
+				toBeMigrated.add(componentIdEntry);
+			}
+		}
+
+		return toBeMigrated.toArray(new String[toBeMigrated.size()]);
+	}
+
+	/**
+	 * Creates a hash of the canonical form of a channel or code template. Volatile fields (revision, last modification date, export data and
+	 * version attributes) as well as the formatting are ignored. Thus equivalent components on different systems produce the same hash.
+	 * 
+	 * @param component
+	 *            The XML representation of the component
+	 * @return The hash value
+	 */
+	private static String createContentHash(String component) {
+		// remove the list wrapper
+		String canonical = component.replaceFirst("^\\s*<list>", "").replaceFirst("</list>\\s*$", "");
+		// remove volatile fields
+		canonical = volatileFieldPattern.matcher(canonical).replaceAll("");
+		canonical = mirthVersionConversionPattern.matcher(canonical).replaceAll("");
+		// and normalize the formatting
+		canonical = interTagWhitespacePattern.matcher(canonical).replaceAll("><").trim();
+
+		return createHash(canonical);
+	}
+
+	/**
+	 * Transforms a list of channels to the format of the target mirth system and migrates them
+	 * 
+	 * @param targetSystem
+	 *            A mirth client for the target mirth system to which the channels should be migrated
+	 * @param channelIds
+	 *            A list of IDs of channels from the source system that should be migrated
+	 * @return A JSON Object containing the following elements:
+	 *         <ul>
+	 *         <li><b>success</b> - a JSON Array of successfully migrated mirth channels. Each entry contains the following attributes:
+	 *         <ul>
+	 *         <li><b>configuration</b> - the altered channel configuration in the format of the target system</li>
+	 *         <li><b>name</b> - the name of the channel</li>
+	 *         <li><b>id</b> - the id of the channel</li>
+	 *         <li><b>type</b> - value: <b>channel</b></li>
+	 *         </ul>
 	 *         </li>
 	 *         <li><b>failure</b> - a JSON Array of successfully migrated mirth channels. Each entry contains the following attributes:
 	 *         <ul>
@@ -7569,66 +8764,37 @@ public class MirthMigrator {
 	private JSONObject updateChannels(MirthMigrator targetSystem, String[] channelIds) throws ServiceUnavailableException, ConfigurationException {
 		JSONObject overallResult, result;
 		String sourceChannel;
-		Matcher externalResourcesMatcher, idSeparatorMatcher, externalResourceEntityMatcher = null;
+		IdRemapper channelIdMapping = createIdRemapper(channelIds);
 
 		overallResult = new JSONObject();
 		overallResult.put("success", new JSONArray());
 		overallResult.put("failure", new JSONArray());
 
 		// for all channels that should be migrated
-		for (String channelId : channelIds) {
-
-			String replacementId = null;
+		for (String channelId : channelIdMapping.getOriginalIds()) {
 
-			// check if there was a replacement for this id
-			idSeparatorMatcher = idSeparatorPattern.matcher(channelId);
-			if (idSeparatorMatcher.find()) {
-				// indeed, so extract the original id of the source system
-				channelId = idSeparatorMatcher.group(1);
-				// and also the replacement id that should be used in the destination system
-				replacementId = idSeparatorMatcher.group(2);
-			}
+			// trace the migration of every single channel
+			MigrationTrace.Span span = MigrationTrace.start(CHANNEL).put("name", getChannelNameById(channelId)).put("id", channelId);
 
 			// fetch the actual code of the channel that should be migrated from the source system
-			sourceChannel = getChannel(channelId);
-
-			if (replacementId != null) {
-				// adapt the id of the channel that has to be migrated
-				sourceChannel = sourceChannel.replaceAll("<id>" + channelId + "</id>", "<id>" + replacementId + "</id>");
-			}
-
-			/** External resource reference adaption starts here */
-			externalResourcesMatcher = externalResourcesPattern.matcher(sourceChannel);
-			// if an external resources section with content was found
-			if (externalResourcesMatcher.find()) {
-				// scan all referenced entities
-				externalResourceEntityMatcher = externalResourceEntityPattern.matcher(externalResourcesMatcher.group());
-				while (externalResourceEntityMatcher.find()) {
-					// get the external resource id
-					String resourceId = externalResourceEntityMatcher.group(1);
-					// and it's name
-					String resourceName = externalResourceEntityMatcher.group(2);
-					// now check if the destination Mirth instance references an external resource with the same name
-					JSONObject resource = targetSystem.getExternalResource(resourceName);
-					if (resource != null) {
-						String targetResourceId = resource.getString("id");
-						// indeed. So replace the reference by the reference to the corresponding resource of the target system (for all connectors)
-						sourceChannel = sourceChannel.replaceAll("<string>" + resourceId + "</string>", "<string>" + targetResourceId + "</string>");
-					}
-				}
-			}
+			MigrationTrace.Span step = MigrationTrace.start("fetch");
+			sourceChannel = getChannel(channelId, true);
+			step.end();
 
-			// convert the format of the channel to the format of the target system
-			sourceChannel = convert(sourceChannel, getMirthVersion(), targetSystem.getMirthVersion());
+			// adapt the ids and the format of the channel to the target system
+			sourceChannel = adaptChannel(targetSystem, sourceChannel, channelId, channelIdMapping.remap(channelId));
 			// send the updated channel to the target system
+			step = MigrationTrace.start("push");
 			result = targetSystem.migrateComponent(sourceChannel);
+			step.end();
+			span.end();
 			// check if migration worked like intended
 			boolean success = result.getBoolean("success");
 			// add the channel name as attribute
 			result.put("name", getChannelNameById(channelId));
 
 			// add also the channel id
-			result.put("id", (replacementId == null) ? channelId : channelId + ":" + replacementId);
+			result.put("id", channelIdMapping.isRemapped(channelId) ? channelId + ":" + channelIdMapping.remap(channelId) : channelId);
 			// this attribute is no longer needed here
 			result.remove("success");
 			// add the feedback to one list or the other of the success report depending on the migration outcome
@@ -7638,6 +8804,59 @@ public class MirthMigrator {
 		return overallResult;
 	}
 
+	/**
+	 * Brings a channel of this system into the shape in which it is migrated to the target system:
+	 * <ul>
+	 * <li>the channel id is replaced if there was a replacement for it</li>
+	 * <li>references to external resources are replaced by the ids of the resources with the same name at the target system</li>
+	 * <li>the format is converted to the Mirth version of the target system</li>
+	 * </ul>
+	 * 
+	 * @param targetSystem
+	 *            A mirth client for the target mirth system
+	 * @param channel
+	 *            The channel configuration as provided by this system
+	 * @param channelId
+	 *            The id of the channel at this system
+	 * @param targetChannelId
+	 *            The id the channel has (or will have) at the target system
+	 * @return The adapted channel configuration
+	 * @throws ServiceUnavailableException
+	 */
+	private String adaptChannel(MirthMigrator targetSystem, String channel, String channelId, String targetChannelId)
+			throws ServiceUnavailableException {
+		// all id replacements for this channel are collected and applied at once
+		IdRemapper remapper = new IdRemapper("id", "string");
+		// adapt the id of the channel that has to be migrated (if there was a replacement for this id)
+		remapper.put(channelId, targetChannelId);
+
+		/** External resource reference adaption starts here */
+		Matcher externalResourcesMatcher = externalResourcesPattern.matcher(channel);
+		// if an external resources section with content was found
+		if (externalResourcesMatcher.find()) {
+			// scan all referenced entities
+			Matcher externalResourceEntityMatcher = externalResourceEntityPattern.matcher(externalResourcesMatcher.group());
+			while (externalResourceEntityMatcher.find()) {
+				// get the external resource id
+				String resourceId = externalResourceEntityMatcher.group(1);
+				// and it's name
+				String resourceName = externalResourceEntityMatcher.group(2);
+				// now check if the destination Mirth instance references an external resource with the same name
+				JSONObject resource = targetSystem.getExternalResource(resourceName);
+				if (resource != null) {
+					// indeed. So replace the reference by the reference to the corresponding resource of the target system (for all connectors)
+					remapper.put(resourceId, resource.getString("id"));
+				}
+			}
+		}
+
+		// apply all id replacements in a single pass
+		channel = remapper.apply(channel);
+
+		// convert the format of the channel to the format of the target system
+		return convert(channel, getMirthVersion(), targetSystem.getMirthVersion());
+	}
+
 	/**
 	 * Transforms a list of code templates to the format of the target mirth system and migrates them
 	 * 
@@ -7669,39 +8888,35 @@ public class MirthMigrator {
 	 */
 	private JSONObject updateCodeTemplates(MirthMigrator targetSystem, String[] codeTemplateIds) throws ServiceUnavailableException {
 		JSONObject overallResult, result;
-		Matcher idSeparatorMatcher = null;
 		String codeTemplate;
+		IdRemapper codeTemplateIdMapping = createIdRemapper(codeTemplateIds);
 
 		overallResult = new JSONObject();
 		overallResult.put("success", new JSONArray());
 		overallResult.put("failure", new JSONArray());
 
 		// for all code template that should be migrated
-		for (String codeTemplateId : codeTemplateIds) {
+		for (String codeTemplateId : codeTemplateIdMapping.getOriginalIds()) {
 
-			String replacementId = null;
-
-			// check if there was a replacement for this id
-			idSeparatorMatcher = idSeparatorPattern.matcher(codeTemplateId);
-			if (idSeparatorMatcher.find()) {
-				// indeed, so extract the original id of the source system
-				codeTemplateId = idSeparatorMatcher.group(1);
-				// and also the replacement id that should be used in the destination system
-				replacementId = idSeparatorMatcher.group(2);
-			}
+			// trace the migration of every single code template
+			MigrationTrace.Span span = MigrationTrace.start(CODE_TEMPLATE).put("name", getCodeTemplateNameById(codeTemplateId)).put("id",
+					codeTemplateId);
 
 			// fetch the actual code of the code template that should be migrated from the source system
-			codeTemplate = getCodeTemplate(codeTemplateId);
+			MigrationTrace.Span step = MigrationTrace.start("fetch");
+			codeTemplate = getCodeTemplate(codeTemplateId, true);
+			step.end();
 
-			if (replacementId != null) {
-				// if there is a replacement ID, the id must be changed before migration
-				codeTemplate = codeTemplate.replaceAll("<id>" + codeTemplateId + "</id>", "<id>" + replacementId + "</id>");
-			}
+			// if there is a replacement ID, the id must be changed before migration
+			codeTemplate = new IdRemapper("id").put(codeTemplateId, codeTemplateIdMapping.remap(codeTemplateId)).apply(codeTemplate);
 
 			// convert the format of the code template to the format of the target system
 			codeTemplate = convert(codeTemplate, getMirthVersion(), targetSystem.getMirthVersion());
 			// send the updated code template to the target system
+			step = MigrationTrace.start("push");
 			result = targetSystem.migrateComponent(codeTemplate);
+			step.end();
+			span.end();
 			// check if migration worked like intended
 			boolean success = result.getBoolean("success");
 
@@ -7709,7 +8924,8 @@ public class MirthMigrator {
 			result.put("name", getCodeTemplateNameById(codeTemplateId));
 
 			// add also the code template id
-			result.put("id", (replacementId == null) ? codeTemplateId : codeTemplateId + ":" + replacementId);
+			result.put("id",
+					codeTemplateIdMapping.isRemapped(codeTemplateId) ? codeTemplateId + ":" + codeTemplateIdMapping.remap(codeTemplateId) : codeTemplateId);
 			if (logger.isDebugEnabled()) {
 				logger.debug("Checking for functions of code template " + codeTemplateId);
 			}
@@ -7772,11 +8988,7 @@ public class MirthMigrator {
 	private JSONObject updateChannelGroups(MirthMigrator targetSystem, String[] channelIds)
 			throws ConfigurationException, ServiceUnavailableException {
 
-		Matcher idSeparatorMatcher, channelGroupMatcher, channelGroupNameMatcher, channelGroupIdMatcher, channelReferencesMatcher;
-		HashMap<String, String> targetSystemChannelGroupMapping = new HashMap<String, String>();
-		HashSet<String> collisionDetector = new HashSet<String>();
 		TreeMap<String, JSONObject> newChannelGroups = new TreeMap<String, JSONObject>();
-		String targetChannelGroups = targetSystem.getChannelGroups();
 
 		JSONObject result = new JSONObject();
 		result.put("type", "channelGroup");
@@ -7787,172 +8999,64 @@ public class MirthMigrator {
 			return result;
 		}
 
-		/** 1.) clean up & cache target configuration */
-		// harmonize representation
-		targetChannelGroups = targetChannelGroups.replaceAll("(\\s*)<channels\\/>", "$1<channels>$1<\\/channels>");
-
-		// remove references to channels that should be migrated
-		// loop over all channels that should be migrated
-		for (String channelId : channelIds) {
-
-			// check if there was a replacement for this id
-			idSeparatorMatcher = idSeparatorPattern.matcher(channelId);
-			if (idSeparatorMatcher.find()) {
-				// use the replacement id that should be used in the destination system
-				channelId = idSeparatorMatcher.group(2);
-			}
-
-			// and remove all potential references to the to be migrated channels from the target configuration
-			targetChannelGroups = targetChannelGroups
-					.replaceAll("(\\s*)<channel version[^>]+>\\s*<id>" + channelId + "<\\/id>\\s*<revision>\\d+</revision>\\s*<\\/channel>", "");
-		}
-
-		channelGroupMatcher = channelGroupPattern.matcher(targetChannelGroups);
-
-		// now loop over all target system channel groups
-		while (channelGroupMatcher.find()) {
-			// get the code of the channel group
-			String targetSystemChannelGroupCode = channelGroupMatcher.group();
-
-			// also get the channel group name
-			channelGroupNameMatcher = namePattern.matcher(targetSystemChannelGroupCode);
-			if (!channelGroupNameMatcher.find()) {
-				throw new ConfigurationException("unable to find channel group name: \n" + targetSystemChannelGroupCode);
-			}
-			// add a mapping for the channel group identified by it's name
-			targetSystemChannelGroupMapping.put(channelGroupNameMatcher.group(1), targetSystemChannelGroupCode);
-
-			// get the channel group id
-			channelGroupIdMatcher = idPattern.matcher(targetSystemChannelGroupCode);
-			if (!channelGroupIdMatcher.find()) {
-				throw new ConfigurationException("unable to find channel group id: \n" + targetSystemChannelGroupCode);
-			}
-			// and remember it (it will later on be needed for collision detection)
-			collisionDetector.add(channelGroupIdMatcher.group(1));
-		}
+		/** 1.) parse & index the target configuration */
+		ConfigurationModel targetChannelGroups = ConfigurationModel.parse(targetSystem.getChannelGroups(), ConfigurationModel.Kind.CHANNEL_GROUP);
 
-		/** 2.) fetch the channel group configuration from the source system */
-		String sourceSystemChannelGroups = getChannelGroups();
+		/** 2.) parse & index the channel group configuration of the source system */
+		ConfigurationModel sourceChannelGroups = ConfigurationModel.parse(getChannelGroups(), ConfigurationModel.Kind.CHANNEL_GROUP);
 
 		/** 3.) add the channel groups of the channels that should be migrated to the target configuration */
-		channelGroupMatcher = channelGroupPattern.matcher(sourceSystemChannelGroups);
-		// loop over all source system channel groups
-		while (channelGroupMatcher.find()) {
-			String sourceSystemChannelGroupCode = null;
-			String sourceSystemChannelReferences = "";
-			String sourceSystemChannelGroupName = null;
-			String sourceSystemChannelGroupId = null;
-
-			// get the code of the next channel group
-			sourceSystemChannelGroupCode = channelGroupMatcher.group();
-
-			// try to get hold of channel references
-			channelReferencesMatcher = channelGroupChannelsPattern.matcher(sourceSystemChannelGroupCode);
-
-			// if channel references were found
-			if (channelReferencesMatcher.find()) {
-				// remember them
-				sourceSystemChannelReferences = channelReferencesMatcher.group();
-			}
-
-			// get the channel group name
-			channelGroupNameMatcher = namePattern.matcher(sourceSystemChannelGroupCode);
-			if (!channelGroupNameMatcher.find()) {
-				throw new ConfigurationException("unable to find channel group name: \n" + sourceSystemChannelGroupCode);
-			}
-			sourceSystemChannelGroupName = channelGroupNameMatcher.group(1);
-
-			// and also get the channel group id
-			channelGroupIdMatcher = idPattern.matcher(sourceSystemChannelGroupCode);
-			if (!channelGroupIdMatcher.find()) {
-				throw new ConfigurationException("unable to find channel group id: \n" + sourceSystemChannelGroupCode);
-			}
-			sourceSystemChannelGroupId = channelGroupIdMatcher.group(1);
-
-			// check for each channel if it is referenced by this channel group
-			for (String channelId : channelIds) {
-
-				// check if there was a replacement for this id
-				idSeparatorMatcher = idSeparatorPattern.matcher(channelId);
-
-				String replacementId = null;
-
-				if (idSeparatorMatcher.find()) {
-					// indeed, so extract the original id of the source system
-					channelId = idSeparatorMatcher.group(1);
-					// and also the replacement id that should be used in the destination system
-					replacementId = idSeparatorMatcher.group(2);
-				}
-
-				// if the channel is referenced by this channel group in the source system the same channel group must exist in the target system and
-				// reference the channel
-				if (sourceSystemChannelReferences.contains(channelId)) {
-					// if the channel group does not yet exist in the target system it has to be created as the channel is part of it
-					if (!targetSystemChannelGroupMapping.containsKey(sourceSystemChannelGroupName)) {
-						// clone the source channel group but remove the channel references
-						String newChannelGroup = sourceSystemChannelGroupCode.replaceAll("(\\s*)<channel [\\s\\S]*?<\\/channel>", "");
-
-						String newChannelGroupId = sourceSystemChannelGroupId;
-						// if there is an id collision between the the source system channel group and any channel group at the destination system
-						if (collisionDetector.contains(newChannelGroupId)) {
-							// create a new channel group id
-							newChannelGroupId = UUID.randomUUID().toString();
-							// replace the current ID by a new one
-							newChannelGroup = newChannelGroup.replaceFirst("<id>([^<]+)<\\/id>", "<id>" + newChannelGroupId + "</id>");
-							// and also add it to the channel group id list for including it into future collision detection
-							collisionDetector.add(newChannelGroupId);
-						}
-						// add the new channel group to the channel group list of the target system
-						targetSystemChannelGroupMapping.put(sourceSystemChannelGroupName, newChannelGroup);
-
-						// remember the new channel group
-						JSONObject newChannelGroupInfo = new JSONObject();
-						newChannelGroupInfo.put("name", sourceSystemChannelGroupName);
-						newChannelGroupInfo.put("id", newChannelGroupId);
-						newChannelGroupInfo.put("type", "channelGroup");
-						newChannelGroups.put(sourceSystemChannelGroupName, newChannelGroupInfo);
-					}
-
-					// get the corresponding channel group of the target system
-					String targetSystemChannelGroup = targetSystemChannelGroupMapping.get(sourceSystemChannelGroupName);
-
-					// get the channel reference section of the target system channel group
-					String targetSystemChannelReferences = "";
-					channelReferencesMatcher = channelGroupChannelsPattern.matcher(targetSystemChannelGroup);
-					// if channel references were found
-					if (channelReferencesMatcher.find()) {
-						// remember them
-						targetSystemChannelReferences = channelReferencesMatcher.group();
-					}
-					// if the channel is already referenced there
-					if (targetSystemChannelReferences.indexOf("<id>" + ((replacementId == null) ? channelId : replacementId) + "</id>") > -1) {
-						// then there is nothing more to do
-						continue;
+		IdRemapper channelIdMapping = createIdRemapper(channelIds);
+		for (String channelId : channelIdMapping.getOriginalIds()) {
+
+			// the id that should be used in the destination system (differs in case of an id collision)
+			String targetChannelId = channelIdMapping.remap(channelId);
+
+			// the channel groups of the target system that should reference the channel
+			ArrayList<ConfigurationModel.Entry> assignedChannelGroups = new ArrayList<ConfigurationModel.Entry>();
+
+			// the same channel groups that reference the channel in the source system must exist in the target system and reference the channel
+			for (ConfigurationModel.Entry sourceChannelGroup : sourceChannelGroups.getEntriesReferencing(ConfigurationModel.CHANNELS, channelId)) {
+				String channelGroupName = sourceChannelGroup.getName();
+				ConfigurationModel.Entry targetChannelGroup = targetChannelGroups.getEntry(channelGroupName);
+
+				// if the channel group does not yet exist in the target system it has to be created as the channel is part of it
+				if (targetChannelGroup == null) {
+					// clone the source channel group but remove the channel references
+					targetChannelGroup = sourceChannelGroup.copy();
+					targetChannelGroup.clearMembers();
+
+					// if there is an id collision between the the source system channel group and any channel group at the destination system
+					if (targetChannelGroups.containsId(targetChannelGroup.getId())) {
+						// replace the current ID by a new one
+						targetChannelGroup.setText("id", UUID.randomUUID().toString());
 					}
-
-					// add the channel reference to the channel group (version will be adjusted further down by the convert() function)
-					targetSystemChannelGroup = targetSystemChannelGroup.replaceAll("(\\s*)<channels>",
-							"$1<channels>$1  <channel version=\"1.2.3\">$1    <id>" + ((replacementId == null) ? channelId : replacementId)
-									+ "</id>$1    <revision>0</revision>$1  <\\/channel>");
-					// and put it back into the cache
-					targetSystemChannelGroupMapping.put(sourceSystemChannelGroupName, targetSystemChannelGroup);
+					// add the new channel group to the channel group list of the target system
+					targetChannelGroups.put(targetChannelGroup);
+
+					// remember the new channel group
+					JSONObject newChannelGroupInfo = new JSONObject();
+					newChannelGroupInfo.put("name", channelGroupName);
+					newChannelGroupInfo.put("id", targetChannelGroup.getId());
+					newChannelGroupInfo.put("type", "channelGroup");
+					newChannelGroups.put(channelGroupName, newChannelGroupInfo);
 				}
+
+				// add the channel reference to the channel group if it is not yet there (version will be adjusted further down by the convert()
+				// function)
+				targetChannelGroup.addMember(ConfigurationModel.CHANNELS, targetChannelId);
+				assignedChannelGroups.add(targetChannelGroup);
 			}
-		}
 
-		/** 4.) assemble the channel group configuration for the target system */
-		// create an empty configuration
-		String targetSystemChannelGroups = "<list>\n";
-		// and add all channel groups
-		for (String channelGroup : targetSystemChannelGroupMapping.values()) {
-			// add the channel group
-			targetSystemChannelGroups += "  " + channelGroup + "\n";
+			// remove all other references to the channel from the target configuration (group assignment is determined by the source system)
+			targetChannelGroups.removeMember(ConfigurationModel.CHANNELS, targetChannelId, assignedChannelGroups);
 		}
-		// finish configuration
-		targetSystemChannelGroups += "</list>\n";
 
 		// only migrate if there is something to migrate
-		if (targetSystemChannelGroupMapping.size() > 0) {
+		if (targetChannelGroups.size() > 0) {
+			/** 4.) assemble the channel group configuration for the target system */
+			String targetSystemChannelGroups = targetChannelGroups.toString();
+
 			// assure (or well, at least improve) the compatibility w/ the target mirth version
 			targetSystemChannelGroups = convert(targetSystemChannelGroups, getMirthVersion(), targetSystem.getMirthVersion());
 
@@ -8000,10 +9104,6 @@ public class MirthMigrator {
 	private JSONObject updateCodeTemplateLibraries(MirthMigrator targetSystem, String[] codeTemplateIds, String[] channelIds)
 			throws ConfigurationException, ServiceUnavailableException {
 
-		Matcher codeTemplateLibraryMatcher, codeTemplateLibraryNameMatcher, codeTemplateLibraryIdMatcher, channelReferencesMatcher,
-				codeTemplateReferencesMatcher, idSeparatorMatcher;
-		HashMap<String, String> targetSystemCodeTemplateLibraryMapping = new HashMap<String, String>();
-		HashSet<String> collisionDetector = new HashSet<String>();
 		TreeMap<String, JSONObject> newCodeTemplateLibraries = new TreeMap<String, JSONObject>();
 		String targetCodeTemplateLibaries = targetSystem.getCodeTemplateLibraries();
 
@@ -8025,274 +9125,120 @@ public class MirthMigrator {
 			return result;
 		}
 
-		/** 1.) clean up & cache target configuration */
-		// harmonize representation
-		targetCodeTemplateLibaries = targetCodeTemplateLibaries.replaceAll("(\\s*)<enabledChannelIds\\/>",
-				"$1<enabledChannelIds>$1<\\/enabledChannelIds>");
-		targetCodeTemplateLibaries = targetCodeTemplateLibaries.replaceAll("(\\s*)<disabledChannelIds\\/>",
-				"$1<disabledChannelIds>$1<\\/disabledChannelIds>");
-		targetCodeTemplateLibaries = targetCodeTemplateLibaries.replaceAll("(\\s*)<codeTemplates\\/>", "$1<codeTemplates>$1<\\/codeTemplates>");
-
-		// remove references to channels that should be migrated
-		// loop over all channels that should be migrated
-		for (String channelId : channelIds) {
-			// and remove all potential references to the channels from the target configuration (assigned channels will be determined by the source
-			// system)
-			targetCodeTemplateLibaries = targetCodeTemplateLibaries.replaceAll("(\\s*)<string>" + channelId + "<\\/string>", "");
-		}
-		// now remove references to the code templates that should be migrated from the target configuration
-		// loop over all code templates that should be migrated
-		for (String codeTemplateId : codeTemplateIds) {
-
-			// check if there was a replacement for this id
-			idSeparatorMatcher = idSeparatorPattern.matcher(codeTemplateId);
-			if (idSeparatorMatcher.find()) {
-				// use the replacement id that should be used in the destination system
-				codeTemplateId = idSeparatorMatcher.group(2);
-				// and remove all potential references to the code template from the target configuration
-				targetCodeTemplateLibaries = targetCodeTemplateLibaries
-						.replaceAll("\\s*<codeTemplate version[^>]+>\\s*<id>" + codeTemplateId + "<\\/id>\\s*<\\/codeTemplate >", "");
-			}
-		}
-
-		codeTemplateLibraryMatcher = codeTemplateLibraryPattern.matcher(targetCodeTemplateLibaries);
-		// now loop over all target system code template libraries
-		while (codeTemplateLibraryMatcher.find()) {
-			// get the code of the code template library
-			String targetSystemCodeTemplateLibraryCode = codeTemplateLibraryMatcher.group();
-
-			// also get the code template library name
-			codeTemplateLibraryNameMatcher = namePattern.matcher(targetSystemCodeTemplateLibraryCode);
-			if (!codeTemplateLibraryNameMatcher.find()) {
-				throw new ConfigurationException("unable to find code template library name: \n" + targetSystemCodeTemplateLibraryCode);
-			}
-			// add a mapping for the code template library identified by it's name
-			targetSystemCodeTemplateLibraryMapping.put(codeTemplateLibraryNameMatcher.group(1), targetSystemCodeTemplateLibraryCode);
-			if (logger.isDebugEnabled()) {
-				logger.debug("Detected template library \"" + codeTemplateLibraryNameMatcher.group(1) + "\"");
-			}
-			// get the code template library id
-			codeTemplateLibraryIdMatcher = idPattern.matcher(targetSystemCodeTemplateLibraryCode);
-			if (!codeTemplateLibraryIdMatcher.find()) {
-				throw new ConfigurationException("unable to find code template library id: \n" + targetSystemCodeTemplateLibraryCode);
-			}
-			// and remember it (it will later on be needed for collision detection)
-			collisionDetector.add(codeTemplateLibraryIdMatcher.group(1));
-		}
-
-		/** 2.) fetch the code template library configuration from the source system */
-		String sourceSystemCodeTemplateLibraries = getCodeTemplateLibraries();
-
-		/** 3.) add the code template libraries of the channels or code templates that should be migrated to the target configuration */
-		codeTemplateLibraryMatcher = codeTemplateLibraryPattern.matcher(sourceSystemCodeTemplateLibraries);
-		// loop over all source system code template libraries
-		while (codeTemplateLibraryMatcher.find()) {
-			// get the code of the next code template library
-			String sourceSystemCodeTemplateLibraryCode = codeTemplateLibraryMatcher.group();
-
-			String sourceSystemChannelReferences = "";
-			String sourceSystemCodeTemplateReferences = "";
+		/** 1.) parse & index the target configuration */
+		ConfigurationModel targetLibraries = ConfigurationModel.parse(targetCodeTemplateLibaries, ConfigurationModel.Kind.CODE_TEMPLATE_LIBRARY);
 
-			// try to get hold of channel references
-			channelReferencesMatcher = channelReferencesPattern.matcher(sourceSystemCodeTemplateLibraryCode);
+		/** 2.) parse & index the code template library configuration of the source system */
+		ConfigurationModel sourceLibraries = ConfigurationModel.parse(getCodeTemplateLibraries(), ConfigurationModel.Kind.CODE_TEMPLATE_LIBRARY);
 
-			// if channel references were found
-			if (channelReferencesMatcher.find()) {
-				// remember them
-				sourceSystemChannelReferences = channelReferencesMatcher.group();
-			}
-
-			// try to get hold of code template references
-			codeTemplateReferencesMatcher = codeTemplateReferencesPattern.matcher(sourceSystemCodeTemplateLibraryCode);
-
-			// if code template references were found
-			if (codeTemplateReferencesMatcher.find()) {
-				// remember them
-				sourceSystemCodeTemplateReferences = codeTemplateReferencesMatcher.group();
-			}
-
-			// get the code template library name
-			codeTemplateLibraryNameMatcher = namePattern.matcher(sourceSystemCodeTemplateLibraryCode);
-			if (!codeTemplateLibraryNameMatcher.find()) {
-				throw new ConfigurationException("unable to find code template library name: \n" + sourceSystemCodeTemplateLibraryCode);
-			}
-			String sourceSystemCodeTemplateLibraryName = codeTemplateLibraryNameMatcher.group(1);
-
-			// and also get the code template library id
-			codeTemplateLibraryIdMatcher = idPattern.matcher(sourceSystemCodeTemplateLibraryCode);
-			if (!codeTemplateLibraryIdMatcher.find()) {
-				throw new ConfigurationException("unable to find code template library id: \n" + sourceSystemCodeTemplateLibraryCode);
-			}
-			String sourceSystemCodeTemplateLibraryId = codeTemplateLibraryIdMatcher.group(1);
+		/**
+		 * 3.) add the code template libraries of the code templates that should be migrated to the target configuration (should be done before the
+		 * channel checking because of function dependencies)
+		 */
+		IdRemapper codeTemplateIdMapping = createIdRemapper(codeTemplateIds);
+		for (String codeTemplateId : codeTemplateIdMapping.getOriginalIds()) {
 
-			// check for each code template if it is referenced by this code template library (should be done before the channel checking because of
-			// function dependencies)
-			for (String codeTemplateId : codeTemplateIds) {
+			// the id that should be used in the destination system (differs in case of an id collision)
+			String targetCodeTemplateId = codeTemplateIdMapping.remap(codeTemplateId);
 
-				String replacementId = null;
+			// the code template libraries of the target system that should reference the code template
+			ArrayList<ConfigurationModel.Entry> assignedLibraries = new ArrayList<ConfigurationModel.Entry>();
 
-				// check if there was a replacement for this id
-				idSeparatorMatcher = idSeparatorPattern.matcher(codeTemplateId);
-				if (idSeparatorMatcher.find()) {
-					// indeed, so extract the original id of the source system
-					codeTemplateId = idSeparatorMatcher.group(1);
-					// and also the replacement id that should be used in the destination system
-					replacementId = idSeparatorMatcher.group(2);
+			// loop over all source system code template libraries that reference the code template
+			for (ConfigurationModel.Entry sourceLibrary : sourceLibraries.getEntriesReferencing(ConfigurationModel.CODE_TEMPLATES, codeTemplateId)) {
+				String libraryName = sourceLibrary.getName();
+				if (logger.isDebugEnabled()) {
+					logger.debug("Code Template Library \"{}\" CONTAINS code template \"{}\"", libraryName, getCodeTemplateNameById(codeTemplateId));
 				}
 
-				// if the code template is referenced by this code template library in the source system
-				if (sourceSystemCodeTemplateReferences.contains(codeTemplateId)) {
+				ConfigurationModel.Entry targetLibrary = targetLibraries.getEntry(libraryName);
+				// if the code template library does not yet exist in the destination system it has to be created as the code template is part of it
+				if (targetLibrary == null) {
 					if (logger.isDebugEnabled()) {
-						logger.debug("Code Template Library \"{}\" CONTAINS code template \"{}\"", sourceSystemCodeTemplateLibraryName,
-								getCodeTemplateNameById(codeTemplateId));
+						logger.debug("Adding template library \"" + libraryName + "\" to destination configuration");
 					}
-
-					// if the code template library does not yet exist in the destination system it has to be created as the code template is part of
-					// it
-					if (!targetSystemCodeTemplateLibraryMapping.containsKey(sourceSystemCodeTemplateLibraryName)) {
+					// clone the source system code template library but remove the code template and channel references
+					targetLibrary = sourceLibrary.copy();
+					targetLibrary.clearMembers();
+					// avoid having this library auto-applied to every channel by default
+					targetLibrary.replaceText("includeNewChannels", "false");
+
+					// if there is an id collision between the the source system code template library and any code template library at the
+					// destination system
+					if (targetLibraries.containsId(targetLibrary.getId())) {
+						// replace the current ID by a new one
+						targetLibrary.setText("id", UUID.randomUUID().toString());
 						if (logger.isDebugEnabled()) {
-							logger.debug("Adding template library \"" + sourceSystemCodeTemplateLibraryName + "\" to destination configuration");
-						}
-						// clone the source system code template library but remove the code template references
-						String newCodeTemplateLibrary = sourceSystemCodeTemplateLibraryCode
-								.replaceAll("(\\s*)<codeTemplates[\\s\\S]*?<\\/codeTemplates>", "$1<codeTemplates>$1</codeTemplates>");
-						// remove and harmonize the included channel references
-						newCodeTemplateLibrary = newCodeTemplateLibrary.replaceAll("(\\s*)<enabledChannelIds[\\s\\S]*?<\\/enabledChannelIds>",
-								"$1<enabledChannelIds>$1</enabledChannelIds>");
-						newCodeTemplateLibrary = newCodeTemplateLibrary.replaceAll("(\\s*)<enabledChannelIds\\/>",
-								"$1<enabledChannelIds>$1</enabledChannelIds>");
-						// avoid having this library auto-applied to every channel by default
-						newCodeTemplateLibrary = newCodeTemplateLibrary.replaceAll("(\\s*)<includeNewChannels>true<\\/includeNewChannels>",
-								"$1<includeNewChannels>false</includeNewChannels>");
-						// and also remove the excluded channel references
-						newCodeTemplateLibrary = newCodeTemplateLibrary.replaceAll("(\\s*)<disabledChannelIds[\\s\\S]*?<\\/disabledChannelIds>",
-								"$1<disabledChannelIds>$1</disabledChannelIds>");
-
-						String newCodeTemplateLibraryId = sourceSystemCodeTemplateLibraryId;
-						// if there is an id collision between the the source system code template library and any code template library at the
-						// destination system
-						if (collisionDetector.contains(newCodeTemplateLibraryId)) {
-							// create a new code template library id
-							newCodeTemplateLibraryId = UUID.randomUUID().toString();
-							// replace the current ID by a new one
-							newCodeTemplateLibrary = newCodeTemplateLibrary.replaceFirst("<id>([^<]+)<\\/id>",
-									"<id>" + newCodeTemplateLibraryId + "</id>");
-							// and also add it to the code template library id list for including it into future collision detection
-							collisionDetector.add(newCodeTemplateLibraryId);
-							if (logger.isDebugEnabled()) {
-								logger.debug("Detected ID collision for library \"" + sourceSystemCodeTemplateLibraryName + "\" ==> changed ID to "
-										+ newCodeTemplateLibraryId);
-							}
+							logger.debug("Detected ID collision for library \"" + libraryName + "\" ==> changed ID to " + targetLibrary.getId());
 						}
-						// add the new code template library to the code template library list of the target system
-						targetSystemCodeTemplateLibraryMapping.put(sourceSystemCodeTemplateLibraryName, newCodeTemplateLibrary);
-
-						// remember the new code template library
-						JSONObject newCodeTemplateLibraryInfo = new JSONObject();
-						newCodeTemplateLibraryInfo.put("name", sourceSystemCodeTemplateLibraryName);
-						newCodeTemplateLibraryInfo.put("id", newCodeTemplateLibraryId);
-						newCodeTemplateLibraryInfo.put("type", "codeTemplateLibrary");
-						newCodeTemplateLibraries.put(sourceSystemCodeTemplateLibraryName, newCodeTemplateLibraryInfo);
 					}
+					// add the new code template library to the code template library list of the target system
+					targetLibraries.put(targetLibrary);
+
+					// remember the new code template library
+					JSONObject newCodeTemplateLibraryInfo = new JSONObject();
+					newCodeTemplateLibraryInfo.put("name", libraryName);
+					newCodeTemplateLibraryInfo.put("id", targetLibrary.getId());
+					newCodeTemplateLibraryInfo.put("type", "codeTemplateLibrary");
+					newCodeTemplateLibraries.put(libraryName, newCodeTemplateLibraryInfo);
+				}
 
-					// get the corresponding code template library of the target system
-					String targetSystemCodeTemplateLibrary = targetSystemCodeTemplateLibraryMapping.get(sourceSystemCodeTemplateLibraryName);
-
-					// get the code template reference section of the target system code template library
-					String targetSystemCodeTemplateReferences = "";
-					codeTemplateReferencesMatcher = codeTemplateReferencesPattern.matcher(targetSystemCodeTemplateLibrary);
-					// if code template references were found
-					if (codeTemplateReferencesMatcher.find()) {
-						// remember them
-						targetSystemCodeTemplateReferences = codeTemplateReferencesMatcher.group();
-					}
-					// if the code template is already referenced there
-					if (targetSystemCodeTemplateReferences
-							.indexOf("<id>" + ((replacementId == null) ? codeTemplateId : replacementId) + "</id>") > -1) {
-						if (logger.isDebugEnabled()) {
-							logger.debug("Code Template \"{}\" ({}) is already referenced in code template lbrary \"{}\"",
-									getCodeTemplateNameById(codeTemplateId), ((replacementId == null) ? codeTemplateId : replacementId),
-									sourceSystemCodeTemplateLibraryName);
-						}
-						// then there is nothing more to do
-						continue;
-					}
-					// add the code template reference to the code template library (version will be adjusted at migration)
-					targetSystemCodeTemplateLibrary = targetSystemCodeTemplateLibrary.replaceAll("(\\s*)<codeTemplates>",
-							"$1<codeTemplates>$1  <codeTemplate version=\"1.2.3\">$1    <id>"
-									+ ((replacementId == null) ? codeTemplateId : replacementId) + "</id>$1  </codeTemplate>");
+				// add the code template reference to the code template library (version will be adjusted at migration)
+				if (targetLibrary.addMember(ConfigurationModel.CODE_TEMPLATES, targetCodeTemplateId)) {
 					if (logger.isDebugEnabled()) {
 						logger.debug("ADDED Code Template \"{}\" reference with {} {}", getCodeTemplateNameById(codeTemplateId),
-								(replacementId == null) ? "original ID" : "replacement ID", (replacementId == null) ? codeTemplateId : replacementId);
+								codeTemplateIdMapping.isRemapped(codeTemplateId) ? "replacement ID" : "original ID", targetCodeTemplateId);
 					}
-					// and put it back into the cache
-					targetSystemCodeTemplateLibraryMapping.put(sourceSystemCodeTemplateLibraryName, targetSystemCodeTemplateLibrary);
+				} else if (logger.isDebugEnabled()) {
+					logger.debug("Code Template \"{}\" ({}) is already referenced in code template lbrary \"{}\"", getCodeTemplateNameById(codeTemplateId),
+							targetCodeTemplateId, libraryName);
 				}
+				assignedLibraries.add(targetLibrary);
 			}
 
-			// now check for each channel if it is referenced by this code template library
-			for (String channelId : channelIds) {
+			// remove all other references to the code template from the target configuration (library assignment is determined by the source
+			// system)
+			targetLibraries.removeMember(ConfigurationModel.CODE_TEMPLATES, targetCodeTemplateId, assignedLibraries);
+		}
 
-				String replacementId = null;
+		/** 4.) now add the channel references of the channels that should be migrated to the target configuration */
+		IdRemapper channelIdMapping = createIdRemapper(channelIds);
+		for (String channelId : channelIdMapping.getOriginalIds()) {
 
-				// check if there was a replacement for this id
-				idSeparatorMatcher = idSeparatorPattern.matcher(channelId);
-				if (idSeparatorMatcher.find()) {
-					// indeed, so extract the original id of the source system
-					channelId = idSeparatorMatcher.group(1);
-					// and also the replacement id that should be used in the destination system
-					replacementId = idSeparatorMatcher.group(2);
-				}
+			// the id that should be used in the destination system (differs in case of an id collision)
+			String targetChannelId = channelIdMapping.remap(channelId);
 
-				// if the channel is referenced by this code template library in the source system
-				if (sourceSystemChannelReferences.contains(channelId)) {
-					// if the code template library does not yet exist in the destination system
-					if (!targetSystemCodeTemplateLibraryMapping.containsKey(sourceSystemCodeTemplateLibraryName)) {
-						// skip it - it has not yet been migrated
-						continue;
-					}
+			// the code template libraries of the target system that should be enabled for the channel
+			ArrayList<ConfigurationModel.Entry> enabledLibraries = new ArrayList<ConfigurationModel.Entry>();
 
-					// get the corresponding code template library of the target system
-					String targetSystemCodeTemplateLibrary = targetSystemCodeTemplateLibraryMapping.get(sourceSystemCodeTemplateLibraryName);
-					// if the channel is there already referenced
-					if (targetSystemCodeTemplateLibrary
-							.indexOf("<string>" + ((replacementId == null) ? channelId : replacementId) + "</string>") > -1) {
-						// then there is nothing more to do
-						continue;
-					}
-					// add the channel reference to the code template library
-					targetSystemCodeTemplateLibrary = targetSystemCodeTemplateLibrary.replaceAll("(\\s*)<enabledChannelIds>",
-							"$1<enabledChannelIds>$1  <string>" + ((replacementId == null) ? channelId : replacementId) + "</string>");
-					// and put it back into the cache
-					targetSystemCodeTemplateLibraryMapping.put(sourceSystemCodeTemplateLibraryName, targetSystemCodeTemplateLibrary);
+			// loop over all source system code template libraries that are enabled for the channel
+			for (ConfigurationModel.Entry sourceLibrary : sourceLibraries.getEntriesReferencing(ConfigurationModel.ENABLED_CHANNEL_IDS, channelId)) {
+				ConfigurationModel.Entry targetLibrary = targetLibraries.getEntry(sourceLibrary.getName());
+				// if the code template library does not yet exist in the destination system
+				if (targetLibrary == null) {
+					// skip it - it has not yet been migrated
+					continue;
 				}
+				// add the channel reference to the code template library if it is not yet there
+				targetLibrary.addMember(ConfigurationModel.ENABLED_CHANNEL_IDS, targetChannelId);
+				enabledLibraries.add(targetLibrary);
 			}
-		}
-
-		/** 4.) assemble the code template library configuration for the destination system */
-		// create an empty configuration
-		String targetSystemCodeTemplateLibraries = "<list>\n";
 
-		// and add all code template libraries
-		for (String codeTemplateLibrary : targetSystemCodeTemplateLibraryMapping.values()) {
-			// add the code template library
-			targetSystemCodeTemplateLibraries += "  " + codeTemplateLibrary + "\n";
+			// remove all other references to the channel from the target configuration (assigned channels are determined by the source system)
+			targetLibraries.removeMember(ConfigurationModel.ENABLED_CHANNEL_IDS, targetChannelId, enabledLibraries);
+			targetLibraries.removeMember(ConfigurationModel.DISABLED_CHANNEL_IDS, targetChannelId);
 		}
-		// finish configuration
-		targetSystemCodeTemplateLibraries += "</list>\n";
 
 		// only migrate if there is something to migrate
-		if (targetSystemCodeTemplateLibraryMapping.size() > 0) {
+		if (targetLibraries.size() > 0) {
+			/** 5.) assemble the code template library configuration for the destination system */
+			String targetSystemCodeTemplateLibraries = targetLibraries.toString();
 
 			// assure (or well, at least improve) the compatibility w/ the target mirth version
 			targetSystemCodeTemplateLibraries = convert(targetSystemCodeTemplateLibraries, getMirthVersion(), targetSystem.getMirthVersion());
-			targetSystemCodeTemplateLibraries = targetSystemCodeTemplateLibraries
-					.replaceAll("\\<enabledChannelIds\\>\\s*\\<\\/enabledChannelIds\\>", "<enabledChannelIds/>")
-					.replaceAll("\\<disabledChannelIds\\>\\s*\\<\\/disabledChannelIds\\>", "<disabledChannelIds/>");
-			// last but not least actually migrate the altered code template library configuration to the target system
 
+			// last but not least actually migrate the altered code template library configuration to the target system
 			result = targetSystem.migrateComponent(targetSystemCodeTemplateLibraries);
-			targetCodeTemplateLibaries = targetSystem.getCodeTemplateLibraries();
 		}
 
 		// if migration was successful add a list of all new code template libraries
@@ -8325,10 +9271,6 @@ public class MirthMigrator {
 	 */
 	private JSONObject updateChannelTags(MirthMigrator targetSystem, String[] channelIds) throws ConfigurationException, ServiceUnavailableException {
 
-		Matcher idSeparatorMatcher, tagMatcher, tagNameMatcher, tagIdMatcher, channelIdMatcher;
-		HashMap<String, String> targetSystemChannelTagMapping = new HashMap<String, String>();
-		HashSet<String> collisionDetector = new HashSet<String>();
-
 		TreeSet<String> newTags = new TreeSet<String>();
 
 		JSONObject result = new JSONObject();
@@ -8347,145 +9289,57 @@ public class MirthMigrator {
 			return result;
 		}
 
-		/** 1.) fetch all tags from the target system */
-		// loop over all channels that should be migrated
-		for (String channelId : channelIds) {
-			// check if there was a replacement for this id
-			idSeparatorMatcher = idSeparatorPattern.matcher(channelId);
-			// if the original channel id should be replaced in the target system (due to id collision)
-			if (idSeparatorMatcher.find()) {
-				// use the replacement id that should be used in the destination system
-				channelId = idSeparatorMatcher.group(2);
-			}
-
-			// and remove all potential references to the channels from the target tag list (assigned tags will be determined by the source system)
-			targetTagList = targetTagList.replaceAll("(\\s*)<string>" + channelId + "<\\/string>", "");
-		}
-
-		tagMatcher = channelTagPattern.matcher(targetTagList);
-		// now loop over all source system tags
-		while (tagMatcher.find()) {
-			// get the code of the tag
-			String targetSystemtagCode = tagMatcher.group();
-			// standardize the channel reference section
-			targetSystemtagCode = targetSystemtagCode.replaceAll("(\\s*)<channelIds\\/>", "$1<channelIds>$1</channelIds>");
-			// also get the tag name
-			tagNameMatcher = namePattern.matcher(targetSystemtagCode);
-			if (!tagNameMatcher.find()) {
-				throw new ConfigurationException("unable to find tag name: \n" + targetSystemtagCode);
-			}
-			// add a mapping for the tag identified by it's name
-			targetSystemChannelTagMapping.put(tagNameMatcher.group(1), targetSystemtagCode);
-
-			// get the tag id
-			tagIdMatcher = idPattern.matcher(targetSystemtagCode);
-			if (!tagIdMatcher.find()) {
-				throw new ConfigurationException("unable to find tag id: \n" + targetSystemtagCode);
-			}
-			// and remember it (it will later on be needed for collision detection)
-			collisionDetector.add(tagIdMatcher.group(1));
-		}
+		/** 1.) parse & index the tags of the target system */
+		ConfigurationModel targetTags = ConfigurationModel.parse(targetTagList, ConfigurationModel.Kind.CHANNEL_TAG);
 
-		/** 2.) fetch the tag list form the source system */
-		String sourceSystemTags = getChannelTags();
+		/** 2.) parse & index the tags of the source system */
+		ConfigurationModel sourceTags = ConfigurationModel.parse(getChannelTags(), ConfigurationModel.Kind.CHANNEL_TAG);
 
 		/** 3.) add the tags of the channels that should be migrated to the target configuration */
-		tagMatcher = channelTagPattern.matcher(sourceSystemTags);
-		// loop over all source system tags
-		while (tagMatcher.find()) {
-			// get the code of the next tag
-			String sourceSystemTagCode = tagMatcher.group();
-
-			// try to get hold of channel references
-			channelIdMatcher = channelIdsPattern.matcher(sourceSystemTagCode);
-			// if no channel references were found
-			if (!channelIdMatcher.find()) {
-				// go on w/ the next tag
-				continue;
-			}
-			String channelReferences = channelIdMatcher.group();
-
-			// get the tag name
-			tagNameMatcher = namePattern.matcher(sourceSystemTagCode);
-			if (!tagNameMatcher.find()) {
-				throw new ConfigurationException("unable to find tag name: \n" + sourceSystemTagCode);
-			}
-			String sourceSystemTagName = tagNameMatcher.group(1);
-
-			// and also get it's id
-			tagIdMatcher = idPattern.matcher(sourceSystemTagCode);
-			if (!tagIdMatcher.find()) {
-				throw new ConfigurationException("unable to find tag id: \n" + sourceSystemTagCode);
-			}
-			String sourceSystemTagId = tagIdMatcher.group(1);
-
-			// now check for each channel if it is referenced by this tag
-			for (String channelId : channelIds) {
-
-				String replacementId = null;
-
-				// check if there was a replacement for this id
-				idSeparatorMatcher = idSeparatorPattern.matcher(channelId);
-				if (idSeparatorMatcher.find()) {
-					// indeed, so extract the original id of the source system
-					channelId = idSeparatorMatcher.group(1);
-					// and also the replacement id that should be used in the destination system
-					replacementId = idSeparatorMatcher.group(2);
-				}
-
-				// if the channel is referenced by this tag in the source system
-				if (channelReferences.contains(channelId)) {
-					// if the tag does not yet exist in the destination system, so it has to be created
-					if (!targetSystemChannelTagMapping.containsKey(sourceSystemTagName)) {
-						// clone the source system tag but remove the channel references
-						String newTag = sourceSystemTagCode.replaceAll("(\\s*)<channelIds[\\s\\S]*?<\\/channelIds>", "$1<channelIds>$1</channelIds>");
-						// if there is an id collision between the the source system tag and any tag at the destination system
-						if (collisionDetector.contains(sourceSystemTagId)) {
-							// create a new tag id
-							String newTagId = UUID.randomUUID().toString();
-							// replace the current ID by a new one
-							newTag = sourceSystemTagCode.replaceAll("<id>([^<]+)<\\/id>", "<id>" + newTagId + "</id>");
-							// and also add it to the tag id list for including it into future collision detection
-							collisionDetector.add(newTagId);
-						}
-						// add the new tag to the tag list of the target system
-						targetSystemChannelTagMapping.put(sourceSystemTagName, newTag);
-						// remember the name of the new tag
-						newTags.add(sourceSystemTagName);
+		IdRemapper channelIdMapping = createIdRemapper(channelIds);
+		for (String channelId : channelIdMapping.getOriginalIds()) {
+
+			// the id that should be used in the destination system (differs in case of an id collision)
+			String targetChannelId = channelIdMapping.remap(channelId);
+
+			// the tags of the target system that should reference the channel
+			ArrayList<ConfigurationModel.Entry> assignedTags = new ArrayList<ConfigurationModel.Entry>();
+
+			// loop over all source system tags that reference the channel
+			for (ConfigurationModel.Entry sourceTag : sourceTags.getEntriesReferencing(ConfigurationModel.CHANNEL_IDS, channelId)) {
+				String tagName = sourceTag.getName();
+				ConfigurationModel.Entry targetTag = targetTags.getEntry(tagName);
+
+				// if the tag does not yet exist in the destination system, it has to be created
+				if (targetTag == null) {
+					// clone the source system tag but remove the channel references
+					targetTag = sourceTag.copy();
+					targetTag.clearMembers();
+					// if there is an id collision between the the source system tag and any tag at the destination system
+					if (targetTags.containsId(targetTag.getId())) {
+						// replace the current ID by a new one
+						targetTag.setText("id", UUID.randomUUID().toString());
 					}
-
-					// get the corresponding tag of the target system
-					String targetSystemTag = targetSystemChannelTagMapping.get(sourceSystemTagName);
-					// if the channel is there already referenced
-					if (targetSystemTag.indexOf("<string>" + ((replacementId == null) ? channelId : replacementId) + "</string>") > -1) {
-						// then there is nothing more to do
-						continue;
-					}
-					// add the channel reference to the tag
-					targetSystemTag = targetSystemTag.replaceAll("(\\s*)<channelIds>",
-							"$1<channelIds>$1  <string>" + ((replacementId == null) ? channelId : replacementId) + "</string>");
-					// and put it back into the cache
-					targetSystemChannelTagMapping.put(sourceSystemTagName, targetSystemTag);
+					// add the new tag to the tag list of the target system
+					targetTags.put(targetTag);
+					// remember the name of the new tag
+					newTags.add(tagName);
 				}
+
+				// add the channel reference to the tag if it is not yet there
+				targetTag.addMember(ConfigurationModel.CHANNEL_IDS, targetChannelId);
+				assignedTags.add(targetTag);
 			}
-		}
 
-		/** 4.) assemble the tag list for the destination system */
-		// create an empty configuration
-		String targetSystemChannelTags = "<set>\n";
-		// and add all tags
-		for (String tag : targetSystemChannelTagMapping.values()) {
-			// add the tag
-			targetSystemChannelTags += "  " + tag + "\n";
+			// remove all other references to the channel from the target tag list (assigned tags are determined by the source system)
+			targetTags.removeMember(ConfigurationModel.CHANNEL_IDS, targetChannelId, assignedTags);
 		}
-		// finish configuration
-		targetSystemChannelTags += "</set>\n";
 
 		// only migrate if there is something to migrate
-		if (targetSystemChannelTagMapping.size() > 0) {
+		if (targetTags.size() > 0) {
 			try {
 				// last but not least actually migrate the altered channel tag configuration to the target system
-				result = targetSystem.migrateComponent(targetSystemChannelTags);
+				result = targetSystem.migrateComponent(targetTags.toString());
 			} catch (Exception e) {
 			}
 		}
@@ -8518,9 +9372,6 @@ public class MirthMigrator {
 	private JSONObject updateInterChannelDependencies(MirthMigrator targetSystem, String[] channelIds)
 			throws ServiceUnavailableException, ConfigurationException {
 
-		Matcher idSeparatorMatcher, missingLinkSeparaterMatcher, interChannelDependencyMatcher, interChannelDependencyDetailsMatcher;
-		ArrayList<String> targetInterChannelDependencies = new ArrayList<String>();
-
 		JSONObject result = new JSONObject();
 
 		String interChannelDependencyList = targetSystem.getInterChannelDependencies();
@@ -8533,163 +9384,61 @@ public class MirthMigrator {
 			return result;
 		}
 
-		/** 1.) remove all inter-channel dependencies that involve the channels that are about to be migrated from the target configuration */
-
-		interChannelDependencyMatcher = interChannelDependencyPattern.matcher(interChannelDependencyList);
-		// now loop over all inter-channel dependencies of the target system
-		targetInterChannelDependency: while (interChannelDependencyMatcher.find()) {
-			// get the code of the inter-channel dependency
-			String interChannelDependencyCode = interChannelDependencyMatcher.group();
-
-			// check for all provided channel ids if they are part of this dependency
-			for (String channelId : channelIds) {
-				// check if there was a replacement for this id
-				idSeparatorMatcher = idSeparatorPattern.matcher(channelId);
-				// if the original channel id should be replaced in the target system (due to id collision)
-				if (idSeparatorMatcher.find()) {
-					// use the replacement id that should be used in the destination system
-					channelId = idSeparatorMatcher.group(2);
-				}
-				// if the concerned channel is part of this dependency
-				if (interChannelDependencyCode.contains(channelId)) {
-					// no need to check the remaining channel IDs for this dependency. Go on with the next dependency
-					continue targetInterChannelDependency;
-				}
-			}
+		// maps the source system ids of the channels that are about to be migrated to their ids in the target system
+		IdRemapper migratedChannelIds = createIdRemapper(channelIds);
 
-			// add it to the list of dependencies that should be part of it
-			targetInterChannelDependencies.add(interChannelDependencyCode);
+		/** 1.) remove all inter-channel dependencies that involve the channels that are about to be migrated from the target configuration */
+		ConfigurationModel targetDependencies = ConfigurationModel.parse(interChannelDependencyList, ConfigurationModel.Kind.INTER_CHANNEL_DEPENDENCY);
+		for (String sourceChannelId : migratedChannelIds.getOriginalIds()) {
+			String targetChannelId = migratedChannelIds.remap(sourceChannelId);
+			targetDependencies.removeEntriesReferencing(ConfigurationModel.DEPENDENT_ID, targetChannelId);
+			targetDependencies.removeEntriesReferencing(ConfigurationModel.DEPENDENCY_ID, targetChannelId);
 		}
 
 		/**
 		 * 2.) add the dependencies from the source configuration as long as source and target of the dependency exist (or will exist) in the target
 		 * system
 		 */
-		interChannelDependencyList = getInterChannelDependencies();
-		interChannelDependencyMatcher = interChannelDependencyPattern.matcher(interChannelDependencyList);
-
-		// now loop over all inter-channel dependencies of the source system
-		sourceInterChannelDependency: while (interChannelDependencyMatcher.find()) {
-			// get the code of the inter-channel dependency
-			String interChannelDependencyCode = interChannelDependencyMatcher.group();
-
-			// now extract the dependent and referenced channel ID from the dependency
-			interChannelDependencyDetailsMatcher = interChannelDependencyDetailsPattern.matcher(interChannelDependencyCode);
-			interChannelDependencyDetailsMatcher.find();
-			String sourceDependentId = interChannelDependencyDetailsMatcher.group(1);
-			String sourceReferencedId = interChannelDependencyDetailsMatcher.group(2);
-			String targetDependentId = null;
-			String targetReferencedId = null;
-
-			// check for all provided channel ids if one of them is part of this dependency
-			for (String channelId : channelIds) {
-				String replacementId = null;
-				// check if there was a replacement for this id
-				idSeparatorMatcher = idSeparatorPattern.matcher(channelId);
-				// if the original channel id should be replaced in the target system (due to id collision)
-				if (idSeparatorMatcher.find()) {
-					// use the replacement id that should be used in the destination system
-					channelId = idSeparatorMatcher.group(1);
-					replacementId = idSeparatorMatcher.group(2);
-				}
-
-				// if the channel id is not part of this dependency
-				if (!channelId.equals(sourceDependentId) && !channelId.equals(sourceReferencedId)) {
-					// go on with the next channel id
-					continue;
-				}
-
-				// this channel id is involved in an inter-channel dependency. Check if it's counterpart is as well
-				if (channelId.equals(sourceDependentId)) {
-					targetDependentId = (replacementId != null) ? replacementId : channelId;
-				} else {
-					targetReferencedId = (replacementId != null) ? replacementId : channelId;
-				}
-
-				// one side has been found. Now try to identify the other side either in the target system or in the list of IDs that have to be
-				// migrated.
-				String counterpart = (targetDependentId == null) ? sourceDependentId : sourceReferencedId;
-				String sourceChannelName = getChannelNameById(counterpart);
-				// if a channel name for the ID was found (should always be the case but you never know...)
-				if (sourceChannelName == null) {
-					// go on w/ the next dependency
-					continue sourceInterChannelDependency;
-				}
-
-				// check if there is a channel w/ the same name on the target system
-				String targetChannelId = targetSystem.getChannelIdByName(sourceChannelName);
-				// if there is one
-				if (targetChannelId != null) {
-					// set the corresponding id
-					if (targetDependentId == null) {
-						// the dependent ID was missing
-						targetDependentId = targetChannelId;
-					} else {
-						// the referenced ID was missing
-						targetReferencedId = targetChannelId;
-					}
-				} else {
-					// Plan B: check if one of the IDs of the channels that are about to be migrated is part of the dependencies
-					for (String missingLink : channelIds) {
-						String missingLinkReplacement = null;
-						// check if there was a replacement for this id
-						missingLinkSeparaterMatcher = idSeparatorPattern.matcher(missingLink);
-						// if the original channel id should be replaced in the target system (due to id collision)
-						if (missingLinkSeparaterMatcher.find()) {
-							// use the replacement id that should be used in the destination system
-							missingLink = missingLinkSeparaterMatcher.group(1);
-							missingLinkReplacement = missingLinkSeparaterMatcher.group(2);
-						}
-
-						// if a match between the mapping and another channel that should be migrated was found
-						if (counterpart.equals(missingLink)) {
-							// set the corresponding id
-							if (targetDependentId == null) {
-								// the dependent ID was missing
-								targetDependentId = (missingLinkReplacement == null) ? missingLink : missingLinkReplacement;
-							} else {
-								// the referenced ID was missing
-								targetReferencedId = (missingLinkReplacement == null) ? missingLink : missingLinkReplacement;
-							}
-							// no need to check the remaining IDs as a match was found
-							break;
-						}
-					}
-				}
+		ConfigurationModel sourceDependencies = ConfigurationModel.parse(getInterChannelDependencies(),
+				ConfigurationModel.Kind.INTER_CHANNEL_DEPENDENCY);
+
+		for (String sourceChannelId : migratedChannelIds.getOriginalIds()) {
+			// collect all dependencies in which the channel is involved (no matter on which side)
+			ArrayList<ConfigurationModel.Entry> involvedIn = new ArrayList<ConfigurationModel.Entry>();
+			involvedIn.addAll(sourceDependencies.getEntriesReferencing(ConfigurationModel.DEPENDENT_ID, sourceChannelId));
+			involvedIn.addAll(sourceDependencies.getEntriesReferencing(ConfigurationModel.DEPENDENCY_ID, sourceChannelId));
+
+			for (ConfigurationModel.Entry sourceDependency : involvedIn) {
+				// one side has been found. Now try to identify the other side either in the list of IDs that have to be migrated or in the target system
+				String targetDependentId = resolveTargetChannelId(targetSystem, sourceDependency.getText(ConfigurationModel.DEPENDENT_ID),
+						migratedChannelIds);
+				String targetReferencedId = resolveTargetChannelId(targetSystem, sourceDependency.getText(ConfigurationModel.DEPENDENCY_ID),
+						migratedChannelIds);
 
 				// if no mapping was found
 				if ((targetDependentId == null) || (targetReferencedId == null)) {
 					// ignore this mapping and go on w/ the next
-					continue sourceInterChannelDependency;
+					continue;
 				}
 
 				// replace the IDs
-				interChannelDependencyCode.replaceFirst(sourceDependentId, targetDependentId).replaceFirst(sourceReferencedId, targetReferencedId);
-				// and add the dependency to the target configuration
-				targetInterChannelDependencies.add(interChannelDependencyCode);
-				// job is done for this inter-channel dependency
-				break;
+				ConfigurationModel.Entry targetDependency = sourceDependency.copy();
+				targetDependency.setText(ConfigurationModel.DEPENDENT_ID, targetDependentId);
+				targetDependency.setText(ConfigurationModel.DEPENDENCY_ID, targetReferencedId);
+				// and add the dependency to the target configuration (a dependency between two migrated channels is only added once)
+				targetDependencies.put(targetDependency);
 			}
 		}
 
-		/** 3.) assemble the updated inter-channel dependency configuration for the target system */
-		// create an empty configuration
-		String targetSystemInterChannelDependencies = "<set>\n";
-		// and add all inter-channel dependencies
-		for (String interChannelDependency : targetInterChannelDependencies) {
-			// add the inter-channel dependency
-			targetSystemInterChannelDependencies += "  " + interChannelDependency + "\n";
-		}
-		// finish configuration
-		targetSystemInterChannelDependencies += "</set>\n";
-
 		// only migrate if there is something to migrate
-		if (targetInterChannelDependencies.size() > 0) {
+		if (targetDependencies.size() > 0) {
 			try {
-				// convert pruning settings
+				/** 3.) assemble the updated inter-channel dependency configuration for the target system */
+				String targetSystemInterChannelDependencies = targetDependencies.toString();
+				// convert inter-channel dependencies
 				targetSystemInterChannelDependencies = convert(targetSystemInterChannelDependencies, getMirthVersion(),
 						targetSystem.getMirthVersion());
-				// last but not least actually migrate the altered channel pruning configuration to the target system
+				// last but not least actually migrate the altered inter-channel dependency configuration to the target system
 				result = targetSystem.migrateComponent(targetSystemInterChannelDependencies);
 				result.put("configuration", targetSystemInterChannelDependencies);
 			} catch (Exception e) {
@@ -8701,6 +9450,32 @@ public class MirthMigrator {
 		return result;
 	}
 
+	/**
+	 * Determines the id a channel of the source system possesses (or will possess) in the target system
+	 * 
+	 * @param targetSystem
+	 *            The client for the target system
+	 * @param sourceChannelId
+	 *            The id of the channel in the source system
+	 * @param migratedChannelIds
+	 *            Maps the ids of the channels that are about to be migrated to their ids in the target system
+	 * @return The id of the channel in the target system or null if the channel neither exists in the target system nor is about to be migrated
+	 * @throws ConfigurationException
+	 * @throws ServiceUnavailableException
+	 */
+	private String resolveTargetChannelId(MirthMigrator targetSystem, String sourceChannelId, IdRemapper migratedChannelIds)
+			throws ConfigurationException, ServiceUnavailableException {
+		// if the channel is about to be migrated, it's id is already known
+		if (migratedChannelIds.getOriginalIds().contains(sourceChannelId)) {
+			return migratedChannelIds.remap(sourceChannelId);
+		}
+
+		// otherwise check if there is a channel w/ the same name on the target system
+		String sourceChannelName = getChannelNameById(sourceChannelId);
+		// if a channel name for the ID was found (should always be the case but you never know...)
+		return (sourceChannelName == null) ? null : targetSystem.getChannelIdByName(sourceChannelName);
+	}
+
 	/**
 	 * Updates the pruning options of the channels
 	 * 
@@ -8723,9 +9498,6 @@ public class MirthMigrator {
 	 */
 	private JSONObject updateChannelPrunings(MirthMigrator targetSystem, String[] channelIds)
 			throws ConfigurationException, ServiceUnavailableException {
-		Matcher idSeparatorMatcher, pruningMatcher, channelIdMatcher;
-		HashMap<String, String> sourceSystemChannelPruningMapping = new HashMap<String, String>();
-		HashMap<String, String> targetSystemChannelPruningMapping = new HashMap<String, String>();
 
 		JSONObject result = new JSONObject();
 
@@ -8741,84 +9513,36 @@ public class MirthMigrator {
 			return result;
 		}
 
-		/** 1.) fetch the pruning configurations form the source system */
-
-		pruningMatcher = pruningPattern.matcher(sourceSystemChannelPruning);
-		// loop over all source system tags
-		while (pruningMatcher.find()) {
-			// get the code of the next tag
-			String sourceSystemChannelPruningCode = pruningMatcher.group();
-
-			// try to get hold of channel reference
-			channelIdMatcher = stringPattern.matcher(sourceSystemChannelPruningCode);
-			// if no channel reference was found
-			if (!channelIdMatcher.find()) {
-				// go on w/ the next tag
-				continue;
-			}
-			// get the channel id of this pruning configuration
-			String sourceChannelId = channelIdMatcher.group(1);
-			// add a mapping for the pruning setting identified by the channel id
-			sourceSystemChannelPruningMapping.put(sourceChannelId, sourceSystemChannelPruningCode);
-		}
-
-		/** 2.) fetch all pruning settings from the target system */
+		/** 1.) parse & index the pruning configurations of the source system */
+		ConfigurationModel sourcePrunings = ConfigurationModel.parse(sourceSystemChannelPruning, ConfigurationModel.Kind.CHANNEL_PRUNING);
 
-		pruningMatcher = pruningPattern.matcher(targetChannelPruning);
-		// now loop over all target system pruning settings
-		while (pruningMatcher.find()) {
-			// get the code of the channel pruning
-			String targetSystemChannelPruningCode = pruningMatcher.group();
-
-			// also get the id of the channel the pruning configuration is for
-			channelIdMatcher = stringPattern.matcher(targetSystemChannelPruningCode);
-			if (!channelIdMatcher.find()) {
-				throw new ConfigurationException("unable to find channel id: \n" + targetSystemChannelPruningCode);
-			}
-			// channel id
-			String targetChannelId = channelIdMatcher.group(1);
-			// add a mapping for the pruning setting identified by the channel id
-			targetSystemChannelPruningMapping.put(targetChannelId, targetSystemChannelPruningCode);
-		}
+		/** 2.) parse & index the pruning configurations of the target system */
+		ConfigurationModel targetPrunings = ConfigurationModel.parse(targetChannelPruning, ConfigurationModel.Kind.CHANNEL_PRUNING);
 
 		/** 3.) add/replace the pruning configuration in the target system for the channels that should be migrated */
+		IdRemapper channelIdMapping = createIdRemapper(channelIds);
+		for (String sourceChannelId : channelIdMapping.getOriginalIds()) {
+			// the new channel id for the target system (differs in case of an id collision)
+			String targetChannelId = channelIdMapping.remap(sourceChannelId);
 
-		for (String sourceChannelId : channelIds) {
-			String targetChannelId = sourceChannelId;
-			// check if there was a replacement for this id
-			idSeparatorMatcher = idSeparatorPattern.matcher(sourceChannelId);
-			// if there was one
-			if (idSeparatorMatcher.find()) {
-				// get the channel id of the source system
-				sourceChannelId = idSeparatorMatcher.group(1);
-				// and also the new channel id for the target system
-				targetChannelId = idSeparatorMatcher.group(2);
-			}
-
-			// remove the corresponding pruning settings from the target configuration
-			targetSystemChannelPruningMapping.remove(targetChannelId);
 			// get the pruning setting of the channel from the source system
-			String channelPruningCode = sourceSystemChannelPruningMapping.get(sourceChannelId);
+			ConfigurationModel.Entry sourcePruning = sourcePrunings.getEntry(sourceChannelId);
+			if (sourcePruning == null) {
+				// there is nothing to transfer - keep the settings of the target system
+				continue;
+			}
 			// adjust the channel id
-			channelPruningCode = channelPruningCode.replaceAll("<string>([^<]+)<\\/string>", "<string>" + targetChannelId + "</string>");
-			// add set the pruning information for the new channel in the target system
-			targetSystemChannelPruningMapping.put(targetChannelId, channelPruningCode);
+			ConfigurationModel.Entry targetPruning = sourcePruning.copy();
+			targetPruning.setText(ConfigurationModel.PRUNED_CHANNEL_ID, targetChannelId);
+			// set the pruning information for the new channel in the target system (replaces the current settings)
+			targetPrunings.put(targetPruning);
 		}
 
-		/** 4.) assemble the updated pruning configuration for the target system */
-		// create an empty configuration
-		String targetSystemChannelPrunings = "<map>\n";
-		// and add all channel prunings
-		for (String pruning : targetSystemChannelPruningMapping.values()) {
-			// add the channel pruning
-			targetSystemChannelPrunings += "  " + pruning + "\n";
-		}
-		// finish configuration
-		targetSystemChannelPrunings += "</map>\n";
-
 		// only migrate if there is something to migrate
-		if (targetSystemChannelPruningMapping.size() > 0) {
+		if (targetPrunings.size() > 0) {
 			try {
+				/** 4.) assemble the updated pruning configuration for the target system */
+				String targetSystemChannelPrunings = targetPrunings.toString();
 				// convert pruning settings
 				targetSystemChannelPrunings = convert(targetSystemChannelPrunings, getMirthVersion(), targetSystem.getMirthVersion());
 				// last but not least actually migrate the altered channel pruning configuration to the target system
@@ -8831,6 +9555,36 @@ public class MirthMigrator {
 		return result;
 	}
 
+	/**
+	 * Creates an id remapper from a list of component ids as it is passed between the migration steps. An entry either consists of the id alone or,
+	 * in case of an id collision, of the original id of the source system and the replacement id for the target system separated by a colon.
+	 * 
+	 * @param ids
+	 *            A list of component ids (the list may be null)
+	 * @param elements
+	 *            The names of the elements whose content should be remapped when the remapper is applied to a configuration
+	 * @return The remapper that maps the original ids of the source system to the ids that should be used in the target system
+	 */
+	private static IdRemapper createIdRemapper(String[] ids, String... elements) {
+		IdRemapper remapper = new IdRemapper(elements);
+
+		if (ids != null) {
+			for (String id : ids) {
+				// check if there was a replacement for this id
+				Matcher idSeparatorMatcher = idSeparatorPattern.matcher(id);
+				if (idSeparatorMatcher.find()) {
+					// indeed, so map the original id of the source system to the replacement id that should be used in the destination system
+					remapper.put(idSeparatorMatcher.group(1), idSeparatorMatcher.group(2));
+				} else {
+					// the id remains the same
+					remapper.put(id, id);
+				}
+			}
+		}
+
+		return remapper;
+	}
+
 	/**
 	 * Provides a map that maps code templates to the library to which they belong
 	 *
@@ -8909,6 +9663,29 @@ public class MirthMigrator {
 	 * @return The converted component suitable for the targeted version
 	 */
 	public static String convert(String component, MirthVersion sourceVersion, MirthVersion targetVersion) {
+		MigrationTrace.Span span = MigrationTrace.start("convert");
+		long start = System.nanoTime();
+		try {
+			return convertComponent(component, sourceVersion, targetVersion);
+		} finally {
+			// keep track of the time spent for conversions
+			MirthMigratorMetrics.recordPhase("versionConversion", System.nanoTime() - start);
+			span.end();
+		}
+	}
+
+	/**
+	 * Applies the actual version conversion (see {@link #convert(String, MirthVersion, MirthVersion)})
+	 * 
+	 * @param component
+	 *            The XML representation of the component
+	 * @param sourceVersion
+	 *            The current mirth version of the component
+	 * @param targetVersion
+	 *            The mirth version for which the component is needed
+	 * @return The converted component suitable for the targeted version
+	 */
+	private static String convertComponent(String component, MirthVersion sourceVersion, MirthVersion targetVersion) {
 
 		float source = sourceVersion.getVersionAsFloat();
 		float target = targetVersion.getVersionAsFloat();
@@ -9202,14 +9979,39 @@ public class MirthMigrator {
 	 * @throws ServiceUnavailableException
 	 */
 	private JSONObject pushGroupComponent(HttpURLConnection urlConnection, String groups, String componentType) throws ServiceUnavailableException {
+		return pushGroupComponent(urlConnection, groups, componentType, true, true);
+	}
+
+	/**
+	 * This function updates a group component such as channel groups and code template libraries
+	 * 
+	 * @param urlConnection
+	 *            The connection to the webservice
+	 * @param groups
+	 *            The groups that will be updated
+	 * @param componentType
+	 *            Indicates either channelGroup or codeTemplateLibrary
+	 * @param mayCompress
+	 *            If false, the request is never compressed (see {@link TransferCompression})
+	 * @param mayReplay
+	 *            If true, the request is repeated once with a new session if the session is rejected (see {@link ServerSession})
+	 * @return a JSON object as described at {@link #pushGroupComponent(HttpURLConnection, String, String)}
+	 * @throws ServiceUnavailableException
+	 */
+	private JSONObject pushGroupComponent(HttpURLConnection urlConnection, String groups, String componentType, boolean mayCompress,
+			boolean mayReplay) throws ServiceUnavailableException {
 		JSONObject result = new JSONObject();
 		result.put("success", false);
 		result.put("type", componentType);
+		long start = System.nanoTime();
+		TransferCompression compression = null;
+		boolean compressed = false;
 
 		try {
-			String payload = "";
+			RequestBodyWriter payload = new RequestBodyWriter();
 			String name = (componentType.equals("channelGroup")) ? "channelGroups" : "libraries";
 			String boundary = "***" + System.currentTimeMillis() + "***";
+			String sessionCookie = getServerSessionCookie();
 
 			if (logger.isDebugEnabled()) {
 				logger.debug("Calling webservice: \n" + urlConnection.getURL().getPath());
@@ -9221,49 +10023,67 @@ public class MirthMigrator {
 			urlConnection.setRequestMethod("POST");
 			urlConnection.setRequestProperty("Connection", "Keep-Alive");
 			urlConnection.setRequestProperty("X-Requested-With", MirthMigrator.clientIdentifier);
-			urlConnection.setRequestProperty("Cookie", getServerSessionCookie());
+			urlConnection.setRequestProperty("Cookie", sessionCookie);
 			urlConnection.setRequestProperty("Cache-Control", "no-cache");
 			urlConnection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary + "; charset=UTF-8");
 			urlConnection.setRequestProperty("accept", "application/json, application/xml");
 			// urlConnection.setRequestProperty("Accept", "application/json");
 
-			payload += "--" + boundary + "\n";
-			payload += "Content-Disposition: form-data; name=\"" + name + "\"\n";
-			payload += "Content-Type: application/xml; charset=UTF-8\n";
-			payload += "Content-Transfer-Encoding: 8bit\n\n";
-			payload += groups;
-			payload += "\n\n--" + boundary + "\n";
+			// the group configuration is referenced by the body, not copied
+			payload.append("--" + boundary + "\n" + "Content-Disposition: form-data; name=\"" + name + "\"\n"
+					+ "Content-Type: application/xml; charset=UTF-8\n" + "Content-Transfer-Encoding: 8bit\n\n");
+			payload.append(groups);
+			payload.append("\n\n--" + boundary + "\n");
 
 			if (componentType.equals("channelGroup")) {
-				payload += "Content-Disposition: form-data; name=\"removedChannelGroupIds\"\n";
-				payload += "Content-Type: application/xml; charset=UTF-8\n\n";
-				payload += "<set/> \n";
-				payload += "\n--" + boundary + "--\n\n";
-				// send channelgroup update request to the server
-				urlConnection.getOutputStream().write(payload.getBytes(StandardCharsets.UTF_8));
+				payload.append("Content-Disposition: form-data; name=\"removedChannelGroupIds\"\n" + "Content-Type: application/xml; charset=UTF-8\n\n"
+						+ "<set/> \n" + "\n--" + boundary + "--\n\n");
 			} else {
-				payload += "Content-Disposition: form-data; name=\"removedCodeTemplateIds\"\n";
-				payload += "Content-Type: application/xml; charset=UTF-8\n\n";
-				payload += "<set/> \n";
-				payload += "\n--" + boundary + "\n\n";
-				payload += "Content-Disposition: form-data; name=\"updatedCodeTemplates\"\n";
-				payload += "Content-Type: application/xml; charset=UTF-8\n\n";
-				payload += "<set/> \n";
-				payload += "\n--" + boundary + "\n\n";
-				payload += "Content-Disposition: form-data; name=\"removedLibraryIds\"\n";
-				payload += "Content-Type: application/xml; charset=UTF-8\n\n";
-				payload += "<set/> \n";
-				payload += "\n--" + boundary + "--\n\n";
-				// send code template library update request to the server
-				urlConnection.getOutputStream().write(payload.getBytes(StandardCharsets.UTF_8));
+				payload.append("Content-Disposition: form-data; name=\"removedCodeTemplateIds\"\n" + "Content-Type: application/xml; charset=UTF-8\n\n"
+						+ "<set/> \n" + "\n--" + boundary + "\n\n");
+				payload.append("Content-Disposition: form-data; name=\"updatedCodeTemplates\"\n" + "Content-Type: application/xml; charset=UTF-8\n\n"
+						+ "<set/> \n" + "\n--" + boundary + "\n\n");
+				payload.append("Content-Disposition: form-data; name=\"removedLibraryIds\"\n" + "Content-Type: application/xml; charset=UTF-8\n\n"
+						+ "<set/> \n" + "\n--" + boundary + "--\n\n");
 			}
 
 			if (logger.isDebugEnabled()) {
 				logger.debug("Content is: \n" + payload);
 			}
 
-			urlConnection.getOutputStream().flush();
-			urlConnection.getOutputStream().close();
+			// large updates are sent compressed if the service accepts it
+			compression = TransferCompression.get(urlConnection.getURL());
+			compressed = mayCompress && compression.compressRequest(payload.length());
+			// stream the update request to the server
+			long sent = payload.writeTo(urlConnection, compressed);
+
+			// keep track of the service performance
+			MirthMigratorMetrics.recordBytesSent(urlConnection.getURL(), "POST", sent);
+			MirthMigratorMetrics.recordCall(urlConnection.getURL(), "POST", urlConnection.getResponseCode(), System.nanoTime() - start, 0);
+			SystemHealth.get(urlConnection.getURL()).recordSuccess();
+
+			if ((urlConnection.getResponseCode() == 401) && mayReplay) {
+				// the session was rejected - repeat the update once with a new session
+				urlConnection.disconnect();
+				if (serverSession.renew(sessionCookie) != null) {
+					return pushGroupComponent(connectToRestService(urlConnection.getURL().getFile()), groups, componentType, mayCompress, false);
+				}
+			} else if (urlConnection.getResponseCode() != 401) {
+				// the session has been accepted
+				serverSession.recordUse();
+			}
+
+			if (compressed && TransferCompression.isRejection(urlConnection.getResponseCode())) {
+				// the service might not be able to inflate the request - repeat it uncompressed
+				urlConnection.disconnect();
+				JSONObject retry = pushGroupComponent(connectToRestService(urlConnection.getURL().getFile()), groups, componentType, false,
+						mayReplay);
+				if (retry.getBoolean("success")) {
+					// it was indeed the compression
+					compression.recordRejectedRequest(urlConnection.getResponseCode());
+				}
+				return retry;
+			}
 
 			if ((urlConnection.getResponseCode() >= 200) && (urlConnection.getResponseCode() < 300)) {
 				result.put("success", true);
@@ -9300,6 +10120,8 @@ public class MirthMigrator {
 						"migration error (pushGroupComponent): " + urlConnection.getResponseMessage() + " (" + urlConnection.getResponseCode() + ")");
 			}
 		} catch (IOException e) {
+			MirthMigratorMetrics.recordCall(urlConnection.getURL(), "POST", -1, System.nanoTime() - start, 0);
+			SystemHealth.get(urlConnection.getURL()).recordFailure(e.getMessage());
 			result.put("errorMessage", "Group component update failed");
 			logger.error("Group component update failed: \n" + e.getMessage());
 		}
@@ -9325,24 +10147,78 @@ public class MirthMigrator {
 	 * @throws ServiceUnavailableException
 	 */
 	private JSONObject pushLeafComponent(HttpURLConnection urlConnection, String component) throws ServiceUnavailableException {
+		return pushLeafComponent(urlConnection, component, true, true);
+	}
+
+	/**
+	 * This function updates a specified subtype such as channel or codetemplate.
+	 * 
+	 * @param urlConnection
+	 *            The already defined URLConnection whether for channel or codeTemplate
+	 * @param component
+	 *            The component content that will be updated
+	 * @param mayCompress
+	 *            If false, the request is never compressed (see {@link TransferCompression})
+	 * @param mayReplay
+	 *            If true, the request is repeated once with a new session if the session is rejected (see {@link ServerSession})
+	 * @return a JSON object as described at {@link #pushLeafComponent(HttpURLConnection, String)}
+	 * @throws ServiceUnavailableException
+	 */
+	private JSONObject pushLeafComponent(HttpURLConnection urlConnection, String component, boolean mayCompress, boolean mayReplay)
+			throws ServiceUnavailableException {
 		JSONObject result = new JSONObject();
 		result.put("success", false);
+		long start = System.nanoTime();
+		TransferCompression compression = TransferCompression.get(urlConnection.getURL());
+		boolean compressed = false;
+		String sessionCookie = getServerSessionCookie();
 
 		try {
 			urlConnection.setRequestProperty("Content-Type", "application/xml");
 			urlConnection.setRequestProperty("X-Requested-With", MirthMigrator.clientIdentifier);
 			urlConnection.setRequestProperty("accept", "application/json, application/xml");
 			urlConnection.setRequestMethod("PUT");
-			urlConnection.setRequestProperty("Cookie", getServerSessionCookie());
+			urlConnection.setRequestProperty("Cookie", sessionCookie);
 			urlConnection.setDoOutput(true);
 			urlConnection.setDoInput(true);
-			urlConnection.getOutputStream().write(component.getBytes(StandardCharsets.UTF_8));
+			RequestBodyWriter body = new RequestBodyWriter().append(component);
+			// large components are sent compressed if the service accepts it
+			compressed = mayCompress && compression.compressRequest(body.length());
+			// stream the component to the server
+			long sent = body.writeTo(urlConnection, compressed);
 
 			if (logger.isDebugEnabled()) {
 				logger.debug("Destination is: \n" + urlConnection.getURL().getPath());
 				logger.debug("Content is: \n" + component);
 			}
 
+			// keep track of the service performance
+			MirthMigratorMetrics.recordBytesSent(urlConnection.getURL(), "PUT", sent);
+			MirthMigratorMetrics.recordCall(urlConnection.getURL(), "PUT", urlConnection.getResponseCode(), System.nanoTime() - start, 0);
+			SystemHealth.get(urlConnection.getURL()).recordSuccess();
+
+			if ((urlConnection.getResponseCode() == 401) && mayReplay) {
+				// the session was rejected - repeat the update once with a new session
+				urlConnection.disconnect();
+				if (serverSession.renew(sessionCookie) != null) {
+					return pushLeafComponent(connectToRestService(urlConnection.getURL().getFile()), component, mayCompress, false);
+				}
+			} else if (urlConnection.getResponseCode() != 401) {
+				// the session has been accepted
+				serverSession.recordUse();
+			}
+
+			if (compressed && TransferCompression.isRejection(urlConnection.getResponseCode())) {
+				// the service might not be able to inflate the request - repeat it uncompressed
+				urlConnection.disconnect();
+				JSONObject retry = pushLeafComponent(connectToRestService(urlConnection.getURL().getFile()), component, false, mayReplay);
+				if (retry.getBoolean("success")) {
+					// it was indeed the compression
+					compression.recordRejectedRequest(urlConnection.getResponseCode());
+				}
+				return retry;
+			}
+
 			if ((urlConnection.getResponseCode() >= 200) && (urlConnection.getResponseCode() < 300)) {
 				result.put("success", true);
 			} else {
@@ -9378,6 +10254,8 @@ public class MirthMigrator {
 						"migration error (pushLeafComponent): " + urlConnection.getResponseMessage() + " (" + urlConnection.getResponseCode() + ")");
 			}
 		} catch (IOException e) {
+			MirthMigratorMetrics.recordCall(urlConnection.getURL(), "PUT", -1, System.nanoTime() - start, 0);
+			SystemHealth.get(urlConnection.getURL()).recordFailure(e.getMessage());
 			result.put("errorMessage", "Leaf component update failed");
 			logger.error("Leaf component update failed");
 		}
@@ -9482,6 +10360,11 @@ public class MirthMigrator {
 			result.put("errorMessage", "Component type\"" + componentType + "\" is unknown.");
 		}
 
+		// the stored content of a pushed component is outdated in any case
+		if (componentId != null) {
+			this.componentContents.remove(componentType, componentId);
+		}
+
 		// assure that the type attribute is set for every component type
 		result.put("type", componentType);
 
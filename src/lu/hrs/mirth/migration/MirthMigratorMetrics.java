@@ -0,0 +1,435 @@
+package lu.hrs.mirth.migration;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.json.JSONObject;
+
+/**
+ * Collects runtime metrics of all Mirth Migrator clients:
+ * <ul>
+ * <li><b>REST calls</b> - a latency histogram as well as the transferred bytes per Mirth service and endpoint</li>
+ * <li><b>Re-logins</b> - the number of sessions that had to be re-established because the Mirth service rejected the session</li>
+ * <li><b>Caches</b> - hits, misses and the time needed for rebuilding the caches of every Mirth client</li>
+ * <li><b>Analysis phases</b> - the time spent in the different analysis steps (e.g. function reference detection)</li>
+ * </ul>
+ * The metrics are provided via {@link MirthMigrator#getMetrics(boolean)} and, if the JVM is started with
+ * <b>-Dlu.hrs.mirth.migration.jmx=true</b> (or {@link #registerMBean()} is called), also as MBean <b>lu.hrs.mirth.migration:type=Metrics</b>.
+ */
+public class MirthMigratorMetrics implements MirthMigratorMetricsMBean {
+
+	/** The name under which the metrics are registered at the platform MBean server */
+	public final static String MBEAN_NAME = "lu.hrs.mirth.migration:type=Metrics";
+
+	/** The upper bounds of the latency histogram buckets in milliseconds */
+	private final static long[] latencyBuckets = { 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+	/** Identifies component ids in endpoint paths so that the calls for all components are aggregated */
+	private final static Pattern idPattern = Pattern.compile("/[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+	private final static ConcurrentHashMap<String, Timer> endpoints = new ConcurrentHashMap<String, Timer>();
+	private final static ConcurrentHashMap<String, LongAdder> relogins = new ConcurrentHashMap<String, LongAdder>();
+	private final static ConcurrentHashMap<String, CacheStatistics> caches = new ConcurrentHashMap<String, CacheStatistics>();
+	private final static ConcurrentHashMap<String, Timer> phases = new ConcurrentHashMap<String, Timer>();
+	/** The point of time since which the metrics are collected */
+	private static volatile long since = System.currentTimeMillis();
+
+	private final static MirthMigratorMetrics instance = new MirthMigratorMetrics();
+
+	static {
+		if (Boolean.getBoolean("lu.hrs.mirth.migration.jmx")) {
+			registerMBean();
+		}
+	}
+
+	private MirthMigratorMetrics() {
+	}
+
+	/**
+	 * Records a REST call to a Mirth service
+	 *
+	 * @param url
+	 *            The URL of the call
+	 * @param method
+	 *            The HTTP method (e.g. GET)
+	 * @param responseCode
+	 *            The HTTP response code or -1 if the service was not available
+	 * @param durationInNanos
+	 *            The time between sending the request and reading the complete response
+	 * @param bytesReceived
+	 *            The size of the response body
+	 */
+	static void recordCall(URL url, String method, int responseCode, long durationInNanos, long bytesReceived) {
+		Timer timer = endpoints.computeIfAbsent(getEndpointKey(url, method), key -> new Timer());
+		timer.record(durationInNanos);
+		timer.bytesReceived.add(bytesReceived);
+		if ((responseCode < 200) || (responseCode >= 400)) {
+			timer.errors.increment();
+		}
+		// the call is also part of the trace of a running migration (if any)
+		MigrationTrace.recordCall(url, method, responseCode, durationInNanos, bytesReceived);
+	}
+
+	/**
+	 * Records the size of a request body
+	 *
+	 * @param url
+	 *            The URL of the call
+	 * @param method
+	 *            The HTTP method (e.g. PUT)
+	 * @param bytesSent
+	 *            The number of bytes that have been sent
+	 */
+	static void recordBytesSent(URL url, String method, long bytesSent) {
+		endpoints.computeIfAbsent(getEndpointKey(url, method), key -> new Timer()).bytesSent.add(bytesSent);
+	}
+
+	/**
+	 * Records a re-login that was needed because the session was rejected by the Mirth service
+	 *
+	 * @param systemName
+	 *            The name of the Mirth system
+	 */
+	static void recordRelogin(String systemName) {
+		relogins.computeIfAbsent(systemName, key -> new LongAdder()).increment();
+	}
+
+	/**
+	 * Records a cache access that could be served from the cache
+	 *
+	 * @param systemName
+	 *            The name of the Mirth system
+	 * @param cacheName
+	 *            The name of the cache
+	 */
+	static void recordCacheHit(String systemName, String cacheName) {
+		caches.computeIfAbsent(systemName + "/" + cacheName, key -> new CacheStatistics()).hits.increment();
+	}
+
+	/**
+	 * Records a cache access that caused the cache to be (re-)built
+	 *
+	 * @param systemName
+	 *            The name of the Mirth system
+	 * @param cacheName
+	 *            The name of the cache
+	 * @param durationInNanos
+	 *            The time needed for building the cache
+	 */
+	static void recordCacheMiss(String systemName, String cacheName, long durationInNanos) {
+		caches.computeIfAbsent(systemName + "/" + cacheName, key -> new CacheStatistics()).rebuilds.record(durationInNanos);
+	}
+
+	/**
+	 * Records the execution of an analysis phase
+	 *
+	 * @param phase
+	 *            The name of the phase
+	 * @param durationInNanos
+	 *            The time spent in the phase
+	 */
+	static void recordPhase(String phase, long durationInNanos) {
+		phases.computeIfAbsent(phase, key -> new Timer()).record(durationInNanos);
+	}
+
+	/**
+	 * Assembles the key under which the calls to an endpoint are aggregated
+	 *
+	 * @param url
+	 *            The URL of the call
+	 * @param method
+	 *            The HTTP method
+	 * @return The key in the format <b>host:port METHOD /path</b> with component ids replaced by <b>{id}</b>
+	 */
+	private static String getEndpointKey(URL url, String method) {
+		return url.getHost() + ":" + url.getPort() + " " + method + " " + idPattern.matcher(url.getPath()).replaceAll("/{id}");
+	}
+
+	/**
+	 * Provides a snapshot of all metrics
+	 *
+	 * @return A JSON object with the following structure:
+	 *         <ul>
+	 *         <li><b>since</b> - the point of time since which the metrics are collected (milliseconds since epoch)</li>
+	 *         <li><b>endpoints</b> - the REST calls by <b>host:port METHOD /path</b>. Each entry contains <b>count</b>, <b>errors</b>,
+	 *         <b>meanMillis</b>, <b>maxMillis</b>, <b>p50Millis</b>, <b>p90Millis</b>, <b>p99Millis</b> (upper bound of the histogram bucket),
+	 *         <b>histogram</b> (number of calls by bucket upper bound in milliseconds), <b>bytesSent</b> and <b>bytesReceived</b></li>
+	 *         <li><b>relogins</b> - the number of re-logins by system name</li>
+	 *         <li><b>caches</b> - the cache statistics by <b>system/cache</b>. Each entry contains <b>hits</b>, <b>misses</b>, <b>hitRatio</b>,
+	 *         <b>meanRebuildMillis</b> and <b>maxRebuildMillis</b></li>
+	 *         <li><b>phases</b> - the analysis phases by name. Each entry contains <b>count</b>, <b>totalMillis</b>, <b>meanMillis</b> and
+	 *         <b>maxMillis</b></li>
+	 *         </ul>
+	 */
+	public static JSONObject getSnapshot() {
+		JSONObject snapshot = new JSONObject();
+		snapshot.put("since", since);
+
+		JSONObject endpointMetrics = new JSONObject();
+		for (Map.Entry<String, Timer> endpoint : new TreeMap<String, Timer>(endpoints).entrySet()) {
+			JSONObject metrics = endpoint.getValue().toJson();
+			metrics.put("errors", endpoint.getValue().errors.sum());
+			metrics.put("p50Millis", endpoint.getValue().percentile(50));
+			metrics.put("p90Millis", endpoint.getValue().percentile(90));
+			metrics.put("p99Millis", endpoint.getValue().percentile(99));
+			JSONObject histogram = new JSONObject();
+			for (int index = 0; index <= latencyBuckets.length; index++) {
+				long count = endpoint.getValue().buckets.get(index);
+				if (count > 0) {
+					histogram.put((index < latencyBuckets.length) ? String.valueOf(latencyBuckets[index]) : "+Inf", count);
+				}
+			}
+			metrics.put("histogram", histogram);
+			metrics.put("bytesSent", endpoint.getValue().bytesSent.sum());
+			metrics.put("bytesReceived", endpoint.getValue().bytesReceived.sum());
+			endpointMetrics.put(endpoint.getKey(), metrics);
+		}
+		snapshot.put("endpoints", endpointMetrics);
+
+		JSONObject reloginMetrics = new JSONObject();
+		for (Map.Entry<String, LongAdder> relogin : relogins.entrySet()) {
+			reloginMetrics.put(relogin.getKey(), relogin.getValue().sum());
+		}
+		snapshot.put("relogins", reloginMetrics);
+
+		JSONObject cacheMetrics = new JSONObject();
+		for (Map.Entry<String, CacheStatistics> cache : new TreeMap<String, CacheStatistics>(caches).entrySet()) {
+			long hits = cache.getValue().hits.sum();
+			long misses = cache.getValue().rebuilds.count.sum();
+			JSONObject metrics = new JSONObject();
+			metrics.put("hits", hits);
+			metrics.put("misses", misses);
+			metrics.put("hitRatio", (hits + misses > 0) ? hits / (double) (hits + misses) : 0);
+			metrics.put("meanRebuildMillis", cache.getValue().rebuilds.getMean());
+			metrics.put("maxRebuildMillis", cache.getValue().rebuilds.max.get() / 1e6);
+			cacheMetrics.put(cache.getKey(), metrics);
+		}
+		snapshot.put("caches", cacheMetrics);
+
+		JSONObject phaseMetrics = new JSONObject();
+		for (Map.Entry<String, Timer> phase : phases.entrySet()) {
+			phaseMetrics.put(phase.getKey(), phase.getValue().toJson());
+		}
+		snapshot.put("phases", phaseMetrics);
+
+		return snapshot;
+	}
+
+	/**
+	 * Discards all metrics collected so far
+	 */
+	public static void clear() {
+		endpoints.clear();
+		relogins.clear();
+		caches.clear();
+		phases.clear();
+		since = System.currentTimeMillis();
+	}
+
+	/**
+	 * Registers the metrics at the platform MBean server. Calling it more than once has no effect.
+	 *
+	 * @return true, if the metrics are registered, false if the registration failed
+	 */
+	public static synchronized boolean registerMBean() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(MBEAN_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(instance, name);
+			}
+			return true;
+		} catch (JMException e) {
+			return false;
+		}
+	}
+
+	/* MBean attributes and operations */
+
+	@Override
+	public long getRequestCount() {
+		long count = 0;
+		for (Timer timer : endpoints.values()) {
+			count += timer.count.sum();
+		}
+		return count;
+	}
+
+	@Override
+	public long getFailedRequestCount() {
+		long count = 0;
+		for (Timer timer : endpoints.values()) {
+			count += timer.errors.sum();
+		}
+		return count;
+	}
+
+	@Override
+	public long getBytesSent() {
+		long bytes = 0;
+		for (Timer timer : endpoints.values()) {
+			bytes += timer.bytesSent.sum();
+		}
+		return bytes;
+	}
+
+	@Override
+	public long getBytesReceived() {
+		long bytes = 0;
+		for (Timer timer : endpoints.values()) {
+			bytes += timer.bytesReceived.sum();
+		}
+		return bytes;
+	}
+
+	@Override
+	public long getReloginCount() {
+		long count = 0;
+		for (LongAdder relogin : relogins.values()) {
+			count += relogin.sum();
+		}
+		return count;
+	}
+
+	@Override
+	public long getCacheHits() {
+		long hits = 0;
+		for (CacheStatistics cache : caches.values()) {
+			hits += cache.hits.sum();
+		}
+		return hits;
+	}
+
+	@Override
+	public long getCacheMisses() {
+		long misses = 0;
+		for (CacheStatistics cache : caches.values()) {
+			misses += cache.rebuilds.count.sum();
+		}
+		return misses;
+	}
+
+	@Override
+	public String getMetrics() {
+		return getSnapshot().toString(2);
+	}
+
+	@Override
+	public void reset() {
+		clear();
+	}
+
+	/**
+	 * Counts events and aggregates their durations in a latency histogram
+	 */
+	private static class Timer {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final AtomicLong max = new AtomicLong();
+		private final AtomicLongArray buckets = new AtomicLongArray(latencyBuckets.length + 1);
+		private final LongAdder errors = new LongAdder();
+		private final LongAdder bytesSent = new LongAdder();
+		private final LongAdder bytesReceived = new LongAdder();
+
+		void record(long durationInNanos) {
+			count.increment();
+			totalNanos.add(durationInNanos);
+			max.accumulateAndGet(durationInNanos, Math::max);
+
+			// determine the histogram bucket
+			long millis = durationInNanos / 1000000;
+			int bucket = 0;
+			while ((bucket < latencyBuckets.length) && (millis >= latencyBuckets[bucket])) {
+				bucket++;
+			}
+			buckets.incrementAndGet(bucket);
+		}
+
+		double getMean() {
+			long events = count.sum();
+			return (events > 0) ? totalNanos.sum() / (events * 1e6) : 0;
+		}
+
+		/**
+		 * Estimates a percentile from the histogram
+		 *
+		 * @param percentile
+		 *            The percentile (0 - 100)
+		 * @return The upper bound of the bucket that contains the percentile in milliseconds (the maximum for the last bucket)
+		 */
+		double percentile(double percentile) {
+			long rank = (long) Math.ceil(percentile / 100.0 * count.sum());
+			long seen = 0;
+			for (int index = 0; index < latencyBuckets.length; index++) {
+				seen += buckets.get(index);
+				if ((seen >= rank) && (seen > 0)) {
+					return latencyBuckets[index];
+				}
+			}
+			return max.get() / 1e6;
+		}
+
+		JSONObject toJson() {
+			JSONObject metrics = new JSONObject();
+			metrics.put("count", count.sum());
+			metrics.put("totalMillis", totalNanos.sum() / 1e6);
+			metrics.put("meanMillis", getMean());
+			metrics.put("maxMillis", max.get() / 1e6);
+			return metrics;
+		}
+	}
+
+	/**
+	 * The hits and rebuilds of a cache
+	 */
+	private static class CacheStatistics {
+		private final LongAdder hits = new LongAdder();
+		private final Timer rebuilds = new Timer();
+	}
+
+	/**
+	 * Counts the bytes that are read from a stream
+	 */
+	static class CountingInputStream extends FilterInputStream {
+		private long count = 0;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int value = super.read();
+			if (value >= 0) {
+				count++;
+			}
+			return value;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int read = super.read(buffer, offset, length);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package lu.hrs.mirth.migration;
+
+/**
+ * The JMX view of the {@link MirthMigratorMetrics}
+ */
+public interface MirthMigratorMetricsMBean {
+
+	/** The number of REST calls to all Mirth services */
+	long getRequestCount();
+
+	/** The number of REST calls that failed (HTTP status of 400 or above or service not available) */
+	long getFailedRequestCount();
+
+	/** The number of bytes sent in request bodies */
+	long getBytesSent();
+
+	/** The number of bytes received in response bodies */
+	long getBytesReceived();
+
+	/** The number of sessions that had to be re-established */
+	long getReloginCount();
+
+	/** The number of cache accesses that have been served from the caches */
+	long getCacheHits();
+
+	/** The number of cache accesses that caused a cache to be built */
+	long getCacheMisses();
+
+	/** All metrics in JSON format */
+	String getMetrics();
+
+	/** Discards all metrics collected so far */
+	void reset();
+}
@@ -0,0 +1,641 @@
+package lu.hrs.mirth.migration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.json.JsonParser.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A standalone HTTP server that serves the Mirth Migrator UI and it's services without the MIRTH_MIGRATOR channel.<br/>
+ * <br/>
+ * Within Mirth, every request of the UI is a message of the MIRTH_MIGRATOR channel that passes the message store and is dispatched to a
+ * JavaScript Writer destination. The embedded server offers the very same services (same paths, same request and response structures, same
+ * session handling) but calls {@link MirthMigrator} directly:
+ * <ul>
+ * <li>Connections are accepted and read by the NIO based HTTP server of the JDK, requests are processed by a fixed pool of worker threads</li>
+ * <li>Large responses (metadata, comparisons, migration reports) are streamed as UTF-8 directly to the socket instead of being rendered to a
+ * string first</li>
+ * <li>Responses are gzip compressed if the browser accepts it</li>
+ * </ul>
+ * The server is started from the Mirth Connect folder (as the configuration is read from <b>./web/MirthMigrator/config</b>), e.g.:<br/>
+ * <br/>
+ * <code>java -cp MirthMigrator.jar:&lt;rhino, slf4j and commons-io jars&gt; lu.hrs.mirth.migration.MirthMigratorServer --port=1339 --threads=20</code>
+ * <br/>
+ * <br/>
+ * Supported options:
+ * <ul>
+ * <li><b>--host</b> - the address at which the server listens (<i>default: 0.0.0.0</i>)</li>
+ * <li><b>--port</b> - the port at which the server listens (<i>default: 1339</i>)</li>
+ * <li><b>--threads</b> - the number of worker threads (<i>default: 20</i>)</li>
+ * <li><b>--webRoot</b> - the folder containing the UI (<i>default: ./web/MirthMigrator</i>)</li>
+ * <li><b>--apiHost</b>, <b>--apiPort</b> - the Mirth instance against which users are authenticated (<i>default: localhost:8443</i>)</li>
+ * </ul>
+ */
+public class MirthMigratorServer {
+
+	private final static int DEFAULT_PORT = 1339;
+	private final static int DEFAULT_THREADS = 20;
+	private final static String DEFAULT_WEB_ROOT = "./web/MirthMigrator";
+	/** Payloads below this size are not worth compressing */
+	private final static int MINIMUM_COMPRESSION_SIZE = 1024;
+	private final static String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+
+	private final static Logger logger = LoggerFactory.getLogger(MirthMigratorServer.class.getName());
+	private final static AtomicInteger threadCounter = new AtomicInteger();
+
+	/** The content types of the static resources by file extension */
+	private final static HashMap<String, String> contentTypes = new HashMap<String, String>();
+	static {
+		contentTypes.put("html", "text/html; charset=UTF-8");
+		contentTypes.put("css", "text/css; charset=UTF-8");
+		contentTypes.put("js", "text/javascript; charset=UTF-8");
+		contentTypes.put("json", JSON_CONTENT_TYPE);
+		contentTypes.put("png", "image/png");
+		contentTypes.put("gif", "image/gif");
+		contentTypes.put("jpg", "image/jpeg");
+		contentTypes.put("svg", "image/svg+xml");
+		contentTypes.put("ico", "image/x-icon");
+		contentTypes.put("woff", "font/woff");
+		contentTypes.put("woff2", "font/woff2");
+		contentTypes.put("ttf", "font/ttf");
+	}
+
+	/**
+	 * A service of the MIRTH_MIGRATOR channel
+	 */
+	@FunctionalInterface
+	private interface Service {
+		/**
+		 * Executes the service
+		 *
+		 * @param request
+		 *            The request body as JavaScript structure (see {@link MirthMigrator#parseJavaScriptValue(String)})
+		 * @return The return value as created by MirthMigrator with at least the attributes <b>statusCode</b> and <b>payload</b>
+		 * @throws Exception
+		 *             If the service failed
+		 */
+		JSONObject execute(Object request) throws Exception;
+	}
+
+	/**
+	 * A call of a MirthMigrator API function
+	 */
+	@FunctionalInterface
+	private interface ApiCall {
+		void call(Object request) throws Exception;
+	}
+
+	/**
+	 * The definition of a service incl. the way the session is checked
+	 */
+	private final static class ServiceDefinition {
+		private final Service service;
+		/** The service is available even if there is no configuration file, yet */
+		private final boolean ignoreConfigurationException;
+		/** A call of the service extends the lifetime of the user session */
+		private final boolean resetSessionTimeout;
+
+		private ServiceDefinition(Service service, boolean ignoreConfigurationException, boolean resetSessionTimeout) {
+			this.service = service;
+			this.ignoreConfigurationException = ignoreConfigurationException;
+			this.resetSessionTimeout = resetSessionTimeout;
+		}
+	}
+
+	/** The services by their path */
+	private final HashMap<String, ServiceDefinition> services = new HashMap<String, ServiceDefinition>();
+	/** The static resource folders by their path */
+	private final HashMap<String, Path> resourceFolders = new HashMap<String, Path>();
+	/** The static resource files by their path */
+	private final HashMap<String, Path> resourceFiles = new HashMap<String, Path>();
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	/**
+	 * Creates the server. It is not started before {@link #start()} is called.
+	 *
+	 * @param host
+	 *            The address at which the server listens
+	 * @param port
+	 *            The port at which the server listens (0 for any free port)
+	 * @param threads
+	 *            The number of threads that process requests
+	 * @param webRoot
+	 *            The folder that contains the UI (css, js, img, html)
+	 * @throws IOException
+	 *             If the port could not be bound
+	 */
+	public MirthMigratorServer(String host, int port, int threads, String webRoot) throws IOException {
+		Path root = Paths.get(webRoot).toAbsolutePath().normalize();
+		resourceFolders.put("/css", root.resolve("css"));
+		resourceFolders.put("/js", root.resolve("js"));
+		resourceFolders.put("/img", root.resolve("img"));
+		resourceFolders.put("/fonts", root.resolve("fonts"));
+		resourceFiles.put("/mirthMigrator", root.resolve("html/index.html"));
+		resourceFiles.put("/favicon.ico", root.resolve("img/favicon.ico"));
+		registerServices();
+
+		server = HttpServer.create(new InetSocketAddress(host, port), 0);
+		server.createContext("/", this::handle);
+		// a fixed number of workers - the connections themselves are handled by the selector thread of the server
+		executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+			Thread thread = new Thread(runnable, "MirthMigrator-server-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+	}
+
+	public void start() {
+		server.start();
+		logger.info("Mirth Migrator " + MirthMigrator.getVersion() + " is listening at port " + getPort());
+	}
+
+	/**
+	 * Stops the server
+	 *
+	 * @param delayInSeconds
+	 *            The maximum time to wait for requests that are still being processed
+	 */
+	public void stop(int delayInSeconds) {
+		server.stop(delayInSeconds);
+		executor.shutdownNow();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Registers the services of the MIRTH_MIGRATOR channel with the same parameters and session handling
+	 */
+	private void registerServices() {
+		register("/getChannelState", this::getChannelState, false, false);
+		register("/getComponentMetaData", api(request -> getClient(request, "system").getMetaData(getString(request, "componentType"),
+				isTruthy(getParameter(request, "refresh")))), false, true);
+		register("/getComponentDetails",
+				api(request -> getClient(request, "system").getComponentDetails((NativeObject) getParameter(request, "component"))), false, true);
+		register("/getComponentChildrenIds", api(request -> getClient(request, "system")
+				.getContainerChildren((NativeArray) getParameter(request, "groupId"), getString(request, "groupType"))), false, true);
+		register("/getConflictingComponents",
+				api(request -> getClient(request, "sourceSystem").getConflictingComponents(getString(request, "destinationSystem"),
+						(NativeArray) getParameter(request, "component"), isTruthy(getParameter(request, "refresh")))),
+				false, true);
+		register("/getConflicts", api(request -> getClient(request, "sourceSystem").getConflicts(getString(request, "destinationSystem"),
+				(NativeObject) getParameter(request, "component"), isTruthy(getParameter(request, "refresh")))), false, true);
+		register("/compareComponent", api(request -> getClient(request, "sourceSystem").compareComponent(getString(request, "destinationSystem"),
+				(NativeObject) getParameter(request, "component"))), false, true);
+		register("/compareSystems", api(request -> getClient(request, "sourceSystem").compareSystems(getString(request, "destinationSystem"),
+				Boolean.TRUE.equals(getParameter(request, "reloadCaches")))), false, true);
+		register("/migrateComponents",
+				api(request -> getClient(request, "sourceSystem").migrateComponents(getString(request, "destinationSystem"),
+						(NativeArray) getParameter(request, "component"), Boolean.TRUE.equals(getParameter(request, "skipUnchanged")),
+						Boolean.TRUE.equals(getParameter(request, "trace")))),
+				false, true);
+		register("/getEnvironments", api(request -> MirthMigrator.getEnvironments()), false, true);
+		register("/getSystems", api(request -> MirthMigrator.getSystems()), false, true);
+		register("/getConfiguration", api(request -> MirthMigrator.getConfiguration()), true, true);
+		register("/setConfiguration", request -> {
+			JSONObject returnValue = api(configuration -> MirthMigrator.setConfiguration((NativeObject) configuration)).execute(request);
+			// the configuration is not sent back to the client
+			return returnValue.put("payload", new JSONObject());
+		}, true, true);
+		register("/getReferencedCodeTemplates",
+				api(request -> getClient(request, "sourceSystem").getReferencedCodeTemplates((NativeArray) getParameter(request, "component"))),
+				false, true);
+		register("/getGlobalParameters", request -> {
+			// the global parameters are always delivered successfully
+			return api(parameters -> MirthMigrator.getGlobalParameters()).execute(request).put("statusCode", 200);
+		}, true, true);
+		register("/getMetrics", api(request -> MirthMigrator.getMetrics(Boolean.TRUE.equals(getParameter(request, "reset")))), false, true);
+		register("/getSystemsOverview", api(request -> {
+			Object deadline = getParameter(request, "deadline");
+			if (isTruthy(deadline)) {
+				MirthMigrator.getSystemsOverview((deadline instanceof Number) ? ((Number) deadline).intValue() : Integer.parseInt(deadline.toString().trim()));
+			} else {
+				MirthMigrator.getSystemsOverview();
+			}
+		}), false, true);
+	}
+
+	private void register(String path, Service service, boolean ignoreConfigurationException, boolean resetSessionTimeout) {
+		services.put(path, new ServiceDefinition(service, ignoreConfigurationException, resetSessionTimeout));
+	}
+
+	/**
+	 * Wraps a call of a MirthMigrator API function into a service
+	 *
+	 * @param call
+	 *            The call
+	 * @return A service that provides the return value of the call as JSON (without converting the JavaScript object)
+	 */
+	private static Service api(ApiCall call) {
+		return request -> {
+			JSONObject returnValue = null;
+			MirthMigrator.startRecordingReturnValues();
+			try {
+				call.call(request);
+			} finally {
+				returnValue = MirthMigrator.stopRecordingReturnValues();
+			}
+			if (returnValue == null) {
+				throw new IllegalStateException("The service did not provide a return value");
+			}
+			return returnValue;
+		};
+	}
+
+	/**
+	 * Provides the state of all or specific channels of several systems. The request is an array of systems with the following attributes:
+	 * <ul>
+	 * <li><b>name</b> - the name of the system</li>
+	 * <li><b>channel</b> - the id or a list of ids of the channels (<i>OPTIONAL - if not set, the state of all channels is provided</i>)</li>
+	 * </ul>
+	 *
+	 * @param request
+	 *            The systems
+	 * @return A return value containing a list with the attributes <b>name</b>, <b>status</b> and <b>fullList</b> per system
+	 * @throws Exception
+	 */
+	private JSONObject getChannelState(Object request) throws Exception {
+		NativeArray systems = (NativeArray) request;
+		JSONArray result = new JSONArray();
+		int statusCode = 200;
+
+		for (int index = 0; index < systems.getLength(); index++) {
+			Object system = systems.get(index, systems);
+			Object channel = getParameter(system, "channel");
+			// fetch the channel states of the current system
+			JSONObject channelState = api(parameters -> getClient(system, "name").getChannelState(channel)).execute(null);
+			statusCode = channelState.getInt("statusCode");
+			// and add an info element for it
+			result.put(new JSONObject().put("name", getString(system, "name")).put("status", channelState.opt("payload")).put("fullList",
+					!isTruthy(channel)));
+		}
+
+		return new JSONObject().put("statusCode", statusCode).put("payload", result);
+	}
+
+	/**
+	 * Dispatches a request either to a service or to a static resource
+	 *
+	 * @param exchange
+	 *            The request and response
+	 * @throws IOException
+	 */
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			String path = exchange.getRequestURI().getPath();
+			ServiceDefinition service = services.get(path);
+			if (service != null) {
+				handleService(exchange, path, service);
+			} else {
+				handleResource(exchange, path);
+			}
+		} catch (Exception e) {
+			logger.error("Unable to process request \"" + exchange.getRequestURI() + "\": " + e.getMessage(), e);
+			try {
+				respond(exchange, 500, null, new JSONObject().put("message", "Internal error"));
+			} catch (IOException e1) {
+				// the response has already been started
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Checks the session and executes a service
+	 *
+	 * @param exchange
+	 *            The request and response
+	 * @param path
+	 *            The path of the service
+	 * @param service
+	 *            The service definition
+	 * @throws IOException
+	 */
+	private void handleService(HttpExchange exchange, String path, ServiceDefinition service) throws IOException {
+		String body;
+		try (InputStream input = exchange.getRequestBody()) {
+			body = IOUtils.toString(input, StandardCharsets.UTF_8);
+		}
+
+		// check if the request belongs to a valid user session (or tries to open one)
+		String sessionId = checkSession(exchange, path, service);
+		if (sessionId == null) {
+			return;
+		}
+
+		int statusCode;
+		Object payload;
+		try {
+			Object request = MirthMigrator.parseJavaScriptValue(body.trim().isEmpty() ? "{}" : body);
+			JSONObject returnValue = service.service.execute(request);
+			statusCode = returnValue.getInt("statusCode");
+			payload = returnValue.opt("payload");
+		} catch (ServiceUnavailableException e) {
+			statusCode = 503;
+			payload = new JSONObject().put("message", e.getMessage());
+		} catch (ConfigurationException e) {
+			statusCode = 500;
+			payload = new JSONObject().put("message", e.getMessage());
+		} catch (ParseException | ClassCastException | IllegalArgumentException e) {
+			statusCode = 400;
+			payload = new JSONObject().put("message", "Invalid request: " + e.getMessage());
+		} catch (Exception e) {
+			logger.error("Service \"" + path + "\" failed: " + e.getMessage(), e);
+			statusCode = 500;
+			payload = new JSONObject().put("message", String.valueOf(e.getMessage()));
+		}
+
+		respond(exchange, statusCode, sessionId, payload);
+	}
+
+	/**
+	 * Validates the user session of a request the same way the MIRTH_MIGRATOR channel does. If the request carries encrypted credentials instead
+	 * of a session id, a new user session is created. If the session is not valid, the error response is sent.
+	 *
+	 * @param exchange
+	 *            The request and response
+	 * @param path
+	 *            The path of the requested service
+	 * @param service
+	 *            The service definition
+	 * @return The session id that is returned to the client or null if the request must not be processed
+	 * @throws IOException
+	 */
+	private String checkSession(HttpExchange exchange, String path, ServiceDefinition service) throws IOException {
+		String sessionId = exchange.getRequestHeaders().getFirst("sessionId");
+		String message = null;
+		int statusCode = 200;
+
+		if ((sessionId == null) || sessionId.trim().isEmpty()) {
+			// there was no session id nor user credentials (Bad Request)
+			statusCode = 400;
+			message = "Missing authentication";
+		} else {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Request \"" + path.substring(1) + "\" came with session-id: " + sessionId + " ==> "
+						+ (MirthMigrator.isValidUserSession(sessionId, false) ? "valid" : "expired!"));
+			}
+			boolean isSession = sessionId.startsWith("JSESSIONID");
+			try {
+				boolean configurationChanged = false;
+				try {
+					configurationChanged = MirthMigrator.hasConfigurationChanged(sessionId);
+				} catch (ConfigurationException e) {
+					// there is not yet a valid configuration file. Indicate it if the service does not concern configuration handling
+					if (!service.ignoreConfigurationException && isSession) {
+						respond(exchange, 500, null, new JSONObject().put("message", "No configuration file"));
+						return null;
+					}
+				}
+
+				if (configurationChanged) {
+					statusCode = 409;
+					message = "Configuration changed";
+				} else if (isSession) {
+					// check if the session is still valid (this also resets the timeout of the session if not stated otherwise)
+					if (!MirthMigrator.isValidUserSession(sessionId, service.resetSessionTimeout)) {
+						// indicate that session has expired (Login Timeout)
+						statusCode = 440;
+						message = "Session has expired";
+					}
+				} else {
+					// the client likes to instantiate a new session
+					sessionId = MirthMigrator.createUserSession(sessionId);
+					if (sessionId == null) {
+						// the credentials were invalid (Unauthorized)
+						statusCode = 401;
+						message = "Invalid authentication";
+					}
+				}
+			} catch (ServiceUnavailableException e) {
+				statusCode = 503;
+				message = e.getMessage();
+			}
+		}
+
+		if (statusCode > 399) {
+			// no session id is returned in case of an error
+			respond(exchange, statusCode, "", new JSONObject().put("message", message));
+			return null;
+		}
+
+		return sessionId;
+	}
+
+	/**
+	 * Serves a file of the UI
+	 *
+	 * @param exchange
+	 *            The request and response
+	 * @param path
+	 *            The requested path
+	 * @throws IOException
+	 */
+	private void handleResource(HttpExchange exchange, String path) throws IOException {
+		Path file = resourceFiles.get(path);
+		if (file == null) {
+			int separator = path.indexOf('/', 1);
+			Path folder = (separator > 0) ? resourceFolders.get(path.substring(0, separator)) : null;
+			if (folder != null) {
+				file = folder.resolve(path.substring(separator + 1)).normalize();
+				// never serve anything outside of the folder
+				if (!file.startsWith(folder)) {
+					file = null;
+				}
+			}
+		}
+		if ((file == null) || !Files.isRegularFile(file)) {
+			exchange.sendResponseHeaders(404, -1);
+			return;
+		}
+
+		String fileName = file.getFileName().toString();
+		String contentType = contentTypes.getOrDefault(fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT),
+				"application/octet-stream");
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		boolean compress = contentType.startsWith("text/") && (Files.size(file) >= MINIMUM_COMPRESSION_SIZE) && acceptsGzip(exchange);
+		if (compress) {
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody(), 8192)) {
+				Files.copy(file, out);
+			}
+		} else {
+			exchange.sendResponseHeaders(200, Files.size(file));
+			try (OutputStream out = exchange.getResponseBody()) {
+				Files.copy(file, out);
+			}
+		}
+	}
+
+	/**
+	 * Sends a JSON response. JSON objects and arrays are streamed (and compressed if the client accepts it), other payloads are sent with a fixed
+	 * length.
+	 *
+	 * @param exchange
+	 *            The request and response
+	 * @param statusCode
+	 *            The HTTP status code
+	 * @param sessionId
+	 *            The session id for the response header (<i>OPTIONAL</i>)
+	 * @param payload
+	 *            The payload
+	 * @throws IOException
+	 */
+	private static void respond(HttpExchange exchange, int statusCode, String sessionId, Object payload) throws IOException {
+		Headers headers = exchange.getResponseHeaders();
+		headers.set("Content-Type", JSON_CONTENT_TYPE);
+		if (sessionId != null) {
+			headers.set("sessionId", sessionId);
+		}
+
+		if ((payload instanceof JSONObject) || (payload instanceof JSONArray)) {
+			boolean compress = acceptsGzip(exchange);
+			if (compress) {
+				headers.set("Content-Encoding", "gzip");
+			}
+			headers.set("Vary", "Accept-Encoding");
+			// the length is not known in advance - use chunked transfer encoding
+			exchange.sendResponseHeaders(statusCode, 0);
+			try (OutputStream out = compress ? new GZIPOutputStream(exchange.getResponseBody(), 8192) : exchange.getResponseBody()) {
+				if (payload instanceof JSONObject) {
+					((JSONObject) payload).write(out, 0);
+				} else {
+					((JSONArray) payload).write(out, 0);
+				}
+			}
+		} else {
+			byte[] content = JSONObject.valueToString(payload).getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(statusCode, content.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(content);
+			}
+		}
+	}
+
+	/**
+	 * Checks if the client accepts gzip compressed responses
+	 */
+	private static boolean acceptsGzip(HttpExchange exchange) {
+		String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		return (acceptEncoding != null) && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+	}
+
+	/**
+	 * Provides the client of the system that is named in a request attribute
+	 *
+	 * @param request
+	 *            The request
+	 * @param attribute
+	 *            The name of the attribute that contains the system name
+	 * @return The client
+	 * @throws Exception
+	 *             If the client could not be created
+	 */
+	private static MirthMigrator getClient(Object request, String attribute) throws Exception {
+		String systemName = getString(request, attribute);
+		MirthMigrator client = MirthMigrator.getClient(systemName);
+		if (client == null) {
+			throw new IllegalArgumentException("Unknown system \"" + systemName + "\"");
+		}
+
+		return client;
+	}
+
+	/**
+	 * Provides an attribute of a request
+	 *
+	 * @param request
+	 *            The request
+	 * @param name
+	 *            The name of the attribute
+	 * @return The value or null if it is not set
+	 */
+	private static Object getParameter(Object request, String name) {
+		if (!(request instanceof Scriptable)) {
+			return null;
+		}
+		Object value = ((Scriptable) request).get(name, (Scriptable) request);
+
+		return (value == Scriptable.NOT_FOUND) ? null : value;
+	}
+
+	private static String getString(Object request, String name) {
+		Object value = getParameter(request, name);
+		return (value != null) ? value.toString() : null;
+	}
+
+	/**
+	 * Evaluates a value like JavaScript does in a boolean context
+	 */
+	private static boolean isTruthy(Object value) {
+		if (value == null) {
+			return false;
+		}
+		if (value instanceof Boolean) {
+			return (Boolean) value;
+		}
+		if (value instanceof Number) {
+			double number = ((Number) value).doubleValue();
+			return (number != 0) && !Double.isNaN(number);
+		}
+		if (value instanceof CharSequence) {
+			return ((CharSequence) value).length() > 0;
+		}
+		return true;
+	}
+
+	private static String getOption(String[] arguments, String name, String defaultValue) {
+		for (String argument : arguments) {
+			if (argument.startsWith("--" + name + "=")) {
+				return argument.substring(name.length() + 3);
+			}
+		}
+		return defaultValue;
+	}
+
+	public static void main(String[] arguments) throws IOException {
+		MirthMigrator.setApiHost(getOption(arguments, "apiHost", null));
+		String apiPort = getOption(arguments, "apiPort", null);
+		if (apiPort != null) {
+			MirthMigrator.setApiPort(Integer.parseInt(apiPort));
+		}
+
+		MirthMigratorServer server = new MirthMigratorServer(getOption(arguments, "host", "0.0.0.0"),
+				Integer.parseInt(getOption(arguments, "port", String.valueOf(DEFAULT_PORT))),
+				Integer.parseInt(getOption(arguments, "threads", String.valueOf(DEFAULT_THREADS))), getOption(arguments, "webRoot", DEFAULT_WEB_ROOT));
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(2)));
+		server.start();
+	}
+}
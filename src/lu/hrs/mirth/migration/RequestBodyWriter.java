@@ -0,0 +1,152 @@
+package lu.hrs.mirth.migration;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import org.json.JSONOutputStreamWriter;
+
+/**
+ * Streams the body of an update request to a Mirth service.<br/>
+ * <br/>
+ * The body is assembled from references to its parts (e.g. the multipart headers and the component XML) - nothing is concatenated or copied.
+ * When the body is sent, the parts are encoded as UTF-8 directly into the socket:
+ * <ul>
+ * <li>An uncompressed body is sent in fixed-length streaming mode. Its length is calculated in advance from the parts.</li>
+ * <li>A compressed body (see {@link TransferCompression}) is sent in chunked streaming mode as it's length is not known in advance.</li>
+ * </ul>
+ * As the connection does not buffer the body in streaming mode, a connection can only send it once.
+ */
+public class RequestBodyWriter {
+
+	/** The size of the chunks of a compressed body */
+	private final static int CHUNK_SIZE = 16384;
+
+	/** The parts of the body in the order in which they are sent */
+	private final ArrayList<CharSequence> parts = new ArrayList<CharSequence>();
+	/** The length of the UTF-8 encoded body */
+	private long length = 0;
+
+	/**
+	 * Adds a part to the body. Parts should not split a surrogate pair.
+	 *
+	 * @param part
+	 *            The text that is added (it is referenced, not copied)
+	 * @return This writer
+	 */
+	public RequestBodyWriter append(CharSequence part) {
+		parts.add(part);
+		length += utf8Length(part);
+		return this;
+	}
+
+	/**
+	 * Provides the length of the uncompressed body
+	 *
+	 * @return The number of bytes of the UTF-8 encoded body
+	 */
+	public long length() {
+		return length;
+	}
+
+	/**
+	 * Sends the body via a connection. The streaming mode has to be set before the connection is opened, thus this has to be the first access
+	 * to the output of the connection.
+	 *
+	 * @param connection
+	 *            The connection to the service
+	 * @param compress
+	 *            If true, the body is sent gzip compressed
+	 * @return The number of bytes that have been sent
+	 * @throws IOException
+	 *             If the body could not be sent
+	 */
+	public long writeTo(HttpURLConnection connection, boolean compress) throws IOException {
+		CountingOutputStream counter = null;
+		OutputStream out;
+		if (compress) {
+			connection.setRequestProperty("Content-Encoding", "gzip");
+			connection.setChunkedStreamingMode(CHUNK_SIZE);
+			counter = new CountingOutputStream(connection.getOutputStream());
+			out = new GZIPOutputStream(counter, 8192);
+		} else {
+			connection.setFixedLengthStreamingMode(length);
+			out = connection.getOutputStream();
+		}
+
+		// closing the writer also finishes the compression and closes the request body
+		try (JSONOutputStreamWriter writer = new JSONOutputStreamWriter(out)) {
+			for (CharSequence part : parts) {
+				writer.append(part);
+			}
+		}
+
+		return (counter != null) ? counter.count : length;
+	}
+
+	/**
+	 * Provides the whole body as text. This copies all parts and should only be used for logging.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder body = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+		for (CharSequence part : parts) {
+			body.append(part);
+		}
+		return body.toString();
+	}
+
+	/**
+	 * Calculates the length of a text in UTF-8 the way {@link JSONOutputStreamWriter} encodes it (unpaired surrogates are replaced by '?')
+	 *
+	 * @param text
+	 *            The text
+	 * @return The number of bytes
+	 */
+	static long utf8Length(CharSequence text) {
+		long length = 0;
+		int size = text.length();
+		for (int index = 0; index < size; index++) {
+			char character = text.charAt(index);
+			if (character < 0x80) {
+				length++;
+			} else if (character < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(character) && (index + 1 < size) && Character.isLowSurrogate(text.charAt(index + 1))) {
+				length += 4;
+				index++;
+			} else if (Character.isSurrogate(character)) {
+				length++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Counts the bytes that are actually sent
+	 */
+	private final static class CountingOutputStream extends FilterOutputStream {
+		private long count = 0;
+
+		private CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int value) throws IOException {
+			out.write(value);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] buffer, int offset, int length) throws IOException {
+			out.write(buffer, offset, length);
+			count += length;
+		}
+	}
+}
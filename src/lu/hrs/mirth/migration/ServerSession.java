@@ -0,0 +1,159 @@
+package lu.hrs.mirth.migration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Manages the session of a Mirth client at it's Mirth service.<br/>
+ * <br/>
+ * Mirth drops a session after it has not been used for a while. Without any further measures, the first call after an idle period is rejected,
+ * followed by a re-login and the repetition of the call - three round trips instead of one - and all threads that are active at that moment
+ * log in on their own. Thus, the session manager
+ * <ul>
+ * <li>keeps track of the last successful use of the session and renews it <b>before</b> it is used again if it has been idle for longer than
+ * the idle limit. The limit is lowered whenever the service rejects a session that has been idle for a shorter time.</li>
+ * <li>coalesces concurrent renewals: a thread that finds the session it used already replaced by another thread just takes the new one</li>
+ * </ul>
+ * The repetition of a rejected call is up to the caller (see {@link #renew(String)}).
+ */
+public class ServerSession {
+
+	/** The initial idle time in milliseconds after which a session is renewed before it is used */
+	public final static long DEFAULT_IDLE_LIMIT = 25 * 60000L;
+	/** The idle limit is never lowered below this value */
+	public final static long MINIMUM_IDLE_LIMIT = 60000L;
+
+	private final static Logger logger = LoggerFactory.getLogger(ServerSession.class.getName());
+
+	/**
+	 * Opens a new session at the Mirth service
+	 */
+	@FunctionalInterface
+	interface Login {
+		/**
+		 * Logs in at the Mirth service
+		 *
+		 * @return The session cookie or null if the login failed
+		 * @throws ServiceUnavailableException
+		 *             If the Mirth service is not available
+		 */
+		String login() throws ServiceUnavailableException;
+	}
+
+	private final String systemName;
+	private final Login login;
+
+	/** The cookie of the current session or null if there is none */
+	private volatile String cookie = null;
+	/** The point of time at which the current session was established */
+	private volatile long established = 0;
+	/** The point of time of the last successful use of the current session */
+	private volatile long lastUse = 0;
+	/** The time in milliseconds a session may be idle before it is renewed */
+	private volatile long idleLimit = DEFAULT_IDLE_LIMIT;
+
+	/**
+	 * Creates the session manager of a Mirth client
+	 *
+	 * @param systemName
+	 *            The name of the Mirth system (for logging and metrics)
+	 * @param login
+	 *            Opens a new session
+	 */
+	ServerSession(String systemName, Login login) {
+		this.systemName = systemName;
+		this.login = login;
+	}
+
+	/**
+	 * Provides the cookie of a session that can be used for the next call. If there is no session, yet, or the current session has been idle
+	 * for too long, a new session is opened first.
+	 *
+	 * @return The session cookie or null if no session could be opened
+	 * @throws ServiceUnavailableException
+	 *             If the Mirth service is not available
+	 */
+	public String getCookie() throws ServiceUnavailableException {
+		String current = cookie;
+		if ((current != null) && (System.currentTimeMillis() - lastUse < idleLimit)) {
+			return current;
+		}
+
+		synchronized (this) {
+			// another thread might have renewed the session in the meantime
+			if ((cookie != null) && (System.currentTimeMillis() - lastUse < idleLimit)) {
+				return cookie;
+			}
+			if ((cookie != null) && logger.isDebugEnabled()) {
+				logger.debug("Renewing the session at \"" + systemName + "\" as it has been idle for " + (System.currentTimeMillis() - lastUse)
+						+ "ms");
+			}
+			return open();
+		}
+	}
+
+	/**
+	 * Replaces a session that has been rejected by the Mirth service. If another thread already replaced it, the new session is used.
+	 *
+	 * @param rejectedCookie
+	 *            The cookie of the session that was rejected
+	 * @return The cookie of the new session or null if no session could be opened. The rejected call should be repeated once with it.
+	 * @throws ServiceUnavailableException
+	 *             If the Mirth service is not available
+	 */
+	public String renew(String rejectedCookie) throws ServiceUnavailableException {
+		synchronized (this) {
+			if ((cookie != null) && !cookie.equals(rejectedCookie)) {
+				// the session has already been replaced by another thread
+				return cookie;
+			}
+			if (cookie != null) {
+				// the session expired earlier than expected - renew it earlier from now on
+				long idle = System.currentTimeMillis() - lastUse;
+				if ((idle < idleLimit) && (idle >= MINIMUM_IDLE_LIMIT)) {
+					idleLimit = Math.max(MINIMUM_IDLE_LIMIT, idle - idle / 10);
+					logger.info("The session at \"" + systemName + "\" expired after " + (idle / 1000) + "s of inactivity - renewing it after "
+							+ (idleLimit / 1000) + "s from now on");
+				}
+			}
+			// the session was rejected by the service
+			MirthMigratorMetrics.recordRelogin(systemName);
+			return open();
+		}
+	}
+
+	/**
+	 * Reports a successful call with the current session
+	 */
+	public void recordUse() {
+		lastUse = System.currentTimeMillis();
+	}
+
+	/**
+	 * Provides the age of the current session
+	 *
+	 * @return The time in milliseconds since the session was established or -1 if there is none
+	 */
+	public long getAge() {
+		return (cookie != null) ? System.currentTimeMillis() - established : -1;
+	}
+
+	public long getIdleLimit() {
+		return idleLimit;
+	}
+
+	/**
+	 * Opens a new session. Must be called with the monitor held.
+	 *
+	 * @return The cookie of the new session or null if the login failed
+	 * @throws ServiceUnavailableException
+	 */
+	private String open() throws ServiceUnavailableException {
+		String newCookie = login.login();
+		long now = System.currentTimeMillis();
+		cookie = newCookie;
+		established = now;
+		lastUse = now;
+		return newCookie;
+	}
+}
@@ -0,0 +1,198 @@
+package lu.hrs.mirth.migration;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+
+/**
+ * Runs the same query concurrently against several Mirth systems and collects the results that are available within a deadline.<br/>
+ * <br/>
+ * A system that does not answer in time is reported with the status <b>timeout</b> while the results of all other systems are still delivered.
+ * The query of such a system is not aborted but keeps running in the background. As long as it is running, subsequent fan-outs of the same
+ * query join it instead of starting another one. Thus a dead server blocks at most one thread per query and the result of a slow server is
+ * available for the next call as soon as it arrives: the outcome of a query is kept until a fan-out collected it, unless it is older than
+ * {@link #MAXIMUM_OUTCOME_AGE}.
+ */
+public class SystemFanOut {
+
+	/**
+	 * A query that is executed for a single system
+	 */
+	public interface SystemQuery {
+		/**
+		 * Executes the query
+		 *
+		 * @param client
+		 *            The client of the system
+		 * @return The result of the query for this system
+		 * @throws Exception
+		 *             If the query failed
+		 */
+		JSONObject query(MirthMigrator client) throws Exception;
+	}
+
+	/** The query did deliver a result within the deadline */
+	public final static String OK = "ok";
+	/** The query did not deliver a result within the deadline */
+	public final static String TIMEOUT = "timeout";
+	/** The query failed */
+	public final static String ERROR = "error";
+	/** The time in milliseconds for which the outcome of a query that was not collected in time is kept for the next fan-out */
+	public final static long MAXIMUM_OUTCOME_AGE = 60000L;
+
+	private final static AtomicInteger threadCounter = new AtomicInteger();
+	/** Executes the queries (threads are only kept as long as they are needed) */
+	private final static ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "MirthMigrator-fanout-" + threadCounter.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+	/** The queries that are running or whose outcome was not yet collected identified by query and system name */
+	private final static ConcurrentHashMap<String, Future<Outcome>> runningQueries = new ConcurrentHashMap<String, Future<Outcome>>();
+
+	/**
+	 * The outcome of a query for a single system
+	 */
+	private final static class Outcome {
+		private final JSONObject outcome;
+		private final long completed = System.currentTimeMillis();
+
+		private Outcome(JSONObject outcome) {
+			this.outcome = outcome;
+		}
+	}
+
+	/**
+	 * Executes a query concurrently for several systems
+	 *
+	 * @param clients
+	 *            The clients of the systems that should be queried
+	 * @param queryName
+	 *            A name that identifies the query (queries with the same name are joined while they are running)
+	 * @param query
+	 *            The query
+	 * @param deadlineInMillis
+	 *            The maximum time to wait for the results
+	 * @return The outcome of the query per system name in the order of the clients. Every outcome has the following attributes:
+	 *         <ul>
+	 *         <li><b>status</b> - {@link #OK}, {@link #TIMEOUT} or {@link #ERROR}</li>
+	 *         <li><b>durationMillis</b> - the duration of the query or, if there is no result, the time spent waiting for it</li>
+	 *         <li><b>result</b> - the result of the query (only for status {@link #OK})</li>
+	 *         <li><b>message</b> - the reason of the failure (only for status {@link #ERROR})</li>
+	 *         </ul>
+	 */
+	public static LinkedHashMap<String, JSONObject> query(Collection<MirthMigrator> clients, String queryName, SystemQuery query, long deadlineInMillis) {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(deadlineInMillis);
+
+		// start the query for all systems (or join the queries that are still running or whose outcome was not yet collected)
+		LinkedHashMap<String, Future<Outcome>> pending = new LinkedHashMap<String, Future<Outcome>>();
+		for (MirthMigrator client : clients) {
+			String key = queryName + ":" + client.getSystemName();
+			Future<Outcome> future = runningQueries.compute(key,
+					(name, running) -> ((running == null) || isOutdated(running)) ? executor.submit(() -> execute(client, query)) : running);
+			pending.put(client.getSystemName(), future);
+		}
+
+		// collect the results till the deadline is reached
+		LinkedHashMap<String, JSONObject> outcomes = new LinkedHashMap<String, JSONObject>();
+		for (Map.Entry<String, Future<Outcome>> entry : pending.entrySet()) {
+			String key = queryName + ":" + entry.getKey();
+			JSONObject outcome = null;
+			try {
+				outcome = entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS).outcome;
+				// the outcome has been collected - the next fan-out starts a new query
+				runningQueries.remove(key, entry.getValue());
+			} catch (TimeoutException e) {
+				// the query keeps running and its outcome is kept for the next fan-out
+				outcome = failure(TIMEOUT, null, start);
+			} catch (ExecutionException e) {
+				// does not happen as the query handles its failures
+				runningQueries.remove(key, entry.getValue());
+				outcome = failure(ERROR, getMessage(e), start);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				outcome = failure(TIMEOUT, null, start);
+			}
+			outcomes.put(entry.getKey(), outcome);
+		}
+
+		return outcomes;
+	}
+
+	/**
+	 * Executes a query for a single system
+	 *
+	 * @param client
+	 *            The client of the system
+	 * @param query
+	 *            The query
+	 * @return The outcome of the query - either with status {@link #OK} or {@link #ERROR}
+	 */
+	private static Outcome execute(MirthMigrator client, SystemQuery query) {
+		long queryStart = System.nanoTime();
+		try {
+			JSONObject outcome = new JSONObject();
+			outcome.put("result", query.query(client));
+			outcome.put("status", OK);
+			outcome.put("durationMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queryStart));
+			return new Outcome(outcome);
+		} catch (Exception e) {
+			return new Outcome(failure(ERROR, getMessage(e), queryStart));
+		}
+	}
+
+	/**
+	 * Checks if a query finished so long ago that it's outcome should not be used anymore
+	 *
+	 * @param query
+	 *            The query
+	 * @return true, if the query has finished more than {@link #MAXIMUM_OUTCOME_AGE} ago
+	 */
+	private static boolean isOutdated(Future<Outcome> query) {
+		if (!query.isDone()) {
+			return false;
+		}
+		try {
+			return System.currentTimeMillis() - query.get().completed > MAXIMUM_OUTCOME_AGE;
+		} catch (InterruptedException | ExecutionException e) {
+			return true;
+		}
+	}
+
+	private static String getMessage(Throwable throwable) {
+		Throwable cause = ((throwable instanceof ExecutionException) && (throwable.getCause() != null)) ? throwable.getCause() : throwable;
+		return (cause.getMessage() != null) ? cause.getMessage() : cause.toString();
+	}
+
+	/**
+	 * Creates the outcome of a query that did not deliver a result
+	 *
+	 * @param status
+	 *            {@link #TIMEOUT} or {@link #ERROR}
+	 * @param message
+	 *            The reason of the failure (<i>OPTIONAL</i>)
+	 * @param start
+	 *            The start of the fan-out or query in nanoseconds
+	 * @return The outcome
+	 */
+	private static JSONObject failure(String status, String message, long start) {
+		JSONObject outcome = new JSONObject();
+		outcome.put("status", status);
+		if (message != null) {
+			outcome.put("message", message);
+		}
+		outcome.put("durationMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		return outcome;
+	}
+}
@@ -0,0 +1,220 @@
+package lu.hrs.mirth.migration;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the availability of a Mirth service and acts as a circuit breaker for it.<br/>
+ * <br/>
+ * Every REST call reports it's outcome. A call counts as failed if the service could not be reached or did not answer in time - HTTP error
+ * codes are answers and thus count as success. After {@link #FAILURE_THRESHOLD} consecutive failures the circuit opens: all further calls fail
+ * immediately with a {@link ServiceUnavailableException} instead of waiting for the timeouts again and again. While the circuit is open, a
+ * background probe checks the service every {@link #PROBE_INTERVAL_IN_SECONDS} seconds via <b>/api/server/version</b> and closes the circuit as
+ * soon as the service answers again.<br/>
+ * <br/>
+ * The health is tracked per server and port, as the same Mirth service might be accessed by static functions (e.g. the login) as well as by
+ * the Mirth client instance.
+ */
+public class SystemHealth {
+
+	/** The service is available and calls are passed */
+	public final static String AVAILABLE = "available";
+	/** Calls recently failed but the threshold is not yet reached */
+	public final static String DEGRADED = "degraded";
+	/** The circuit is open and calls fail immediately */
+	public final static String UNAVAILABLE = "unavailable";
+
+	/** The number of consecutive failures after which the circuit opens */
+	public final static int FAILURE_THRESHOLD = 3;
+	/** The interval in which an unavailable service is checked */
+	public final static int PROBE_INTERVAL_IN_SECONDS = 15;
+
+	private final static Logger logger = LoggerFactory.getLogger(SystemHealth.class.getName());
+	/** The health of all services identified by server and port */
+	private final static ConcurrentHashMap<String, SystemHealth> services = new ConcurrentHashMap<String, SystemHealth>();
+	/** Executes the probes of unavailable services */
+	private final static ScheduledExecutorService prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "MirthMigrator-health-probe");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/** The timeout in milliseconds for establishing a connection */
+	private static volatile int connectTimeout = 5000;
+	/** The timeout in milliseconds for waiting for data from the service */
+	private static volatile int readTimeout = 60000;
+
+	private final String server;
+	private final int port;
+	private int consecutiveFailures = 0;
+	private long lastSuccess = 0, lastFailure = 0, unavailableSince = 0;
+	private String lastError = null;
+	private ScheduledFuture<?> probe = null;
+
+	private SystemHealth(String server, int port) {
+		this.server = server;
+		this.port = port;
+	}
+
+	/**
+	 * Provides the health of a Mirth service
+	 *
+	 * @param server
+	 *            The name of the server at which the Mirth service is located
+	 * @param port
+	 *            The port at which the Mirth service listens
+	 * @return The health of the service
+	 */
+	public static SystemHealth get(String server, int port) {
+		return services.computeIfAbsent(server.toLowerCase() + ":" + port, key -> new SystemHealth(server, port));
+	}
+
+	/**
+	 * Provides the health of the Mirth service that is addressed by a URL
+	 *
+	 * @param url
+	 *            The URL of a REST call
+	 * @return The health of the service
+	 */
+	static SystemHealth get(URL url) {
+		return get(url.getHost(), url.getPort());
+	}
+
+	/**
+	 * Sets the timeouts that are used for all REST calls
+	 *
+	 * @param connectTimeoutInSeconds
+	 *            The timeout for establishing a connection
+	 * @param readTimeoutInSeconds
+	 *            The timeout for waiting for data from the service (0 means no timeout)
+	 */
+	static void setTimeouts(int connectTimeoutInSeconds, int readTimeoutInSeconds) {
+		SystemHealth.connectTimeout = connectTimeoutInSeconds * 1000;
+		SystemHealth.readTimeout = readTimeoutInSeconds * 1000;
+	}
+
+	/**
+	 * Applies the configured timeouts to a connection
+	 *
+	 * @param connection
+	 *            The connection
+	 */
+	static void applyTimeouts(HttpURLConnection connection) {
+		connection.setConnectTimeout(connectTimeout);
+		connection.setReadTimeout(readTimeout);
+	}
+
+	/**
+	 * Fails fast if the circuit of the service is open
+	 *
+	 * @throws ServiceUnavailableException
+	 *             If the service is considered to be unavailable
+	 */
+	public synchronized void checkAvailable() throws ServiceUnavailableException {
+		if (unavailableSince > 0) {
+			throw new ServiceUnavailableException(String.format("Service at %s:%d is currently not available (%d consecutive failures, last: %s)",
+					server, port, consecutiveFailures, lastError));
+		}
+	}
+
+	/**
+	 * Reports a successful call. This closes the circuit.
+	 */
+	public synchronized void recordSuccess() {
+		lastSuccess = System.currentTimeMillis();
+		if (unavailableSince > 0) {
+			logger.info("Service at " + server + ":" + port + " is available again");
+		}
+		consecutiveFailures = 0;
+		unavailableSince = 0;
+		if (probe != null) {
+			probe.cancel(false);
+			probe = null;
+		}
+	}
+
+	/**
+	 * Reports a failed call. If the threshold is reached, the circuit opens and the service is probed in the background.
+	 *
+	 * @param reason
+	 *            The reason of the failure
+	 */
+	public synchronized void recordFailure(String reason) {
+		lastFailure = System.currentTimeMillis();
+		lastError = reason;
+		consecutiveFailures++;
+		if ((consecutiveFailures >= FAILURE_THRESHOLD) && (unavailableSince == 0)) {
+			unavailableSince = lastFailure;
+			logger.warn("Service at " + server + ":" + port + " failed " + consecutiveFailures + " times in a row (" + reason
+					+ ") - calls will fail immediately till it is available again");
+			probe = prober.scheduleWithFixedDelay(this::probe, PROBE_INTERVAL_IN_SECONDS, PROBE_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Checks if an unavailable service answers again. Any HTTP answer (even an authentication failure) means that the service is back.
+	 */
+	private void probe() {
+		HttpURLConnection connection = null;
+		try {
+			connection = (HttpURLConnection) new URL("https://" + server + ":" + port + "/api/server/version").openConnection();
+			// the version is delivered instantly - and the probe must never block the probes of other services
+			connection.setConnectTimeout(connectTimeout);
+			connection.setReadTimeout(connectTimeout);
+			connection.setRequestProperty("X-Requested-With", "MirthMigrator");
+			connection.getResponseCode();
+			recordSuccess();
+		} catch (IOException e) {
+			synchronized (this) {
+				lastError = e.getMessage();
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Service at " + server + ":" + port + " is still not available: " + e.getMessage());
+			}
+		} finally {
+			if (connection != null) {
+				connection.disconnect();
+			}
+		}
+	}
+
+	/**
+	 * Provides the health state
+	 *
+	 * @return A JSON object containing the following attributes:
+	 *         <ul>
+	 *         <li><b>state</b> - {@link #AVAILABLE}, {@link #DEGRADED} or {@link #UNAVAILABLE}</li>
+	 *         <li><b>consecutiveFailures</b> - the number of calls that failed since the last successful call</li>
+	 *         <li><b>lastSuccess</b> - the point of time of the last successful call in milliseconds (<i>OPTIONAL</i>)</li>
+	 *         <li><b>lastFailure</b> - the point of time of the last failed call in milliseconds (<i>OPTIONAL</i>)</li>
+	 *         <li><b>lastError</b> - the reason of the last failure (<i>OPTIONAL</i>)</li>
+	 *         <li><b>unavailableSince</b> - the point of time at which the circuit opened in milliseconds (<i>OPTIONAL</i>)</li>
+	 *         </ul>
+	 */
+	public synchronized JSONObject toJson() {
+		JSONObject health = new JSONObject();
+		health.put("state", (unavailableSince > 0) ? UNAVAILABLE : (consecutiveFailures > 0) ? DEGRADED : AVAILABLE);
+		health.put("consecutiveFailures", consecutiveFailures);
+		if (lastSuccess > 0) {
+			health.put("lastSuccess", lastSuccess);
+		}
+		if (lastFailure > 0) {
+			health.put("lastFailure", lastFailure);
+			health.put("lastError", lastError);
+		}
+		if (unavailableSince > 0) {
+			health.put("unavailableSince", unavailableSince);
+		}
+		return health;
+	}
+}
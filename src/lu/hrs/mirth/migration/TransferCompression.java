@@ -0,0 +1,194 @@
+package lu.hrs.mirth.migration;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Negotiates compressed transfers with a Mirth service.<br/>
+ * <br/>
+ * The exports of channels and code templates are large but highly compressible XML documents. Mirth (Jetty) compresses responses if the
+ * client asks for it. Request bodies are only accepted in compressed form if the server was configured to inflate them. Thus, compressed
+ * requests have to be activated explicitly and are switched off automatically if the service rejects them.<br/>
+ * <br/>
+ * The mode is configured per system by the optional attribute <b>compression</b>:
+ * <ul>
+ * <li><b>none</b> - neither requests nor responses are compressed</li>
+ * <li><b>responses</b> - responses are compressed (<i>default</i>)</li>
+ * <li><b>all</b> - responses and the bodies of component updates are compressed</li>
+ * </ul>
+ * Like {@link SystemHealth}, the setting is tracked per server and port, as the same Mirth service might be accessed by static functions (e.g.
+ * the login) as well as by the Mirth client instance.
+ */
+public class TransferCompression {
+
+	/** Neither requests nor responses are compressed */
+	public final static String NONE = "none";
+	/** Only responses are compressed */
+	public final static String RESPONSES = "responses";
+	/** Responses and request bodies are compressed */
+	public final static String ALL = "all";
+
+	/** Request bodies below this size are not worth compressing */
+	private final static int MINIMUM_REQUEST_SIZE = 1024;
+
+	private final static Logger logger = LoggerFactory.getLogger(TransferCompression.class.getName());
+	/** The compression settings of all services identified by server and port */
+	private final static ConcurrentHashMap<String, TransferCompression> services = new ConcurrentHashMap<String, TransferCompression>();
+
+	private final String server;
+	private final int port;
+	private volatile String mode = RESPONSES;
+	/** Set as soon as the service rejected a compressed request body */
+	private volatile boolean requestsRejected = false;
+
+	private TransferCompression(String server, int port) {
+		this.server = server;
+		this.port = port;
+	}
+
+	/**
+	 * Provides the compression settings of a Mirth service
+	 *
+	 * @param server
+	 *            The name of the server at which the Mirth service is located
+	 * @param port
+	 *            The port at which the Mirth service listens
+	 * @return The compression settings of the service
+	 */
+	public static TransferCompression get(String server, int port) {
+		return services.computeIfAbsent(server.toLowerCase() + ":" + port, key -> new TransferCompression(server, port));
+	}
+
+	/**
+	 * Provides the compression settings of the Mirth service that is addressed by a URL
+	 *
+	 * @param url
+	 *            The URL of a REST call
+	 * @return The compression settings of the service
+	 */
+	static TransferCompression get(URL url) {
+		return get(url.getHost(), url.getPort());
+	}
+
+	/**
+	 * Checks if a compression mode is supported
+	 *
+	 * @param mode
+	 *            The compression mode
+	 * @return true, if it is either {@link #NONE}, {@link #RESPONSES} or {@link #ALL}
+	 */
+	public static boolean isValidMode(String mode) {
+		return NONE.equals(mode) || RESPONSES.equals(mode) || ALL.equals(mode);
+	}
+
+	/**
+	 * Sets the compression mode of the service
+	 *
+	 * @param mode
+	 *            Either {@link #NONE}, {@link #RESPONSES} or {@link #ALL}
+	 */
+	void setMode(String mode) {
+		if (!mode.equals(this.mode)) {
+			// give compressed requests another chance if the mode has been changed
+			requestsRejected = false;
+		}
+		this.mode = mode;
+	}
+
+	public String getMode() {
+		return mode;
+	}
+
+	/**
+	 * Asks the service for a compressed response if this is activated
+	 *
+	 * @param connection
+	 *            The connection to the service
+	 */
+	void applyTo(HttpURLConnection connection) {
+		if (!NONE.equals(mode)) {
+			connection.setRequestProperty("Accept-Encoding", "gzip, deflate");
+		}
+	}
+
+	/**
+	 * Checks if a request body should be compressed
+	 *
+	 * @param size
+	 *            The size of the uncompressed body in bytes
+	 * @return true, if compressed requests are activated for the service and it did not reject them so far
+	 */
+	boolean compressRequest(long size) {
+		return ALL.equals(mode) && !requestsRejected && (size >= MINIMUM_REQUEST_SIZE);
+	}
+
+	/**
+	 * Reports that the service does not accept compressed request bodies. They will not be used anymore for this service.
+	 *
+	 * @param responseCode
+	 *            The HTTP code with which the compressed request was answered
+	 */
+	void recordRejectedRequest(int responseCode) {
+		if (!requestsRejected) {
+			requestsRejected = true;
+			logger.warn("Service at " + server + ":" + port + " does not accept compressed requests (" + responseCode
+					+ ") - sending them uncompressed from now on");
+		}
+	}
+
+	/**
+	 * Checks if the answer to a compressed request indicates that the compression was the reason for the failure
+	 *
+	 * @param responseCode
+	 *            The HTTP code of the answer
+	 * @return true, if the request should be repeated uncompressed
+	 */
+	static boolean isRejection(int responseCode) {
+		// Jetty answers 415 if it refuses the encoding. If the body is passed uninflated, the XML parser fails.
+		return (responseCode == 400) || (responseCode == 415) || (responseCode == 500);
+	}
+
+	/**
+	 * Wraps a response stream into a decompressing stream according to the content encoding of the response
+	 *
+	 * @param connection
+	 *            The connection to the service
+	 * @param response
+	 *            The response stream as received
+	 * @return The stream that provides the uncompressed response
+	 * @throws IOException
+	 *             If the compressed stream is corrupt
+	 */
+	static InputStream decode(HttpURLConnection connection, InputStream response) throws IOException {
+		String encoding = connection.getContentEncoding();
+		if (encoding == null) {
+			return response;
+		}
+		// an empty body (e.g. 204) contains not even the compression header
+		BufferedInputStream buffered = new BufferedInputStream(response, 8192);
+		buffered.mark(1);
+		if (buffered.read() < 0) {
+			return buffered;
+		}
+		buffered.reset();
+		switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+		case "gzip":
+		case "x-gzip":
+			return new GZIPInputStream(buffered, 8192);
+		case "deflate":
+			return new InflaterInputStream(buffered);
+		default:
+			return buffered;
+		}
+	}
+}
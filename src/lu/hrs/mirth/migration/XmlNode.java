@@ -0,0 +1,321 @@
+package lu.hrs.mirth.migration;
+
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A minimal element tree for the XStream-style XML that is exchanged with the Mirth REST API. It is read in a single StAX pass and written back
+ * in the indentation style of Mirth. Mixed content is not supported (and not used by Mirth): whitespace between child elements is dropped and only
+ * leaf elements keep their text.
+ */
+public class XmlNode {
+
+	/** The StAX factory is thread-safe once configured and thus shared */
+	private final static XMLInputFactory inputFactory = createInputFactory();
+
+	/** The element name */
+	private final String name;
+	/** The attributes of the element in document order */
+	private final LinkedHashMap<String, String> attributes = new LinkedHashMap<String, String>();
+	/** The child elements in document order */
+	private final ArrayList<XmlNode> children = new ArrayList<XmlNode>();
+	/** The text content (only relevant for leaf elements) */
+	private String text = "";
+
+	public XmlNode(String name) {
+		this.name = name;
+	}
+
+	public XmlNode(String name, String text) {
+		this(name);
+		setText(text);
+	}
+
+	/**
+	 * Creates the StAX factory. Coalescing assures that text nodes (incl. entities) arrive in one piece; DTDs and external entities are disabled as
+	 * they are never used by Mirth.
+	 *
+	 * @return The configured factory
+	 */
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+		return factory;
+	}
+
+	/**
+	 * Parses an XML document into an element tree
+	 *
+	 * @param xml
+	 *            The XML document
+	 * @return The root element of the document
+	 * @throws ConfigurationException
+	 *             If the document is not well-formed
+	 */
+	public static XmlNode parse(String xml) throws ConfigurationException {
+		ArrayDeque<XmlNode> stack = new ArrayDeque<XmlNode>();
+		ArrayDeque<StringBuilder> textStack = new ArrayDeque<StringBuilder>();
+		XmlNode root = null;
+		XMLStreamReader reader = null;
+
+		try {
+			reader = inputFactory.createXMLStreamReader(new StringReader(xml));
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					// create the element incl. it's attributes
+					XmlNode node = new XmlNode(reader.getLocalName());
+					for (int index = 0; index < reader.getAttributeCount(); index++) {
+						node.attributes.put(reader.getAttributeLocalName(index), reader.getAttributeValue(index));
+					}
+					// and attach it to the parent element (if any)
+					if (stack.isEmpty()) {
+						root = node;
+					} else {
+						stack.peek().children.add(node);
+					}
+					stack.push(node);
+					textStack.push(new StringBuilder());
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					// collect the text of the current element
+					if (!textStack.isEmpty()) {
+						textStack.peek().append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					}
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					XmlNode finished = stack.pop();
+					StringBuilder finishedText = textStack.pop();
+					// only leaf elements carry text - anything else is just indentation
+					if (finished.children.isEmpty()) {
+						finished.text = finishedText.toString();
+					}
+					break;
+				default:
+					break;
+				}
+			}
+		} catch (XMLStreamException e) {
+			throw new ConfigurationException("unable to parse configuration: " + e.getMessage() + "\n" + xml);
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+				}
+			}
+		}
+
+		if (root == null) {
+			throw new ConfigurationException("configuration does not contain any element: \n" + xml);
+		}
+
+		return root;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public void setText(String text) {
+		this.text = (text == null) ? "" : text;
+	}
+
+	public String getAttribute(String name) {
+		return attributes.get(name);
+	}
+
+	public void setAttribute(String name, String value) {
+		attributes.put(name, value);
+	}
+
+	public void removeAttribute(String name) {
+		attributes.remove(name);
+	}
+
+	public List<XmlNode> getChildren() {
+		return children;
+	}
+
+	/**
+	 * Provides the first child element with a given name
+	 *
+	 * @param name
+	 *            The name of the child element
+	 * @return The child element or null if there is none
+	 */
+	public XmlNode getChild(String name) {
+		for (XmlNode child : children) {
+			if (child.name.equals(name)) {
+				return child;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Provides the text of the first child element with a given name
+	 *
+	 * @param name
+	 *            The name of the child element
+	 * @return The text of the child element or null if there is none
+	 */
+	public String getChildText(String name) {
+		XmlNode child = getChild(name);
+		return (child == null) ? null : child.text;
+	}
+
+	/**
+	 * Sets the text of the first child element with a given name. The child is appended if it does not yet exist.
+	 *
+	 * @param name
+	 *            The name of the child element
+	 * @param text
+	 *            The new text
+	 */
+	public void setChildText(String name, String text) {
+		getOrCreateChild(name).setText(text);
+	}
+
+	/**
+	 * Provides the first child element with a given name and creates it if it does not yet exist
+	 *
+	 * @param name
+	 *            The name of the child element
+	 * @return The child element
+	 */
+	public XmlNode getOrCreateChild(String name) {
+		XmlNode child = getChild(name);
+		if (child == null) {
+			child = new XmlNode(name);
+			children.add(child);
+		}
+		return child;
+	}
+
+	public void addChild(XmlNode child) {
+		children.add(child);
+	}
+
+	/**
+	 * Creates a deep copy of this element
+	 *
+	 * @return The copy
+	 */
+	public XmlNode copy() {
+		XmlNode copy = new XmlNode(name, text);
+		copy.attributes.putAll(attributes);
+		for (XmlNode child : children) {
+			copy.children.add(child.copy());
+		}
+		return copy;
+	}
+
+	/**
+	 * Serializes the element tree
+	 *
+	 * @return The XML representation of the element tree
+	 */
+	@Override
+	public String toString() {
+		StringBuilder xml = new StringBuilder(1024);
+		write(xml, 0);
+		return xml.toString();
+	}
+
+	/**
+	 * Serializes the element tree into a buffer using two spaces per level of indentation (like Mirth does)
+	 *
+	 * @param xml
+	 *            The buffer
+	 * @param level
+	 *            The indentation level of this element
+	 */
+	public void write(StringBuilder xml, int level) {
+		indent(xml, level);
+		xml.append('<').append(name);
+		for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+			xml.append(' ').append(attribute.getKey()).append("=\"");
+			escape(xml, attribute.getValue(), true);
+			xml.append('"');
+		}
+
+		if (!children.isEmpty()) {
+			// container element
+			xml.append(">\n");
+			for (XmlNode child : children) {
+				child.write(xml, level + 1);
+			}
+			indent(xml, level);
+			xml.append("</").append(name).append(">\n");
+		} else if (text.isEmpty()) {
+			// empty element
+			xml.append("/>\n");
+		} else {
+			// leaf element
+			xml.append('>');
+			escape(xml, text, false);
+			xml.append("</").append(name).append(">\n");
+		}
+	}
+
+	private static void indent(StringBuilder xml, int level) {
+		for (int index = 0; index < level; index++) {
+			xml.append("  ");
+		}
+	}
+
+	/**
+	 * Appends text to a buffer while escaping the XML special characters
+	 *
+	 * @param xml
+	 *            The buffer
+	 * @param value
+	 *            The text that should be appended
+	 * @param isAttribute
+	 *            If true, quotes will be escaped as well
+	 */
+	private static void escape(StringBuilder xml, String value, boolean isAttribute) {
+		for (int index = 0; index < value.length(); index++) {
+			char character = value.charAt(index);
+			switch (character) {
+			case '&':
+				xml.append("&amp;");
+				break;
+			case '<':
+				xml.append("&lt;");
+				break;
+			case '>':
+				xml.append("&gt;");
+				break;
+			case '"':
+				xml.append(isAttribute ? "&quot;" : "\"");
+				break;
+			case '\r':
+				// would otherwise be normalized to a line feed by the next parser
+				xml.append("&#xd;");
+				break;
+			default:
+				xml.append(character);
+			}
+		}
+	}
+}
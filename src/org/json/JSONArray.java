@@ -5,6 +5,7 @@ Public Domain.
  */
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.Array;
@@ -255,7 +256,24 @@ public class JSONArray implements Iterable<Object> {
 
     @Override
     public Iterator<Object> iterator() {
-        return this.myArrayList.iterator();
+        final Iterator<Object> iterator = this.myArrayList.iterator();
+        // lazily coerced XML values are converted like by opt(int)
+        return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Object next() {
+                return XMLLazyValue.resolve(iterator.next());
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+            }
+        };
     }
 
     /**
@@ -522,7 +540,11 @@ public class JSONArray implements Iterable<Object> {
      *             If there is no string value for the index.
      */
     public String getString(int index) throws JSONException {
-        Object object = this.get(index);
+        Object object = this.optRaw(index);
+        if (object instanceof XMLLazyValue) {
+            return ((XMLLazyValue) object).getText();
+        }
+        object = this.get(index);
         if (object instanceof String) {
             return (String) object;
         }
@@ -592,6 +614,19 @@ public class JSONArray implements Iterable<Object> {
      * @return An object value, or null if there is no object at that index.
      */
     public Object opt(int index) {
+        return XMLLazyValue.resolve(this.optRaw(index));
+    }
+
+    /**
+     * Get the optional object value associated with an index without
+     * converting a lazily coerced XML value (see
+     * {@link XMLParserConfiguration#isLazyValueCoercion()}).
+     *
+     * @param index
+     *            The index must be between 0 and length() - 1. If not, null is returned.
+     * @return An object value, or null if there is no object at that index.
+     */
+    Object optRaw(int index) {
         return (index < 0 || index >= this.length()) ? null : this.myArrayList
                 .get(index);
     }
@@ -1139,7 +1174,11 @@ public class JSONArray implements Iterable<Object> {
      * @return A String value.
      */
     public String optString(int index, String defaultValue) {
-        Object object = this.opt(index);
+        Object object = this.optRaw(index);
+        if (object instanceof XMLLazyValue) {
+            return ((XMLLazyValue) object).getText();
+        }
+        object = this.opt(index);
         return JSONObject.NULL.equals(object) ? defaultValue : object
                 .toString();
     }
@@ -1571,7 +1610,7 @@ public class JSONArray implements Iterable<Object> {
      */
     public Object remove(int index) {
         return index >= 0 && index < this.length()
-            ? this.myArrayList.remove(index)
+            ? XMLLazyValue.resolve(this.myArrayList.remove(index))
             : null;
     }
 
@@ -1591,8 +1630,8 @@ public class JSONArray implements Iterable<Object> {
             return false;
         }
         for (int i = 0; i < len; i += 1) {
-            Object valueThis = this.myArrayList.get(i);
-            Object valueOther = ((JSONArray)other).myArrayList.get(i);
+            Object valueThis = this.opt(i);
+            Object valueOther = ((JSONArray)other).opt(i);
             if(valueThis == valueOther) {
             	continue;
             }
@@ -1713,6 +1752,31 @@ public class JSONArray implements Iterable<Object> {
         return this.write(writer, 0, 0);
     }
 
+    /**
+     * Write the contents of the JSONArray as UTF-8 encoded JSON text to an
+     * output stream. The text is encoded while it is written, there is no
+     * intermediate string. The stream is flushed but not closed.
+     * <p><b>
+     * Warning: This method assumes that the data structure is acyclical.
+     *</b>
+     * @param out the output stream
+     * @param indentFactor
+     *            The number of spaces to add to each level of indentation.
+     * @return The output stream.
+     * @throws JSONException if a called function fails or unable to write
+     * @see JSONOutputStreamWriter
+     */
+    public OutputStream write(OutputStream out, int indentFactor) throws JSONException {
+        JSONOutputStreamWriter writer = new JSONOutputStreamWriter(out);
+        this.write(writer, indentFactor, 0);
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return out;
+    }
+
     /**
      * Write the contents of the JSONArray as JSON text to a writer.
      * 
@@ -1798,7 +1862,7 @@ public class JSONArray implements Iterable<Object> {
      */
     public List<Object> toList() {
         List<Object> results = new ArrayList<Object>(this.myArrayList.size());
-        for (Object element : this.myArrayList) {
+        for (Object element : this) {
             if (element == null || JSONObject.NULL.equals(element)) {
                 results.add(null);
             } else if (element instanceof JSONArray) {
@@ -6,6 +6,7 @@ Public Domain.
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
@@ -507,7 +508,7 @@ public class JSONObject {
      */
     public JSONObject accumulate(String key, Object value) throws JSONException {
         testValidity(value);
-        Object object = this.opt(key);
+        Object object = this.optRaw(key);
         if (object == null) {
             this.put(key,
                     value instanceof JSONArray ? new JSONArray().put(value)
@@ -539,7 +540,7 @@ public class JSONObject {
      */
     public JSONObject append(String key, Object value) throws JSONException {
         testValidity(value);
-        Object object = this.opt(key);
+        Object object = this.optRaw(key);
         if (object == null) {
             this.put(key, new JSONArray().put(value));
         } else if (object instanceof JSONArray) {
@@ -880,7 +881,11 @@ public class JSONObject {
      *             if there is no string value for the key.
      */
     public String getString(String key) throws JSONException {
-        Object object = this.get(key);
+        Object object = this.optRaw(key);
+        if (object instanceof XMLLazyValue) {
+            return ((XMLLazyValue) object).getText();
+        }
+        object = this.get(key);
         if (object instanceof String) {
             return (String) object;
         }
@@ -1066,6 +1071,18 @@ public class JSONObject {
      * @return An object which is the value, or null if there is no value.
      */
     public Object opt(String key) {
+        return key == null ? null : XMLLazyValue.resolve(this.map.get(key));
+    }
+
+    /**
+     * Get an optional value associated with a key without converting a lazily
+     * coerced XML value (see {@link XMLParserConfiguration#isLazyValueCoercion()}).
+     *
+     * @param key
+     *            A key string.
+     * @return An object which is the value, or null if there is no value.
+     */
+    Object optRaw(String key) {
         return key == null ? null : this.map.get(key);
     }
 
@@ -1710,7 +1727,11 @@ public class JSONObject {
      * @return A string which is the value.
      */
     public String optString(String key, String defaultValue) {
-        Object object = this.opt(key);
+        Object object = this.optRaw(key);
+        if (object instanceof XMLLazyValue) {
+            return ((XMLLazyValue) object).getText();
+        }
+        object = this.opt(key);
         return NULL.equals(object) ? defaultValue : object.toString();
     }
 
@@ -2252,50 +2273,63 @@ public class JSONObject {
         String hhhh;
         int i;
         int len = string.length();
+        // the start of the current run of characters that need no escaping
+        int run = 0;
 
         w.write('"');
         for (i = 0; i < len; i += 1) {
             b = c;
             c = string.charAt(i);
+            if (c >= ' ' && c != '\\' && c != '"' && c != '/' && c < '\u0080') {
+                continue;
+            }
+            String escaped;
             switch (c) {
             case '\\':
+                escaped = "\\\\";
+                break;
             case '"':
-                w.write('\\');
-                w.write(c);
+                escaped = "\\\"";
                 break;
             case '/':
-                if (b == '<') {
-                    w.write('\\');
-                }
-                w.write(c);
+                escaped = (b == '<') ? "\\/" : null;
                 break;
             case '\b':
-                w.write("\\b");
+                escaped = "\\b";
                 break;
             case '\t':
-                w.write("\\t");
+                escaped = "\\t";
                 break;
             case '\n':
-                w.write("\\n");
+                escaped = "\\n";
                 break;
             case '\f':
-                w.write("\\f");
+                escaped = "\\f";
                 break;
             case '\r':
-                w.write("\\r");
+                escaped = "\\r";
                 break;
             default:
                 if (c < ' ' || (c >= '\u0080' && c < '\u00a0')
                         || (c >= '\u2000' && c < '\u2100')) {
-                    w.write("\\u");
                     hhhh = Integer.toHexString(c);
-                    w.write("0000", 0, 4 - hhhh.length());
-                    w.write(hhhh);
+                    escaped = "\\u" + "0000".substring(hhhh.length()) + hhhh;
                 } else {
-                    w.write(c);
+                    escaped = null;
+                }
+            }
+            if (escaped != null) {
+                // write the preceding run in one piece
+                if (i > run) {
+                    w.write(string, run, i - run);
                 }
+                w.write(escaped);
+                run = i + 1;
             }
         }
+        if (len > run) {
+            w.write(string, run, len - run);
+        }
         w.write('"');
         return w;
     }
@@ -2309,7 +2343,7 @@ public class JSONObject {
      *         no value.
      */
     public Object remove(String key) {
-        return this.map.remove(key);
+        return XMLLazyValue.resolve(this.map.remove(key));
     }
 
     /**
@@ -2330,7 +2364,7 @@ public class JSONObject {
             }
             for (final Entry<String,?> entry : this.entrySet()) {
                 String name = entry.getKey();
-                Object valueThis = entry.getValue();
+                Object valueThis = XMLLazyValue.resolve(entry.getValue());
                 Object valueOther = ((JSONObject)other).get(name);
                 if(valueThis == valueOther) {
                 	continue;
@@ -2760,10 +2794,43 @@ public class JSONObject {
         return this.write(writer, 0, 0);
     }
 
+    /**
+     * Write the contents of the JSONObject as UTF-8 encoded JSON text to an
+     * output stream. The text is encoded while it is written, there is no
+     * intermediate string. The stream is flushed but not closed.
+     * <p><b>
+     * Warning: This method assumes that the data structure is acyclical.
+     * </b>
+     * @param out the output stream
+     * @param indentFactor
+     *            The number of spaces to add to each level of indentation.
+     * @return The output stream.
+     * @throws JSONException if a called function has an error or a write error
+     * occurs
+     * @see JSONOutputStreamWriter
+     */
+    public OutputStream write(OutputStream out, int indentFactor) throws JSONException {
+        JSONOutputStreamWriter writer = new JSONOutputStreamWriter(out);
+        this.write(writer, indentFactor, 0);
+        try {
+            writer.flush();
+        } catch (IOException exception) {
+            throw new JSONException(exception);
+        }
+        return out;
+    }
+
     @SuppressWarnings("resource")
     static final Writer writeValue(Writer writer, Object value,
             int indentFactor, int indent) throws JSONException, IOException {
-        if (value == null || value.equals(null)) {
+        value = XMLLazyValue.resolve(value);
+        if (value instanceof String) {
+            // the most frequent case first
+            quote((String) value, writer);
+        } else if (value instanceof Integer || value instanceof Long) {
+            // always valid JSON numbers
+            writer.write(value.toString());
+        } else if (value == null || value.equals(null)) {
             writer.write("null");
         } else if (value instanceof JSONString) {
             Object o;
@@ -2806,11 +2873,14 @@ public class JSONObject {
     }
 
     static final void indent(Writer writer, int indent) throws IOException {
-        for (int i = 0; i < indent; i += 1) {
-            writer.write(' ');
+        for (int i = 0; i < indent; i += INDENT.length()) {
+            writer.write(INDENT, 0, Math.min(indent - i, INDENT.length()));
         }
     }
 
+    /** The spaces that are written for indentation. */
+    private static final String INDENT = "                                ";
+
     /**
      * Write the contents of the JSONObject as JSON text to a writer.
      *
@@ -2849,7 +2919,7 @@ public class JSONObject {
             if (length == 1) {
             	final Entry<String,?> entry = this.entrySet().iterator().next();
                 final String key = entry.getKey();
-                writer.write(quote(key));
+                quote(key, writer);
                 writer.write(':');
                 if (indentFactor > 0) {
                     writer.write(' ');
@@ -2870,7 +2940,7 @@ public class JSONObject {
                     }
                     indent(writer, newIndent);
                     final String key = entry.getKey();
-                    writer.write(quote(key));
+                    quote(key, writer);
                     writer.write(':');
                     if (indentFactor > 0) {
                         writer.write(' ');
@@ -2906,15 +2976,13 @@ public class JSONObject {
     public Map<String, Object> toMap() {
         Map<String, Object> results = new HashMap<String, Object>();
         for (Entry<String, Object> entry : this.entrySet()) {
-            Object value;
-            if (entry.getValue() == null || NULL.equals(entry.getValue())) {
+            Object value = XMLLazyValue.resolve(entry.getValue());
+            if (value == null || NULL.equals(value)) {
                 value = null;
-            } else if (entry.getValue() instanceof JSONObject) {
-                value = ((JSONObject) entry.getValue()).toMap();
-            } else if (entry.getValue() instanceof JSONArray) {
-                value = ((JSONArray) entry.getValue()).toList();
-            } else {
-                value = entry.getValue();
+            } else if (value instanceof JSONObject) {
+                value = ((JSONObject) value).toMap();
+            } else if (value instanceof JSONArray) {
+                value = ((JSONArray) value).toList();
             }
             results.put(entry.getKey(), value);
         }
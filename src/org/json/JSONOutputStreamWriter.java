@@ -0,0 +1,207 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * A Writer that encodes JSON text as UTF-8 directly into an OutputStream.
+ * <p>
+ * The characters are encoded into a single byte buffer that is reused for
+ * the whole document and handed to the stream whenever it is full. Runs of
+ * ASCII characters, which make up most of a JSON text, are copied without
+ * any further checks. Unlike an OutputStreamWriter there is no charset
+ * encoder and no locking involved, thus an instance must only be used by a
+ * single thread.
+ * <p>
+ * If the size of the output is known in advance, the buffer can be sized
+ * accordingly. The document is then handed to the stream in one piece when
+ * the writer is flushed.
+ * <p>
+ * Unpaired surrogates are written as '?', like {@link String#getBytes(java.nio.charset.Charset)} does.
+ */
+public class JSONOutputStreamWriter extends Writer {
+
+    /** The default size of the buffer. */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /** The stream that receives the encoded text. */
+    private final OutputStream out;
+    /** The encoded text that has not yet been handed to the stream. */
+    private final byte[] buffer;
+    /** The number of bytes in the buffer. */
+    private int count;
+    /** A high surrogate that waits for the low surrogate of the next write, 0 if none. */
+    private char highSurrogate;
+    /** The number of bytes handed to the stream so far. */
+    private long written;
+
+    /**
+     * Construct a JSONOutputStreamWriter with the default buffer size.
+     * @param out The stream that receives the UTF-8 encoded text.
+     */
+    public JSONOutputStreamWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Construct a JSONOutputStreamWriter with a buffer of a given size.
+     * @param out The stream that receives the UTF-8 encoded text.
+     * @param bufferSize The size of the buffer in bytes, e.g. the expected size of the output.
+     */
+    public JSONOutputStreamWriter(OutputStream out, int bufferSize) {
+        if (out == null) {
+            throw new NullPointerException("out");
+        }
+        this.out = out;
+        // a character is encoded with at most 4 bytes
+        this.buffer = new byte[Math.max(bufferSize, 16)];
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (this.count + 4 > this.buffer.length) {
+            flushBuffer();
+        }
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int end = off + len;
+        int i = off;
+        while (i < end) {
+            if (this.count + 4 > this.buffer.length) {
+                flushBuffer();
+            }
+            if (this.highSurrogate == 0) {
+                // copy ASCII in bulk as far as the buffer allows
+                int limit = Math.min(end, i + this.buffer.length - this.count);
+                char c;
+                while (i < limit && (c = cbuf[i]) < 0x80) {
+                    this.buffer[this.count++] = (byte) c;
+                    i += 1;
+                }
+            }
+            if (i < end && this.count + 4 <= this.buffer.length) {
+                encode(cbuf[i]);
+                i += 1;
+            }
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        int end = off + len;
+        int i = off;
+        while (i < end) {
+            if (this.count + 4 > this.buffer.length) {
+                flushBuffer();
+            }
+            if (this.highSurrogate == 0) {
+                // copy ASCII in bulk as far as the buffer allows
+                int limit = Math.min(end, i + this.buffer.length - this.count);
+                char c;
+                while (i < limit && (c = str.charAt(i)) < 0x80) {
+                    this.buffer[this.count++] = (byte) c;
+                    i += 1;
+                }
+            }
+            if (i < end && this.count + 4 <= this.buffer.length) {
+                encode(str.charAt(i));
+                i += 1;
+            }
+        }
+    }
+
+    @Override
+    public void write(String str) throws IOException {
+        write(str, 0, str.length());
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        String string = String.valueOf(csq);
+        write(string, 0, string.length());
+        return this;
+    }
+
+    /**
+     * Encode a single character. The buffer must have room for 4 bytes.
+     * @param c The character.
+     */
+    private void encode(char c) {
+        if (this.highSurrogate != 0) {
+            char high = this.highSurrogate;
+            this.highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int cp = Character.toCodePoint(high, c);
+                this.buffer[this.count++] = (byte) (0xf0 | (cp >> 18));
+                this.buffer[this.count++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                this.buffer[this.count++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                this.buffer[this.count++] = (byte) (0x80 | (cp & 0x3f));
+                return;
+            }
+            // the high surrogate was unpaired. The character itself needs at most 3 more bytes
+            this.buffer[this.count++] = '?';
+        }
+        if (c < 0x80) {
+            this.buffer[this.count++] = (byte) c;
+        } else if (c < 0x800) {
+            this.buffer[this.count++] = (byte) (0xc0 | (c >> 6));
+            this.buffer[this.count++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c)) {
+            this.highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            this.buffer[this.count++] = '?';
+        } else {
+            this.buffer[this.count++] = (byte) (0xe0 | (c >> 12));
+            this.buffer[this.count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            this.buffer[this.count++] = (byte) (0x80 | (c & 0x3f));
+        }
+    }
+
+    /**
+     * Hand the encoded text to the stream without flushing the stream itself.
+     * @throws IOException If the stream can not be written.
+     */
+    private void flushBuffer() throws IOException {
+        if (this.count > 0) {
+            this.out.write(this.buffer, 0, this.count);
+            this.written += this.count;
+            this.count = 0;
+        }
+    }
+
+    /**
+     * Get the number of bytes that have been encoded so far, including those
+     * that are still buffered.
+     * @return The number of bytes.
+     */
+    public long getByteCount() {
+        return this.written + this.count;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.highSurrogate != 0) {
+            this.highSurrogate = 0;
+            if (this.count + 4 > this.buffer.length) {
+                flushBuffer();
+            }
+            this.buffer[this.count++] = '?';
+        }
+        flush();
+        this.out.close();
+    }
+}
@@ -0,0 +1,203 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.util.Arrays;
+
+/**
+ * A set of JSON Pointer paths that are compiled once and evaluated together.
+ * <p>
+ * The paths use the syntax of {@link JSONPointer}. They are compiled into a
+ * tree of their segments, so paths with a common prefix share the lookups of
+ * that prefix and a document is walked only once, no matter how many paths
+ * are queried. Unlike JSONPointer, the evaluation never throws: a path that
+ * can not be followed simply yields no value.
+ * <p>
+ * A path that ends with {@link #AS_LIST} is projected to a list: an array is
+ * taken as it is, a single value is wrapped into an array and a missing value
+ * becomes an empty array. This is the natural way to access XML elements that
+ * may occur once or several times, as {@link XML} only creates an array if
+ * there is more than one of them.
+ * <pre><code>
+ * JSONPathQuery query = new JSONPathQuery("/id", "/lastModified/time", "/channels/channel[]");
+ * JSONArray values = query.queryFrom(group);
+ * String id = values.getString(0);
+ * </code></pre>
+ * Instances are immutable and can be shared between threads.
+ */
+public class JSONPathQuery {
+
+    /** The suffix of a path that is always provided as a list. */
+    public static final String AS_LIST = "[]";
+
+    /**
+     * A segment of the compiled paths.
+     */
+    private static final class Segment {
+        /** The key of the segment. */
+        final String token;
+        /** The key as array index or -1 if it is no index. */
+        final int index;
+        /** The segments that follow this one. */
+        Segment[] children = new Segment[0];
+        /** The positions of the paths that end with this segment. */
+        int[] targets = new int[0];
+
+        Segment(String token) {
+            this.token = token;
+            this.index = toIndex(token);
+        }
+
+        /**
+         * Get the following segment with a given key, create it if necessary.
+         * @param token the key
+         * @return the segment
+         */
+        Segment child(String token) {
+            for (Segment child : this.children) {
+                if (child.token.equals(token)) {
+                    return child;
+                }
+            }
+            Segment child = new Segment(token);
+            this.children = Arrays.copyOf(this.children, this.children.length + 1);
+            this.children[this.children.length - 1] = child;
+            return child;
+        }
+
+        void addTarget(int position) {
+            this.targets = Arrays.copyOf(this.targets, this.targets.length + 1);
+            this.targets[this.targets.length - 1] = position;
+        }
+    }
+
+    /** The paths as they were compiled. */
+    private final String[] paths;
+    /** Whether the path at a position is projected to a list. */
+    private final boolean[] asList;
+    /** The root of all paths. */
+    private final Segment root = new Segment("");
+
+    /**
+     * Compiles a set of paths.
+     * @param paths the paths in JSON Pointer notation, optionally followed by
+     *  {@link #AS_LIST}
+     * @throws IllegalArgumentException if a path is not a valid JSON pointer
+     */
+    public JSONPathQuery(String... paths) {
+        this.paths = paths.clone();
+        this.asList = new boolean[paths.length];
+        for (int i = 0; i < paths.length; i += 1) {
+            String path = paths[i];
+            if (path == null) {
+                throw new NullPointerException("path cannot be null");
+            }
+            if (path.endsWith(AS_LIST)) {
+                this.asList[i] = true;
+                path = path.substring(0, path.length() - AS_LIST.length());
+            }
+            Segment segment = this.root;
+            for (String token : new JSONPointer(path).getRefTokens()) {
+                segment = segment.child(token);
+            }
+            segment.addTarget(i);
+        }
+    }
+
+    /**
+     * Evaluates all paths on a document in a single walk.
+     * @param document a JSONObject or JSONArray
+     * @return an array with one element per path, in the order in which the
+     *  paths were compiled. The element of a path that was not found is null,
+     *  thus <code>isNull</code> and the <code>opt</code> methods of the array
+     *  can be used to check for it. A list path always yields a JSONArray.
+     */
+    public JSONArray queryFrom(Object document) {
+        Object[] values = new Object[this.paths.length];
+        collect(this.root, document, values);
+        JSONArray result = new JSONArray(values.length);
+        for (int i = 0; i < values.length; i += 1) {
+            result.put(this.asList[i] ? asList(values[i]) : values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of compiled paths.
+     * @return the number of paths
+     */
+    public int length() {
+        return this.paths.length;
+    }
+
+    /**
+     * Projects a value to a list.
+     * @param value any value of a JSONObject or JSONArray, or null
+     * @return the value itself if it is a JSONArray, an empty array if it is
+     *  null or {@link JSONObject#NULL}, otherwise an array containing the value
+     */
+    public static JSONArray asList(Object value) {
+        if (value instanceof JSONArray) {
+            return (JSONArray) value;
+        }
+        JSONArray list = new JSONArray();
+        if (value != null && !JSONObject.NULL.equals(value)) {
+            list.put(value);
+        }
+        return list;
+    }
+
+    /**
+     * Walks down the segments that follow a given one.
+     * @param segment the segment that has been reached
+     * @param current the value at the segment
+     * @param values receives the values of the paths
+     */
+    private static void collect(Segment segment, Object current, Object[] values) {
+        for (int target : segment.targets) {
+            values[target] = current;
+        }
+        for (Segment child : segment.children) {
+            // the values are taken as they are stored, the accessors of the result take care of them
+            Object value;
+            if (current instanceof JSONObject) {
+                value = ((JSONObject) current).optRaw(child.token);
+            } else if (current instanceof JSONArray && child.index >= 0) {
+                value = ((JSONArray) current).optRaw(child.index);
+            } else {
+                value = null;
+            }
+            if (value != null) {
+                collect(child, value, values);
+            }
+        }
+    }
+
+    /**
+     * Converts a key to an array index.
+     * @param token the key
+     * @return the index or -1 if the key is no index
+     */
+    private static int toIndex(String token) {
+        if (token.isEmpty() || token.length() > 9) {
+            return -1;
+        }
+        for (int i = 0; i < token.length(); i += 1) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        return Integer.parseInt(token);
+    }
+
+    /**
+     * Returns the compiled paths.
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(this.paths);
+    }
+}
@@ -179,6 +179,14 @@ public class JSONPointer {
         this.refTokens = new ArrayList<String>(refTokens);
     }
 
+    /**
+     * Get the reference tokens of this pointer, already unescaped.
+     * @return an unmodifiable list of the tokens
+     */
+    List<String> getRefTokens() {
+        return Collections.unmodifiableList(this.refTokens);
+    }
+
     /**
      * @see <a href="https://tools.ietf.org/html/rfc6901#section-3">rfc6901 section 3</a>
      */
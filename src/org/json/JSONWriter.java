@@ -1,6 +1,8 @@
 package org.json;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.util.Collection;
 import java.util.Map;
 
@@ -83,6 +85,17 @@ public class JSONWriter {
         this.writer = w;
     }
 
+    /**
+     * Make a fresh JSONWriter that encodes the JSON text as UTF-8 directly
+     * into an output stream. The stream is flushed when the outermost object
+     * or array ends, but it is not closed.
+     * @param out an output stream
+     * @see JSONOutputStreamWriter
+     */
+    public JSONWriter(OutputStream out) {
+        this(new JSONOutputStreamWriter(out));
+    }
+
     /**
      * Append a value.
      * @param string A string value.
@@ -93,12 +106,28 @@ public class JSONWriter {
         if (string == null) {
             throw new JSONException("Null pointer");
         }
+        return this.append(string, false);
+    }
+
+    /**
+     * Append a value.
+     * @param value A string value or, if streamed, any value.
+     * @param streamed Whether the value is written directly to the writer,
+     *  which must be a Writer then, instead of being appended as text.
+     * @return this
+     * @throws JSONException If the value is out of sequence.
+     */
+    private JSONWriter append(Object value, boolean streamed) throws JSONException {
         if (this.mode == 'o' || this.mode == 'a') {
             try {
                 if (this.comma && this.mode == 'a') {
                     this.writer.append(',');
                 }
-                this.writer.append(string);
+                if (streamed) {
+                    JSONObject.writeValue((Writer) this.writer, value, 0, 0);
+                } else {
+                    this.writer.append((String) value);
+                }
             } catch (IOException e) {
             	// Android as of API 25 does not support this exception constructor
             	// however we won't worry about it. If an exception is happening here
@@ -149,6 +178,10 @@ public class JSONWriter {
         this.pop(m);
         try {
             this.writer.append(c);
+            if (this.top == 0 && this.writer instanceof JSONOutputStreamWriter) {
+                // the text is complete
+                ((Writer) this.writer).flush();
+            }
         } catch (IOException e) {
         	// Android as of API 25 does not support this exception constructor
         	// however we won't worry about it. If an exception is happening here
@@ -389,6 +422,11 @@ public class JSONWriter {
      * @throws JSONException If the value is out of sequence.
      */
     public JSONWriter value(Object object) throws JSONException {
+        if (this.writer instanceof Writer && (object instanceof JSONObject
+                || object instanceof JSONArray || object instanceof String)) {
+            // no need to build the text of the value first
+            return this.append(object, true);
+        }
         return this.append(valueToString(object));
     }
 }
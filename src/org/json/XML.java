@@ -5,7 +5,6 @@ Public Domain.
 */
 
 import java.io.Reader;
-import java.io.StringReader;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Iterator;
@@ -355,10 +354,7 @@ public class XML {
                                 && TYPE_ATTR.equals(string)) {
                             xmlXsiTypeConverter = config.getXsiTypeMap().get(token);
                         } else if (!nilAttributeFound) {
-                            jsonObject.accumulate(string,
-                                    config.isKeepStrings()
-                                            ? ((String) token)
-                                            : stringToValue((String) token));
+                            jsonObject.accumulate(string, toValue((String) token, config));
                         }
                         token = null;
                     } else {
@@ -407,8 +403,7 @@ public class XML {
                                     jsonObject.accumulate(config.getcDataTagName(),
                                             stringToValue(string, xmlXsiTypeConverter));
                                 } else {
-                                    jsonObject.accumulate(config.getcDataTagName(),
-                                            config.isKeepStrings() ? string : stringToValue(string));
+                                    jsonObject.accumulate(config.getcDataTagName(), toValue(string, config));
                                 }
                             }
 
@@ -424,8 +419,8 @@ public class XML {
                                     if (jsonObject.length() == 0) {
                                         context.put(tagName, new JSONArray());
                                     } else if (jsonObject.length() == 1
-                                            && jsonObject.opt(config.getcDataTagName()) != null) {
-                                        context.append(tagName, jsonObject.opt(config.getcDataTagName()));
+                                            && jsonObject.optRaw(config.getcDataTagName()) != null) {
+                                        context.append(tagName, jsonObject.optRaw(config.getcDataTagName()));
                                     } else {
                                         context.append(tagName, jsonObject);
                                     }
@@ -433,8 +428,8 @@ public class XML {
                                     if (jsonObject.length() == 0) {
                                         context.accumulate(tagName, "");
                                     } else if (jsonObject.length() == 1
-                                            && jsonObject.opt(config.getcDataTagName()) != null) {
-                                        context.accumulate(tagName, jsonObject.opt(config.getcDataTagName()));
+                                            && jsonObject.optRaw(config.getcDataTagName()) != null) {
+                                        context.accumulate(tagName, jsonObject.optRaw(config.getcDataTagName()));
                                     } else {
                                         if (!config.shouldTrimWhiteSpace()) {
                                             removeEmpty(jsonObject, config);
@@ -453,6 +448,23 @@ public class XML {
             }
         }
     }
+    /**
+     * Convert the text of an element or attribute according to the configuration.
+     *
+     * @param string The text.
+     * @param config The XML parser configuration.
+     * @return The text itself, a lazily coerced value or the JSON value of the text.
+     */
+    private static Object toValue(String string, XMLParserConfiguration config) {
+        if (config.isKeepStrings()) {
+            return string;
+        }
+        if (config.isLazyValueCoercion()) {
+            return XMLLazyValue.of(string);
+        }
+        return stringToValue(string);
+    }
+
     /**
      * This method removes any JSON entry which has the key set by XMLParserConfiguration.cDataTagName
      * and contains whitespace as this is caused by whitespace between tags. See test XMLTest.testNestedWithWhitespaceTrimmingDisabled.
@@ -709,8 +721,19 @@ public class XML {
      * @throws JSONException Thrown if there is an errors while parsing the string
      */
     public static JSONObject toJSONObject(Reader reader, XMLParserConfiguration config) throws JSONException {
+        return toJSONObject(new XMLTokener(reader, config), config);
+    }
+
+    /**
+     * Convert the XML that is provided by a tokener into a JSONObject.
+     *
+     * @param x The tokener that provides the XML.
+     * @param config Configuration options for the parser
+     * @return A JSONObject containing the structured data from the XML.
+     * @throws JSONException Thrown if there is an errors while parsing the XML
+     */
+    private static JSONObject toJSONObject(XMLTokener x, XMLParserConfiguration config) throws JSONException {
         JSONObject jo = new JSONObject();
-        XMLTokener x = new XMLTokener(reader, config);
         while (x.more()) {
             x.skipPast("<");
             if(x.more()) {
@@ -743,7 +766,10 @@ public class XML {
      * @throws JSONException Thrown if there is an errors while parsing the string
      */
     public static JSONObject toJSONObject(String string, boolean keepStrings) throws JSONException {
-        return toJSONObject(new StringReader(string), keepStrings);
+        if(keepStrings) {
+            return toJSONObject(string, XMLParserConfiguration.KEEP_STRINGS);
+        }
+        return toJSONObject(string, XMLParserConfiguration.ORIGINAL);
     }
 
     /**
@@ -768,7 +794,8 @@ public class XML {
      * @throws JSONException Thrown if there is an errors while parsing the string
      */
     public static JSONObject toJSONObject(String string, XMLParserConfiguration config) throws JSONException {
-        return toJSONObject(new StringReader(string), config);
+        // the string is scanned directly instead of being read character by character
+        return toJSONObject(new XMLTokener(string, config), config);
     }
 
     /**
@@ -0,0 +1,95 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+/**
+ * The text of an XML element or attribute that might be converted into a
+ * number, a boolean or null. The conversion is deferred until the value is
+ * accessed by {@link JSONObject#opt(String)}, {@link JSONArray#opt(int)} or
+ * any of the getters that are based on them, e.g. <code>getLong</code> or
+ * <code>getInt</code>. <code>getString</code> and <code>optString</code>
+ * provide the text as it was found in the XML without converting it.
+ * <p>
+ * Text that can not be converted anyway is stored as plain string and not
+ * wrapped. A lazy value is never returned by the accessors of JSONObject and
+ * JSONArray, only the converted value or the text.
+ * @see XMLParserConfiguration#withLazyValueCoercion(boolean)
+ */
+final class XMLLazyValue implements JSONString {
+
+    /** The text as it was found in the XML. */
+    private final String text;
+    /** The converted text, null as long as it has not been accessed. */
+    private Object value;
+
+    private XMLLazyValue(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Wrap a text if it might be converted into another value than a string.
+     * The decision only looks at the first character, like
+     * {@link XML#stringToValue(String)} does before trying to parse a number.
+     * @param string The text of an XML element or attribute.
+     * @return A lazy value or the string itself.
+     */
+    static Object of(String string) {
+        if (string.isEmpty()) {
+            return string;
+        }
+        char initial = string.charAt(0);
+        if ((initial >= '0' && initial <= '9') || initial == '-') {
+            return new XMLLazyValue(string);
+        }
+        // true, false and null
+        int length = string.length();
+        if ((length == 4 || length == 5)
+                && ("true".equalsIgnoreCase(string) || "false".equalsIgnoreCase(string) || "null".equalsIgnoreCase(string))) {
+            return new XMLLazyValue(string);
+        }
+        return string;
+    }
+
+    /**
+     * Provide the converted value of an object if it is a lazy value.
+     * @param object Any value of a JSONObject or JSONArray.
+     * @return The converted value or the object itself.
+     */
+    static Object resolve(Object object) {
+        return (object instanceof XMLLazyValue) ? ((XMLLazyValue) object).getValue() : object;
+    }
+
+    /**
+     * Get the text as it was found in the XML.
+     * @return The text.
+     */
+    String getText() {
+        return this.text;
+    }
+
+    /**
+     * Get the converted value. The text is only converted once.
+     * @return A Boolean, a Number, JSONObject.NULL or the text itself.
+     */
+    Object getValue() {
+        // converting the text twice in parallel does no harm
+        Object converted = this.value;
+        if (converted == null) {
+            converted = XML.stringToValue(this.text);
+            this.value = converted;
+        }
+        return converted;
+    }
+
+    @Override
+    public String toJSONString() {
+        return JSONWriter.valueToString(getValue());
+    }
+
+    @Override
+    public String toString() {
+        return this.text;
+    }
+}
@@ -70,6 +70,13 @@ public class XMLParserConfiguration extends ParserConfiguration {
      */
     private boolean shouldTrimWhiteSpace;
 
+    /**
+     * When parsing the XML into JSON, specifies if the conversion of values into numbers, booleans
+     * and null is deferred until the value is accessed (<code>true</code>). Values that are only read
+     * by <code>getString</code> or <code>optString</code> are never converted.
+     */
+    private boolean lazyValueCoercion;
+
     /**
      * Default parser configuration. Does not keep strings (tries to implicitly convert
      * values), and the CDATA Tag Name is "content". Trims whitespace.
@@ -192,6 +199,7 @@ public class XMLParserConfiguration extends ParserConfiguration {
                 this.closeEmptyTag
         );
         config.shouldTrimWhiteSpace = this.shouldTrimWhiteSpace;
+        config.lazyValueCoercion = this.lazyValueCoercion;
         return config;
     }
 
@@ -352,6 +360,31 @@ public class XMLParserConfiguration extends ParserConfiguration {
         return clonedConfiguration;
     }
 
+    /**
+     * Sets whether values are converted into numbers, booleans and null only when they are accessed.
+     * The values are stored with their original text, which is converted by the first call to
+     * <code>get</code>, <code>opt</code> or any typed getter like <code>getInt</code> or
+     * <code>getLong</code>. <code>getString</code> and <code>optString</code> provide the original
+     * text. The JSON text of the document is the same as without this option.
+     * Has no effect if strings are kept (see {@link #withKeepStrings(boolean)}).
+     * @param lazyValueCoercion boolean to defer the conversion of values. Off is default.
+     * @return The existing configuration will not be modified. A new configuration is returned.
+     */
+    public XMLParserConfiguration withLazyValueCoercion(boolean lazyValueCoercion){
+        XMLParserConfiguration clonedConfiguration = this.clone();
+        clonedConfiguration.lazyValueCoercion = lazyValueCoercion;
+        return clonedConfiguration;
+    }
+
+    /**
+     * Checks if the conversion of values is deferred until they are accessed.
+     *
+     * @return {@code true} if values are converted on access, {@code false} if they are converted while parsing.
+     */
+    public boolean isLazyValueCoercion() {
+        return this.lazyValueCoercion;
+    }
+
     /**
      * Checks if the parser should automatically close empty XML tags.
      *
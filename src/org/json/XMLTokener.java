@@ -9,6 +9,13 @@ import java.io.Reader;
 /**
  * The XMLTokener extends the JSONTokener to provide additional methods
  * for the parsing of XML texts.
+ * <p>
+ * If the XMLTokener is constructed from a string, it does not read the
+ * source character by character from a Reader but scans it directly as a
+ * char array. Content text and attribute values are cut out of that array
+ * in a single step, tag and attribute names are taken from a small symbol
+ * table, so that a name that occurs thousands of times in a document is
+ * only created once.
  * @author JSON.org
  * @version 2015-12-09
  */
@@ -22,6 +29,20 @@ public class XMLTokener extends JSONTokener {
 
    private XMLParserConfiguration configuration = XMLParserConfiguration.ORIGINAL;
 
+   /** The size of the symbol table. Must be a power of 2. */
+   private static final int SYMBOL_TABLE_SIZE = 256;
+
+   /** The source text if constructed from a string, null if read from a Reader. */
+   private final char[] window;
+   /** The length of the source text (up to the first null character). */
+   private final int limit;
+   /** The position of the next character in the source text. */
+   private int position;
+   /** flag to indicate that next() has run past the end of the source text. */
+   private boolean windowEnd;
+   /** The tag and attribute names that have already been created. */
+   private String[] symbols;
+
    static {
        entity = new java.util.HashMap<String, Character>(8);
        entity.put("amp",  XML.AMP);
@@ -37,6 +58,8 @@ public class XMLTokener extends JSONTokener {
      */
     public XMLTokener(Reader r) {
         super(r);
+        this.window = null;
+        this.limit = 0;
     }
 
     /**
@@ -44,7 +67,25 @@ public class XMLTokener extends JSONTokener {
      * @param s A source string.
      */
     public XMLTokener(String s) {
+        this(s, XMLParserConfiguration.ORIGINAL);
+    }
+
+    /**
+     * Construct an XMLTokener from a string and an XMLParserConfiguration.
+     * The string is scanned directly instead of being read through a Reader.
+     * @param s A source string.
+     * @param configuration the configuration that can be used to set certain flags
+     */
+    public XMLTokener(String s, XMLParserConfiguration configuration) {
         super(s);
+        this.configuration = configuration;
+        this.window = s.toCharArray();
+        // a null character ends the input (it is not allowed in XML anyway)
+        int end = 0;
+        while (end < this.window.length && this.window[end] != 0) {
+            end += 1;
+        }
+        this.limit = end;
     }
 
     /**
@@ -55,6 +96,63 @@ public class XMLTokener extends JSONTokener {
     public XMLTokener(Reader r, XMLParserConfiguration configuration) {
         super(r);
         this.configuration = configuration;
+        this.window = null;
+        this.limit = 0;
+    }
+
+    @Override
+    public void back() throws JSONException {
+        if (this.window == null) {
+            super.back();
+            return;
+        }
+        if (this.position <= 0) {
+            throw new JSONException("Stepping back two steps is not supported");
+        }
+        this.position -= 1;
+        this.windowEnd = false;
+    }
+
+    @Override
+    public boolean end() {
+        if (this.window == null) {
+            return super.end();
+        }
+        return this.windowEnd;
+    }
+
+    @Override
+    public boolean more() throws JSONException {
+        if (this.window == null) {
+            return super.more();
+        }
+        return this.position < this.limit;
+    }
+
+    @Override
+    public char next() throws JSONException {
+        if (this.window == null) {
+            return super.next();
+        }
+        if (this.position < this.limit) {
+            return this.window[this.position++];
+        }
+        this.windowEnd = true;
+        return 0;
+    }
+
+    @Override
+    public char skipTo(char to) throws JSONException {
+        if (this.window == null) {
+            return super.skipTo(to);
+        }
+        for (int i = this.position; i < this.limit; i += 1) {
+            if (this.window[i] == to) {
+                this.position = i;
+                return to;
+            }
+        }
+        return 0;
     }
 
     /**
@@ -63,6 +161,16 @@ public class XMLTokener extends JSONTokener {
      * @throws JSONException If the <code>]]&gt;</code> is not found.
      */
     public String nextCDATA() throws JSONException {
+        if (this.window != null) {
+            int end = indexOf("]]>");
+            if (end < 0) {
+                this.position = this.limit;
+                throw syntaxError("Unclosed CDATA");
+            }
+            String string = new String(this.window, this.position, end - this.position);
+            this.position = end + 3;
+            return string;
+        }
         char         c;
         int          i;
         StringBuilder sb = new StringBuilder();
@@ -91,6 +199,9 @@ public class XMLTokener extends JSONTokener {
      * @throws JSONException if a called function has an error
      */
     public Object nextContent() throws JSONException {
+        if (this.window != null) {
+            return nextWindowContent();
+        }
         char         c;
         StringBuilder sb;
         do {
@@ -122,6 +233,64 @@ public class XMLTokener extends JSONTokener {
         }
     }
 
+    /**
+     * The string variant of {@link #nextContent()}. The text is cut out of
+     * the source in one piece and only copied into a StringBuilder if it
+     * contains entities.
+     */
+    private Object nextWindowContent() throws JSONException {
+        boolean trim = configuration.shouldTrimWhiteSpace();
+        if (trim) {
+            while (this.position < this.limit && Character.isWhitespace(this.window[this.position])) {
+                this.position += 1;
+            }
+        }
+        if (this.position >= this.limit) {
+            this.windowEnd = true;
+            return null;
+        }
+        if (this.window[this.position] == '<') {
+            this.position += 1;
+            return XML.LT;
+        }
+        StringBuilder sb = null;
+        int start = this.position;
+        while (this.position < this.limit) {
+            char c = this.window[this.position];
+            if (c == '<') {
+                break;
+            }
+            this.position += 1;
+            if (c == '&') {
+                if (sb == null) {
+                    sb = new StringBuilder(this.position - start + 16);
+                }
+                sb.append(this.window, start, this.position - 1 - start);
+                appendEntity(sb);
+                start = this.position;
+            }
+        }
+        if (this.position >= this.limit) {
+            // the end of the input is always trimmed
+            this.windowEnd = true;
+            trim = true;
+        }
+        if (sb != null) {
+            sb.append(this.window, start, this.position - start);
+            return trim ? sb.toString().trim() : sb.toString();
+        }
+        int end = this.position;
+        if (trim) {
+            while (start < end && this.window[start] <= ' ') {
+                start += 1;
+            }
+            while (end > start && this.window[end - 1] <= ' ') {
+                end -= 1;
+            }
+        }
+        return (start == end) ? "" : new String(this.window, start, end - start);
+    }
+
 
     /**
      * <pre>{@code
@@ -133,6 +302,11 @@ public class XMLTokener extends JSONTokener {
      * @throws JSONException If missing ';' in XML entity.
      */
     public Object nextEntity(@SuppressWarnings("unused") char ampersand) throws JSONException {
+        if (this.window != null) {
+            StringBuilder sb = new StringBuilder(2);
+            appendEntity(sb);
+            return sb.toString();
+        }
         StringBuilder sb = new StringBuilder();
         for (;;) {
             char c = next();
@@ -147,6 +321,136 @@ public class XMLTokener extends JSONTokener {
         String string = sb.toString();
         return unescapeEntity(string);
     }
+
+    /**
+     * Decode the entity that starts at the current position (right after the
+     * ampersand) and append it. The predefined entities are decoded without
+     * creating the entity name.
+     * @param sb The buffer to which the decoded entity is appended.
+     * @throws JSONException If missing ';' in XML entity.
+     */
+    private void appendEntity(StringBuilder sb) throws JSONException {
+        int start = this.position;
+        while (this.position < this.limit
+                && (Character.isLetterOrDigit(this.window[this.position]) || this.window[this.position] == '#')) {
+            this.position += 1;
+        }
+        if (this.position >= this.limit || this.window[this.position] != ';') {
+            String string = toLowerCase(start, this.position);
+            if (this.position < this.limit) {
+                this.position += 1;
+            } else {
+                this.windowEnd = true;
+            }
+            throw syntaxError("Missing ';' in XML entity: &" + string);
+        }
+        int length = this.position - start;
+        this.position += 1;
+        char c = 0;
+        switch (Character.toLowerCase(this.window[start])) {
+        case 'a':
+            c = isEntity(start, length, "amp") ? '&' : isEntity(start, length, "apos") ? '\'' : 0;
+            break;
+        case 'g':
+            c = isEntity(start, length, "gt") ? '>' : 0;
+            break;
+        case 'l':
+            c = isEntity(start, length, "lt") ? '<' : 0;
+            break;
+        case 'q':
+            c = isEntity(start, length, "quot") ? '"' : 0;
+            break;
+        }
+        if (c != 0) {
+            sb.append(c);
+        } else {
+            sb.append(unescapeEntity(toLowerCase(start, start + length)));
+        }
+    }
+
+    /**
+     * Check if a part of the source is a given entity name (ignoring the case).
+     */
+    private boolean isEntity(int start, int length, String name) {
+        if (length != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i += 1) {
+            if (Character.toLowerCase(this.window[start + i]) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create the lower case string of a part of the source.
+     */
+    private String toLowerCase(int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i += 1) {
+            chars[i - start] = Character.toLowerCase(this.window[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Get a tag or attribute name from the symbol table. The name is only
+     * created if it is not yet in the table.
+     * @param start The position of the first character of the name.
+     * @param end The position after the last character of the name.
+     * @return The name.
+     */
+    private String symbol(int start, int end) {
+        int length = end - start;
+        // the same hash as String.hashCode()
+        int hash = 0;
+        for (int i = start; i < end; i += 1) {
+            hash = 31 * hash + this.window[i];
+        }
+        if (this.symbols == null) {
+            this.symbols = new String[SYMBOL_TABLE_SIZE];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (SYMBOL_TABLE_SIZE - 1);
+        String symbol = this.symbols[slot];
+        if (symbol != null && symbol.length() == length && symbol.hashCode() == hash) {
+            int i = 0;
+            while (i < length && symbol.charAt(i) == this.window[start + i]) {
+                i += 1;
+            }
+            if (i == length) {
+                return symbol;
+            }
+        }
+        // a collision simply replaces the previous name
+        symbol = new String(this.window, start, length);
+        this.symbols[slot] = symbol;
+        return symbol;
+    }
+
+    /**
+     * Find a string in the source, starting at the current position.
+     * @param to The string to find.
+     * @return The position of the string or -1 if it is not found.
+     */
+    private int indexOf(String to) {
+        int length = to.length();
+        char first = to.charAt(0);
+        int last = this.limit - length;
+        for (int i = this.position; i <= last; i += 1) {
+            if (this.window[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < length && this.window[i + j] == to.charAt(j)) {
+                j += 1;
+            }
+            if (j == length) {
+                return i;
+            }
+        }
+        return -1;
+    }
     
     /**
      * Unescape an XML entity encoding;
@@ -170,6 +474,19 @@ public class XMLTokener extends JSONTokener {
             }
             return new String(new int[] {cp},0,1);
         } 
+        switch (e) {
+        case "amp":
+            return "&";
+        case "apos":
+            return "'";
+        case "gt":
+            return ">";
+        case "lt":
+            return "<";
+        case "quot":
+            return "\"";
+        }
+        // entities that have been added to the table
         Character knownEntity = entity.get(e);
         if(knownEntity==null) {
             // we don't know the entity so keep it encoded
@@ -266,6 +583,9 @@ public class XMLTokener extends JSONTokener {
         do {
             c = next();
         } while (Character.isWhitespace(c));
+        if (this.window != null && c != 0 && "<>/=!?".indexOf(c) < 0) {
+            return nextWindowToken(c);
+        }
         switch (c) {
         case 0:
             throw syntaxError("Misshaped element");
@@ -335,6 +655,73 @@ public class XMLTokener extends JSONTokener {
     }
 
 
+    /**
+     * The string variant of {@link #nextToken()} for quoted strings and names.
+     * @param c The first character of the token, which has already been consumed.
+     * @return a String.
+     * @throws JSONException If the XML is not well formed.
+     */
+    private Object nextWindowToken(char c) throws JSONException {
+        if (c == '"' || c == '\'') {
+
+// Quoted string
+
+            StringBuilder sb = null;
+            int start = this.position;
+            while (this.position < this.limit) {
+                char d = this.window[this.position++];
+                if (d == c) {
+                    if (sb == null) {
+                        return new String(this.window, start, this.position - 1 - start);
+                    }
+                    sb.append(this.window, start, this.position - 1 - start);
+                    return sb.toString();
+                }
+                if (d == '&') {
+                    if (sb == null) {
+                        sb = new StringBuilder(this.position - start + 16);
+                    }
+                    sb.append(this.window, start, this.position - 1 - start);
+                    appendEntity(sb);
+                    start = this.position;
+                }
+            }
+            this.windowEnd = true;
+            throw syntaxError("Unterminated string");
+        }
+
+// Name
+
+        int start = this.position - 1;
+        while (this.position < this.limit) {
+            char d = this.window[this.position];
+            if (Character.isWhitespace(d)) {
+                String name = symbol(start, this.position);
+                this.position += 1;
+                return name;
+            }
+            switch (d) {
+            case '>':
+            case '/':
+            case '=':
+            case '!':
+            case '?':
+            case '[':
+            case ']':
+                return symbol(start, this.position);
+            case '<':
+            case '"':
+            case '\'':
+                this.position += 1;
+                throw syntaxError("Bad character in a name");
+            }
+            this.position += 1;
+        }
+        this.windowEnd = true;
+        return symbol(start, this.position);
+    }
+
+
     /**
      * Skip characters until past the requested string.
      * If it is not found, we are left at the end of the source with a result of false.
@@ -344,6 +731,11 @@ public class XMLTokener extends JSONTokener {
     // even though ours does not have that method, to have API compatibility, our method in the subclass
     // should match.
     public void skipPast(String to) {
+        if (this.window != null) {
+            int found = indexOf(to);
+            this.position = (found < 0) ? this.limit : found + to.length();
+            return;
+        }
         boolean b;
         char c;
         int i;
@@ -407,4 +799,36 @@ public class XMLTokener extends JSONTokener {
             }
         }
     }
+
+    /**
+     * Make a printable string of this XMLTokener.
+     *
+     * @return " at {index} [character {character} line {line}]"
+     */
+    @Override
+    public String toString() {
+        if (this.window == null) {
+            return super.toString();
+        }
+        // only needed for error messages, so the line is determined on demand
+        long character = 1;
+        long line = 1;
+        char previous = 0;
+        for (int i = 0; i < this.position; i += 1) {
+            char c = this.window[i];
+            if (c == '\r') {
+                line += 1;
+                character = 0;
+            } else if (c == '\n') {
+                if (previous != '\r') {
+                    line += 1;
+                }
+                character = 0;
+            } else {
+                character += 1;
+            }
+            previous = c;
+        }
+        return " at " + this.position + " [character " + character + " line " + line + "]";
+    }
 }
@@ -423,9 +423,11 @@ function setSystems(statusCode, response){
 	// and now add the actual systems to the select boxes
 	$.each(systemIdentifiers, function(index, key) {
 		var system = orderedSystems.get(key);
+		// indicate systems that are currently not reachable
+		var title = system.description + ((system.health && (system.health.state == 'unavailable')) ? '\n\nThis system is currently not available: ' + system.health.lastError : '');
 		// with the actual systems
 		systemSelectA.append('<option title="' + 
-							system.description + 
+							title + 
 							'" id="' + 
 							system.server +
 							'" color="' +
@@ -438,7 +440,7 @@ function setSystems(statusCode, response){
 							system.name + 
 							'</option>');
 		systemSelectB.append('<option title="' + 
-							system.description + 
+							title + 
 							'" id="' + 
 							system.server + 
 							'" color="' +
@@ -215,6 +215,7 @@ function getSystemConfiguration(encryptPasswords){
 				password = encrypt(password);
 			}
 			var environment = $(this).find('td').eq(6).find('#environment').val();
+			var compression = $(this).find('td').eq(7).find('#compression').val() || 'responses';
 
 			// add the Mirth instance to the list
 			systems.push({
@@ -224,6 +225,7 @@ function getSystemConfiguration(encryptPasswords){
 				"port": port,
 				"name": name,
 				"description": description,
+				"compression": compression,
 				"user": user
 			});
 		}
@@ -261,9 +263,13 @@ function getMiscConfiguration(){
 	// Read in the misc parameters. The order is of importance as the Java side stores the config in exaclty this order (no clue why). 
 	// If the order is changed the checksums do not correspond anymore and the config will be detected as changed everytime the section is closed
 	return  {
+				"connectTimeoutInSeconds": $('#connectTimeout').val().trim(),
+				"idleClientTimeoutInMinutes": $('#idleClientTimeout').val().trim(),
 				"sessionLifeSpanInMinutes": ($('#sessionLifespann').val().trim() != 'deactivated') ? $('#sessionLifespann').val().trim() : 0,
 				"useExtendedChannelStateControlScheme": useExtendedChannelStateControlScheme,
-				"channelStatusUpdateIntervalInSeconds": refreshIntervalInSeconds
+				"cacheMemoryBudgetInMB": $('#cacheMemoryBudget').val().trim(),
+				"channelStatusUpdateIntervalInSeconds": refreshIntervalInSeconds,
+				"readTimeoutInSeconds": $('#readTimeout').val().trim()
 			}
 }
 
@@ -312,6 +318,22 @@ function createEnvironmentSelect(environments){
 	return environmentSelect;
 }
 
+/**
+ * Creates a select box for the compression mode of a Mirth instance
+ * @param {String} compression The current compression mode (none, responses or all). If not set, responses is used.
+ * @return {String} a select box containing the compression modes
+ */
+function createCompressionSelect(compression){
+	compression = compression || 'responses';
+	var compressionSelect = '<select id="compression">';
+	[['none', 'None'], ['responses', 'Downloads'], ['all', 'Downloads & updates']].forEach((mode) => {
+		compressionSelect += '<option value="' + mode[0] + '"' + ((mode[0] == compression) ? ' selected' : '') + '>' + mode[1] + '</option>';
+	});
+	compressionSelect += '</select>';
+	
+	return compressionSelect;
+}
+
 /**
  * Creates the content of the Mirth Intances panel 
  * @param {Object[]} systemConfiguration An array containing all Mirth instances
@@ -323,7 +345,7 @@ function setSystemConfiguration(systemConfiguration, environments){
 	var environmentSelect = createEnvironmentSelect(environments);
 	
 	// build up the Mirth instance configuration table
-	var mirthInstanceConfigurationSection = '<h2><i><u>Mirth Instances</u></i></h2><table id="mirthInstanceTable"><tr><th>Name</th><th>Description</th><th>Server</th><th>Port</th><th>User</th><th>Password</th><th>Environment</th><th></th></tr>';
+	var mirthInstanceConfigurationSection = '<h2><i><u>Mirth Instances</u></i></h2><table id="mirthInstanceTable"><tr><th>Name</th><th>Description</th><th>Server</th><th>Port</th><th>User</th><th>Password</th><th>Environment</th><th>Compression</th><th></th></tr>';
 	// add all Mirth instances to the table
 	systemConfiguration.forEach((system) => {
 		
@@ -334,6 +356,7 @@ function setSystemConfiguration(systemConfiguration, environments){
 											'<td><input type="text" id="user" value="' + system.user + '" title="The user name of a mirth user account at this mirth instance.\nThis account needs full access."></td>' +
 											'<td><input type="password" id="password" value="' + system.password + '" title="The passord of a mirth user account at this mirth instance.">&nbsp;<img src="/img/showPassword.png" alt="show password" id="showPassword" onmouseenter="showPassword(event)" onmouseleave="hidePassword(event)" onclick="copyToClipboard(event)" title="Click left to copy the password to the clipboard"></img></td>' +
 											'<td title="The environment to which this mirth instance belongs">' + environmentSelect.replace('value="'+system.environment + '"', 'value="'+system.environment + '" selected') + '</td>' +
+											'<td title="Which transfers with this mirth instance are compressed.\nCompressed updates need a mirth instance that accepts compressed requests - otherwise they are sent uncompressed.">' + createCompressionSelect(system.compression) + '</td>' +
 											'<td class="deleteRow"><img src="/img/removeRow.png" alt="remove row" id="removeConfigRow" title="Remove the mirth instance definition"></img></td></tr>';
 	});
 	mirthInstanceConfigurationSection += '</table><br/>';
@@ -388,6 +411,10 @@ function setMiscConfiguration(miscellaneous){
 							'<tr><td>Maximum inactivity period:</td><td style="white-space: nowrap; overflow: hidden; text-overflow: ellipsis;"><input type="number" id="sessionLifespann" min="0" value="' + (miscellaneous.sessionLifeSpanInMinutes || 0) + '" style="width: 40px" title="The number of minutes of inactivity after which a user session will expire and the user needs to reauthenticate to go on.\nThe session will never expire if this value is set to 0."> minutes&nbsp;<span id="unlimitedLifespan" style="color: red" title="The session inactivity timeout is currently deactivated.\nIncrease the value for reactivating it."/><b><i>(deactivated)</i></b></span></td></tr>' + 
 							'<tr><td>Channel status refresh frequency:</td><td><input type="number" id="channelStatusUpdateInterval" min="1" value="' + (miscellaneous.channelStatusUpdateIntervalInSeconds || 5) + '" style="width: 40px" title="The number of seconds after which the state of channels will be refreshed"/> seconds</td></tr>' + 
 							'<tr><td>Use extended channel state control:</td><td><input type="checkbox" id="useExtendedChannelStateControlScheme"' + (miscellaneous.useExtendedChannelStateControlScheme ? ' checked="checked"' : '') + '" title="Determines if the extended channel state control scheme or the classic one like in Mirth Administrator will be used.\n\nThe extended channel state control scheme allows the direct change between arbitrary states (e.g. from stopped to paused).\n\nThis however comes at a price:\nIf a channel should be set from STOPPED to PAUSED or should be deployed to an arbitrary state that is not configured as the initial state of the channel, the Mirth Administrator will indicate a revision change.\n\nThis is due to the way the limitations are circumvented:\n 1. initial state is changed to the desired state\n 2. channel is deployed\n 3. initial state is changed back to the original state, which causes the revision change"/></td></tr>' + 
+							'<tr><td>Cache memory budget:</td><td><input type="number" id="cacheMemoryBudget" min="0" value="' + ((miscellaneous.cacheMemoryBudgetInMB != null) ? miscellaneous.cacheMemoryBudgetInMB : 256) + '" style="width: 40px" title="The approximate heap in MB that may be occupied by the caches of all Mirth systems.\nIf it is exceeded, the least recently used systems release their caches. They will be reloaded from the server on demand.\nThe budget is deactivated if this value is set to 0."/> MB</td></tr>' + 
+							'<tr><td>Idle system cache timeout:</td><td><input type="number" id="idleClientTimeout" min="0" value="' + ((miscellaneous.idleClientTimeoutInMinutes != null) ? miscellaneous.idleClientTimeoutInMinutes : 60) + '" style="width: 40px" title="The number of minutes of inactivity after which a Mirth system releases it\'s caches.\nThey will be reloaded from the server on demand.\nThe caches will never be released due to inactivity if this value is set to 0."/> minutes</td></tr>' + 
+							'<tr><td>Connect timeout:</td><td><input type="number" id="connectTimeout" min="1" value="' + (miscellaneous.connectTimeoutInSeconds || 5) + '" style="width: 40px" title="The number of seconds to wait for a connection to a Mirth system.\nAfter 3 failed calls in a row a system is considered unavailable and further calls fail immediately till it answers again."/> seconds</td></tr>' + 
+							'<tr><td>Read timeout:</td><td><input type="number" id="readTimeout" min="0" value="' + ((miscellaneous.readTimeoutInSeconds != null) ? miscellaneous.readTimeoutInSeconds : 60) + '" style="width: 40px" title="The number of seconds to wait for data from a Mirth system.\nThe timeout is deactivated if this value is set to 0."/> seconds</td></tr>' + 
 							'</table>';
 	// and display it
 	$("#miscConfiguration").html(miscConfiguration);
@@ -406,6 +433,18 @@ function setMiscConfiguration(miscellaneous){
 			$(this).val(1);
 		}
 	});
+
+	$('#connectTimeout').on('input', function() {
+		if($(this).val() < 1){
+			$(this).val(1);
+		}
+	});
+
+	$('#cacheMemoryBudget, #idleClientTimeout, #readTimeout').on('input', function() {
+		if($(this).val() < 0){
+			$(this).val(0);
+		}
+	});
 }
 
 function setFunctionFilterConfiguration(functionFilters){
@@ -547,6 +586,7 @@ function addMirthInstance(environments){
 				'<td><input type="text" id="user" value=""></td>' +
 				'<td><input type="password" id="password" value="">&nbsp;<img src="/img/showPassword.png" alt="show password" id="showPassword" onmouseenter="showPassword(event)" onmouseleave="hidePassword(event)" onclick="copyToClipboard(event)"></img></td>' +
 				'<td>' + createEnvironmentSelect(environments) + '</td>' +
+				'<td>' + createCompressionSelect() + '</td>' +
 				'<td class="deleteRow"><img src="/img/removeRow.png" alt="remove row" id="removeConfigRow"></img></td></tr>';
 	$('#mirthInstanceTable').append(newRow);
 	